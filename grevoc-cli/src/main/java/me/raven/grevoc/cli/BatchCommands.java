@@ -0,0 +1,315 @@
+package me.raven.grevoc.cli;
+
+import me.raven.grevoc.core.ExternalWordCounter;
+import me.raven.grevoc.core.HeavyHitters;
+import me.raven.grevoc.core.Vocabulary;
+import me.raven.grevoc.core.VocabularyDiff;
+import me.raven.grevoc.core.Wordlist;
+import me.raven.grevoc.core.translator.Translator;
+import me.raven.grevoc.core.translator.TranslatorManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Pipeline stages run in the client process, they read stdin and write stdout:
+ * <pre>cat corpus | grevoc-cli count | grevoc-cli translate --missing vocab.tsv
+ *     | grevoc-cli merge vocab.tsv</pre>
+ * count emits wordlist records (word, tab, occurrences), translate turns them into
+ * vocabulary entries, merge folds entries into vocabulary file. Records are processed as they
+ * arrive: count keeps a counter per distinct word (with --memory MB it spills them to disk,
+ * with --top K it approximately counts only K most frequent words in fixed memory),
+ * translate a single batch and merge the target vocabulary, none of them keeps the input.
+ * Vocabularies are synced by patches holding only changed entries:
+ * <pre>grevoc-cli diff --base old.tsv new.tsv | ssh host grevoc-cli patch vocab.tsv</pre> */
+class BatchCommands {
+    public static final String DEFAULT_ENGINE = "debug";
+    public static final String DEFAULT_SOURCE_LANGUAGE = "en";
+    public static final String DEFAULT_TARGET_LANGUAGE = "ru";
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    private BatchCommands() {
+    }
+
+    /** Tells whether command is a pipeline stage rather than a daemon request */
+    static boolean isBatchCommand(List<String> arguments) {
+        switch(arguments.get(0)) {
+            case "count":
+            case "merge":
+            case "diff":
+            case "patch":
+                return true;
+            case "translate":
+                // daemon translate takes positional words, pipeline stage only options
+                return 1 == arguments.size() || arguments.get(1).startsWith("--");
+            default:
+                return false;
+        }
+    }
+
+    /** Runs pipeline stage
+     *
+     * @param arguments command followed by its options
+     * @param log stream for diagnostics, stdout is reserved for records
+     * @return process exit code
+     */
+    static int run(List<String> arguments, InputStream input, OutputStream output, PrintStream log)
+            throws IOException {
+        Map<String, String> options = parseOptions(arguments.subList(1, arguments.size()));
+        String sl = options.getOrDefault("--sl", DEFAULT_SOURCE_LANGUAGE);
+        String tl = options.getOrDefault("--tl", DEFAULT_TARGET_LANGUAGE);
+
+        switch(arguments.get(0)) {
+            case "count":
+                if(options.containsKey("--top"))
+                    countTop(input, output, Integer.parseInt(options.get("--top")));
+                else if(options.containsKey("--memory"))
+                    countExternally(input, output, Long.parseLong(options.get("--memory")) << 20);
+                else
+                    count(input, output);
+                return 0;
+            case "translate":
+                Set<String> known_words = options.containsKey("--missing")
+                        ? readWords(Path.of(options.get("--missing")))
+                        : Set.of();
+                Translator translator = TranslatorManager.construct(
+                        options.getOrDefault("--engine", DEFAULT_ENGINE), sl, tl);
+                int batch_size = Integer.parseInt(options.getOrDefault("--batch",
+                        String.valueOf(DEFAULT_BATCH_SIZE)));
+                long translated = translate(input, output, translator, known_words, batch_size);
+                log.println("Translated " + translated + " words");
+                return 0;
+            case "merge":
+                if(!options.containsKey(""))
+                    throw new IllegalArgumentException("Usage: merge <vocabulary> [--sl l] [--tl l]");
+
+                Path file = Path.of(options.get(""));
+                long merged = merge(input, file, sl, tl);
+                log.println("Merged " + merged + " entries into " + file);
+                return 0;
+            case "diff":
+                if(!options.containsKey("") || !options.containsKey("--base"))
+                    throw new IllegalArgumentException(
+                            "Usage: diff --base <vocabulary> <vocabulary> [--sl l] [--tl l]");
+
+                int changes = diff(Path.of(options.get("--base")), Path.of(options.get("")),
+                        output, sl, tl);
+                log.println("Found " + changes + " changed entries");
+                return 0;
+            case "patch":
+                if(!options.containsKey(""))
+                    throw new IllegalArgumentException("Usage: patch <vocabulary> [--sl l] [--tl l]");
+
+                Path patched = Path.of(options.get(""));
+                int applied = patch(input, patched, sl, tl);
+                log.println("Applied " + applied + " changed entries to " + patched);
+                return 0;
+            default:
+                throw new IllegalArgumentException("Unknown command [" + arguments.get(0) + "]");
+        }
+    }
+
+    /** Counts words of plain text and writes wordlist records */
+    static void count(InputStream input, OutputStream output) throws IOException {
+        var wordlist = new Wordlist();
+        wordlist.appendText(input);
+        wordlist.export(output);
+    }
+
+    /** Counts words of plain text larger than heap, spilling partial counts to temporary
+     * files; records come in alphabetic order
+     *
+     * @param memory_budget bytes of counts kept in memory
+     */
+    static void countExternally(InputStream input, OutputStream output, long memory_budget)
+            throws IOException {
+        Path temp_dir = Path.of(System.getProperty("java.io.tmpdir"));
+
+        try(var counter = new ExternalWordCounter(temp_dir, memory_budget)) {
+            counter.appendText(input);
+            counter.export(output);
+        }
+    }
+
+    /** Approximately counts words of plain text in fixed memory and writes only the top most
+     * frequent ones, in descending order of occurrences */
+    static void countTop(InputStream input, OutputStream output, int top) throws IOException {
+        var heavy_hitters = new HeavyHitters(top);
+        heavy_hitters.appendText(input);
+        heavy_hitters.export(output);
+    }
+
+    /** Translates wordlist records batch by batch, each batch is written before the next one
+     * is read. Words of known_words and words without translations are skipped.
+     *
+     * @return count of written entries
+     */
+    static long translate(InputStream input, OutputStream output, Translator translator,
+                          Set<String> known_words, int batch_size) throws IOException {
+        if(batch_size <= 0)
+            throw new IllegalArgumentException("Batch size must be positive: " + batch_size);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                Vocabulary.EXPORT_BUFFER_SIZE);
+        var batch = new HashMap<String, Integer>(batch_size * 2);
+        long[] written = {0};
+
+        try {
+            Wordlist.readEntries(input, (word, occurrences) -> {
+                if(known_words.contains(word))
+                    return;
+
+                batch.merge(word, occurrences, Integer::sum);
+                if(batch.size() >= batch_size)
+                    written[0] += flushBatch(batch, translator, writer);
+            });
+            written[0] += flushBatch(batch, translator, writer);
+        }
+        catch(UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+
+        return written[0];
+    }
+
+    /** Merges vocabulary entries into vocabulary file, file is replaced atomically
+     *
+     * @return count of merged entries
+     * @throws IOException if existing file can't be read fully, it is left as it is then
+     */
+    static long merge(InputStream input, Path file, String sl, String tl) throws IOException {
+        var vocabulary = Files.exists(file) ? readVocabulary(file, sl, tl) : new Vocabulary(sl, tl);
+
+        long merged = Vocabulary.readEntries(input, (word, translations, occurrences) -> {
+            if(vocabulary.getWordsTranslationsView().containsKey(word))
+                vocabulary.appendEntry(word, translations, occurrences);
+            else
+                vocabulary.addEntry(word, translations, occurrences);
+        });
+
+        if(merged > 0 && !vocabulary.export(file))
+            throw new IOException("Failed to export vocabulary to " + file);
+
+        return merged;
+    }
+
+    /** Writes patch turning base vocabulary file into target one
+     *
+     * @return count of changed entries
+     * @throws IOException if either file is missing or can't be read, nothing is written then
+     */
+    static int diff(Path base_file, Path target_file, OutputStream output, String sl, String tl)
+            throws IOException {
+        Vocabulary base = readVocabulary(base_file, sl, tl);
+        Vocabulary target = readVocabulary(target_file, sl, tl);
+
+        VocabularyDiff diff = VocabularyDiff.compute(base, target);
+        diff.write(output);
+        return diff.size();
+    }
+
+    /** Applies patch to vocabulary file, file is replaced atomically
+     *
+     * @return count of changed entries
+     * @throws IOException if existing file can't be read fully, it is left as it is then
+     * @throws IllegalStateException if file is not the base version of the patch
+     */
+    static int patch(InputStream input, Path file, String sl, String tl) throws IOException {
+        VocabularyDiff diff = VocabularyDiff.read(input);
+        var vocabulary = Files.exists(file) ? readVocabulary(file, sl, tl) : new Vocabulary(sl, tl);
+
+        diff.applyTo(vocabulary);
+        if(!diff.isEmpty() && !vocabulary.export(file))
+            throw new IOException("Failed to export vocabulary to " + file);
+
+        return diff.size();
+    }
+
+    private static long flushBatch(Map<String, Integer> batch, Translator translator,
+                                   Writer writer) {
+        if(batch.isEmpty())
+            return 0;
+
+        Map<String, HashSet<String>> translations = translator.translate(new ArrayList<>(batch.keySet()));
+        long written = 0;
+
+        try {
+            for(Map.Entry<String, Integer> entry: batch.entrySet()) {
+                Set<String> word_translations = translations.get(entry.getKey());
+                if(null == word_translations || word_translations.isEmpty())
+                    continue;
+
+                Vocabulary.writeEntry(writer, entry.getKey(), word_translations, entry.getValue());
+                written++;
+            }
+
+            // downstream stage may start working on the batch right away
+            writer.flush();
+        }
+        catch(IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+
+        batch.clear();
+        return written;
+    }
+
+    /** Reads vocabulary file. Unlike Vocabulary.importFromFile read failures are thrown, so a
+     * file which can't be read fully is never taken for a smaller vocabulary and written back.
+     *
+     * @throws IOException if file is missing, truncated or can't be read
+     */
+    static Vocabulary readVocabulary(Path file, String sl, String tl) throws IOException {
+        var vocabulary = new Vocabulary(sl, tl);
+
+        try(InputStream is = Files.newInputStream(file)) {
+            vocabulary.append(is);
+        }
+
+        return vocabulary;
+    }
+
+    private static Set<String> readWords(Path vocabulary_file) throws IOException {
+        var words = new HashSet<String>();
+
+        try(InputStream is = Files.newInputStream(vocabulary_file)) {
+            Vocabulary.readEntries(is, (word, translations, occurrences) -> words.add(word));
+        }
+
+        return words;
+    }
+
+    /** Parses "--name value" options, the single positional argument is mapped to "" */
+    private static Map<String, String> parseOptions(List<String> arguments) {
+        var options = new HashMap<String, String>();
+
+        for(int i = 0; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
+
+            if(argument.startsWith("--")) {
+                if(i + 1 == arguments.size())
+                    throw new IllegalArgumentException("Option " + argument + " requires value");
+                options.put(argument, arguments.get(++i));
+            }
+            else if(null != options.putIfAbsent("", argument)) {
+                throw new IllegalArgumentException("Unexpected argument " + argument);
+            }
+        }
+
+        return options;
+    }
+}
@@ -0,0 +1,64 @@
+package me.raven.grevoc.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+/** Thin client of grevoc-cli daemon, it does no work itself besides socket round trip
+ * @see me.raven.grevoc.cli.Daemon */
+public class Client {
+    private final Path socket_path;
+
+    public Client(Path socket_path) {
+        this.socket_path = Objects.requireNonNull(socket_path, "Socket path must be non null");
+    }
+
+    /** Sends single request to daemon
+     *
+     * @param request command followed by its arguments
+     * @return response payload lines
+     * @throws IOException if daemon is not reachable or request has failed
+     */
+    public List<String> send(List<String> request) throws IOException {
+        String line = Protocol.encodeRequest(request);
+
+        try(SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket_path));
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+
+            var reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            return Protocol.readResponse(reader);
+        }
+    }
+
+    /** Checks if daemon answers on the socket */
+    public boolean isAlive() {
+        try {
+            return List.of("pong").equals(send(List.of("ping")));
+        }
+        catch(IOException ioe) {
+            return false;
+        }
+    }
+
+    public Path getSocketPath() {
+        return socket_path;
+    }
+}
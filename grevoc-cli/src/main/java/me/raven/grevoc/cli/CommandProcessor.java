@@ -0,0 +1,170 @@
+package me.raven.grevoc.cli;
+
+import me.raven.grevoc.core.VersionedVocabulary;
+import me.raven.grevoc.core.Vocabulary;
+import me.raven.grevoc.core.VocabularySnapshot;
+import me.raven.grevoc.core.translator.Translator;
+import me.raven.grevoc.core.translator.TranslatorManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Executes daemon commands against warm state.
+ * Vocabularies are loaded once per file and language pair and then served from snapshots,
+ * so lookups never wait for each other. Translators are constructed once per engine and
+ * language pair, their results are cached. */
+class CommandProcessor {
+    public static final String SHUTDOWN_COMMAND = "shutdown";
+    public static final int MAX_CACHED_TRANSLATIONS = 100_000;
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Map<String, VersionedVocabulary> vocabularies = new ConcurrentHashMap<>();
+    private final Map<String, Translator> translators = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> translations_cache = new ConcurrentHashMap<>();
+
+    /** Executes request and returns response payload
+     *
+     * @throws IllegalArgumentException if request is malformed
+     */
+    List<String> process(List<String> request) {
+        if(request.isEmpty() || request.get(0).isEmpty())
+            throw new IllegalArgumentException("Empty request");
+
+        List<String> arguments = request.subList(1, request.size());
+        switch(request.get(0)) {
+            case "ping":
+                return List.of("pong");
+            case "lookup":
+                requireArguments(arguments, 4, "lookup <file> <sl> <tl> <word>...");
+                return lookup(arguments);
+            case "translate":
+                requireArguments(arguments, 4, "translate <engine> <sl> <tl> <word>...");
+                return translate(arguments);
+            case "reload":
+                requireArguments(arguments, 3, "reload <file> <sl> <tl>");
+                return reload(arguments);
+            case "status":
+                return status();
+            case SHUTDOWN_COMMAND:
+                // daemon itself stops after the response has been sent
+                return List.of("bye");
+            default:
+                throw new IllegalArgumentException("Unknown command [" + request.get(0) + "]");
+        }
+    }
+
+    private List<String> lookup(List<String> arguments) {
+        VocabularySnapshot snapshot = vocabulary(arguments.get(0), arguments.get(1),
+                arguments.get(2), false).snapshot();
+        var response = new ArrayList<String>(arguments.size() - 3);
+
+        for(String word: arguments.subList(3, arguments.size()))
+            response.add(word + Protocol.SEPARATOR + String.join("|", snapshot.getTranslations(word))
+                    + Protocol.SEPARATOR + snapshot.getOccurrences(word));
+
+        return response;
+    }
+
+    private List<String> translate(List<String> arguments) {
+        String key = String.join(":", arguments.subList(0, 3));
+        List<String> words = arguments.subList(3, arguments.size());
+        var translations = new HashMap<String, Set<String>>();
+        var missing_words = new ArrayList<String>();
+
+        for(String word: words) {
+            Set<String> cached = translations_cache.get(key + Protocol.SEPARATOR + word);
+            if(null == cached)
+                missing_words.add(word);
+            else
+                translations.put(word, cached);
+        }
+
+        if(!missing_words.isEmpty()) {
+            Translator translator = translators.computeIfAbsent(key, k ->
+                    TranslatorManager.construct(arguments.get(0), arguments.get(1), arguments.get(2)));
+            Map<String, ? extends Set<String>> translated;
+
+            // engines are not required to be thread safe
+            synchronized(translator) {
+                translated = translator.translate(missing_words);
+            }
+
+            translated.forEach((word, word_translations) -> {
+                Set<String> immutable = Set.copyOf(word_translations);
+                translations.put(word, immutable);
+                if(translations_cache.size() < MAX_CACHED_TRANSLATIONS)
+                    translations_cache.put(key + Protocol.SEPARATOR + word, immutable);
+            });
+        }
+
+        var response = new ArrayList<String>(words.size());
+        for(String word: words)
+            response.add(word + Protocol.SEPARATOR
+                    + String.join("|", translations.getOrDefault(word, Set.of())));
+
+        return response;
+    }
+
+    private List<String> reload(List<String> arguments) {
+        VersionedVocabulary vocabulary = vocabulary(arguments.get(0), arguments.get(1),
+                arguments.get(2), true);
+        return List.of(String.valueOf(vocabulary.snapshot().size()));
+    }
+
+    private List<String> status() {
+        var response = new ArrayList<String>();
+        response.add("vocabularies" + Protocol.SEPARATOR + vocabularies.size());
+        response.add("translators" + Protocol.SEPARATOR + translators.size());
+        response.add("cached_translations" + Protocol.SEPARATOR + translations_cache.size());
+
+        vocabularies.forEach((key, vocabulary) ->
+                response.add(key + Protocol.SEPARATOR + vocabulary.snapshot().size()));
+        return response;
+    }
+
+    /** Returns loaded vocabulary, loading it on the first request */
+    private VersionedVocabulary vocabulary(String file, String sl, String tl, boolean reload) {
+        Path path = Path.of(file).toAbsolutePath().normalize();
+        String key = path.toString() + Protocol.SEPARATOR + sl + Protocol.SEPARATOR + tl;
+
+        if(reload)
+            return vocabularies.compute(key, (k, old) -> load(path, sl, tl));
+
+        return vocabularies.computeIfAbsent(key, k -> load(path, sl, tl));
+    }
+
+    /** Loads vocabulary file; failure is thrown, so it is never cached as empty vocabulary */
+    private static VersionedVocabulary load(Path path, String sl, String tl) {
+        long start = System.nanoTime();
+        Vocabulary vocabulary;
+
+        try {
+            vocabulary = BatchCommands.readVocabulary(path, sl, tl);
+        }
+        catch(NoSuchFileException nsfe) {
+            throw new IllegalArgumentException("No such vocabulary " + path, nsfe);
+        }
+        catch(IOException ioe) {
+            throw new UncheckedIOException("Failed to load vocabulary " + path, ioe);
+        }
+
+        LOGGER.info("Loaded vocabulary {} of {} entries in {} ms", path,
+                vocabulary.getWordsView().size(), (System.nanoTime() - start) / 1_000_000);
+        return new VersionedVocabulary(vocabulary);
+    }
+
+    private static void requireArguments(List<String> arguments, int count, String usage) {
+        if(arguments.size() < count)
+            throw new IllegalArgumentException("Usage: " + usage);
+    }
+}
@@ -0,0 +1,272 @@
+package me.raven.grevoc.cli;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Long-lived process serving grevoc-cli clients over Unix domain socket.
+ * Vocabularies, translators and translation cache stay loaded between commands, so a repeated
+ * command costs one socket round trip instead of JVM start and data reload. Every connection
+ * is served by its own worker, so clients don't wait for each other; a connection which sends
+ * no request for idle timeout is closed, so idle clients can't hold all workers.
+ * Only the user may connect: socket file is readable and writable by owner only, and its
+ * directory is created accessible by owner only.
+ * @see me.raven.grevoc.cli.Client */
+public class Daemon implements AutoCloseable {
+    public static final int DEFAULT_WORKERS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS =
+            PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> SOCKET_PERMISSIONS =
+            PosixFilePermissions.fromString("rw-------");
+
+    private final Path socket_path;
+    private final CommandProcessor processor = new CommandProcessor();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private ServerSocketChannel server;
+    private Thread acceptor;
+    private volatile Duration idle_timeout = DEFAULT_IDLE_TIMEOUT;
+
+    /** Constructs Daemon, it doesn't listen until started
+     *
+     * @param socket_path path of socket file
+     * @param worker_count maximum count of concurrently served connections
+     */
+    public Daemon(Path socket_path, int worker_count) {
+        Objects.requireNonNull(socket_path, "Socket path must be non null");
+        if(worker_count <= 0)
+            throw new IllegalArgumentException("Worker count must be positive: " + worker_count);
+
+        this.socket_path = socket_path;
+        var thread_number = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(worker_count, runnable -> {
+            var thread = new Thread(runnable, "grevoc-daemon-worker-" + thread_number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "grevoc-daemon-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Binds socket and starts accepting connections. Missing socket directory is created
+     * accessible by owner only, socket file left by daemon which didn't stop cleanly is
+     * replaced.
+     *
+     * @throws IOException if socket can't be bound
+     * @throws IllegalStateException if another daemon already listens on the socket, a file
+     * which is not a socket is at socket path, or others may write to socket directory
+     */
+    public synchronized void start() throws IOException {
+        if(null != server)
+            throw new IllegalStateException("Daemon is already started");
+
+        Path directory = socket_path.toAbsolutePath().getParent();
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if(posix)
+            ensurePrivateDirectory(directory);
+
+        BasicFileAttributes attributes = readAttributes(socket_path);
+        if(null != attributes) {
+            // regular files, directories and links are never taken for a stale socket
+            if(!attributes.isOther())
+                throw new IllegalStateException("Not a socket, refusing to replace: " + socket_path);
+            if(new Client(socket_path).isAlive())
+                throw new IllegalStateException("Another daemon is listening on " + socket_path);
+
+            // left by daemon which didn't stop cleanly
+            Files.delete(socket_path);
+        }
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket_path));
+        if(posix)
+            Files.setPosixFilePermissions(socket_path, SOCKET_PERMISSIONS);
+        acceptor = new Thread(this::acceptConnections, "grevoc-daemon-acceptor");
+        acceptor.start();
+        LOGGER.info("Daemon is listening on {}", socket_path);
+    }
+
+    /** Sets time a connection may wait for next request before it is closed */
+    public boolean setIdleTimeout(Duration timeout) {
+        if(null == timeout || timeout.isNegative() || timeout.isZero()) {
+            LOGGER.warn("Idle timeout must be positive: {}", timeout);
+            return false;
+        }
+
+        idle_timeout = timeout;
+        return true;
+    }
+
+    public Duration getIdleTimeout() {
+        return idle_timeout;
+    }
+
+    /** Blocks until daemon has been stopped */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    public Path getSocketPath() {
+        return socket_path;
+    }
+
+    /** Stops accepting connections, removes socket file and releases workers */
+    @Override
+    public synchronized void close() {
+        if(0 == stopped.getCount())
+            return;
+
+        // socket file belongs to this daemon only if it has been bound by it
+        if(null != server) {
+            try {
+                server.close();
+                Files.deleteIfExists(socket_path);
+            }
+            catch(IOException ioe) {
+                LOGGER.warn("Failed to release socket {}", socket_path, ioe);
+            }
+        }
+
+        workers.shutdownNow();
+        timer.shutdownNow();
+        stopped.countDown();
+        LOGGER.info("Daemon has been stopped");
+    }
+
+    /** Creates directory accessible by owner only, or checks existing one belongs to user and
+     * others can't replace files in it */
+    private static void ensurePrivateDirectory(Path directory) throws IOException {
+        if(!Files.isDirectory(directory)) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+            return;
+        }
+
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+        if(!user.equals(Files.getOwner(directory))
+                || permissions.contains(PosixFilePermission.GROUP_WRITE)
+                || permissions.contains(PosixFilePermission.OTHERS_WRITE))
+            throw new IllegalStateException("Socket directory has to be owned by "
+                    + user.getName() + " and not writable by others: " + directory);
+    }
+
+    /** Reads request line, closing connection if it doesn't come within idle timeout */
+    private String readRequest(SocketChannel connection, BufferedReader reader) throws IOException {
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            try {
+                LOGGER.debug("Closing connection idle for {}", idle_timeout);
+                connection.close();
+            }
+            catch(IOException ioe) {
+                LOGGER.debug("Failed to close idle connection: {}", ioe.getMessage());
+            }
+        }, idle_timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        try {
+            return reader.readLine();
+        }
+        finally {
+            timeout.cancel(false);
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+        catch(NoSuchFileException nsfe) {
+            return null;
+        }
+    }
+
+    private void acceptConnections() {
+        while(server.isOpen()) {
+            try {
+                SocketChannel connection = server.accept();
+                workers.execute(() -> serve(connection));
+            }
+            catch(ClosedChannelException | RejectedExecutionException e) {
+                return;
+            }
+            catch(IOException ioe) {
+                LOGGER.error("Failed to accept connection", ioe);
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        try(connection;
+            var reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(connection), StandardCharsets.UTF_8));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    Channels.newOutputStream(connection), StandardCharsets.UTF_8))) {
+            String line;
+
+            while(null != (line = readRequest(connection, reader))) {
+                List<String> request = Protocol.decodeRequest(line);
+                long start = System.nanoTime();
+
+                try {
+                    Protocol.writeResponse(writer, processor.process(request));
+                }
+                catch(RuntimeException re) {
+                    LOGGER.warn("Request {} failed: {}", request.get(0), re.getMessage());
+                    Protocol.writeError(writer, String.valueOf(re.getMessage()));
+                }
+
+                LOGGER.debug("Request {} served in {} us", request.get(0),
+                        (System.nanoTime() - start) / 1000);
+
+                if(CommandProcessor.SHUTDOWN_COMMAND.equals(request.get(0))) {
+                    close();
+                    return;
+                }
+            }
+        }
+        catch(IOException ioe) {
+            LOGGER.debug("Connection closed: {}", ioe.getMessage());
+        }
+    }
+}
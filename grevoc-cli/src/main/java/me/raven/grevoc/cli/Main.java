@@ -0,0 +1,93 @@
+package me.raven.grevoc.cli;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** grevoc-cli entry point.
+ * "grevoc-cli daemon" starts the daemon; count, translate with options, merge, diff and patch
+ * are pipeline stages run in place; any other command is sent to the running daemon:
+ * ping, status, lookup, translate, reload, shutdown.
+ * Socket path may be given by "--socket path" before the command, by default the socket is
+ * in $XDG_RUNTIME_DIR, or in a directory under java.io.tmpdir only the user may access.
+ * @see me.raven.grevoc.cli.BatchCommands */
+public class Main {
+    public static final String SOCKET_FILE_NAME = "grevoc.sock";
+
+    public static Path defaultSocketPath() {
+        String runtime_directory = System.getenv("XDG_RUNTIME_DIR");
+        if(null != runtime_directory && !runtime_directory.isEmpty())
+            return Path.of(runtime_directory, SOCKET_FILE_NAME);
+
+        return Path.of(System.getProperty("java.io.tmpdir"),
+                "grevoc-" + System.getProperty("user.name"), SOCKET_FILE_NAME);
+    }
+
+    public static void main(String[] args) {
+        var arguments = new ArrayList<>(Arrays.asList(args));
+        Path socket_path = defaultSocketPath();
+
+        if(arguments.size() >= 2 && "--socket".equals(arguments.get(0))) {
+            socket_path = Path.of(arguments.get(1));
+            arguments.subList(0, 2).clear();
+        }
+        if(arguments.isEmpty()) {
+            System.err.println("Usage: grevoc-cli [--socket path] daemon|count|merge|diff|patch|ping|"
+                    + "status|lookup|translate|reload|shutdown [arguments]");
+            System.exit(2);
+        }
+
+        if("daemon".equals(arguments.get(0)))
+            System.exit(runDaemon(socket_path));
+        else if(BatchCommands.isBatchCommand(arguments))
+            System.exit(runBatch(arguments));
+        else
+            System.exit(runCommand(socket_path, arguments));
+    }
+
+    private static int runBatch(List<String> arguments) {
+        try {
+            return BatchCommands.run(arguments, System.in, System.out, System.err);
+        }
+        catch(IOException | IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int runDaemon(Path socket_path) {
+        try(var daemon = new Daemon(socket_path, Daemon.DEFAULT_WORKERS)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+            daemon.start();
+            daemon.awaitStop();
+            return 0;
+        }
+        catch(IOException | IllegalStateException e) {
+            System.err.println("Failed to start daemon: " + e.getMessage());
+            return 1;
+        }
+        catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    private static int runCommand(Path socket_path, List<String> request) {
+        try {
+            new Client(socket_path).send(request).forEach(System.out::println);
+            return 0;
+        }
+        catch(SocketException se) {
+            System.err.println("Daemon is not running on " + socket_path
+                    + ", start it with: grevoc-cli daemon");
+            return 1;
+        }
+        catch(IOException ioe) {
+            System.err.println(ioe.getMessage());
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package me.raven.grevoc.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Line protocol between grevoc-cli client and daemon.
+ * Request is a single line of tab separated fields, command first.
+ * Response starts with status line "OK n" followed by n payload lines, or it is a single
+ * "ERROR message" line. Connection may carry any number of requests. */
+final class Protocol {
+    static final char SEPARATOR = '\t';
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+
+    private Protocol() {
+    }
+
+    static String encodeRequest(List<String> fields) {
+        for(String field: fields)
+            if(field.indexOf(SEPARATOR) >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0)
+                throw new IllegalArgumentException("Request field contains separator: " + field);
+
+        return String.join(String.valueOf(SEPARATOR), fields);
+    }
+
+    static List<String> decodeRequest(String line) {
+        return Arrays.asList(line.split(String.valueOf(SEPARATOR), -1));
+    }
+
+    static void writeResponse(Writer writer, List<String> payload) throws IOException {
+        writer.write(OK + " " + payload.size() + "\n");
+        for(String line: payload) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    static void writeError(Writer writer, String message) throws IOException {
+        writer.write(ERROR + " " + message.replace('\n', ' ') + "\n");
+        writer.flush();
+    }
+
+    /** Reads response payload
+     *
+     * @throws IOException if daemon has closed connection or responded with error
+     */
+    static List<String> readResponse(BufferedReader reader) throws IOException {
+        String status = reader.readLine();
+        if(null == status)
+            throw new IOException("Daemon closed connection");
+        if(status.startsWith(ERROR + " "))
+            throw new IOException(status.substring(ERROR.length() + 1));
+        if(!status.startsWith(OK + " "))
+            throw new IOException("Malformed response status: " + status);
+
+        int size = Integer.parseInt(status.substring(OK.length() + 1));
+        var payload = new ArrayList<String>(size);
+
+        for(int i = 0; i < size; i++) {
+            String line = reader.readLine();
+            if(null == line)
+                throw new IOException("Daemon closed connection in the middle of response");
+            payload.add(line);
+        }
+
+        return payload;
+    }
+}
@@ -0,0 +1,174 @@
+package me.raven.grevoc.cli;
+
+import me.raven.grevoc.core.Vocabulary;
+import me.raven.grevoc.core.translator.Debug;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCommandsTest {
+    @TempDir
+    Path temporary_directory;
+
+    @Test
+    public void pipelineMergesMissingWordsIntoVocabulary() throws Exception {
+        Path vocabulary_file = temporary_directory.resolve("vocabulary.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.addEntry("cat", Set.of("KOT"), 1);
+        assertTrue(vocabulary.export(vocabulary_file));
+
+        var counted = new ByteArrayOutputStream();
+        BatchCommands.count(input("the cat and the dog\nthe end\n"), counted);
+        assertEquals("the\t3\ncat\t1\nand\t1\ndog\t1\nend\t1\n",
+                counted.toString(StandardCharsets.UTF_8));
+
+        var translated = new ByteArrayOutputStream();
+        long written = BatchCommands.translate(new ByteArrayInputStream(counted.toByteArray()),
+                translated, new Debug("en", "ru"), Set.of("cat"), 2);
+        assertEquals(4, written);
+        assertFalse(translated.toString(StandardCharsets.UTF_8).contains("cat\t"));
+
+        long merged = BatchCommands.merge(new ByteArrayInputStream(translated.toByteArray()),
+                vocabulary_file, "en", "ru");
+        assertEquals(4, merged);
+
+        var result = new Vocabulary("en", "ru", vocabulary_file);
+        assertEquals(Set.of("cat", "the", "and", "dog", "end"), Set.copyOf(result.getWordsView()));
+        assertEquals(3, result.getWordsOccurrencesView().get("the"));
+        assertTrue(result.getWordsTranslationsView().get("dog").contains("DOG"));
+    }
+
+    @Test
+    public void missingNonAsciiWordsAreNotTranslatedAgain() throws Exception {
+        Path vocabulary_file = temporary_directory.resolve("vocabulary_de-ru.txt");
+        var vocabulary = new Vocabulary("de", "ru");
+        vocabulary.addEntry("über", Set.of("над"), 1);
+        vocabulary.addEntry("Straße", Set.of("улица"), 1);
+        assertTrue(vocabulary.export(vocabulary_file));
+
+        var translated = new ByteArrayOutputStream();
+        assertEquals(0, BatchCommands.run(List.of("translate", "--missing", vocabulary_file.toString(),
+                "--sl", "de", "--tl", "ru"), input("über\t2\nStraße\t1\nMädchen\t1\n"), translated,
+                new PrintStream(new ByteArrayOutputStream())));
+        List<String> records = translated.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, records.size());
+        assertTrue(records.get(0).startsWith("Mädchen\t"));
+        assertTrue(records.get(0).contains("MÄDCHEN"));
+
+        assertEquals(1, BatchCommands.merge(new ByteArrayInputStream(translated.toByteArray()),
+                vocabulary_file, "de", "ru"));
+        var result = new Vocabulary("de", "ru", vocabulary_file);
+        assertEquals(List.of("über", "Straße", "Mädchen"), result.getWordsView());
+    }
+
+    @Test
+    public void mergeKeepsVocabularyItFailedToRead() throws Exception {
+        Path vocabulary_file = temporary_directory.resolve("vocabulary.txt.gz");
+        var vocabulary = new Vocabulary("en", "ru");
+        for(int i = 0; i < 500; i++)
+            vocabulary.addEntry("word" + i, Set.of("SLOVO" + i), 1);
+        assertTrue(vocabulary.export(vocabulary_file, true));
+
+        byte[] content = Files.readAllBytes(vocabulary_file);
+        byte[] truncated = Arrays.copyOf(content, content.length / 2);
+        Files.write(vocabulary_file, truncated);
+
+        assertThrows(IOException.class, () -> BatchCommands.merge(input("cat\tKOT\t1\n"),
+                vocabulary_file, "en", "ru"));
+        assertArrayEquals(truncated, Files.readAllBytes(vocabulary_file));
+
+        Path directory = Files.createDirectory(temporary_directory.resolve("directory"));
+        assertThrows(IOException.class, () -> BatchCommands.merge(input("cat\tKOT\t1\n"),
+                directory, "en", "ru"));
+    }
+
+    @Test
+    public void translateWithOptionsIsBatchCommand() {
+        assertTrue(BatchCommands.isBatchCommand(List.of("translate")));
+        assertTrue(BatchCommands.isBatchCommand(List.of("translate", "--missing", "vocabulary")));
+        assertTrue(BatchCommands.isBatchCommand(List.of("count")));
+        assertTrue(BatchCommands.isBatchCommand(List.of("diff", "--base", "old", "new")));
+        assertTrue(BatchCommands.isBatchCommand(List.of("patch", "vocabulary")));
+        assertFalse(BatchCommands.isBatchCommand(List.of("translate", "debug", "en", "ru", "cat")));
+        assertFalse(BatchCommands.isBatchCommand(List.of("lookup")));
+    }
+
+    @Test
+    public void rejectsMalformedRecords() {
+        assertThrows(IOException.class, () -> BatchCommands.translate(
+                input("cat\tmany\n"), new ByteArrayOutputStream(), new Debug("en", "ru"), Set.of(), 10));
+    }
+
+    @Test
+    public void patchSyncsVocabularyFile() throws Exception {
+        Path old_file = temporary_directory.resolve("old.txt");
+        Path new_file = temporary_directory.resolve("new.txt");
+        Path replica = temporary_directory.resolve("replica.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.addEntry("cat", Set.of("KOT"), 1);
+        assertTrue(vocabulary.export(old_file));
+        assertTrue(vocabulary.export(replica));
+        vocabulary.appendEntry("cat", Set.of("KOSHKA"), 2);
+        vocabulary.addEntry("dog", Set.of("PES"), 1);
+        vocabulary.addEntry("naïve", Set.of("наивный"), 1);
+        assertTrue(vocabulary.export(new_file));
+
+        var patch = new ByteArrayOutputStream();
+        assertEquals(3, BatchCommands.diff(old_file, new_file, patch, "en", "ru"));
+        assertEquals(3, BatchCommands.patch(new ByteArrayInputStream(patch.toByteArray()),
+                replica, "en", "ru"));
+
+        var result = new Vocabulary("en", "ru", replica);
+        assertEquals(Set.of("KOT", "KOSHKA"), result.getWordsTranslationsView().get("cat"));
+        assertEquals(3, result.getWordsOccurrencesView().get("cat"));
+        assertEquals(List.of("cat", "dog", "naïve"), result.getWordsView());
+
+        // the replica is no longer the base of the patch
+        assertThrows(IllegalStateException.class, () -> BatchCommands.patch(
+                new ByteArrayInputStream(patch.toByteArray()), replica, "en", "ru"));
+    }
+
+    @Test
+    public void diffAndPatchFailOnUnreadableVocabulary() throws Exception {
+        Path old_file = temporary_directory.resolve("old.txt");
+        Path replica = temporary_directory.resolve("replica.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.addEntry("cat", Set.of("KOT"), 1);
+        vocabulary.addEntry("dog", Set.of("PES"), 1);
+        assertTrue(vocabulary.export(old_file));
+
+        var patch = new ByteArrayOutputStream();
+        assertThrows(IOException.class, () -> BatchCommands.diff(old_file,
+                temporary_directory.resolve("typo.txt"), patch, "en", "ru"));
+        assertThrows(IOException.class, () -> BatchCommands.diff(
+                temporary_directory.resolve("typo.txt"), old_file, patch, "en", "ru"));
+        assertEquals(0, patch.size());
+
+        // patch of an empty base must not be applied to a file which only failed to be read
+        var empty_patch = new ByteArrayOutputStream();
+        assertEquals(2, BatchCommands.diff(Files.writeString(
+                temporary_directory.resolve("empty.txt"), ""), old_file, empty_patch, "en", "ru"));
+        assertTrue(vocabulary.export(replica, true));
+        byte[] truncated = Arrays.copyOf(Files.readAllBytes(replica), 12);
+        Files.write(replica, truncated);
+        assertThrows(IOException.class, () -> BatchCommands.patch(
+                new ByteArrayInputStream(empty_patch.toByteArray()), replica, "en", "ru"));
+        assertArrayEquals(truncated, Files.readAllBytes(replica));
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
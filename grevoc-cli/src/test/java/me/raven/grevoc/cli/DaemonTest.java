@@ -0,0 +1,186 @@
+package me.raven.grevoc.cli;
+
+import me.raven.grevoc.core.Vocabulary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaemonTest {
+    @TempDir
+    Path temporary_directory;
+    private Daemon daemon;
+    private Client client;
+    private Path vocabulary_file;
+
+    @BeforeEach
+    public void startDaemon() throws IOException {
+        vocabulary_file = temporary_directory.resolve("vocabulary.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.addEntry("cat", Set.of("KOT"), 3);
+        vocabulary.addEntry("dog", Set.of("SOBAKA"), 1);
+        assertTrue(vocabulary.export(vocabulary_file));
+
+        Path socket = temporary_directory.resolve("grevoc.sock");
+        daemon = new Daemon(socket, 4);
+        daemon.start();
+        client = new Client(socket);
+    }
+
+    @AfterEach
+    public void stopDaemon() {
+        daemon.close();
+    }
+
+    @Test
+    public void answersPing() throws IOException {
+        assertEquals(List.of("pong"), client.send(List.of("ping")));
+        assertTrue(client.isAlive());
+    }
+
+    @Test
+    public void looksUpWordsInLoadedVocabulary() throws IOException {
+        List<String> response = client.send(List.of("lookup", vocabulary_file.toString(),
+                "en", "ru", "cat", "bird"));
+
+        assertEquals(List.of("cat\tKOT\t3", "bird\t\t0"), response);
+        assertTrue(client.send(List.of("status")).contains("vocabularies\t1"));
+    }
+
+    @Test
+    public void cachesTranslations() throws IOException {
+        List<String> request = List.of("translate", "debug", "en", "ru", "house", "tree");
+        List<String> first = client.send(request);
+
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).startsWith("house\t"));
+        assertEquals(first, client.send(request));
+        assertTrue(client.send(List.of("status")).contains("cached_translations\t2"));
+    }
+
+    @Test
+    public void reportsErrorsWithoutDroppingDaemon() {
+        var exception = assertThrows(IOException.class, () -> client.send(List.of("fly")));
+        assertTrue(exception.getMessage().contains("Unknown command"));
+        assertThrows(IOException.class, () -> client.send(List.of("lookup", "missing-file")));
+        assertTrue(client.isAlive());
+    }
+
+    @Test
+    public void doesNotCacheVocabularyItFailedToLoad() throws IOException {
+        Path missing = temporary_directory.resolve("missing.txt");
+        var exception = assertThrows(IOException.class, () -> client.send(List.of("lookup",
+                missing.toString(), "en", "ru", "cat")));
+        assertTrue(exception.getMessage().contains("No such vocabulary"));
+        assertTrue(client.send(List.of("status")).contains("vocabularies\t0"));
+
+        Files.copy(vocabulary_file, missing);
+        assertEquals(List.of("cat\tKOT\t3"), client.send(List.of("lookup", missing.toString(),
+                "en", "ru", "cat")));
+    }
+
+    @Test
+    public void servesConcurrentClients() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        var results = new ArrayList<Future<List<String>>>();
+
+        try {
+            for(int i = 0; i < 64; i++)
+                results.add(executor.submit(() -> client.send(List.of("lookup",
+                        vocabulary_file.toString(), "en", "ru", "dog"))));
+
+            for(Future<List<String>> result: results)
+                assertEquals(List.of("dog\tSOBAKA\t1"), result.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownRemovesSocket() throws Exception {
+        assertEquals(List.of("bye"), client.send(List.of("shutdown")));
+        daemon.awaitStop();
+
+        assertFalse(Files.exists(daemon.getSocketPath()));
+        assertFalse(client.isAlive());
+    }
+
+    @Test
+    public void closesIdleConnections() throws Exception {
+        Path socket = temporary_directory.resolve("single.sock");
+
+        try(var single = new Daemon(socket, 1)) {
+            assertTrue(single.setIdleTimeout(Duration.ofMillis(200)));
+            assertFalse(single.setIdleTimeout(Duration.ZERO));
+            single.start();
+
+            try(var idle = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+                // the only worker is held by idle connection until it times out
+                assertEquals(List.of("pong"), new Client(socket).send(List.of("ping")));
+                assertEquals(-1, idle.read(ByteBuffer.allocate(1)));
+            }
+        }
+    }
+
+    @Test
+    public void socketIsAccessibleByOwnerOnly() throws IOException {
+        Path socket = temporary_directory.resolve("run").resolve("grevoc.sock");
+
+        try(var second = new Daemon(socket, 1)) {
+            second.start();
+
+            assertEquals(PosixFilePermissions.fromString("rwx------"),
+                    Files.getPosixFilePermissions(socket.getParent()));
+            assertEquals(PosixFilePermissions.fromString("rw-------"),
+                    Files.getPosixFilePermissions(socket));
+            assertEquals(List.of("pong"), new Client(socket).send(List.of("ping")));
+        }
+    }
+
+    @Test
+    public void refusesToReplaceFileWhichIsNotSocket() throws IOException {
+        Path file = temporary_directory.resolve("important.txt");
+        Files.writeString(file, "content");
+
+        try(var second = new Daemon(file, 1)) {
+            assertThrows(IllegalStateException.class, second::start);
+        }
+        assertEquals("content", Files.readString(file));
+    }
+
+    @Test
+    public void refusesDirectoryWritableByOthers() throws IOException {
+        Path directory = Files.createDirectory(temporary_directory.resolve("shared"));
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        try(var second = new Daemon(directory.resolve("grevoc.sock"), 1)) {
+            assertThrows(IllegalStateException.class, second::start);
+        }
+    }
+
+    @Test
+    public void refusesSecondDaemonOnLiveSocket() {
+        try(var second = new Daemon(daemon.getSocketPath(), 1)) {
+            assertThrows(IllegalStateException.class, second::start);
+        }
+        assertTrue(client.isAlive());
+    }
+}
@@ -0,0 +1,311 @@
+package me.raven.grevoc.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/** Bloom filter of words, persisted next to exported vocabulary.
+ * Negative answer is exact and costs at most hash count bit probes, usually one or two since
+ * probing stops at the first clear bit; positive answer is wrong with the configured false
+ * positive rate. A filter file is stamped with size and CRC32C checksum of content of its
+ * vocabulary file, a filter of vocabulary changed afterwards is stale and is never used, as it
+ * could deny words the vocabulary has. The checksum is computed while the vocabulary is written,
+ * and reading a filter doesn't read the vocabulary while its size, modification and change
+ * times and file key are those stamped; modification time alone isn't trusted, as copies and
+ * tools may keep or restore it, so any other change of metadata falls back to the checksum.
+ * @see me.raven.grevoc.core.Vocabulary#export(Path, boolean) */
+public class BloomFilter {
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    /** Appended to vocabulary file name to get its filter file */
+    public static final String FILE_SUFFIX = ".bloom";
+    private static final int MAGIC = 0x47424C4D;
+    private static final int FORMAT_VERSION = 3;
+    // magic, version, vocabulary size, checksum and metadata stamp, hash count, bit count,
+    // entry count
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8 + 4 + 8 + 8;
+    /** Metadata stamp of platforms without change time or file key, it never matches */
+    private static final long NO_METADATA_STAMP = 0;
+    private static final int MAX_HASH_COUNT = 32;
+
+    private final int hash_count;
+    private final long bit_count;
+    private final long[] bits;
+    private long entry_count = 0;
+
+    /** Constructs empty filter sized for expected entries
+     *
+     * @param expected_entries count of words to be put, more words raise false positive rate
+     * @param false_positive_rate wanted false positive rate, in (0, 1)
+     */
+    public BloomFilter(long expected_entries, double false_positive_rate) {
+        if(expected_entries < 0)
+            throw new IllegalArgumentException("Expected entries must not be negative: "
+                    + expected_entries);
+        if(!(false_positive_rate > 0 && false_positive_rate < 1))
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): "
+                    + false_positive_rate);
+
+        // m = -n ln p / ln^2 2 bits, k = -ln p / ln 2 hashes
+        long entries = Math.max(1, expected_entries);
+        long bits_needed = (long) Math.ceil(-entries * Math.log(false_positive_rate)
+                / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (bits_needed + 63) >>> 6);
+        // body is read into a single buffer
+        if(words > (Integer.MAX_VALUE - 8) / Long.BYTES)
+            throw new IllegalArgumentException("Filter for " + expected_entries
+                    + " entries would be too large");
+
+        this.bit_count = words << 6;
+        this.bits = new long[(int) words];
+        this.hash_count = (int) Math.max(1, Math.min(MAX_HASH_COUNT,
+                Math.round(-Math.log(false_positive_rate) / Math.log(2))));
+    }
+
+    private BloomFilter(int hash_count, long bit_count, long[] bits, long entry_count) {
+        this.hash_count = hash_count;
+        this.bit_count = bit_count;
+        this.bits = bits;
+        this.entry_count = entry_count;
+    }
+
+    /** Constructs filter of words */
+    public static BloomFilter of(Collection<String> words, double false_positive_rate) {
+        var filter = new BloomFilter(words.size(), false_positive_rate);
+        for(String word: words)
+            filter.put(word);
+
+        return filter;
+    }
+
+    /** Adds word to filter
+     *
+     * @return true if filter has changed, false if word might have been already added
+     */
+    public boolean put(String word) {
+        long hash = WordHash.hash(word, 0);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xFFFFFFFFL) | 1;
+        boolean changed = false;
+
+        for(int i = 0; i < hash_count; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bit_count);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+
+            if(0 == (bits[index] & mask)) {
+                bits[index] |= mask;
+                changed = true;
+            }
+        }
+
+        if(changed)
+            entry_count++;
+        return changed;
+    }
+
+    /** Returns false if word has certainly not been added, true if it might have been */
+    public boolean mightContain(String word) {
+        long hash = WordHash.hash(word, 0);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xFFFFFFFFL) | 1;
+
+        for(int i = 0; i < hash_count; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bit_count);
+            if(0 == (bits[(int) (bit >>> 6)] & 1L << bit))
+                return false;
+        }
+
+        return true;
+    }
+
+    public int getHashCount() {
+        return hash_count;
+    }
+
+    public long getBitCount() {
+        return bit_count;
+    }
+
+    /** Returns count of added words, words colliding with earlier ones aren't counted */
+    public long getEntryCount() {
+        return entry_count;
+    }
+
+    public long getMemoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /** Returns false positive rate expected for current count of entries */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hash_count * entry_count / bit_count), hash_count);
+    }
+
+    /** Returns path of filter file of vocabulary file */
+    public static Path getFilterPath(Path vocabulary_file) {
+        return vocabulary_file.resolveSibling(vocabulary_file.getFileName() + FILE_SUFFIX);
+    }
+
+    /** Writes filter of vocabulary file to its filter path, stamped with current content of
+     * vocabulary file, which is read to compute its checksum. Filter file is replaced atomically.
+     *
+     * @param vocabulary_file exported vocabulary the filter has been built of
+     * @throws IOException if vocabulary file can't be read or filter can't be written
+     */
+    public void write(Path vocabulary_file) throws IOException {
+        write(vocabulary_file, checksum(vocabulary_file));
+    }
+
+    /** Writes filter of vocabulary file to its filter path, stamped with checksum computed
+     * while vocabulary file was written or read. Filter file is replaced atomically.
+     *
+     * @param vocabulary_file exported vocabulary the filter has been built of
+     * @param checksum CRC32C of content of vocabulary_file
+     * @throws IOException if filter can't be written
+     */
+    public void write(Path vocabulary_file, int checksum) throws IOException {
+        long size = Files.size(vocabulary_file);
+        long metadata_stamp = metadataStamp(vocabulary_file);
+        Path file = getFilterPath(vocabulary_file);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try(OutputStream os = Files.newOutputStream(temporary);
+                var output = new DataOutputStream(new BufferedOutputStream(os,
+                        Vocabulary.EXPORT_BUFFER_SIZE))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(size);
+                output.writeInt(checksum);
+                output.writeLong(metadata_stamp);
+                output.writeInt(hash_count);
+                output.writeLong(bit_count);
+                output.writeLong(entry_count);
+                for(long word: bits)
+                    output.writeLong(word);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Reads filter of vocabulary file
+     *
+     * @return filter, or null if there is no filter, it is of other format version or vocabulary
+     * has changed since it was written
+     * @throws IOException if filter file is corrupt or can't be read
+     */
+    public static BloomFilter read(Path vocabulary_file) throws IOException {
+        long size;
+        try {
+            size = Files.size(vocabulary_file);
+        }
+        catch(NoSuchFileException nsfe) {
+            return null;
+        }
+
+        Path file = getFilterPath(vocabulary_file);
+        if(!Files.exists(file))
+            return null;
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, file);
+            header.flip();
+
+            if(MAGIC != header.getInt())
+                throw new IOException("Not a filter file: " + file);
+            // filter of other version is as good as stale, it gets rebuilt
+            if(FORMAT_VERSION != header.getInt())
+                return null;
+            if(size != header.getLong())
+                return null;
+            // vocabulary is read only if its metadata has changed, e.g. it has been copied
+            int checksum = header.getInt();
+            long metadata_stamp = header.getLong();
+            if((NO_METADATA_STAMP == metadata_stamp
+                    || metadata_stamp != metadataStamp(vocabulary_file))
+                    && checksum != checksum(vocabulary_file))
+                return null;
+
+            int hash_count = header.getInt();
+            long bit_count = header.getLong();
+            long entry_count = header.getLong();
+            if(hash_count <= 0 || hash_count > MAX_HASH_COUNT || bit_count <= 0
+                    || 0 != (bit_count & 63) || channel.size() != HEADER_SIZE + (bit_count >>> 3))
+                throw new IOException("Corrupt filter file: " + file);
+
+            ByteBuffer body = ByteBuffer.allocate((int) (bit_count >>> 3));
+            readFully(channel, body, file);
+            body.flip();
+            long[] bits = new long[(int) (bit_count >>> 6)];
+            body.asLongBuffer().get(bits);
+
+            return new BloomFilter(hash_count, bit_count, bits, entry_count);
+        }
+    }
+
+    /** Returns CRC32C of content of file */
+    static int checksum(Path file) throws IOException {
+        var crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Vocabulary.EXPORT_BUFFER_SIZE);
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while(channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return (int) crc.getValue();
+    }
+
+    /** Returns hash of metadata which changes whenever content of file may change: device,
+     * inode, modification and change times. Change time can't be set back, unlike modification
+     * time.
+     *
+     * @return stamp, or NO_METADATA_STAMP if file system doesn't give the metadata
+     */
+    static long metadataStamp(Path file) throws IOException {
+        Map<String, Object> attributes;
+        try {
+            attributes = Files.readAttributes(file, "unix:dev,ino,ctime,lastModifiedTime");
+        }
+        catch(UnsupportedOperationException | IllegalArgumentException e) {
+            return NO_METADATA_STAMP;
+        }
+
+        String metadata = attributes.get("dev") + ":" + attributes.get("ino") + ":"
+                + nanos(attributes.get("ctime")) + ":" + nanos(attributes.get("lastModifiedTime"));
+        long stamp = WordHash.hash(metadata, 0);
+        return NO_METADATA_STAMP == stamp ? 1 : stamp;
+    }
+
+    private static long nanos(Object time) {
+        return ((FileTime) time).to(TimeUnit.NANOSECONDS);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path file)
+            throws IOException {
+        while(buffer.hasRemaining())
+            if(channel.read(buffer) < 0)
+                throw new IOException("Truncated filter file: " + file);
+    }
+}
@@ -0,0 +1,139 @@
+package me.raven.grevoc.core;
+
+import java.util.Objects;
+
+/** Count-Min Sketch, approximate counter of word occurrences in fixed memory.
+ * Estimate never underestimates, and with probability 1 - delta it exceeds the true count by
+ * at most epsilon * total count. Memory is depth * width longs regardless of stream size.
+ * Sketches of the same dimensions and seed are merged by adding counters, so a stream can be
+ * counted by threads or shards independently. */
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final long seed;
+    private final long[] counters;
+    private long total = 0;
+
+    /** Constructs sketch from error bounds
+     *
+     * @param epsilon relative error of estimates, in (0, 1)
+     * @param delta probability of exceeding the error, in (0, 1)
+     * @param seed hash seed, sketches are mergeable only with equal seeds
+     */
+    public static CountMinSketch withErrorBounds(double epsilon, double delta, long seed) {
+        if(!(epsilon > 0 && epsilon < 1))
+            throw new IllegalArgumentException("Epsilon must be in (0, 1): " + epsilon);
+        if(!(delta > 0 && delta < 1))
+            throw new IllegalArgumentException("Delta must be in (0, 1): " + delta);
+
+        long width = (long) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        if(width * depth > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Error bounds require too large sketch: " + epsilon);
+
+        return new CountMinSketch((int) width, depth, seed);
+    }
+
+    /** Constructs sketch of explicit dimensions
+     *
+     * @param width counters per row, relative error is e / width
+     * @param depth count of rows, error probability is exp(-depth)
+     * @param seed hash seed, sketches are mergeable only with equal seeds
+     */
+    public CountMinSketch(int width, int depth, long seed) {
+        if(width <= 0 || depth <= 0)
+            throw new IllegalArgumentException("Width and depth must be positive: "
+                    + width + "x" + depth);
+        if((long) width * depth > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Sketch is too large: " + width + "x" + depth);
+
+        this.width = width;
+        this.depth = depth;
+        this.seed = seed;
+        this.counters = new long[width * depth];
+    }
+
+    /** Adds occurrences of word
+     *
+     * @return estimate of word occurrences after adding
+     */
+    public long add(String word, long occurrences) {
+        if(occurrences <= 0)
+            throw new IllegalArgumentException("Occurrences must be positive: " + occurrences);
+
+        long hash = WordHash.hash(word, seed);
+        int h1 = (int) hash;
+        // odd step, so rows never collapse to the same counter
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for(int row = 0; row < depth; row++) {
+            int index = row * width + index(h1 + row * h2);
+            counters[index] += occurrences;
+            estimate = Math.min(estimate, counters[index]);
+        }
+
+        total += occurrences;
+        return estimate;
+    }
+
+    /** Returns estimate of word occurrences, never less than the true count */
+    public long estimate(String word) {
+        long hash = WordHash.hash(word, seed);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for(int row = 0; row < depth; row++)
+            estimate = Math.min(estimate, counters[row * width + index(h1 + row * h2)]);
+
+        return estimate;
+    }
+
+    /** Adds counters of other sketch, as if its stream had been added to this one
+     *
+     * @throws IllegalArgumentException if sketches differ in dimensions or seed
+     */
+    public void merge(CountMinSketch other) {
+        Objects.requireNonNull(other, "Sketch must be non null");
+        if(width != other.width || depth != other.depth || seed != other.seed)
+            throw new IllegalArgumentException("Sketches of different dimensions or seeds: "
+                    + width + "x" + depth + "/" + seed + " and "
+                    + other.width + "x" + other.depth + "/" + other.seed);
+
+        for(int i = 0; i < counters.length; i++)
+            counters[i] += other.counters[i];
+        total += other.total;
+    }
+
+    /** Returns maximum overestimate which holds with probability 1 - delta */
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E / width * total);
+    }
+
+    /** Returns sum of all added occurrences */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** Returns heap bytes taken by counters */
+    public long getMemoryBytes() {
+        return 8L * counters.length;
+    }
+
+    private int index(int hash) {
+        return (int) ((hash & 0xFFFFFFFFL) % width);
+    }
+}
@@ -0,0 +1,345 @@
+package me.raven.grevoc.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.ObjIntConsumer;
+
+/** Counts words of corpora which don't fit into heap, unlike Wordlist.
+ * Counts are kept in memory until their estimated size reaches memory budget, then they are
+ * sorted and spilled to a temporary run file. Result is produced by streaming k-way merge of
+ * runs, so only one record per run is held in memory. Runs are kept in levels: once a level
+ * has MAX_MERGE_WIDTH runs they are merged into one run of the next level, so every record is
+ * rewritten once per level rather than on every merge. Counts are the same as Wordlist would
+ * give, but words come in alphabetic order instead of order of first occurrence. */
+public class ExternalWordCounter implements AutoCloseable {
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+    /** Maximum count of runs merged at once, a level reaching it is merged into one run */
+    public static final int MAX_MERGE_WIDTH = 64;
+    private static final Logger LOGGER = LogManager.getLogger();
+    // rough heap cost of HashMap entry, String and boxed Integer excluding characters
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Path temp_dir;
+    private final long memory_budget;
+    // runs by level, a run of level n holds MAX_MERGE_WIDTH runs of level n - 1
+    private final List<List<Path>> levels = new ArrayList<>();
+    private Map<String, Integer> counts = new HashMap<>();
+    private long used_memory = 0;
+    private long spilled_runs = 0;
+    private long merged_records = 0;
+
+    /** Constructs ExternalWordCounter with DEFAULT_MEMORY_BUDGET in system temporary directory */
+    public ExternalWordCounter() {
+        this(Path.of(System.getProperty("java.io.tmpdir")), DEFAULT_MEMORY_BUDGET);
+    }
+
+    /** Constructs ExternalWordCounter
+     *
+     * @param temp_dir directory for run files, they are deleted on close
+     * @param memory_budget estimated heap bytes of counts kept before spilling
+     */
+    public ExternalWordCounter(Path temp_dir, long memory_budget) {
+        this.temp_dir = Objects.requireNonNull(temp_dir, "Temporary directory must be non null");
+        if(memory_budget <= 0)
+            throw new IllegalArgumentException("Memory budget must be positive: " + memory_budget);
+        this.memory_budget = memory_budget;
+    }
+
+    /** Counts word occurrences
+     *
+     * @throws IllegalArgumentException if word is empty or contains tab or line break
+     * @throws UncheckedIOException if counts can't be spilled
+     */
+    public void add(String word, int occurrences) {
+        if(word.isEmpty() || word.indexOf('\t') >= 0 || word.indexOf('\n') >= 0
+                || word.indexOf('\r') >= 0)
+            throw new IllegalArgumentException("Word can't be stored in wordlist: [" + word + "]");
+        if(occurrences <= 0)
+            throw new IllegalArgumentException("Occurrences must be positive: " + occurrences);
+
+        Integer previous = counts.putIfAbsent(word, occurrences);
+        if(null != previous) {
+            counts.put(word, Math.addExact(previous, occurrences));
+            return;
+        }
+
+        used_memory += ENTRY_OVERHEAD + 2L * word.length();
+        if(used_memory >= memory_budget) {
+            try {
+                spill();
+            }
+            catch(IOException ioe) {
+                throw new UncheckedIOException("Failed to spill word counts to " + temp_dir, ioe);
+            }
+        }
+    }
+
+    /** Counts words of wordlist records, see Wordlist.readEntries */
+    public void append(InputStream input) throws IOException {
+        try {
+            Wordlist.readEntries(input, this::add);
+        }
+        catch(UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    /** Counts words of plain text the same way as Wordlist.appendText */
+    public void appendText(InputStream input) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+
+        try {
+            while(null != (line = reader.readLine()))
+                for(String word: Wordlist.TEXT_DELIMITER.split(line.toLowerCase(Locale.ROOT)))
+                    if(!word.isEmpty())
+                        add(word, 1);
+        }
+        catch(UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    /** Streams final counts in alphabetic order, counter stays usable afterwards
+     *
+     * @param consumer consumer of word and its total occurrences
+     * @throws IOException if run files can't be read
+     */
+    public void forEach(ObjIntConsumer<String> consumer) throws IOException {
+        Objects.requireNonNull(consumer, "Consumer must be non null");
+
+        if(levels.isEmpty()) {
+            String[] words = counts.keySet().toArray(new String[0]);
+            Arrays.sort(words);
+            for(String word: words)
+                consumer.accept(word, counts.get(word));
+            return;
+        }
+
+        // remaining counts become the last run, so everything is merged the same way
+        if(!counts.isEmpty())
+            spill();
+
+        var runs = new ArrayList<Path>();
+        levels.forEach(runs::addAll);
+        if(runs.size() <= MAX_MERGE_WIDTH) {
+            merge(runs, consumer);
+            return;
+        }
+
+        // smallest runs come first, they are merged ahead so the final merge fits the width
+        List<Path> smallest = runs.subList(0, runs.size() - MAX_MERGE_WIDTH + 1);
+        Path merged = mergeToRun(smallest);
+        try {
+            smallest.clear();
+            runs.add(merged);
+            merge(runs, consumer);
+        }
+        finally {
+            Files.deleteIfExists(merged);
+        }
+    }
+
+    /** Writes final counts as wordlist records, stream is flushed but not closed */
+    public void export(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                Vocabulary.EXPORT_BUFFER_SIZE);
+
+        try {
+            forEach((word, occurrences) -> writeRecord(writer, word, occurrences));
+        }
+        catch(UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+
+        writer.flush();
+    }
+
+    /** Returns count of run files written so far, including merged ones */
+    public long getSpilledRuns() {
+        return spilled_runs;
+    }
+
+    /** Returns count of records written by merges of levels */
+    long getMergedRecords() {
+        return merged_records;
+    }
+
+    /** Deletes run files */
+    @Override
+    public void close() {
+        levels.forEach(ExternalWordCounter::deleteRuns);
+        levels.clear();
+        counts = new HashMap<>();
+        used_memory = 0;
+    }
+
+    private void spill() throws IOException {
+        long start = System.nanoTime();
+        String[] words = counts.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+
+        Path run = Files.createTempFile(temp_dir, "grevoc-run-", ".tsv");
+        try(Writer writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for(String word: words)
+                writeRecord(writer, word, counts.get(word));
+        }
+        catch(IOException | UncheckedIOException e) {
+            Files.deleteIfExists(run);
+            throw e;
+        }
+
+        spilled_runs++;
+        LOGGER.debug("Spilled {} words to {} in {} ms", words.length, run,
+                (System.nanoTime() - start) / 1_000_000);
+
+        // new map rather than clear(), which would keep the grown table
+        counts = new HashMap<>();
+        used_memory = 0;
+        addRun(0, run);
+    }
+
+    /** Adds run to level, a full level is merged into a run of the next level */
+    private void addRun(int level, Path run) throws IOException {
+        if(levels.size() == level)
+            levels.add(new ArrayList<>());
+
+        List<Path> level_runs = levels.get(level);
+        level_runs.add(run);
+        if(level_runs.size() < MAX_MERGE_WIDTH)
+            return;
+
+        Path merged = mergeToRun(level_runs);
+        deleteRuns(level_runs);
+        level_runs.clear();
+        spilled_runs++;
+        LOGGER.debug("Merged level {} of {} runs into {}", level, MAX_MERGE_WIDTH, merged);
+        addRun(level + 1, merged);
+    }
+
+    private Path mergeToRun(List<Path> run_files) throws IOException {
+        Path merged = Files.createTempFile(temp_dir, "grevoc-run-", ".tsv");
+
+        try(Writer writer = Files.newBufferedWriter(merged, StandardCharsets.UTF_8)) {
+            merge(run_files, (word, occurrences) -> {
+                writeRecord(writer, word, occurrences);
+                merged_records++;
+            });
+        }
+        catch(IOException | UncheckedIOException e) {
+            Files.deleteIfExists(merged);
+            throw e;
+        }
+
+        return merged;
+    }
+
+    private static void deleteRuns(List<Path> run_files) {
+        for(Path run: run_files) {
+            try {
+                Files.deleteIfExists(run);
+            }
+            catch(IOException ioe) {
+                LOGGER.warn("Failed to delete run file {}", run, ioe);
+            }
+        }
+    }
+
+    private static void merge(List<Path> run_files, ObjIntConsumer<String> consumer)
+            throws IOException {
+        var cursors = new ArrayList<RunCursor>(run_files.size());
+        var queue = new PriorityQueue<RunCursor>(run_files.size(),
+                (a, b) -> a.word.compareTo(b.word));
+
+        try {
+            for(Path run: run_files) {
+                var cursor = new RunCursor(run);
+                cursors.add(cursor);
+                if(cursor.advance())
+                    queue.add(cursor);
+            }
+
+            while(!queue.isEmpty()) {
+                RunCursor head = queue.poll();
+                String word = head.word;
+                int occurrences = head.occurrences;
+                if(head.advance())
+                    queue.add(head);
+
+                // every run is sorted and holds a word at most once
+                while(!queue.isEmpty() && queue.peek().word.equals(word)) {
+                    RunCursor same = queue.poll();
+                    occurrences = Math.addExact(occurrences, same.occurrences);
+                    if(same.advance())
+                        queue.add(same);
+                }
+
+                consumer.accept(word, occurrences);
+            }
+        }
+        finally {
+            for(RunCursor cursor: cursors)
+                cursor.reader.close();
+        }
+    }
+
+    private static void writeRecord(Writer writer, String word, int occurrences) {
+        try {
+            writer.write(word);
+            writer.write('\t');
+            writer.write(Integer.toString(occurrences));
+            writer.write('\n');
+        }
+        catch(IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /** Current record of a run file */
+    private static final class RunCursor {
+        private final Path run;
+        private final BufferedReader reader;
+        private String word;
+        private int occurrences;
+
+        private RunCursor(Path run) throws IOException {
+            this.run = run;
+            this.reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+        }
+
+        private boolean advance() throws IOException {
+            String line = reader.readLine();
+            if(null == line)
+                return false;
+
+            int tab = line.indexOf('\t');
+            if(tab < 0)
+                throw new IOException("Malformed record in run " + run + ": " + line);
+
+            word = line.substring(0, tab);
+            occurrences = Integer.parseInt(line, tab + 1, line.length(), 10);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package me.raven.grevoc.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/** Approximate counter of the most frequent words, alternative to Wordlist for streams too
+ * large to count exactly. Occurrences go to CountMinSketch, and the capacity words of highest
+ * estimates are kept as candidates, so memory is fixed by capacity and error bounds.
+ * A word much more frequent than epsilon * total count is reliably among candidates, its
+ * estimate exceeds the true count by at most epsilon * total with probability 1 - delta.
+ * Not thread safe, count each thread or shard separately and merge results. */
+public class HeavyHitters {
+    public static final double DEFAULT_EPSILON = 1e-5;
+    public static final double DEFAULT_DELTA = 1e-3;
+    public static final long DEFAULT_SEED = 0x5EED;
+
+    /** Word with its estimated occurrences */
+    public static final class Entry {
+        private final String word;
+        private final long estimate;
+
+        private Entry(String word, long estimate) {
+            this.word = word;
+            this.estimate = estimate;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public long getEstimate() {
+            return estimate;
+        }
+
+        @Override
+        public String toString() {
+            return word + "=" + estimate;
+        }
+    }
+
+    // descending by estimate, ties broken by word for stable order
+    private static final Comparator<Entry> BY_ESTIMATE = Comparator
+            .comparingLong(Entry::getEstimate).reversed()
+            .thenComparing(Entry::getWord);
+
+    private final int capacity;
+    private final CountMinSketch sketch;
+    private final Map<String, Entry> candidates;
+    // same entries as candidates, last one has the lowest estimate
+    private final TreeSet<Entry> ranking = new TreeSet<>(BY_ESTIMATE);
+
+    /** Constructs HeavyHitters with default error bounds and seed */
+    public HeavyHitters(int capacity) {
+        this(capacity, DEFAULT_EPSILON, DEFAULT_DELTA, DEFAULT_SEED);
+    }
+
+    /** Constructs HeavyHitters
+     *
+     * @param capacity count of most frequent words kept
+     * @param epsilon relative error of estimates, see CountMinSketch
+     * @param delta probability of exceeding the error
+     * @param seed hash seed, only instances of equal parameters can be merged
+     */
+    public HeavyHitters(int capacity, double epsilon, double delta, long seed) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        this.capacity = capacity;
+        this.sketch = CountMinSketch.withErrorBounds(epsilon, delta, seed);
+        this.candidates = new HashMap<>(capacity * 2);
+    }
+
+    /** Counts word occurrences */
+    public void add(String word, long occurrences) {
+        Objects.requireNonNull(word, "Word must be non null");
+        offer(word, sketch.add(word, occurrences));
+    }
+
+    /** Counts words of wordlist records, see Wordlist.readEntries */
+    public void append(InputStream input) throws IOException {
+        Wordlist.readEntries(input, this::add);
+    }
+
+    /** Counts words of plain text the same way as Wordlist.appendText */
+    public void appendText(InputStream input) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+
+        while(null != (line = reader.readLine()))
+            for(String word: Wordlist.TEXT_DELIMITER.split(line.toLowerCase(Locale.ROOT)))
+                if(!word.isEmpty())
+                    add(word, 1);
+    }
+
+    /** Adds counts of other instance, candidates of both are re-ranked by merged estimates
+     *
+     * @throws IllegalArgumentException if instances differ in capacity, error bounds or seed
+     */
+    public void merge(HeavyHitters other) {
+        Objects.requireNonNull(other, "HeavyHitters must be non null");
+        if(capacity != other.capacity)
+            throw new IllegalArgumentException("Capacities differ: " + capacity
+                    + " and " + other.capacity);
+
+        sketch.merge(other.sketch);
+
+        var words = new ArrayList<String>(candidates.keySet());
+        for(String word: other.candidates.keySet())
+            if(!candidates.containsKey(word))
+                words.add(word);
+
+        candidates.clear();
+        ranking.clear();
+        for(String word: words)
+            offer(word, sketch.estimate(word));
+    }
+
+    /** Returns estimate of word occurrences, also for words which are not candidates */
+    public long estimate(String word) {
+        return sketch.estimate(word);
+    }
+
+    /** Returns candidates in descending order of estimates */
+    public List<Entry> getTop() {
+        return new ArrayList<>(ranking);
+    }
+
+    /** Writes candidates as wordlist records in descending order, estimates above
+     * Integer.MAX_VALUE are capped. Stream is flushed but not closed. */
+    public void export(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                Vocabulary.EXPORT_BUFFER_SIZE);
+
+        for(Entry entry: ranking) {
+            writer.write(entry.word);
+            writer.write('\t');
+            writer.write(Long.toString(Math.min(entry.estimate, Integer.MAX_VALUE)));
+            writer.write('\n');
+        }
+
+        writer.flush();
+    }
+
+    /** Returns maximum overestimate which holds with probability 1 - delta */
+    public long getErrorBound() {
+        return sketch.getErrorBound();
+    }
+
+    /** Returns sum of all counted occurrences */
+    public long getTotal() {
+        return sketch.getTotal();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Returns heap bytes of sketch counters, candidates take about capacity * 150 more */
+    public long getMemoryBytes() {
+        return sketch.getMemoryBytes();
+    }
+
+    private void offer(String word, long estimate) {
+        Entry previous = candidates.get(word);
+
+        if(null != previous) {
+            ranking.remove(previous);
+        }
+        else if(candidates.size() == capacity) {
+            Entry lowest = ranking.last();
+            if(estimate <= lowest.estimate)
+                return;
+
+            ranking.pollLast();
+            candidates.remove(lowest.word);
+        }
+
+        var entry = new Entry(word, estimate);
+        candidates.put(word, entry);
+        ranking.add(entry);
+    }
+}
@@ -0,0 +1,167 @@
+package me.raven.grevoc.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/** Tells which of several exported vocabularies contain a word before it is translated.
+ * Bloom filters of all vocabulary files are kept in memory, a vocabulary file is read only
+ * when its filter can't rule the word out, so a new word usually costs a few bit probes per
+ * file. Files without a valid filter are read once to build and write it.
+ * @see me.raven.grevoc.core.BloomFilter */
+public class KnownWordFilter {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final List<Path> vocabulary_files;
+    private final List<BloomFilter> filters;
+    private long rejections = 0;
+    private long file_reads = 0;
+    private long false_positives = 0;
+
+    /** Constructs filter with default false positive rate for files which have no filter */
+    public KnownWordFilter(Collection<Path> vocabulary_files) throws IOException {
+        this(vocabulary_files, BloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /** Constructs KnownWordFilter, loading or building filter of every vocabulary file
+     *
+     * @param vocabulary_files exported vocabularies, plain or gzip compressed
+     * @param false_positive_rate rate of filters built for files without valid filter
+     * @throws IOException if a vocabulary file or its filter can't be read
+     */
+    public KnownWordFilter(Collection<Path> vocabulary_files, double false_positive_rate)
+            throws IOException {
+        Objects.requireNonNull(vocabulary_files, "Vocabulary files must be non null");
+        if(!(false_positive_rate > 0 && false_positive_rate < 1))
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): "
+                    + false_positive_rate);
+
+        this.vocabulary_files = List.copyOf(vocabulary_files);
+        this.filters = new ArrayList<>(vocabulary_files.size());
+
+        for(Path file: this.vocabulary_files) {
+            BloomFilter filter = BloomFilter.read(file);
+            if(null == filter)
+                filter = buildFilter(file, false_positive_rate);
+
+            filters.add(filter);
+        }
+    }
+
+    /** Returns false if no vocabulary has word, without reading any vocabulary file */
+    public boolean mightContain(String word) {
+        for(BloomFilter filter: filters)
+            if(filter.mightContain(word))
+                return true;
+
+        return false;
+    }
+
+    /** Returns whether any vocabulary has word */
+    public boolean contains(String word) throws IOException {
+        return null != find(word);
+    }
+
+    /** Returns first vocabulary file having word, reading only files whose filter can't rule
+     * the word out
+     *
+     * @return vocabulary file, or null if no vocabulary has word
+     * @throws IOException if vocabulary file can't be read
+     */
+    public Path find(String word) throws IOException {
+        Objects.requireNonNull(word, "Word must be non null");
+
+        for(int i = 0; i < vocabulary_files.size(); i++) {
+            if(!filters.get(i).mightContain(word)) {
+                rejections++;
+                continue;
+            }
+
+            if(hasWord(vocabulary_files.get(i), word))
+                return vocabulary_files.get(i);
+            false_positives++;
+        }
+
+        return null;
+    }
+
+    public List<Path> getVocabularyFiles() {
+        return vocabulary_files;
+    }
+
+    /** Returns count of lookups in a file answered by its filter alone */
+    public long getRejections() {
+        return rejections;
+    }
+
+    /** Returns count of vocabulary files read by lookups */
+    public long getFileReads() {
+        return file_reads;
+    }
+
+    /** Returns count of file reads which didn't find the word */
+    public long getFalsePositives() {
+        return false_positives;
+    }
+
+    /** Returns memory taken by filters of all files */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for(BloomFilter filter: filters)
+            bytes += filter.getMemoryBytes();
+
+        return bytes;
+    }
+
+    /** Reads file up to the line of word, only lines starting with word are parsed */
+    private boolean hasWord(Path file, String word) throws IOException {
+        file_reads++;
+
+        try(BufferedReader reader = Vocabulary.newReader(file)) {
+            String line;
+            while(null != (line = reader.readLine()))
+                if(line.length() > word.length() && '\t' == line.charAt(word.length())
+                        && line.startsWith(word)
+                        && Vocabulary.parseLine(line, (entry_word, translations, occurrences) -> {}))
+                    return true;
+        }
+
+        return false;
+    }
+
+    private static BloomFilter buildFilter(Path file, double false_positive_rate)
+            throws IOException {
+        var words = new ArrayList<String>();
+        // checksum of the filter stamp is taken as file is read, not by reading it again
+        var checksum = new CRC32C();
+        try(InputStream is = new CheckedInputStream(Files.newInputStream(file), checksum)) {
+            Vocabulary.readEntries(is, (word, translations, occurrences) -> words.add(word));
+            // bytes after the end of gzip stream count too
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+
+        BloomFilter filter = BloomFilter.of(words, false_positive_rate);
+        try {
+            filter.write(file, (int) checksum.getValue());
+        }
+        catch(IOException ioe) {
+            // filter still serves this instance
+            LOGGER.warn("Failed to write Bloom filter of {}", file, ioe);
+        }
+
+        LOGGER.debug("Built Bloom filter of {} words for {}", words.size(), file);
+        return filter;
+    }
+}
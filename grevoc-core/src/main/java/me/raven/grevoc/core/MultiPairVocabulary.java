@@ -0,0 +1,309 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.LanguagePair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/** Vocabulary of several language pairs sharing their source dictionaries.
+ * Words and occurrences are kept once per source language, every word gets a dense id there;
+ * translations are attached to word ids per target language. A pair adds only its own
+ * translations, and occurrences of a new text are appended to the source dictionary once
+ * however many pairs share it. Pairs are addressed by dense LanguagePair ids, so a lookup
+ * indexes arrays instead of comparing languages.
+ * @see me.raven.grevoc.core.translator.LanguagePair#getId() */
+public class MultiPairVocabulary {
+    private static final int[] NO_TARGETS = new int[0];
+    private static final Set<?>[] NO_TRANSLATIONS = new Set<?>[0];
+
+    private static final class SourceDictionary {
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private final ArrayList<String> words = new ArrayList<>();
+        private int[] occurrences = new int[16];
+        // target slots word has translations to and the translations, arrays are parallel and
+        // hold only targets of the word, most words have one or two
+        private final ArrayList<int[]> targets = new ArrayList<>();
+        private final ArrayList<Set<?>[]> translations = new ArrayList<>();
+
+        private int idOf(String word) {
+            Integer id = ids.get(word);
+            return null == id ? -1 : id;
+        }
+
+        private int add(String word, int word_occurrences) {
+            int id = words.size();
+            ids.put(word, id);
+            words.add(word);
+            targets.add(NO_TARGETS);
+            translations.add(NO_TRANSLATIONS);
+
+            if(id == occurrences.length)
+                occurrences = Arrays.copyOf(occurrences, id * 2);
+            occurrences[id] = word_occurrences;
+            return id;
+        }
+
+        private Set<String> getTranslations(int id, int target) {
+            int[] word_targets = targets.get(id);
+            for(int i = 0; i < word_targets.length; i++)
+                if(target == word_targets[i])
+                    return cast(translations.get(id)[i]);
+
+            return null;
+        }
+
+        private Set<String> attachTranslations(int id, int target) {
+            Set<String> existing = getTranslations(id, target);
+            if(null != existing)
+                return existing;
+
+            int[] word_targets = targets.get(id);
+            int length = word_targets.length;
+            word_targets = Arrays.copyOf(word_targets, length + 1);
+            Set<?>[] word_translations = Arrays.copyOf(translations.get(id), length + 1);
+
+            Set<String> added = new HashSet<>(2);
+            word_targets[length] = target;
+            word_translations[length] = added;
+            targets.set(id, word_targets);
+            translations.set(id, word_translations);
+            return added;
+        }
+
+        /** Sets of word are created as Set of String only */
+        @SuppressWarnings("unchecked")
+        private static Set<String> cast(Set<?> translations) {
+            return (Set<String>) translations;
+        }
+    }
+
+    private final HashMap<String, SourceDictionary> sources = new HashMap<>();
+    // dense slots of target languages, index of translations array of a word
+    private final HashMap<String, Integer> target_slots = new HashMap<>();
+    private final List<LanguagePair> pairs = new ArrayList<>();
+    // indexed by LanguagePair id, null / 0 for pairs not in this vocabulary
+    private SourceDictionary[] pair_sources = new SourceDictionary[0];
+    private int[] pair_targets = new int[0];
+    private int[] pair_entries = new int[0];
+
+    /** Adds language pair, adding a pair already present does nothing
+     *
+     * @return canonical LanguagePair of languages
+     * @throws IllegalArgumentException if the pair is not supported
+     * @see me.raven.grevoc.core.Vocabulary#SUPPORTED_LANGUAGE_PAIRS
+     */
+    public LanguagePair addLanguagePair(String sl, String tl) {
+        // checked before interning, so unsupported pairs don't take ids
+        if(!Vocabulary.hasLanguagePair(sl, tl))
+            throw new IllegalArgumentException("Unsupported language pair: " + sl + "-" + tl);
+
+        LanguagePair pair = LanguagePair.find(sl, tl);
+        if(hasLanguagePair(pair))
+            return pair;
+
+        int id = pair.getId();
+        if(id >= pair_sources.length) {
+            int length = Math.max(id + 1, pair_sources.length * 2);
+            pair_sources = Arrays.copyOf(pair_sources, length);
+            pair_targets = Arrays.copyOf(pair_targets, length);
+            pair_entries = Arrays.copyOf(pair_entries, length);
+        }
+
+        pair_sources[id] = sources.computeIfAbsent(sl, k -> new SourceDictionary());
+        pair_targets[id] = target_slots.computeIfAbsent(tl, k -> target_slots.size());
+        pairs.add(pair);
+        return pair;
+    }
+
+    public boolean hasLanguagePair(LanguagePair pair) {
+        int id = pair.getId();
+        return id < pair_sources.length && null != pair_sources[id];
+    }
+
+    public boolean hasLanguagePair(String sl, String tl) {
+        LanguagePair pair = LanguagePair.find(sl, tl);
+        return null != pair && hasLanguagePair(pair);
+    }
+
+    /** Returns pairs in order they were added */
+    public List<LanguagePair> getLanguagePairs() {
+        return Collections.unmodifiableList(pairs);
+    }
+
+    /** Adds translations of word in pair; occurrences are taken only if source dictionary
+     * doesn't have the word yet, as other pairs of the source count the same text
+     *
+     * @return false if word already has translations in the pair, true otherwise
+     * @throws IllegalArgumentException if pair is not in vocabulary or translations are empty
+     */
+    public boolean addEntry(LanguagePair pair, String word, Set<String> translations,
+                            int occurrences) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Objects.requireNonNull(translations, "Translations must be non null");
+        if(translations.isEmpty())
+            throw new IllegalArgumentException("Word must have translations: " + word);
+        if(occurrences < 0)
+            throw new IllegalArgumentException("Occurrences must not be negative: " + occurrences);
+
+        SourceDictionary source = getSource(pair);
+        int target = pair_targets[pair.getId()];
+        int id = source.idOf(word);
+
+        if(-1 == id)
+            id = source.add(word, occurrences);
+        else if(null != source.getTranslations(id, target))
+            return false;
+
+        source.attachTranslations(id, target).addAll(translations);
+        pair_entries[pair.getId()]++;
+        return true;
+    }
+
+    /** Adds translations to word of pair, creating entry with 0 occurrences if needed
+     *
+     * @return true if any translation has been added
+     */
+    public boolean addTranslations(LanguagePair pair, String word, Set<String> translations) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Objects.requireNonNull(translations, "Translations must be non null");
+        if(translations.isEmpty())
+            return false;
+
+        SourceDictionary source = getSource(pair);
+        int target = pair_targets[pair.getId()];
+        int id = source.idOf(word);
+
+        if(-1 == id)
+            id = source.add(word, 0);
+        if(null == source.getTranslations(id, target))
+            pair_entries[pair.getId()]++;
+
+        return source.attachTranslations(id, target).addAll(translations);
+    }
+
+    /** Appends occurrences of word in text of source language, for all pairs of the source
+     *
+     * @return false if source dictionary doesn't have the word
+     */
+    public boolean appendOccurrences(String sl, String word, int occurrences) {
+        SourceDictionary source = sources.get(sl);
+        int id = null == source ? -1 : source.idOf(word);
+        if(-1 == id)
+            return false;
+
+        source.occurrences[id] += occurrences;
+        return true;
+    }
+
+    /** Appends occurrences of words of text of source language, words not in dictionary are
+     * skipped
+     *
+     * @return count of words whose occurrences have been appended
+     */
+    public int appendOccurrences(String sl, Map<String, Integer> occurrences) {
+        SourceDictionary source = sources.get(sl);
+        if(null == source)
+            return 0;
+
+        int appended = 0;
+        for(Map.Entry<String, Integer> entry: occurrences.entrySet()) {
+            int id = source.idOf(entry.getKey());
+            if(-1 == id)
+                continue;
+
+            source.occurrences[id] += entry.getValue();
+            appended++;
+        }
+
+        return appended;
+    }
+
+    /** Attaches entries of Vocabulary to its pair, adding the pair if needed. Occurrences of
+     * words already in source dictionary are kept, see addEntry.
+     *
+     * @return count of entries which weren't in the pair yet
+     */
+    public int attach(Vocabulary vocabulary) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+        LanguagePair pair = addLanguagePair(vocabulary.getSourceLanguage(),
+                vocabulary.getTargetLanguage());
+        int[] added = {0};
+
+        vocabulary.forEachEntry((word, translations, occurrences) -> {
+            if(translations.isEmpty())
+                return;
+            if(addEntry(pair, word, translations, occurrences))
+                added[0]++;
+            else
+                addTranslations(pair, word, translations);
+        });
+
+        return added[0];
+    }
+
+    /** Returns occurrences of word in source language, 0 if word is unknown */
+    public int getOccurrences(String sl, String word) {
+        SourceDictionary source = sources.get(sl);
+        int id = null == source ? -1 : source.idOf(word);
+        return -1 == id ? 0 : source.occurrences[id];
+    }
+
+    /** Returns unmodifiable translations of word in pair, empty if it has none */
+    public Set<String> getTranslations(LanguagePair pair, String word) {
+        SourceDictionary source = getSource(pair);
+        int id = source.idOf(word);
+        Set<String> translations = -1 == id ? null
+                : source.getTranslations(id, pair_targets[pair.getId()]);
+
+        return null == translations ? Set.of() : Collections.unmodifiableSet(translations);
+    }
+
+    /** Returns words of source language in order of addition */
+    public List<String> getWordsView(String sl) {
+        SourceDictionary source = sources.get(sl);
+        return null == source ? List.of() : Collections.unmodifiableList(source.words);
+    }
+
+    /** Returns count of words of pair which have translations */
+    public int getEntryCount(LanguagePair pair) {
+        getSource(pair);
+        return pair_entries[pair.getId()];
+    }
+
+    /** Passes entries of pair to consumer in order of addition of words */
+    public void forEachEntry(LanguagePair pair, Vocabulary.EntryConsumer consumer) {
+        SourceDictionary source = getSource(pair);
+        int target = pair_targets[pair.getId()];
+
+        for(int id = 0; id < source.words.size(); id++) {
+            Set<String> translations = source.getTranslations(id, target);
+            if(null != translations)
+                consumer.accept(source.words.get(id), Collections.unmodifiableSet(translations),
+                        source.occurrences[id]);
+        }
+    }
+
+    /** Builds single-pair Vocabulary of pair, e.g. for export */
+    public Vocabulary toVocabulary(LanguagePair pair) {
+        var vocabulary = new Vocabulary(pair.getSource(), pair.getTarget());
+        forEachEntry(pair, (word, translations, occurrences) ->
+                vocabulary.addEntry(word, new HashSet<>(translations), occurrences));
+
+        return vocabulary;
+    }
+
+    private SourceDictionary getSource(LanguagePair pair) {
+        Objects.requireNonNull(pair, "Language pair must be non null");
+        if(!hasLanguagePair(pair))
+            throw new IllegalArgumentException("Language pair is not in vocabulary: " + pair);
+
+        return pair_sources[pair.getId()];
+    }
+}
@@ -0,0 +1,726 @@
+package me.raven.grevoc.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/** Vocabulary which keeps words, translations and occurrences outside of Java heap.
+ * Entries are records in direct ByteBuffer chunks, found through open addressing hash index
+ * which is off-heap as well, so heap usage and GC work don't grow with entry count.
+ * Changed records are rewritten at the end of arena, space of old records is reclaimed by
+ * compaction. Buffers are never freed explicitly, memory of replaced and closed ones is
+ * released by GC once they are unreachable, so a stale reference can never reach freed memory.
+ * OffHeapVocabulary can't be used after it has been closed.
+ * @see me.raven.grevoc.core.Vocabulary */
+public class OffHeapVocabulary implements ReadableVocabulary, AutoCloseable {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long EMPTY = -1;
+    // record: order index, occurrences, word length, word, translation count, translations
+    private static final int ORDER_OFFSET = 0;
+    private static final int OCCURRENCES_OFFSET = 4;
+    private static final int WORD_OFFSET = 8;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    // ByteBuffer holds at most Integer.MAX_VALUE bytes, which bounds index and order buffers
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final double MAX_LOAD = 0.7;
+    private static final int MAX_ORDER_SIZE = Integer.MAX_VALUE / Long.BYTES;
+    /** Maximum count of entries */
+    public static final int MAX_ENTRIES = (int) (MAX_CAPACITY * MAX_LOAD);
+
+    private final String source_language;
+    private final String target_language;
+    private final int chunk_size;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+    private int write_position;
+    private long used_bytes = 0;
+    private long garbage_bytes = 0;
+
+    // index slots: record address and word hash
+    private ByteBuffer slot_addresses;
+    private ByteBuffer slot_hashes;
+    private int capacity;
+    private int size = 0;
+
+    // record addresses in insertion order, EMPTY for removed entries
+    private ByteBuffer order;
+    private int order_size = 0;
+
+    private boolean closed = false;
+
+    /** Constructs empty OffHeapVocabulary with specified source and target languages
+     *
+     * @param sl source language
+     * @param tl target language
+     * @throws IllegalStateException if language pair is not supported
+     */
+    public OffHeapVocabulary(String sl, String tl) {
+        this(sl, tl, DEFAULT_CHUNK_SIZE);
+    }
+
+    /** Constructs empty OffHeapVocabulary
+     *
+     * @param sl source language
+     * @param tl target language
+     * @param chunk_size size of single arena chunk, limits size of single entry
+     */
+    public OffHeapVocabulary(String sl, String tl, int chunk_size) {
+        if(!Vocabulary.hasLanguagePair(sl, tl))
+            throw new IllegalStateException("Invalid language pair");
+        if(chunk_size < 1024)
+            throw new IllegalArgumentException("Chunk size is too small: " + chunk_size);
+
+        this.source_language = sl;
+        this.target_language = tl;
+        this.chunk_size = chunk_size;
+        this.write_position = chunk_size;
+        allocateIndex(INITIAL_CAPACITY);
+        order = ByteBuffer.allocateDirect(INITIAL_CAPACITY * Long.BYTES);
+    }
+
+    /** Puts new entry, short for addEntry() */
+    public boolean put(String word, Set<String> translations, int occurrences) {
+        return addEntry(word, translations, occurrences);
+    }
+
+    /** Adds new entry
+     *
+     * @param word word to add
+     * @param translations word's translations to add
+     * @param occurrences word's occurrences to add
+     * @return true if entry has been added
+     */
+    public boolean addEntry(String word, Set<String> translations, int occurrences) {
+        ensureOpen();
+        Objects.requireNonNull(word, "Word must be non null");
+        Objects.requireNonNull(translations, "Set of translations must be non null");
+
+        if(translations.isEmpty()) {
+            LOGGER.warn("Translations Set is empty");
+            return false;
+        }
+        if(occurrences <= 0) {
+            LOGGER.warn("Occurrences must be positive number");
+            return false;
+        }
+
+        byte[] word_bytes = encode(word);
+        int hash = hash(word);
+        int slot = findSlot(word_bytes, hash);
+        if(EMPTY != slot_addresses.getLong(offset(slot, Long.BYTES))) {
+            LOGGER.warn("Entry is already present");
+            return false;
+        }
+        if(size == MAX_ENTRIES)
+            throw new IllegalStateException("Off-heap vocabulary is full: " + MAX_ENTRIES
+                    + " entries");
+
+        if(order_size == order.capacity() / Long.BYTES)
+            growOrder();
+
+        long address = writeRecord(order_size, occurrences, word_bytes, encode(translations));
+        order.putLong(offset(order_size++, Long.BYTES), address);
+        slot_addresses.putLong(offset(slot, Long.BYTES), address);
+        slot_hashes.putInt(offset(slot, Integer.BYTES), hash);
+
+        if(++size > capacity * MAX_LOAD && capacity < MAX_CAPACITY)
+            allocateIndex(capacity * 2);
+
+        return true;
+    }
+
+    /** Adds new entry with single translation */
+    public boolean addEntry(String word, String translation, int occurrences) {
+        Objects.requireNonNull(translation, "Translation must be not null");
+
+        if(translation.isEmpty()) {
+            LOGGER.warn("Translation is empty string");
+            return false;
+        }
+
+        return addEntry(word, Set.of(translation), occurrences);
+    }
+
+    /** Appends existing entry
+     *
+     * @param key word which is already in vocabulary
+     * @param translations additional translations to append, may be null
+     * @param occurrences additional occurrences to append
+     * @return false if there is no such entry or nothing has been appended
+     */
+    public boolean appendEntry(String key, Set<String> translations, int occurrences) {
+        ensureOpen();
+        Objects.requireNonNull(key, "Key must be non null");
+
+        if(occurrences < 0) {
+            LOGGER.warn("Negative occurrence count provided");
+            return false;
+        }
+
+        long address = findAddress(key);
+        if(EMPTY == address) {
+            LOGGER.warn("No such entry key in vocabulary '{}'", key);
+            return false;
+        }
+
+        boolean any_translation = null != translations && !translations.isEmpty()
+                && appendTranslations(key, address, translations);
+
+        if(0 != occurrences) {
+            // slot address may have changed by appending translations
+            address = findAddress(key);
+            ByteBuffer chunk = chunk(address);
+            int position = position(address) + OCCURRENCES_OFFSET;
+            chunk.putInt(position, chunk.getInt(position) + occurrences);
+        }
+
+        if(!any_translation && 0 == occurrences) {
+            LOGGER.warn("Neutral arguments provided (empty translation set and zero occurrences)");
+            return false;
+        }
+
+        return true;
+    }
+
+    /** Adds translation to existing entry */
+    public boolean addTranslation(String key, String translation) {
+        if(null == translation || translation.isEmpty()) {
+            LOGGER.warn("Translation is not provided (null or empty)");
+            return false;
+        }
+
+        return addTranslations(key, Set.of(translation));
+    }
+
+    /** Adds translations to existing entry
+     *
+     * @return true if at least one translation is new for entry
+     */
+    public boolean addTranslations(String key, Set<String> translations) {
+        ensureOpen();
+        Objects.requireNonNull(key, "Key must be non null");
+        Objects.requireNonNull(translations, "Translations must be non null");
+
+        long address = findAddress(key);
+        if(EMPTY == address) {
+            LOGGER.warn("No such key in vocabulary");
+            return false;
+        }
+
+        if(!appendTranslations(key, address, translations)) {
+            LOGGER.warn("Provided translations are already included");
+            return false;
+        }
+
+        return true;
+    }
+
+    /** Decreases occurrences count */
+    public boolean decreaseOccurrences(String key, int occ_decrease) {
+        ensureOpen();
+
+        if(occ_decrease <= 0) {
+            LOGGER.warn("Occurrences decrease value is below 0, no changes will be performed");
+            return false;
+        }
+
+        long address = findAddress(key);
+        if(EMPTY == address) {
+            LOGGER.warn("No such entry key in vocabulary '{}'", key);
+            return false;
+        }
+
+        ByteBuffer chunk = chunk(address);
+        int position = position(address) + OCCURRENCES_OFFSET;
+        chunk.putInt(position, chunk.getInt(position) - occ_decrease);
+        return true;
+    }
+
+    /** Removes entry */
+    public boolean removeEntry(String word) {
+        ensureOpen();
+        Objects.requireNonNull(word, "Word must be non null");
+
+        int slot = findSlot(encode(word), hash(word));
+        long address = slot_addresses.getLong(offset(slot, Long.BYTES));
+        if(EMPTY == address) {
+            LOGGER.warn("No such word '{}' in vocabulary", word);
+            return false;
+        }
+
+        order.putLong(offset(chunk(address).getInt(position(address) + ORDER_OFFSET), Long.BYTES), EMPTY);
+        garbage_bytes += recordSize(address);
+        deleteSlot(slot);
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        ensureOpen();
+        return EMPTY != findAddress(word);
+    }
+
+    @Override
+    public Set<String> getTranslations(String word) {
+        ensureOpen();
+        long address = findAddress(word);
+        return EMPTY == address ? Set.of() : Collections.unmodifiableSet(readTranslations(address));
+    }
+
+    @Override
+    public int getOccurrences(String word) {
+        ensureOpen();
+        long address = findAddress(word);
+        return EMPTY == address ? 0 : chunk(address).getInt(position(address) + OCCURRENCES_OFFSET);
+    }
+
+    @Override
+    public int size() {
+        ensureOpen();
+        return size;
+    }
+
+    /** Returns unmodifiable List of words in insertion order, words are read from native memory */
+    @Override
+    public List<String> getWords() {
+        ensureOpen();
+
+        var words = new ArrayList<String>(size);
+        for(int i = 0; i < order_size; i++) {
+            long address = order.getLong(offset(i, Long.BYTES));
+            if(EMPTY != address)
+                words.add(readWord(address));
+        }
+
+        return Collections.unmodifiableList(words);
+    }
+
+    /** Returns bytes of native memory held by entry arena and index */
+    public long getAllocatedBytes() {
+        ensureOpen();
+        return (long) chunks.size() * chunk_size + slot_addresses.capacity()
+                + slot_hashes.capacity() + order.capacity();
+    }
+
+    @Override
+    public void forEachEntry(Vocabulary.EntryConsumer consumer) {
+        ensureOpen();
+
+        for(int i = 0; i < order_size; i++) {
+            long address = order.getLong(offset(i, Long.BYTES));
+            if(EMPTY != address)
+                consumer.accept(readWord(address), readTranslations(address),
+                        chunk(address).getInt(position(address) + OCCURRENCES_OFFSET));
+        }
+    }
+
+    /** Appends entries of Vocabulary with the same languages */
+    public void append(Vocabulary vocabulary) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+        if(!vocabulary.getSourceLanguage().equals(source_language)
+                || !vocabulary.getTargetLanguage().equals(target_language))
+            throw new IllegalArgumentException("Vocabularies' languages don't match");
+
+        var translations = vocabulary.getWordsTranslationsView();
+        var occurrences = vocabulary.getWordsOccurrencesView();
+
+        for(String word: vocabulary.getWordsView()) {
+            if(contains(word))
+                appendEntry(word, translations.get(word), occurrences.get(word));
+            else
+                addEntry(word, translations.get(word), occurrences.get(word));
+        }
+    }
+
+    /** Returns on-heap Vocabulary with all entries */
+    public Vocabulary toVocabulary() {
+        var vocabulary = new Vocabulary(source_language, target_language);
+        forEachEntry(vocabulary::addEntry);
+        return vocabulary;
+    }
+
+    /** Appends entries from exported vocabulary file, line by line
+     *
+     * @param file vocabulary file, plain or gzip compressed
+     * @throws IOException if file can't be read
+     * @see me.raven.grevoc.core.Vocabulary#export(Path, boolean)
+     */
+    public void importFromFile(Path file) throws IOException {
+        ensureOpen();
+
+        try(BufferedReader reader = Vocabulary.newReader(file)) {
+            String line;
+
+            while(null != (line = reader.readLine()))
+                Vocabulary.parseLine(line, (word, translations, occurrences) -> {
+                    if(contains(word))
+                        appendEntry(word, translations, occurrences);
+                    else
+                        addEntry(word, translations, occurrences);
+                });
+        }
+    }
+
+    /** Exports entries in Vocabulary file format
+     * @see me.raven.grevoc.core.Vocabulary#export(Path, boolean) */
+    public boolean export(Path export_file, boolean compress) {
+        ensureOpen();
+        Objects.requireNonNull(export_file, "Export file must be non null");
+        char[] digits = new char[11];
+
+        return Vocabulary.writeAtomically(export_file, compress, writer -> {
+            for(int i = 0; i < order_size; i++) {
+                long address = order.getLong(offset(i, Long.BYTES));
+                if(EMPTY != address)
+                    Vocabulary.writeEntry(writer, readWord(address), readTranslations(address),
+                            chunk(address).getInt(position(address) + OCCURRENCES_OFFSET), digits);
+            }
+        });
+    }
+
+    /** Rewrites live entries into fresh arena, releasing space of changed and removed ones */
+    public void compact() {
+        ensureOpen();
+        var old_chunks = new ArrayList<>(chunks);
+        ByteBuffer old_order = order;
+        int old_order_size = order_size;
+
+        chunks.clear();
+        write_position = chunk_size;
+        used_bytes = 0;
+        garbage_bytes = 0;
+        order = ByteBuffer.allocateDirect(offset(Math.max(size, INITIAL_CAPACITY), Long.BYTES));
+        order_size = 0;
+
+        for(int i = 0; i < old_order_size; i++) {
+            long old_address = old_order.getLong(offset(i, Long.BYTES));
+            if(EMPTY == old_address)
+                continue;
+
+            ByteBuffer old_chunk = old_chunks.get((int) (old_address / chunk_size));
+            int old_position = (int) (old_address % chunk_size);
+            int record_size = recordSize(old_chunk, old_position);
+            long address = reserve(record_size);
+            ByteBuffer chunk = chunk(address);
+
+            chunk.put(position(address), old_chunk, old_position, record_size);
+            chunk.putInt(position(address) + ORDER_OFFSET, order_size);
+            order.putLong(offset(order_size++, Long.BYTES), address);
+        }
+
+        // addresses changed, index has to be rebuilt
+        slot_addresses = null;
+        slot_hashes = null;
+        allocateIndex(capacity);
+        for(int i = 0; i < order_size; i++) {
+            long address = order.getLong(offset(i, Long.BYTES));
+            String word = readWord(address);
+            int hash = hash(word);
+            int slot = findSlot(encode(word), hash);
+            slot_addresses.putLong(offset(slot, Long.BYTES), address);
+            slot_hashes.putInt(offset(slot, Integer.BYTES), hash);
+        }
+
+        LOGGER.debug("Off-heap vocabulary compacted to {} bytes", used_bytes);
+    }
+
+    /** Drops buffers, so GC can release their native memory; OffHeapVocabulary can't be used
+     * after that */
+    @Override
+    public void close() {
+        if(closed)
+            return;
+
+        closed = true;
+        chunks.clear();
+        slot_addresses = null;
+        slot_hashes = null;
+        order = null;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String getSourceLanguage() {
+        return source_language;
+    }
+
+    @Override
+    public String getTargetLanguage() {
+        return target_language;
+    }
+
+    private void ensureOpen() {
+        if(closed)
+            throw new IllegalStateException("Off-heap vocabulary is closed");
+    }
+
+    private boolean appendTranslations(String key, long address, Set<String> translations) {
+        Set<String> merged = readTranslations(address);
+        if(!merged.addAll(translations))
+            return false;
+
+        ByteBuffer chunk = chunk(address);
+        int position = position(address);
+        int order_index = chunk.getInt(position + ORDER_OFFSET);
+        int occurrences = chunk.getInt(position + OCCURRENCES_OFFSET);
+        byte[] word_bytes = encode(key);
+        int old_size = recordSize(address);
+
+        long new_address = writeRecord(order_index, occurrences, word_bytes, encode(merged));
+        int slot = findSlot(word_bytes, hash(key));
+        slot_addresses.putLong(offset(slot, Long.BYTES), new_address);
+        order.putLong(offset(order_index, Long.BYTES), new_address);
+        garbage_bytes += old_size;
+
+        if(garbage_bytes > chunk_size && garbage_bytes > used_bytes / 2)
+            compact();
+
+        return true;
+    }
+
+    private long writeRecord(int order_index, int occurrences, byte[] word_bytes,
+                             List<byte[]> translations) {
+        int record_size = WORD_OFFSET + 2 + word_bytes.length + 2;
+        for(byte[] translation: translations)
+            record_size += 2 + translation.length;
+
+        long address = reserve(record_size);
+        ByteBuffer chunk = chunk(address);
+        int position = position(address);
+
+        chunk.putInt(position + ORDER_OFFSET, order_index);
+        chunk.putInt(position + OCCURRENCES_OFFSET, occurrences);
+        position += WORD_OFFSET;
+        chunk.putChar(position, (char) word_bytes.length);
+        chunk.put(position + 2, word_bytes);
+        position += 2 + word_bytes.length;
+        chunk.putChar(position, (char) translations.size());
+        position += 2;
+
+        for(byte[] translation: translations) {
+            chunk.putChar(position, (char) translation.length);
+            chunk.put(position + 2, translation);
+            position += 2 + translation.length;
+        }
+
+        return address;
+    }
+
+    private long reserve(int record_size) {
+        if(record_size > chunk_size)
+            throw new IllegalArgumentException("Entry of " + record_size
+                    + " bytes doesn't fit into chunk of " + chunk_size + " bytes");
+
+        if(write_position + record_size > chunk_size) {
+            chunks.add(ByteBuffer.allocateDirect(chunk_size));
+            write_position = 0;
+        }
+
+        long address = (long) (chunks.size() - 1) * chunk_size + write_position;
+        write_position += record_size;
+        used_bytes += record_size;
+        return address;
+    }
+
+    private String readWord(long address) {
+        ByteBuffer chunk = chunk(address);
+        int position = position(address) + WORD_OFFSET;
+        return readString(chunk, position);
+    }
+
+    private Set<String> readTranslations(long address) {
+        ByteBuffer chunk = chunk(address);
+        int position = position(address) + WORD_OFFSET;
+        position += 2 + chunk.getChar(position);
+        int count = chunk.getChar(position);
+        position += 2;
+
+        var translations = new LinkedHashSet<String>(count * 2);
+        for(int i = 0; i < count; i++) {
+            translations.add(readString(chunk, position));
+            position += 2 + chunk.getChar(position);
+        }
+
+        return translations;
+    }
+
+    private int recordSize(long address) {
+        return recordSize(chunk(address), position(address));
+    }
+
+    private static int recordSize(ByteBuffer chunk, int record_position) {
+        int position = record_position + WORD_OFFSET;
+        position += 2 + chunk.getChar(position);
+        int count = chunk.getChar(position);
+        position += 2;
+
+        for(int i = 0; i < count; i++)
+            position += 2 + chunk.getChar(position);
+
+        return position - record_position;
+    }
+
+    private static String readString(ByteBuffer chunk, int position) {
+        byte[] bytes = new byte[chunk.getChar(position)];
+        chunk.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long findAddress(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        return slot_addresses.getLong(offset(findSlot(encode(word), hash(word)), Long.BYTES));
+    }
+
+    /** Returns slot holding word or empty slot where it should be inserted */
+    private int findSlot(byte[] word_bytes, int hash) {
+        int mask = capacity - 1;
+        int slot = hash & mask;
+
+        while(true) {
+            long address = slot_addresses.getLong(offset(slot, Long.BYTES));
+            if(EMPTY == address)
+                return slot;
+            if(slot_hashes.getInt(offset(slot, Integer.BYTES)) == hash && wordEquals(address, word_bytes))
+                return slot;
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Empties slot with backward shift, so probing sequences stay unbroken without tombstones */
+    private void deleteSlot(int slot) {
+        int mask = capacity - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+
+        while(true) {
+            long address = slot_addresses.getLong(offset(next, Long.BYTES));
+            if(EMPTY == address)
+                break;
+
+            int hash = slot_hashes.getInt(offset(next, Integer.BYTES));
+            int home = hash & mask;
+            // move entry into hole unless its home lies cyclically in (hole, next]
+            boolean stays = hole <= next ? (hole < home && home <= next)
+                    : (hole < home || home <= next);
+            if(!stays) {
+                slot_addresses.putLong(offset(hole, Long.BYTES), address);
+                slot_hashes.putInt(offset(hole, Integer.BYTES), hash);
+                hole = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        slot_addresses.putLong(offset(hole, Long.BYTES), EMPTY);
+    }
+
+    private boolean wordEquals(long address, byte[] word_bytes) {
+        ByteBuffer chunk = chunk(address);
+        int position = position(address) + WORD_OFFSET;
+        if(chunk.getChar(position) != word_bytes.length)
+            return false;
+
+        position += 2;
+        for(int i = 0; i < word_bytes.length; i++)
+            if(chunk.get(position + i) != word_bytes[i])
+                return false;
+
+        return true;
+    }
+
+    private void allocateIndex(int new_capacity) {
+        ByteBuffer old_addresses = slot_addresses;
+        ByteBuffer old_hashes = slot_hashes;
+        int old_capacity = capacity;
+
+        capacity = new_capacity;
+        slot_addresses = ByteBuffer.allocateDirect(offset(new_capacity, Long.BYTES));
+        slot_hashes = ByteBuffer.allocateDirect(offset(new_capacity, Integer.BYTES));
+        for(int i = 0; i < new_capacity; i++)
+            slot_addresses.putLong(offset(i, Long.BYTES), EMPTY);
+
+        if(null == old_addresses)
+            return;
+
+        int mask = new_capacity - 1;
+        for(int i = 0; i < old_capacity; i++) {
+            long address = old_addresses.getLong(offset(i, Long.BYTES));
+            if(EMPTY == address)
+                continue;
+
+            int hash = old_hashes.getInt(offset(i, Integer.BYTES));
+            int slot = hash & mask;
+            while(EMPTY != slot_addresses.getLong(offset(slot, Long.BYTES)))
+                slot = (slot + 1) & mask;
+
+            slot_addresses.putLong(offset(slot, Long.BYTES), address);
+            slot_hashes.putInt(offset(slot, Integer.BYTES), hash);
+        }
+    }
+
+    private void growOrder() {
+        // order can reach its limit only with removed entries, live ones are at most MAX_ENTRIES
+        if(order.capacity() / Long.BYTES == MAX_ORDER_SIZE)
+            compact();
+
+        long new_size = Math.min(2L * (order.capacity() / Long.BYTES), MAX_ORDER_SIZE);
+        ByteBuffer new_order = ByteBuffer.allocateDirect(offset(new_size, Long.BYTES));
+        new_order.put(0, order, 0, offset(order_size, Long.BYTES));
+        order = new_order;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address / chunk_size));
+    }
+
+    private int position(long address) {
+        return (int) (address % chunk_size);
+    }
+
+    private static int hash(String word) {
+        int hash = word.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Returns byte offset of element in buffer, computed in long as ByteBuffer indexes are int
+     * and a product overflowing them must fail rather than wrap */
+    private static int offset(long index, int element_bytes) {
+        return Math.toIntExact(index * element_bytes);
+    }
+
+    private static byte[] encode(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > MAX_STRING_BYTES)
+            throw new IllegalArgumentException("String is longer than " + MAX_STRING_BYTES
+                    + " bytes");
+        return bytes;
+    }
+
+    private static List<byte[]> encode(Set<String> translations) {
+        if(translations.size() > MAX_STRING_BYTES)
+            throw new IllegalArgumentException("Too many translations: " + translations.size());
+
+        var encoded = new ArrayList<byte[]>(translations.size());
+        for(String translation: translations)
+            encoded.add(encode(translation));
+        return encoded;
+    }
+}
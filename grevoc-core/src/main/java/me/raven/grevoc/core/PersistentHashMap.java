@@ -0,0 +1,273 @@
+package me.raven.grevoc.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/** Immutable hash array mapped trie. put and remove return new map sharing all untouched
+ * nodes with the old one, so a new version costs O(log32 n) copied nodes and old versions
+ * stay valid for as long as somebody holds them.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class PersistentHashMap<K, V> {
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        Objects.requireNonNull(key, "Key must be non null");
+        return (V) root.get(0, hash(key), key);
+    }
+
+    boolean containsKey(Object key) {
+        return null != get(key);
+    }
+
+    PersistentHashMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key, "Key must be non null");
+        Objects.requireNonNull(value, "Value must be non null");
+
+        var added = new boolean[1];
+        Node new_root = root.put(0, hash(key), key, value, added);
+        return new_root == root ? this : new PersistentHashMap<>(new_root, added[0] ? size + 1 : size);
+    }
+
+    PersistentHashMap<K, V> remove(Object key) {
+        Objects.requireNonNull(key, "Key must be non null");
+
+        Node new_root = root.remove(0, hash(key), key);
+        if(new_root == root)
+            return this;
+
+        return new PersistentHashMap<>(null == new_root ? BitmapNode.EMPTY : new_root, size - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> consumer) {
+        root.forEach((BiConsumer<Object, Object>) consumer);
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private abstract static class Node {
+        abstract Object get(int shift, int hash, Object key);
+
+        /** Returns this if nothing changed, added[0] is set if new key has been inserted */
+        abstract Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /** Returns this if key is absent, null if node became empty */
+        abstract Node remove(int shift, int hash, Object key);
+
+        abstract void forEach(BiConsumer<Object, Object> consumer);
+    }
+
+    /** Node of up to 32 slots, slot holds key and value or null and child node */
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        private BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if(0 == (bitmap & bit))
+                return null;
+
+            int index = index(bit);
+            Object slot_key = array[index];
+            if(null == slot_key)
+                return ((Node) array[index + 1]).get(shift + 5, hash, key);
+
+            return key.equals(slot_key) ? array[index + 1] : null;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            int index = index(bit);
+
+            if(0 == (bitmap & bit)) {
+                var new_array = new Object[array.length + 2];
+                System.arraycopy(array, 0, new_array, 0, index);
+                new_array[index] = key;
+                new_array[index + 1] = value;
+                System.arraycopy(array, index, new_array, index + 2, array.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, new_array);
+            }
+
+            Object slot_key = array[index];
+            Object slot_value = array[index + 1];
+
+            if(null == slot_key) {
+                Node child = ((Node) slot_value).put(shift + 5, hash, key, value, added);
+                return child == slot_value ? this : with(index + 1, child);
+            }
+            if(key.equals(slot_key))
+                return value == slot_value ? this : with(index + 1, value);
+
+            added[0] = true;
+            Node child = createNode(shift + 5, slot_key, slot_value, hash, key, value);
+            Object[] new_array = array.clone();
+            new_array[index] = null;
+            new_array[index + 1] = child;
+            return new BitmapNode(bitmap, new_array);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if(0 == (bitmap & bit))
+                return this;
+
+            int index = index(bit);
+            Object slot_key = array[index];
+
+            if(null == slot_key) {
+                Node child = ((Node) array[index + 1]).remove(shift + 5, hash, key);
+                if(child == array[index + 1])
+                    return this;
+                if(null != child)
+                    return with(index + 1, child);
+            }
+            else if(!key.equals(slot_key)) {
+                return this;
+            }
+
+            if(bitmap == bit)
+                return null;
+
+            var new_array = new Object[array.length - 2];
+            System.arraycopy(array, 0, new_array, 0, index);
+            System.arraycopy(array, index + 2, new_array, index, array.length - index - 2);
+            return new BitmapNode(bitmap ^ bit, new_array);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> consumer) {
+            for(int i = 0; i < array.length; i += 2) {
+                if(null == array[i])
+                    ((Node) array[i + 1]).forEach(consumer);
+                else
+                    consumer.accept(array[i], array[i + 1]);
+            }
+        }
+
+        private BitmapNode with(int index, Object object) {
+            Object[] new_array = array.clone();
+            new_array[index] = object;
+            return new BitmapNode(bitmap, new_array);
+        }
+
+        private static Node createNode(int shift, Object key1, Object value1,
+                                       int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if(hash1 == hash2)
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+
+            var unused = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, unused)
+                    .put(shift, hash2, key2, value2, unused);
+        }
+    }
+
+    /** Node of keys with equal hashes */
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] array;
+
+        private CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int find(Object key) {
+            for(int i = 0; i < array.length; i += 2)
+                if(key.equals(array[i]))
+                    return i;
+            return -1;
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int index = find(key);
+            return index < 0 ? null : array[index + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if(hash != this.hash) {
+                var node = new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{null, this});
+                return node.put(shift, hash, key, value, added);
+            }
+
+            int index = find(key);
+            if(index >= 0) {
+                if(array[index + 1] == value)
+                    return this;
+
+                Object[] new_array = array.clone();
+                new_array[index + 1] = value;
+                return new CollisionNode(hash, new_array);
+            }
+
+            Object[] new_array = Arrays.copyOf(array, array.length + 2);
+            new_array[array.length] = key;
+            new_array[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, new_array);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int index = find(key);
+            if(index < 0)
+                return this;
+            if(2 == array.length)
+                return null;
+
+            var new_array = new Object[array.length - 2];
+            System.arraycopy(array, 0, new_array, 0, index);
+            System.arraycopy(array, index + 2, new_array, index, array.length - index - 2);
+            return new CollisionNode(hash, new_array);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> consumer) {
+            for(int i = 0; i < array.length; i += 2)
+                consumer.accept(array[i], array[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.raven.grevoc.core;
+
+import java.util.List;
+import java.util.Set;
+
+/** Read access to vocabulary entries, shared by on-heap, off-heap and snapshot vocabularies.
+ * Lookups of absent words return empty values instead of null.
+ *
+ * @see me.raven.grevoc.core.Vocabulary
+ * @see me.raven.grevoc.core.OffHeapVocabulary
+ * @see me.raven.grevoc.core.VocabularySnapshot */
+public interface ReadableVocabulary {
+    String getSourceLanguage();
+
+    String getTargetLanguage();
+
+    /** Returns count of entries */
+    int size();
+
+    /** Checks if vocabulary has entry for word */
+    boolean contains(String word);
+
+    /** Returns unmodifiable translations of word, or empty Set if there is no such word */
+    Set<String> getTranslations(String word);
+
+    /** Returns occurrences of word, or 0 if there is no such word */
+    int getOccurrences(String word);
+
+    /** Returns unmodifiable List of words in insertion order */
+    List<String> getWords();
+
+    /** Passes all entries to consumer in insertion order */
+    void forEachEntry(Vocabulary.EntryConsumer consumer);
+}
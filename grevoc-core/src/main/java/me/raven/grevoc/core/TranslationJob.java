@@ -0,0 +1,212 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.Translator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/** Long-running Wordlist translation which survives restarts.
+ * Every translated batch is checkpointed to its own file in checkpoint directory before the
+ * next batch is requested. On the next run checkpointed words are restored into Vocabulary
+ * and never sent to Translator again. Only translated words are checkpointed: engines report a
+ * failed request as missing translations, so words without them are requested again.
+ * Batch id is a digest of batch words, so the same batch always lands in the same file. */
+public class TranslationJob {
+    public static final String CHECKPOINT_PREFIX = "batch-";
+    public static final String CHECKPOINT_SUFFIX = ".tsv";
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final VocabularyEnricher enricher;
+    private final Path checkpoint_directory;
+
+    /** Constructs TranslationJob
+     *
+     * @param vocabulary Vocabulary to enrich, usually loaded from the last export
+     * @param translator Translator for missing words
+     * @param checkpoint_directory directory for batch checkpoints, created if absent
+     */
+    public TranslationJob(Vocabulary vocabulary, Translator translator, Path checkpoint_directory) {
+        Objects.requireNonNull(checkpoint_directory, "Checkpoint directory must be non null");
+
+        this.enricher = new VocabularyEnricher(vocabulary, translator);
+        this.checkpoint_directory = checkpoint_directory;
+    }
+
+    public VocabularyEnricher getEnricher() {
+        return enricher;
+    }
+
+    public Path getCheckpointDirectory() {
+        return checkpoint_directory;
+    }
+
+    /** Runs job over Wordlist, resuming from checkpoints of previous runs
+     *
+     * @param wordlist Wordlist to translate
+     * @return Report of this run, restored words are not counted as translated
+     * @throws IOException if checkpoint directory can't be read or written
+     */
+    public VocabularyEnricher.Report run(Wordlist wordlist) throws IOException {
+        Objects.requireNonNull(wordlist, "Wordlist must be non null");
+        Files.createDirectories(checkpoint_directory);
+
+        Map<String, Integer> occurrences = wordlist.getWordsOccurrencesView();
+        Map<String, Set<String>> checkpointed = loadCheckpoints();
+        Vocabulary vocabulary = enricher.getVocabulary();
+        var pending_words = new ArrayList<String>();
+
+        for(String word: wordlist.getWordsView()) {
+            Set<String> translations = checkpointed.get(word);
+
+            // known words are left to enricher so their occurrences get appended
+            if(null == translations || vocabulary.getWordsTranslationsView().containsKey(word))
+                pending_words.add(word);
+            else
+                vocabulary.addEntry(word, translations, occurrences.get(word));
+        }
+
+        LOGGER.info("Restored {} checkpointed words, {} words pending",
+                wordlist.getWordsView().size() - pending_words.size(), pending_words.size());
+
+        try {
+            return enricher.enrich(pending_words, occurrences, this::writeCheckpoint);
+        }
+        catch(UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    /** Exports Vocabulary and removes checkpoints once export succeeded
+     *
+     * @param export_file file to export Vocabulary to
+     * @return true if Vocabulary has been exported
+     * @throws IOException if checkpoints can't be removed
+     */
+    public boolean complete(Path export_file) throws IOException {
+        if(!enricher.getVocabulary().export(export_file))
+            return false;
+
+        clearCheckpoints();
+        return true;
+    }
+
+    /** Removes all checkpoints of the job */
+    public void clearCheckpoints() throws IOException {
+        if(!Files.isDirectory(checkpoint_directory))
+            return;
+
+        try(DirectoryStream<Path> checkpoints = Files.newDirectoryStream(checkpoint_directory,
+                CHECKPOINT_PREFIX + "*")) {
+            for(Path checkpoint: checkpoints)
+                Files.delete(checkpoint);
+        }
+    }
+
+    /** Reads all checkpoints, lines without translations are skipped as not done */
+    Map<String, Set<String>> loadCheckpoints() throws IOException {
+        var checkpointed = new HashMap<String, Set<String>>();
+
+        try(DirectoryStream<Path> checkpoints = Files.newDirectoryStream(checkpoint_directory,
+                CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)) {
+            for(Path checkpoint: checkpoints) {
+                try(BufferedReader reader = Files.newBufferedReader(checkpoint,
+                        StandardCharsets.UTF_8)) {
+                    String line;
+
+                    while(null != (line = reader.readLine())) {
+                        String[] fields = line.split("\t", -1);
+                        if(fields.length < 2 || fields[1].isEmpty())
+                            continue;
+
+                        checkpointed.put(fields[0],
+                                new HashSet<>(Arrays.asList(fields[1].split("\\|"))));
+                    }
+                }
+            }
+        }
+
+        return checkpointed;
+    }
+
+    private void writeCheckpoint(List<String> batch, Map<String, HashSet<String>> translations) {
+        if(batch.stream().noneMatch(word -> hasTranslations(translations, word))) {
+            LOGGER.warn("Batch of {} words got no translations, it is left pending", batch.size());
+            return;
+        }
+
+        Path checkpoint = checkpoint_directory.resolve(
+                CHECKPOINT_PREFIX + batchId(batch) + CHECKPOINT_SUFFIX);
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+
+        try {
+            try(BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for(String word: batch) {
+                    if(!hasTranslations(translations, word))
+                        continue;
+
+                    writer.write(word);
+                    writer.write('\t');
+                    writer.write(String.join("|", translations.get(word)));
+                    writer.newLine();
+                }
+            }
+            // checkpoint must reach the disk before the batch counts as done
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+
+            Files.move(temporary, checkpoint, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.debug("Batch checkpoint written: {}", checkpoint);
+        }
+        catch(IOException ioe) {
+            LOGGER.error("Failed to write checkpoint {}", checkpoint, ioe);
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private static boolean hasTranslations(Map<String, HashSet<String>> translations,
+                                           String word) {
+        Set<String> word_translations = translations.get(word);
+        return null != word_translations && !word_translations.isEmpty();
+    }
+
+    /** Returns stable id of batch, equal batches always get equal ids */
+    static String batchId(List<String> batch) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+
+            for(String word: batch) {
+                digest.update(word.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        }
+        catch(NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 is not available", nsae);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.pipeline.BatchStage;
+import me.raven.grevoc.core.pipeline.FlowStage;
+import me.raven.grevoc.core.translator.Translator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.UnaryOperator;
+
+/** Staged alternative to Wordlist plus VocabularyEnricher for text streams:
+ * read lines, tokenize, lemmatize, pick new words, batch, translate, store.
+ * Stages are connected by java.util.concurrent.Flow with bounded buffers and run concurrently,
+ * so text is read and tokenized while earlier batches are being translated. When translator
+ * is the bottleneck, full buffers stop reading of input, so memory holds at most a few buffers
+ * of text besides the counts of distinct words.
+ * Vocabulary is read when run starts and written only by the store stage and after the run,
+ * so it must not be used by others while pipeline runs. Translator must be thread safe if
+ * translator parallelism is above 1. */
+public class TranslationPipeline {
+    /** Result of single pipeline run */
+    public static class Report {
+        private long lines = 0;
+        private long words = 0;
+        private int appended_words = 0;
+        private int added_words = 0;
+        private int untranslated_words = 0;
+        private int batches = 0;
+
+        public long getLines() {
+            return lines;
+        }
+
+        /** Returns count of all words of text, after lemmatization */
+        public long getWords() {
+            return words;
+        }
+
+        /** Returns count of known words which got their occurrences appended */
+        public int getAppendedWords() {
+            return appended_words;
+        }
+
+        /** Returns count of new words translated and added to Vocabulary */
+        public int getAddedWords() {
+            return added_words;
+        }
+
+        /** Returns count of new words Translator returned no translations for */
+        public int getUntranslatedWords() {
+            return untranslated_words;
+        }
+
+        /** Returns count of batches sent to Translator */
+        public int getBatches() {
+            return batches;
+        }
+
+        @Override
+        public String toString() {
+            return "lines=" + lines
+                    + ",words=" + words
+                    + ",appended=" + appended_words
+                    + ",added=" + added_words
+                    + ",untranslated=" + untranslated_words
+                    + ",batches=" + batches;
+        }
+    }
+
+    private static final class TranslatedBatch {
+        private final List<String> words;
+        private final Map<String, HashSet<String>> translations;
+
+        private TranslatedBatch(List<String> words, Map<String, HashSet<String>> translations) {
+            this.words = words;
+            this.translations = translations;
+        }
+    }
+
+    public static final Duration DEFAULT_BATCH_DELAY = Duration.ofMillis(200);
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Vocabulary vocabulary;
+    private final Translator translator;
+    private int batch_size = VocabularyEnricher.DEFAULT_BATCH_SIZE;
+    private Duration batch_delay = DEFAULT_BATCH_DELAY;
+    private int buffer_size = FlowStage.DEFAULT_BUFFER_SIZE;
+    private int tokenizer_parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int translator_parallelism = 1;
+    private UnaryOperator<String> lemmatizer = UnaryOperator.identity();
+
+    /** Constructs TranslationPipeline
+     *
+     * @throws IllegalArgumentException if languages of Vocabulary and Translator don't match
+     */
+    public TranslationPipeline(Vocabulary vocabulary, Translator translator) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+        Objects.requireNonNull(translator, "Translator must be non null");
+
+        if(!vocabulary.getSourceLanguage().equals(translator.getSourceLanguage())
+                || !vocabulary.getTargetLanguage().equals(translator.getTargetLanguage()))
+            throw new IllegalArgumentException("Languages of Vocabulary and Translator don't match");
+
+        this.vocabulary = vocabulary;
+        this.translator = translator;
+    }
+
+    /** Sets count of words sent to Translator per request */
+    public boolean setBatchSize(int size) {
+        if(size <= 0) {
+            LOGGER.warn("Batch size must be positive number: {}", size);
+            return false;
+        }
+
+        batch_size = size;
+        return true;
+    }
+
+    /** Sets maximum time a new word waits for its batch to fill */
+    public boolean setBatchDelay(Duration delay) {
+        if(null == delay || delay.isNegative()) {
+            LOGGER.warn("Batch delay must be non negative: {}", delay);
+            return false;
+        }
+
+        batch_delay = delay;
+        return true;
+    }
+
+    /** Sets capacity of every buffer between stages, in items of the stage */
+    public boolean setBufferSize(int size) {
+        if(size <= 0) {
+            LOGGER.warn("Buffer size must be positive number: {}", size);
+            return false;
+        }
+
+        buffer_size = size;
+        return true;
+    }
+
+    /** Sets count of threads of tokenizing and of lemmatizing stage */
+    public boolean setTokenizerParallelism(int parallelism) {
+        if(parallelism <= 0) {
+            LOGGER.warn("Parallelism must be positive number: {}", parallelism);
+            return false;
+        }
+
+        tokenizer_parallelism = parallelism;
+        return true;
+    }
+
+    /** Sets count of concurrent Translator requests */
+    public boolean setTranslatorParallelism(int parallelism) {
+        if(parallelism <= 0) {
+            LOGGER.warn("Parallelism must be positive number: {}", parallelism);
+            return false;
+        }
+
+        translator_parallelism = parallelism;
+        return true;
+    }
+
+    /** Sets function reducing word to its dictionary form, it must be thread safe; word
+     * is dropped if lemmatizer returns null or empty string */
+    public boolean setLemmatizer(UnaryOperator<String> lemmatizer) {
+        if(null == lemmatizer) {
+            LOGGER.warn("Lemmatizer must be non null");
+            return false;
+        }
+
+        this.lemmatizer = lemmatizer;
+        return true;
+    }
+
+    /** Runs text through the pipeline and waits for it to finish
+     *
+     * @param text UTF-8 plain text; it is not closed
+     * @return Report of the run
+     * @throws IOException if text can't be read
+     * @throws IllegalStateException if a stage has failed
+     */
+    public Report run(InputStream text) throws IOException, InterruptedException {
+        Objects.requireNonNull(text, "Text must be non null");
+        var report = new Report();
+        var known_words = new HashSet<>(vocabulary.getWordsTranslationsView().keySet());
+        // confined to classify stage, read after the run has finished
+        var counts = new HashMap<String, Integer>();
+        var new_words = new HashSet<String>();
+
+        var lines = new SubmissionPublisher<String>(FlowStage.newDeliveryExecutor("source"),
+                buffer_size);
+
+        FlowStage<String, List<String>> tokenize = FlowStage.map("tokenize", line -> {
+            var words = new ArrayList<String>();
+            for(String word: Wordlist.TEXT_DELIMITER.split(line.toLowerCase(Locale.ROOT)))
+                if(!word.isEmpty())
+                    words.add(word);
+            return words.isEmpty() ? null : words;
+        }, tokenizer_parallelism, buffer_size);
+
+        FlowStage<List<String>, List<String>> lemmatize = FlowStage.map("lemmatize", words -> {
+            var lemmas = new ArrayList<String>(words.size());
+            for(String word: words) {
+                String lemma = lemmatizer.apply(word);
+                if(null != lemma && !lemma.isEmpty())
+                    lemmas.add(lemma);
+            }
+            return lemmas;
+        }, tokenizer_parallelism, buffer_size);
+
+        FlowStage<List<String>, String> classify = FlowStage.flatMap("classify", words -> {
+            var first_seen = new ArrayList<String>();
+            for(String word: words) {
+                report.words++;
+                // merge returns 1 only for the first occurrence
+                if(1 != counts.merge(word, 1, Integer::sum))
+                    continue;
+                if(!known_words.contains(word)) {
+                    new_words.add(word);
+                    first_seen.add(word);
+                }
+            }
+            return first_seen;
+        }, 1, buffer_size);
+
+        var batch = new BatchStage<String>("batch", batch_size, batch_delay, buffer_size);
+
+        FlowStage<List<String>, TranslatedBatch> translate = FlowStage.map("translate",
+                words -> new TranslatedBatch(words, translator.translate(words)),
+                translator_parallelism, buffer_size);
+
+        var store = new StoreSubscriber(report);
+
+        lines.subscribe(tokenize);
+        tokenize.subscribe(lemmatize);
+        lemmatize.subscribe(classify);
+        classify.subscribe(batch);
+        batch.subscribe(translate);
+        translate.subscribe(store);
+
+        long start = System.nanoTime();
+        try {
+            var reader = new BufferedReader(new InputStreamReader(text, StandardCharsets.UTF_8));
+            String line;
+
+            // blocks while tokenizer buffer is full, stops early once a stage has failed
+            while(!store.done.isDone() && null != (line = reader.readLine())) {
+                lines.submit(line);
+                report.lines++;
+            }
+
+            lines.close();
+        }
+        catch(IOException | RuntimeException e) {
+            lines.closeExceptionally(e);
+            awaitQuietly(store.done);
+            throw e;
+        }
+
+        try {
+            store.done.get();
+        }
+        catch(ExecutionException ee) {
+            throw new IllegalStateException("Pipeline has failed", ee.getCause());
+        }
+
+        // stored entries got one occurrence, the rest is added now that stages are done
+        counts.forEach((word, occurrences) -> {
+            int appended = new_words.contains(word) ? occurrences - 1 : occurrences;
+            if(vocabulary.getWordsTranslationsView().containsKey(word) && appended > 0
+                    && vocabulary.appendEntry(word, Set.of(), appended) && !new_words.contains(word))
+                report.appended_words++;
+        });
+
+        LOGGER.info("Pipeline finished in {} ms: {}", (System.nanoTime() - start) / 1_000_000, report);
+        return report;
+    }
+
+    private static void awaitQuietly(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+        }
+        catch(ExecutionException ee) {
+            LOGGER.debug("Pipeline stopped: {}", ee.getCause().toString());
+        }
+    }
+
+    /** Last stage, writes translations to Vocabulary on delivery thread of translate stage */
+    private class StoreSubscriber implements Flow.Subscriber<TranslatedBatch> {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final Report report;
+        private Flow.Subscription subscription;
+
+        private StoreSubscriber(Report report) {
+            this.report = report;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(buffer_size);
+        }
+
+        @Override
+        public void onNext(TranslatedBatch batch) {
+            report.batches++;
+
+            for(String word: batch.words) {
+                HashSet<String> translations = batch.translations.get(word);
+
+                if(null == translations || translations.isEmpty()) {
+                    LOGGER.warn("No translations received for word '{}'", word);
+                    report.untranslated_words++;
+                    continue;
+                }
+
+                if(vocabulary.addEntry(word, translations, 1))
+                    report.added_words++;
+            }
+
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.metrics.Counter;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
+import me.raven.grevoc.core.translator.Translator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/** Fills Vocabulary with words of Wordlist under per-engine character budgets.
+ * Paid engines bill every sent character, so missing words are translated in descending order
+ * of occurrences: when budgets run out, the most frequent words are already done. Engines are
+ * tried in order they were added, a word goes to the first engine whose remaining budget fits
+ * it, and scheduling stops once no engine can afford any more words.
+ * Spent characters are kept by the scheduler, so consecutive runs share the same budgets. */
+public class TranslationScheduler {
+    /** Cost and throughput of one engine during a single run */
+    public static class EngineReport {
+        private final String engine;
+        private long characters = 0;
+        private int words = 0;
+        private int untranslated_words = 0;
+        private int batches = 0;
+        private long elapsed_nanos = 0;
+        private long remaining_budget;
+
+        private EngineReport(String engine) {
+            this.engine = engine;
+        }
+
+        public String getEngine() {
+            return engine;
+        }
+
+        /** Returns count of characters sent, i.e. billed by the engine */
+        public long getCharacters() {
+            return characters;
+        }
+
+        /** Returns count of words sent */
+        public int getWords() {
+            return words;
+        }
+
+        /** Returns count of sent words engine returned no translations for */
+        public int getUntranslatedWords() {
+            return untranslated_words;
+        }
+
+        public int getBatches() {
+            return batches;
+        }
+
+        /** Returns time spent waiting for the engine */
+        public long getElapsedNanos() {
+            return elapsed_nanos;
+        }
+
+        /** Returns budget left after the run */
+        public long getRemainingBudget() {
+            return remaining_budget;
+        }
+
+        /** Returns words sent per second of engine time, 0 if engine wasn't used */
+        public double getWordsPerSecond() {
+            return 0 == elapsed_nanos ? 0 : words * 1e9 / elapsed_nanos;
+        }
+
+        /** Returns characters sent per second of engine time, 0 if engine wasn't used */
+        public double getCharactersPerSecond() {
+            return 0 == elapsed_nanos ? 0 : characters * 1e9 / elapsed_nanos;
+        }
+
+        @Override
+        public String toString() {
+            return engine + "{characters=" + characters
+                    + ",words=" + words
+                    + ",untranslated=" + untranslated_words
+                    + ",batches=" + batches
+                    + ",remaining=" + remaining_budget
+                    + ",words/s=" + String.format("%.1f", getWordsPerSecond()) + "}";
+        }
+    }
+
+    /** Result of single scheduling run */
+    public static class Report {
+        private final Map<String, EngineReport> engines = new LinkedHashMap<>();
+        private int appended_words = 0;
+        private int added_words = 0;
+        private int untranslated_words = 0;
+        private int skipped_words = 0;
+        private long translated_occurrences = 0;
+        private long missing_occurrences = 0;
+        private long elapsed_nanos = 0;
+
+        /** Returns count of known words which got their occurrences appended */
+        public int getAppendedWords() {
+            return appended_words;
+        }
+
+        /** Returns count of new words translated and added to Vocabulary */
+        public int getAddedWords() {
+            return added_words;
+        }
+
+        /** Returns count of sent words no engine returned translations for */
+        public int getUntranslatedWords() {
+            return untranslated_words;
+        }
+
+        /** Returns count of missing words left unsent because budgets ran out */
+        public int getSkippedWords() {
+            return skipped_words;
+        }
+
+        /** Returns share of occurrences of missing words which got translated, 1 if none were
+         * missing */
+        public double getOccurrenceCoverage() {
+            return 0 == missing_occurrences ? 1 : (double) translated_occurrences / missing_occurrences;
+        }
+
+        /** Returns characters sent to all engines */
+        public long getCharacters() {
+            long characters = 0;
+            for(EngineReport engine: engines.values())
+                characters += engine.characters;
+            return characters;
+        }
+
+        /** Returns report of engine, null if engine isn't scheduled */
+        public EngineReport getEngineReport(String engine) {
+            return engines.get(engine);
+        }
+
+        /** Returns reports of all engines in order of preference */
+        public List<EngineReport> getEngineReports() {
+            return List.copyOf(engines.values());
+        }
+
+        public long getElapsedNanos() {
+            return elapsed_nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "appended=" + appended_words
+                    + ",added=" + added_words
+                    + ",untranslated=" + untranslated_words
+                    + ",skipped=" + skipped_words
+                    + ",coverage=" + String.format("%.3f", getOccurrenceCoverage())
+                    + ",engines=" + engines.values();
+        }
+    }
+
+    private static final class Engine {
+        private final String name;
+        private final Translator translator;
+        private final Counter spent;
+        private long budget;
+        private long characters = 0;
+        // words assigned to the engine but not sent yet, their cost is already reserved
+        private final List<String> batch = new ArrayList<>();
+        private long reserved = 0;
+
+        private Engine(String name, Translator translator, long budget) {
+            this.name = name;
+            this.translator = translator;
+            this.budget = budget;
+            this.spent = MetricsRegistry.getDefault().counter("translator." + name + ".characters");
+        }
+
+        private long getAvailable() {
+            return budget - characters - reserved;
+        }
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    /** Budget of engine which isn't billed per character */
+    public static final long UNLIMITED_BUDGET = Long.MAX_VALUE;
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Vocabulary vocabulary;
+    private final Map<String, Engine> engines = new LinkedHashMap<>();
+    private int batch_size = DEFAULT_BATCH_SIZE;
+
+    /** Constructs TranslationScheduler without engines
+     *
+     * @param vocabulary Vocabulary to fill
+     */
+    public TranslationScheduler(Vocabulary vocabulary) {
+        this.vocabulary = Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+    }
+
+    /** Adds engine named by ENGINE_NAME of translator's class, see addEngine(String, ...) */
+    public void addEngine(Translator translator, long character_budget) {
+        Objects.requireNonNull(translator, "Translator must be non null");
+        addEngine(getEngineName(translator), translator, character_budget);
+    }
+
+    /** Adds engine after already added ones, so it is used when their budgets can't afford
+     * a word
+     *
+     * @param name engine name, budget is shared by all translators of the engine
+     * @param translator Translator of the same languages as Vocabulary
+     * @param character_budget characters engine may translate, UNLIMITED_BUDGET if it's free
+     * @throws IllegalArgumentException if engine is already added, budget is negative or
+     * languages don't match
+     */
+    public void addEngine(String name, Translator translator, long character_budget) {
+        Objects.requireNonNull(name, "Engine name must be non null");
+        Objects.requireNonNull(translator, "Translator must be non null");
+        if(character_budget < 0)
+            throw new IllegalArgumentException("Budget must not be negative: " + character_budget);
+        if(engines.containsKey(name))
+            throw new IllegalArgumentException("Engine is already added: " + name);
+        if(!vocabulary.getSourceLanguage().equals(translator.getSourceLanguage())
+                || !vocabulary.getTargetLanguage().equals(translator.getTargetLanguage()))
+            throw new IllegalArgumentException("Languages of Vocabulary and Translator don't match");
+
+        engines.put(name, new Engine(name, translator, character_budget));
+    }
+
+    /** Replaces budget of engine, characters already spent count against the new one
+     *
+     * @return true if budget has been set
+     */
+    public boolean setBudget(String engine, long character_budget) {
+        Engine scheduled = engines.get(engine);
+
+        if(null == scheduled) {
+            LOGGER.warn("Engine isn't scheduled: {}", engine);
+            return false;
+        }
+        if(character_budget < 0) {
+            LOGGER.warn("Budget must not be negative: {}", character_budget);
+            return false;
+        }
+
+        scheduled.budget = character_budget;
+        return true;
+    }
+
+    /** Sets count of words sent to Translator per request
+     *
+     * @param size positive batch size
+     * @return true if batch size has been set
+     */
+    public boolean setBatchSize(int size) {
+        if(size <= 0) {
+            LOGGER.warn("Batch size must be positive number: {}", size);
+            return false;
+        }
+
+        batch_size = size;
+        return true;
+    }
+
+    public int getBatchSize() {
+        return batch_size;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /** Returns characters engine has been billed for by all runs */
+    public long getSpentCharacters(String engine) {
+        return getEngine(engine).characters;
+    }
+
+    /** Returns characters engine may still translate */
+    public long getRemainingBudget(String engine) {
+        Engine scheduled = getEngine(engine);
+        return scheduled.budget - scheduled.characters;
+    }
+
+    /** Returns names of engines in order of preference */
+    public List<String> getEngines() {
+        return List.copyOf(engines.keySet());
+    }
+
+    /** Translates missing words of Wordlist, most frequent first, while budgets last; known
+     * words get their occurrences appended
+     *
+     * @return Report of the run
+     * @throws IllegalStateException if no engine has been added
+     */
+    public Report schedule(Wordlist wordlist) {
+        Objects.requireNonNull(wordlist, "Wordlist must be non null");
+        return schedule(wordlist.getWordsView(), wordlist.getWordsOccurrencesView());
+    }
+
+    /** Translates missing words, most frequent first, while budgets last; known words get
+     * their occurrences appended
+     *
+     * @param words distinct words to fill Vocabulary with
+     * @param occurrences occurrences of every word in words
+     * @return Report of the run
+     * @throws IllegalStateException if no engine has been added
+     * @throws RuntimeException thrown by a Translator; batch it failed on is billed, words not
+     * sent yet are dropped, so the next run schedules them again with full budgets
+     */
+    public Report schedule(Iterable<String> words, Map<String, Integer> occurrences) {
+        Objects.requireNonNull(words, "Words must be non null");
+        Objects.requireNonNull(occurrences, "Occurrences must be non null");
+        if(engines.isEmpty())
+            throw new IllegalStateException("No engine has been added");
+
+        long start = System.nanoTime();
+        var report = new Report();
+        for(Engine engine: engines.values())
+            report.engines.put(engine.name, new EngineReport(engine.name));
+
+        List<String> missing_words = prioritize(words, occurrences, report);
+        int scheduled = 0;
+
+        try {
+            for(String word: missing_words) {
+                if(!hasAvailableBudget())
+                    break;
+
+                long cost = getCost(word);
+                Engine engine = findEngine(cost);
+                if(null == engine)
+                    continue;
+
+                engine.batch.add(word);
+                engine.reserved += cost;
+                scheduled++;
+                if(engine.batch.size() == batch_size)
+                    translateBatch(engine, occurrences, report);
+            }
+            report.skipped_words = missing_words.size() - scheduled;
+
+            for(Engine engine: engines.values())
+                if(!engine.batch.isEmpty())
+                    translateBatch(engine, occurrences, report);
+        }
+        finally {
+            // batches left by a failed run are neither sent nor billed
+            for(Engine engine: engines.values()) {
+                engine.batch.clear();
+                engine.reserved = 0;
+            }
+        }
+
+        for(Engine engine: engines.values())
+            report.engines.get(engine.name).remaining_budget = engine.budget - engine.characters;
+        report.elapsed_nanos = System.nanoTime() - start;
+
+        LOGGER.info("Translation scheduling finished: {}", report);
+        return report;
+    }
+
+    /** Returns characters engines bill for word */
+    public static long getCost(String word) {
+        return word.codePointCount(0, word.length());
+    }
+
+    /** Returns ENGINE_NAME declared by class of translator, or its simple class name */
+    public static String getEngineName(Translator translator) {
+        try {
+            Object name = translator.getClass().getField("ENGINE_NAME").get(null);
+            if(null != name)
+                return name.toString();
+        }
+        catch(NoSuchFieldException | IllegalAccessException e) {
+            LOGGER.debug("No engine name in {}", translator.getClass().getName());
+        }
+
+        return translator.getClass().getSimpleName();
+    }
+
+    /** Appends known words and returns missing ones in descending order of occurrences */
+    private List<String> prioritize(Iterable<String> words, Map<String, Integer> occurrences,
+                                    Report report) {
+        Map<String, ?> known_words = vocabulary.getWordsTranslationsView();
+        var missing_words = new ArrayList<String>();
+
+        for(String word: words) {
+            if(known_words.containsKey(word)) {
+                if(vocabulary.appendEntry(word, Set.of(), occurrences.get(word)))
+                    report.appended_words++;
+                continue;
+            }
+
+            missing_words.add(word);
+            report.missing_occurrences += occurrences.get(word);
+        }
+
+        // ties by word, so budget goes to the same words on every run
+        missing_words.sort(Comparator.<String>comparingInt(occurrences::get).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return missing_words;
+    }
+
+    private Engine findEngine(long cost) {
+        for(Engine engine: engines.values())
+            if(engine.getAvailable() >= cost)
+                return engine;
+
+        return null;
+    }
+
+    private boolean hasAvailableBudget() {
+        // every word costs at least one character
+        for(Engine engine: engines.values())
+            if(engine.getAvailable() > 0)
+                return true;
+
+        return false;
+    }
+
+    private void translateBatch(Engine engine, Map<String, Integer> occurrences, Report report) {
+        EngineReport engine_report = report.engines.get(engine.name);
+        var batch = new ArrayList<>(engine.batch);
+        long cost = engine.reserved;
+        engine.batch.clear();
+        engine.reserved = 0;
+
+        // characters are billed whether translations came or not; a request which threw may
+        // have reached the engine as well, so it is billed before sending and budget can't be
+        // overspent by retries
+        engine.characters += cost;
+        engine.spent.add(cost);
+        engine_report.characters += cost;
+        engine_report.words += batch.size();
+        engine_report.batches++;
+
+        long start = System.nanoTime();
+        HashMap<String, HashSet<String>> translations;
+        try {
+            translations = engine.translator.translate(batch);
+        }
+        finally {
+            engine_report.elapsed_nanos += System.nanoTime() - start;
+        }
+
+        for(String word: batch) {
+            HashSet<String> word_translations = translations.get(word);
+
+            if(null == word_translations || word_translations.isEmpty()) {
+                LOGGER.warn("No translations received for word '{}' from {}", word, engine.name);
+                engine_report.untranslated_words++;
+                report.untranslated_words++;
+                continue;
+            }
+
+            if(vocabulary.addEntry(word, word_translations, occurrences.get(word))) {
+                report.added_words++;
+                report.translated_occurrences += occurrences.get(word);
+            }
+        }
+    }
+
+    private Engine getEngine(String engine) {
+        Engine scheduled = engines.get(engine);
+        if(null == scheduled)
+            throw new IllegalArgumentException("Engine isn't scheduled: " + engine);
+
+        return scheduled;
+    }
+}
@@ -0,0 +1,199 @@
+package me.raven.grevoc.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/** Vocabulary for many readers and few writers.
+ * Entries live in persistent hash trie, every change builds new trie version sharing untouched
+ * nodes with the previous one and publishes it with a single volatile write. Readers take
+ * snapshot in O(1) and never block or see a half applied change; writers are serialized.
+ * @see me.raven.grevoc.core.VocabularySnapshot */
+public class VersionedVocabulary {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final String source_language;
+    private final String target_language;
+    private volatile VocabularySnapshot current;
+    // guarded by this
+    private long next_sequence = 0;
+
+    /** Constructs empty VersionedVocabulary
+     *
+     * @param sl source language
+     * @param tl target language
+     * @throws IllegalStateException if language pair is not supported
+     */
+    public VersionedVocabulary(String sl, String tl) {
+        if(!Vocabulary.hasLanguagePair(sl, tl))
+            throw new IllegalStateException("Invalid language pair");
+
+        source_language = sl;
+        target_language = tl;
+        current = new VocabularySnapshot(sl, tl, PersistentHashMap.empty(), 0);
+    }
+
+    /** Constructs VersionedVocabulary with entries of Vocabulary */
+    public VersionedVocabulary(Vocabulary vocabulary) {
+        this(vocabulary.getSourceLanguage(), vocabulary.getTargetLanguage());
+        append(vocabulary);
+    }
+
+    /** Returns current version, it stays unchanged whatever writers do later */
+    public VocabularySnapshot snapshot() {
+        return current;
+    }
+
+    public String getSourceLanguage() {
+        return source_language;
+    }
+
+    public String getTargetLanguage() {
+        return target_language;
+    }
+
+    /** Adds new entry and publishes new version
+     *
+     * @param word word to add
+     * @param translations word's translations to add
+     * @param occurrences word's occurrences to add
+     * @return true if entry has been added
+     */
+    public synchronized boolean addEntry(String word, Set<String> translations, int occurrences) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Objects.requireNonNull(translations, "Set of translations must be non null");
+
+        PersistentHashMap<String, VocabularySnapshot.Entry> entries = current.getEntries();
+        if(entries.containsKey(word)) {
+            LOGGER.warn("Entry is already present");
+            return false;
+        }
+        if(translations.isEmpty()) {
+            LOGGER.warn("Translations Set is empty");
+            return false;
+        }
+        if(occurrences <= 0) {
+            LOGGER.warn("Occurrences must be positive number");
+            return false;
+        }
+
+        publish(entries.put(word, newEntry(word, translations, occurrences)));
+        return true;
+    }
+
+    /** Appends translations and occurrences to existing entry and publishes new version
+     *
+     * @param key word which is already in the vocabulary
+     * @param translations additional translations, null is treated as empty Set
+     * @param occurrences additional occurrences
+     * @return true if entry has been changed
+     */
+    public synchronized boolean appendEntry(String key, Set<String> translations, int occurrences) {
+        Objects.requireNonNull(key, "Key must be non null");
+
+        PersistentHashMap<String, VocabularySnapshot.Entry> entries = current.getEntries();
+        VocabularySnapshot.Entry entry = entries.get(key);
+        if(null == entry) {
+            LOGGER.warn("No such entry key in vocabulary '{}'", key);
+            return false;
+        }
+        if(occurrences < 0) {
+            LOGGER.warn("Negative occurrence count provided");
+            return false;
+        }
+
+        VocabularySnapshot.Entry appended = appendedEntry(entry, translations, occurrences);
+        if(appended == entry) {
+            LOGGER.warn("Neutral arguments provided (empty translation set and zero occurrences)");
+            return false;
+        }
+
+        publish(entries.put(key, appended));
+        return true;
+    }
+
+    /** Adds translation to existing entry and publishes new version */
+    public boolean addTranslation(String key, String translation) {
+        if(null == translation || "".equals(translation)) {
+            LOGGER.warn("Translation is not provided (null or empty)");
+            return false;
+        }
+
+        return appendEntry(key, Set.of(translation), 0);
+    }
+
+    /** Removes entry and publishes new version */
+    public synchronized boolean removeEntry(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+
+        PersistentHashMap<String, VocabularySnapshot.Entry> entries = current.getEntries();
+        if(!entries.containsKey(word)) {
+            LOGGER.warn("No such word '{}' in vocabulary", word);
+            return false;
+        }
+
+        publish(entries.remove(word));
+        return true;
+    }
+
+    /** Merges all entries of Vocabulary, readers see either none or all of them
+     *
+     * @param vocabulary Vocabulary with the same languages
+     * @throws IllegalArgumentException if languages don't match
+     */
+    public synchronized void append(Vocabulary vocabulary) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+        if(!source_language.equals(vocabulary.getSourceLanguage())
+                || !target_language.equals(vocabulary.getTargetLanguage()))
+            throw new IllegalArgumentException("Vocabulary languages don't match");
+
+        PersistentHashMap<String, VocabularySnapshot.Entry> entries = current.getEntries();
+        Map<String, Set<String>> translations = vocabulary.getWordsTranslationsView();
+        Map<String, Integer> occurrences = vocabulary.getWordsOccurrencesView();
+
+        for(String word: vocabulary.getWordsView()) {
+            VocabularySnapshot.Entry entry = entries.get(word);
+            entries = entries.put(word, null == entry
+                    ? newEntry(word, translations.get(word), occurrences.get(word))
+                    : appendedEntry(entry, translations.get(word), occurrences.get(word)));
+        }
+
+        publish(entries);
+    }
+
+    private void publish(PersistentHashMap<String, VocabularySnapshot.Entry> entries) {
+        if(entries == current.getEntries())
+            return;
+
+        current = new VocabularySnapshot(source_language, target_language, entries,
+                current.getVersion() + 1);
+    }
+
+    private VocabularySnapshot.Entry newEntry(String word, Set<String> translations,
+                                              int occurrences) {
+        return new VocabularySnapshot.Entry(word, Set.copyOf(translations), occurrences,
+                next_sequence++);
+    }
+
+    /** Returns entry with merged values, or the same entry if nothing changes */
+    private static VocabularySnapshot.Entry appendedEntry(VocabularySnapshot.Entry entry,
+                                                          Set<String> translations,
+                                                          int occurrences) {
+        Set<String> merged = entry.getTranslations();
+        if(null != translations && !merged.containsAll(translations)) {
+            var union = new HashSet<>(merged);
+            union.addAll(translations);
+            merged = Set.copyOf(union);
+        }
+
+        if(merged == entry.getTranslations() && 0 == occurrences)
+            return entry;
+
+        return new VocabularySnapshot.Entry(entry.getWord(), merged,
+                entry.getOccurrences() + occurrences, entry.getSequence());
+    }
+}
@@ -1,44 +1,115 @@
 package me.raven.grevoc.core;
 
 
+import me.raven.grevoc.core.metrics.Counter;
+import me.raven.grevoc.core.metrics.LatencyHistogram;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
 import me.raven.grevoc.core.translator.LanguagePair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringJoiner;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 
 import java.io.IOException;
 
 
 /** Vocabulary class for 'grevoc' vocabulary project
  *  keeps words, occurrences(count), translations */
-public class Vocabulary {
+public class Vocabulary implements ReadableVocabulary {
+    /** Listener of entry set changes, lets indexes over words stay in sync with Vocabulary */
+    public interface EntryListener {
+        /** Called after new entry has been added */
+        void entryAdded(String word);
+
+        /** Called after entry has been removed */
+        void entryRemoved(String word);
+
+        /** Called after all entries have been replaced at once, e.g. on import */
+        void entriesReset(Vocabulary vocabulary);
+    }
+
+    /** Receives entries of Vocabulary, or of any other store of Vocabulary entries */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(String word, Set<String> translations, int occurrences);
+    }
+
+    /** Writing action of export which may fail with IOException */
+    @FunctionalInterface
+    interface WriterAction {
+        void write(Writer writer) throws IOException;
+    }
+
     /** Defines pairs of source-target languages which Vocabulary can work with */
     public static final LanguagePair[] SUPPORTED_LANGUAGE_PAIRS = {
-            new LanguagePair("en", "ru"),
-            new LanguagePair("de", "ru")
+            LanguagePair.of("en", "ru"),
+            LanguagePair.of("de", "ru"),
+            LanguagePair.of("en", "de")
     };
+    // ids of SUPPORTED_LANGUAGE_PAIRS, so checking a pair is a bit lookup
+    private static final BitSet SUPPORTED_PAIR_IDS = new BitSet();
+
+    static {
+        for(LanguagePair pair: SUPPORTED_LANGUAGE_PAIRS)
+            SUPPORTED_PAIR_IDS.set(pair.getId());
+    }
+
+    /** Size of buffers used for export, entries are not flushed one by one */
+    public static final int EXPORT_BUFFER_SIZE = 1 << 16;
 
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final Counter ENTRIES_ADDED = MetricsRegistry.getDefault()
+            .counter("vocabulary.entries.added");
+    private static final Counter ENTRIES_REMOVED = MetricsRegistry.getDefault()
+            .counter("vocabulary.entries.removed");
+    private static final Counter IMPORTED_ENTRIES = MetricsRegistry.getDefault()
+            .counter("vocabulary.import.entries");
+    private static final Counter EXPORTED_ENTRIES = MetricsRegistry.getDefault()
+            .counter("vocabulary.export.entries");
+    private static final LatencyHistogram IMPORT_LATENCY = MetricsRegistry.getDefault()
+            .histogram("vocabulary.import");
+    private static final LatencyHistogram EXPORT_LATENCY = MetricsRegistry.getDefault()
+            .histogram("vocabulary.export");
 
     private final String source_language;
     private final String target_language;
     ArrayList<String> words = new ArrayList<>();
     private Map<String, Integer> words_occurrences = new HashMap<>();
     private Map<String, Set<String>> words_translations = new HashMap<>();
+    // reverse index of words_translations, updated by every translation change
+    private Map<String, Set<String>> translations_words = new HashMap<>();
+    private final List<EntryListener> entry_listeners = new ArrayList<>();
+    private double filter_false_positive_rate = BloomFilter.DEFAULT_FALSE_POSITIVE_RATE;
 
     /** Constructs Vocabulary with specified source and target languages
      *
@@ -93,7 +164,7 @@ public class Vocabulary {
     public boolean addEntry(String word, Set<String> translations, int occurrences) {
         Objects.requireNonNull(translations, "Set of translations must be non null");
 
-        if(this.words.contains(word)){
+        if(this.words_translations.containsKey(word)){
             LOGGER.warn("Entry is already present");
             return false;
         }
@@ -107,16 +178,19 @@ public class Vocabulary {
         }
 
         this.words.add(word);
-        this.words_translations.put(word, new HashSet<String>(translations));
+        this.words_translations.put(word, new HashSet<String>(translations.size() * 2));
+        linkTranslations(word, translations);
         this.words_occurrences.put(word, occurrences);
-        LOGGER.debug("New entry [" +  entryToString(word) + "] added");
+        ENTRIES_ADDED.increment();
+        fireEntryAdded(word);
+        LOGGER.debug(() -> entryEvent("entry_added", word));
         return true;
     }
 
     public boolean addEntry(String word, String translation, int occurrences) {
         Objects.requireNonNull(translation, "Translation must be not mull");
 
-        if(this.words.contains(word)){
+        if(this.words_translations.containsKey(word)){
             LOGGER.warn("Entry is already present");
             return false;
         }
@@ -130,8 +204,12 @@ public class Vocabulary {
         }
 
         this.words.add(word);
-        this.words_translations.put(word, new HashSet<String>(Set.of(translation)));
+        this.words_translations.put(word, new HashSet<String>());
+        linkTranslation(word, translation);
         this.words_occurrences.put(word, occurrences);
+        ENTRIES_ADDED.increment();
+        fireEntryAdded(word);
+        LOGGER.debug(() -> entryEvent("entry_added", word));
         return true;
     }
 
@@ -144,8 +222,8 @@ public class Vocabulary {
     public boolean appendEntry(String key, Set<String> translations, int occurrences) {
         Objects.requireNonNull(key, "Key must be non null");
 
-        if(!this.words.contains(key)) {
-            LOGGER.warn("No such entry key in vocabulary '" + key + "'");
+        if(!this.words_translations.containsKey(key)) {
+            LOGGER.warn("No such entry key in vocabulary '{}'", key);
             return false;
         }
         if(occurrences < 0) {
@@ -157,15 +235,16 @@ public class Vocabulary {
             translations = Set.of();
         }
 
-        boolean isEmptyTranslations = this.words_translations.get(key).addAll(translations);
+        boolean isEmptyTranslations = !linkTranslations(key, translations);
         boolean isZeroOccurrences = (0 == occurrences);
 
+        // appending only occurrences or only translations is a regular case on merges
         if(isEmptyTranslations) {
-            LOGGER.warn("No translations provided");
+            LOGGER.debug("No new translations provided for '{}'", key);
         }
 
         if(isZeroOccurrences) {
-            LOGGER.warn("Occurrences count is zero");
+            LOGGER.debug("Occurrences count is zero for '{}'", key);
         }
         else{
             this.words_occurrences.put(key, this.words_occurrences.get(key) + occurrences);
@@ -183,16 +262,16 @@ public class Vocabulary {
     public boolean addTranslation(String key, String translation) {
         Objects.requireNonNull(key, "Key must be non null");
 
-        if(!this.words.contains(key)) {
-            LOGGER.warn("Word list has no such key '" + key + "'");
+        if(!this.words_translations.containsKey(key)) {
+            LOGGER.warn("Word list has no such key '{}'", key);
             return false;
         }
         if(null == translation || "".equals(translation)) {
             LOGGER.warn("Translation is not provided (null or empty)");
             return false;
         }
-        if(!this.words_translations.get(key).add(translation)) {
-            LOGGER.warn("Translation is already present for this word '" + key + "'");
+        if(!linkTranslation(key, translation)) {
+            LOGGER.warn("Translation is already present for this word '{}'", key);
             return false;
         }
 
@@ -201,7 +280,7 @@ public class Vocabulary {
 
     /** Adds List of new translations to existing list */
     public boolean addTranslations(String word, Set<String> translations) {
-        if(!this.words.contains(word)) {
+        if(!this.words_translations.containsKey(word)) {
             LOGGER.warn("No such key in vocabulary");
             return false;
         }
@@ -210,7 +289,7 @@ public class Vocabulary {
             return false;
         }
 
-        boolean anyAdding = this.words_translations.get(word).addAll(translations);
+        boolean anyAdding = linkTranslations(word, translations);
         if(!anyAdding)
             LOGGER.warn("Provided translations are already included");
 
@@ -218,32 +297,66 @@ public class Vocabulary {
     }
 
     /** Removes entry from the Vocabulary */
-    private boolean removeEntry(String word) {
-        if(!this.words.contains(word)) {
-            LOGGER.warn("No such word '" + word + "' in vocabulary");
+    public boolean removeEntry(String word) {
+        if(!this.words_translations.containsKey(word)) {
+            LOGGER.warn("No such word '{}' in vocabulary", word);
             return false;
         }
 
         this.words.remove(word);
-        this.words_translations.remove(word);
+        for(String translation: this.words_translations.remove(word))
+            unlinkWord(translation, word);
         this.words_occurrences.remove(word);
+        ENTRIES_REMOVED.increment();
+        fireEntryRemoved(word);
+        LOGGER.debug(() -> new StringMapMessage()
+                .with("event", "entry_removed")
+                .with("word", word));
 
         return true;
     }
 
+    /** Removes entries of words in a single pass over word list, words not in Vocabulary
+     * are skipped
+     *
+     * @return count of removed entries
+     */
+    int removeEntries(Set<String> removed_words) {
+        Objects.requireNonNull(removed_words, "Words must be non null");
+        int removed = 0;
+
+        for(String word: removed_words) {
+            Set<String> translations = words_translations.remove(word);
+            if(null == translations)
+                continue;
+
+            for(String translation: translations)
+                unlinkWord(translation, word);
+            words_occurrences.remove(word);
+            ENTRIES_REMOVED.increment();
+            fireEntryRemoved(word);
+            removed++;
+        }
+
+        if(removed > 0)
+            words.removeIf(removed_words::contains);
+
+        return removed;
+    }
+
     /** Removes translation from list */
     private boolean removeTranslation(String word, String translation) {
         Objects.requireNonNull(word, "Key for translations removal must be non null");
         Objects.requireNonNull(translation, "Translation for removal must be non null");
 
         if(null == translation || "".equals(translation)) {
-            LOGGER.warn("Provided translation is empty, '" + translation + "'");
+            LOGGER.warn("Provided translation is empty, '{}'", translation);
             return false;
         }
 
-        if(!this.words_translations.get(word).remove(translation)) {
-            LOGGER.warn("No such translation (" + translation + ") for removal in entry ("
-                    + entryToString(word) + ")");
+        if(!unlinkTranslation(word, translation)) {
+            LOGGER.warn("No such translation ({}) for removal in entry ({})", () -> translation,
+                    () -> entryToString(word));
             return false;
         }
 
@@ -251,17 +364,21 @@ public class Vocabulary {
     }
 
     /** Removes provided translations for specified entry */
-    private boolean removeTranslations(String key, Set<String> translations) {
+    boolean removeTranslations(String key, Set<String> translations) {
         Objects.requireNonNull(key, "Key for translations removal must be non null");
 
         if(null == translations || translations.isEmpty()) {
-            LOGGER.warn("Provided translations is empty or null, '" + translations + "'");
+            LOGGER.warn("Provided translations is empty or null, '{}'", translations);
             return false;
         }
 
-        if(!this.words_translations.get(key).removeAll(translations)) {
-            LOGGER.warn("No such translations (" + translations + ") to remove in specified entry ("
-                    + entryToString(key) +")");
+        boolean anyRemoval = false;
+        for(String translation: translations)
+            anyRemoval |= unlinkTranslation(key, translation);
+
+        if(!anyRemoval) {
+            LOGGER.warn("No such translations ({}) to remove in specified entry ({})",
+                    () -> translations, () -> entryToString(key));
             return false;
         }
         else {
@@ -305,47 +422,139 @@ public class Vocabulary {
                 .getWordsTranslationsView();
 
         av_words.forEach(avw -> {
-            if(!this.words.contains(avw))
+            if(!this.words_translations.containsKey(avw))
                 addEntry(avw, avw_translations.get(avw), avw_occurrences.get(avw));
             else
                 appendEntry(avw, avw_translations.get(avw), avw_occurrences.get(avw));
         });
     }
 
+    /** Appends entries read from stream, entries are merged one by one as they arrive
+     *
+     * @param input stream of exported vocabulary, plain or gzip compressed; it is not closed
+     * @throws IOException if stream can't be read
+     */
+    public void append(InputStream input) throws IOException {
+        readEntries(input, (word, translations, occurrences) -> {
+            if(!this.words_translations.containsKey(word))
+                addEntry(word, translations, occurrences);
+            else
+                appendEntry(word, translations, occurrences);
+        });
+    }
+
     /** Imports Vocabulary from file
      *
      * @param file file path where vocabulary entries are written
      * @throws IOException throws IOException if there is problem with file
      */
     public void importFromFile(Path file) throws IOException {
-        Stream<String> valid_lines;
-
-        try{
-            Pattern vocab_line_pattern = Pattern.compile("\\w+\t\\w+(\\|\\w+)*\t\\d+");
-            valid_lines = Files.readAllLines(file).stream()
-                    .filter(vocab_line_pattern.asMatchPredicate());
+        long start = System.nanoTime();
 
+        try(BufferedReader reader = newReader(file)) {
             var t_words = new ArrayList<String>();
             var t_word_occurrences = new HashMap<String, Integer>();
             var t_word_translations = new HashMap<String, Set<String>>();
-
-            valid_lines.forEach(line -> {
-                Set<String> translations;
-                String[] fields = line.split("\t");
-
-                t_words.add(fields[0]);
-                translations = Set.copyOf(Arrays.asList(fields[1].split("\\|")));
-                t_word_translations.put(fields[0], translations);
-                t_word_occurrences.put(fields[0], Integer.valueOf(fields[2]));
+            var t_translations_words = new HashMap<String, Set<String>>();
+
+            readEntries(reader, (word, translations, occurrences) -> {
+                t_words.add(word);
+                t_word_translations.put(word, translations);
+                translations.forEach(t -> t_translations_words
+                        .computeIfAbsent(t, k -> new HashSet<>(2)).add(word));
+                t_word_occurrences.put(word, occurrences);
             });
 
             words = t_words;
             words_translations = t_word_translations;
+            translations_words = t_translations_words;
             words_occurrences = t_word_occurrences;
+            IMPORTED_ENTRIES.add(t_words.size());
+            fireEntriesReset();
         }
         catch(IOException ioe){
             ioe.printStackTrace();
         }
+        finally {
+            IMPORT_LATENCY.recordSince(start);
+        }
+    }
+
+    /** Reads exported entries from stream without building Vocabulary, so memory use doesn't
+     * depend on stream length. Malformed lines are skipped.
+     *
+     * @param input stream of exported vocabulary, plain or gzip compressed; it is not closed
+     * @param consumer consumer of entries, it gets mutable Set of translations it may keep
+     * @return count of entries read
+     * @throws IOException if stream can't be read
+     */
+    public static long readEntries(InputStream input, EntryConsumer consumer) throws IOException {
+        Objects.requireNonNull(input, "Input stream must be non null");
+        return readEntries(newReader(input), consumer);
+    }
+
+    private static long readEntries(BufferedReader reader, EntryConsumer consumer)
+            throws IOException {
+        long count = 0;
+        String line;
+
+        while(null != (line = reader.readLine()))
+            if(parseLine(line, consumer))
+                count++;
+
+        return count;
+    }
+
+    /** Passes entry of exported vocabulary line to consumer. Line has word, translations
+     * separated by '|' and occurrences, separated by tabs; word and translations may have any
+     * characters but the separators, so words of any script are read.
+     *
+     * @return false if line is malformed, consumer doesn't get it then
+     */
+    static boolean parseLine(String line, EntryConsumer consumer) {
+        int word_end = line.indexOf('\t');
+        int translations_end = word_end < 0 ? -1 : line.indexOf('\t', word_end + 1);
+        if(word_end <= 0 || translations_end <= word_end + 1
+                || translations_end == line.length() - 1)
+            return false;
+
+        int occurrences = 0;
+        for(int i = translations_end + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(c < '0' || c > '9' || occurrences > (Integer.MAX_VALUE - (c - '0')) / 10)
+                return false;
+            occurrences = occurrences * 10 + c - '0';
+        }
+
+        String[] translations = line.substring(word_end + 1, translations_end).split("\\|", -1);
+        for(String translation: translations)
+            if(translation.isEmpty())
+                return false;
+
+        consumer.accept(line.substring(0, word_end), new HashSet<>(Arrays.asList(translations)),
+                occurrences);
+        return true;
+    }
+
+    /** Writes all entries to stream, stream is flushed but not closed
+     *
+     * @param output stream to write entries to
+     * @throws IOException if stream fails
+     */
+    public void export(OutputStream output) throws IOException {
+        Objects.requireNonNull(output, "Output stream must be non null");
+        long start = System.nanoTime();
+
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output,
+                    StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+            writeEntries(writer);
+            writer.flush();
+            EXPORTED_ENTRIES.add(words.size());
+        }
+        finally {
+            EXPORT_LATENCY.recordSince(start);
+        }
     }
 
     /** Export Vocabulary fields to file
@@ -353,19 +562,101 @@ public class Vocabulary {
      * @param export_file path of file to export to
      */
     public boolean export(Path export_file) {
+        return export(export_file, false);
+    }
+
+    /** Export Vocabulary fields to file. Entries are written to temporary file next to
+     * export_file which replaces export_file only when it is complete, so export_file
+     * always holds either previous or new vocabulary.
+     * Bloom filter of words is written next to export_file, so lookups of words in it can
+     * skip import. Failure to write filter doesn't fail export, the previous filter is stale
+     * then and won't be used.
+     *
+     * @param export_file path of file to export to
+     * @param compress gzip output if true
+     * @see me.raven.grevoc.core.Vocabulary#importFromFile(Path)
+     * @see me.raven.grevoc.core.BloomFilter#read(Path)
+     */
+    public boolean export(Path export_file, boolean compress) {
+        Objects.requireNonNull(export_file, "Export file must be non null");
+        long start = System.nanoTime();
+
         try {
-            if(!Files.exists(export_file))
-                Files.createFile(export_file);
+            // checksum of the filter stamp is taken as file is written, not by reading it again
+            var checksum = new CRC32C();
+            if(!writeAtomically(export_file, compress, checksum, this::writeEntries))
+                return false;
 
-            try(var writer = new PrintWriter(Files.newBufferedWriter(export_file))) {
-                printVocabulary(writer);
-                return true;
-            }
+            EXPORTED_ENTRIES.add(words.size());
+            writeFilter(export_file, (int) checksum.getValue());
+            return true;
         }
-        catch(IOException ioe) {
-            LOGGER.error("Failed to export to file " + export_file, ioe);
+        finally {
+            EXPORT_LATENCY.recordSince(start);
+        }
+    }
+
+    /** Sets false positive rate of Bloom filter written by export
+     *
+     * @param rate false positive rate in (0, 1)
+     * @return true if rate has been set
+     */
+    public boolean setFilterFalsePositiveRate(double rate) {
+        if(!(rate > 0 && rate < 1)) {
+            LOGGER.warn("False positive rate must be in (0, 1): {}", rate);
             return false;
         }
+
+        filter_false_positive_rate = rate;
+        return true;
+    }
+
+    public double getFilterFalsePositiveRate() {
+        return filter_false_positive_rate;
+    }
+
+    /** Writes all entries, one per line, without flushing writer
+     *
+     * @param writer Writer to write entries to, buffering is up to caller
+     * @throws IOException if writer fails
+     */
+    public void writeEntries(Writer writer) throws IOException {
+        char[] digits = new char[11];
+
+        for(String word: words)
+            writeEntry(writer, word, words_translations.get(word), words_occurrences.get(word),
+                    digits);
+    }
+
+    /** Passes all entries to consumer in insertion order */
+    @Override
+    public void forEachEntry(EntryConsumer consumer) {
+        for(int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            consumer.accept(word, Collections.unmodifiableSet(words_translations.get(word)),
+                    words_occurrences.get(word));
+        }
+    }
+
+    /** Registers listener of entry set changes
+     *
+     * @param listener listener to register
+     * @return true if listener has been registered, false if it is already registered
+     */
+    public boolean addEntryListener(EntryListener listener) {
+        Objects.requireNonNull(listener, "Entry listener must be non null");
+
+        if(entry_listeners.contains(listener)) {
+            LOGGER.warn("Entry listener is already registered");
+            return false;
+        }
+
+        return entry_listeners.add(listener);
+    }
+
+    /** Unregisters listener of entry set changes */
+    public boolean removeEntryListener(EntryListener listener) {
+        return entry_listeners.remove(listener);
     }
 
     /** Returns copy of ArrayList of words */
@@ -384,15 +675,47 @@ public class Vocabulary {
     }
 
     /** Returns source language */
+    @Override
     public String getSourceLanguage() {
         return source_language;
     }
 
     /** Returns target language */
+    @Override
     public String getTargetLanguage() {
         return target_language;
     }
 
+    @Override
+    public int size() {
+        return words.size();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        return words_translations.containsKey(word);
+    }
+
+    @Override
+    public Set<String> getTranslations(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Set<String> translations = words_translations.get(word);
+        return null == translations ? Set.of() : Collections.unmodifiableSet(translations);
+    }
+
+    @Override
+    public int getOccurrences(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        return words_occurrences.getOrDefault(word, 0);
+    }
+
+    /** Returns unmodifiableList of words, short for getWordsView() */
+    @Override
+    public List<String> getWords() {
+        return getWordsView();
+    }
+
     /** Returns unmodifiableList of words */
     public List<String> getWordsView() {
         return Collections.unmodifiableList(words);
@@ -403,6 +726,21 @@ public class Vocabulary {
         return Collections.unmodifiableMap(words_occurrences);
     }
 
+    /** Returns words which have specified translation
+     *
+     * @param translation translation to look up
+     * @return unmodifiable Set of words, empty if no word has such translation
+     */
+    public Set<String> getWordsByTranslation(String translation) {
+        Set<String> translated_words = translations_words.get(translation);
+        return null == translated_words ? Set.of() : Collections.unmodifiableSet(translated_words);
+    }
+
+    /** Returns unmodifiableMap of translations to words having them */
+    public Map<String, Set<String>> getTranslationsWordsView() {
+        return Collections.unmodifiableMap(translations_words);
+    }
+
     /** Returns unmodifiableMap of words' translations */
     public Map<String, Set<String>> getWordsTranslationsView() {
         return Collections.unmodifiableMap(words_translations);
@@ -425,10 +763,15 @@ public class Vocabulary {
      * @param writer specified PrintWriter which holds output stream
      */
     public void printVocabulary(PrintWriter writer) {
-        words.stream().sequential().forEach(w -> {
-            writer.println(entryToString(w));
-            writer.flush();
-        });
+        try {
+            writeEntries(writer);
+        }
+        catch(IOException ioe) {
+            // PrintWriter doesn't throw, it sets its error state instead
+            LOGGER.error("Failed to print vocabulary", ioe);
+        }
+
+        writer.flush();
     }
 
     /** Prints all words, one per line, to stdout */
@@ -560,21 +903,223 @@ public class Vocabulary {
         if(null == tl)
             throw new IllegalArgumentException("Target language must not be null");
 
-        for(LanguagePair pair: SUPPORTED_LANGUAGE_PAIRS)
-            if(pair.getSource().equals(sl) && pair.getTarget().equals(tl))
-                return true;
+        LanguagePair pair = LanguagePair.find(sl, tl);
+        return null != pair && SUPPORTED_PAIR_IDS.get(pair.getId());
+    }
 
-        return false;
+    /** Checks if pair is in SUPPORTED_LANGUAGE_PAIRS */
+    public static boolean hasLanguagePair(LanguagePair pair) {
+        Objects.requireNonNull(pair, "Language pair must be non null");
+        return SUPPORTED_PAIR_IDS.get(pair.getId());
+    }
+
+    /** Writes what writer_action writes to temporary file next to file and replaces file with
+     * it once writing is complete and forced to disk, so file always holds either previous or
+     * new content
+     *
+     * @return true if file has been replaced
+     */
+    static boolean writeAtomically(Path file, boolean compress, WriterAction writer_action) {
+        return writeAtomically(file, compress, null, writer_action);
+    }
+
+    /** Writes file atomically like writeAtomically(Path, boolean, WriterAction), updating
+     * checksum with bytes of the file as they are written
+     *
+     * @param checksum checksum to update, or null
+     */
+    static boolean writeAtomically(Path file, boolean compress, Checksum checksum,
+                                   WriterAction writer_action) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try(OutputStream fos = Files.newOutputStream(temporary);
+                OutputStream os = null == checksum ? fos : new CheckedOutputStream(fos, checksum);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        compress ? new GZIPOutputStream(os, EXPORT_BUFFER_SIZE) : os,
+                        StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)) {
+                writer_action.write(writer);
+            }
+            // content must reach the disk before it replaces file, or a crash right after the
+            // move could leave file empty
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        }
+        catch(IOException ioe) {
+            LOGGER.error("Failed to export to file {}", file, ioe);
+
+            try {
+                Files.deleteIfExists(temporary);
+            }
+            catch(IOException dioe) {
+                LOGGER.warn("Failed to remove temporary export file {}", temporary, dioe);
+            }
+
+            return false;
+        }
+    }
+
+    private void writeFilter(Path export_file, int checksum) {
+        try {
+            BloomFilter.of(words, filter_false_positive_rate).write(export_file, checksum);
+        }
+        catch(IOException ioe) {
+            LOGGER.warn("Failed to write Bloom filter of {}", export_file, ioe);
+        }
+    }
+
+    /** Writes single entry line in export format
+     *
+     * @param writer Writer to write entry to
+     * @param word word of entry
+     * @param translations translations of word
+     * @param occurrences occurrences of word
+     * @throws IOException if writer fails
+     */
+    public static void writeEntry(Writer writer, String word, Iterable<String> translations,
+                                  int occurrences) throws IOException {
+        writeEntry(writer, word, translations, occurrences, new char[11]);
+    }
+
+    /** Writes single entry line in export format, digits is reusable buffer of 11 chars */
+    static void writeEntry(Writer writer, String word, Iterable<String> translations,
+                           int occurrences, char[] digits) throws IOException {
+        writer.write(word);
+        writer.write('\t');
+
+        boolean first = true;
+        for(String translation: translations) {
+            if(!first)
+                writer.write('|');
+            writer.write(translation);
+            first = false;
+        }
+
+        writer.write('\t');
+        writeNumber(writer, occurrences, digits);
+        writer.write('\n');
+    }
+
+    /** Writes decimal number through reusable digits buffer instead of allocating String */
+    private static void writeNumber(Writer writer, int number, char[] digits) throws IOException {
+        int position = digits.length;
+        long value = Math.abs((long) number);
+
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while(0 != value);
+
+        if(number < 0)
+            digits[--position] = '-';
+
+        writer.write(digits, position, digits.length - position);
+    }
+
+    /** Opens file for reading, gzip compressed files are recognized by their magic bytes */
+    static BufferedReader newReader(Path file) throws IOException {
+        return newReader(Files.newInputStream(file));
+    }
+
+    /** Wraps stream into reader, gzip compressed stream is recognized by its magic bytes */
+    static BufferedReader newReader(InputStream input) throws IOException {
+        InputStream is = new BufferedInputStream(input, EXPORT_BUFFER_SIZE);
+        is.mark(2);
+        boolean compressed = is.read() == 0x1f && is.read() == 0x8b;
+        is.reset();
+
+        if(compressed)
+            is = new GZIPInputStream(is, EXPORT_BUFFER_SIZE);
+
+        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
     }
 
     private String entryToString(String word) {
-        if(this.words.contains(word)) {
-            LOGGER.warn("No such entry key '" + word + "'");
+        if(!this.words_translations.containsKey(word)) {
+            LOGGER.warn("No such entry key '{}'", word);
             return "";
         }
 
-        var entry_string_joiner = new StringJoiner("|");
-        words_translations.get(word).forEach(entry_string_joiner::add);
-        return word + "\t" + entry_string_joiner.toString() + "\t" + words_occurrences.get(word);
+        var entry = new StringBuilder(word).append('\t');
+        var first = true;
+
+        for(String translation: words_translations.get(word)) {
+            if(!first)
+                entry.append('|');
+            entry.append(translation);
+            first = false;
+        }
+
+        return entry.append('\t').append(words_occurrences.get(word)).toString();
+    }
+
+    /** Adds translation to entry and reverse index
+     * @return true if entry hasn't had this translation */
+    private boolean linkTranslation(String word, String translation) {
+        if(!words_translations.get(word).add(translation))
+            return false;
+
+        translations_words.computeIfAbsent(translation, t -> new HashSet<>(2)).add(word);
+        return true;
+    }
+
+    /** Adds translations to entry and reverse index
+     * @return true if any translation is new for entry */
+    private boolean linkTranslations(String word, Collection<String> translations) {
+        boolean any_linked = false;
+
+        for(String translation: translations)
+            any_linked |= linkTranslation(word, translation);
+
+        return any_linked;
+    }
+
+    /** Removes translation from entry and reverse index
+     * @return true if entry has had this translation */
+    private boolean unlinkTranslation(String word, String translation) {
+        if(!words_translations.get(word).remove(translation))
+            return false;
+
+        unlinkWord(translation, word);
+        return true;
+    }
+
+    private void unlinkWord(String translation, String word) {
+        Set<String> translated_words = translations_words.get(translation);
+        translated_words.remove(word);
+
+        if(translated_words.isEmpty())
+            translations_words.remove(translation);
+    }
+
+    // indexed loops, adding entries mustn't create iterator garbage for every word
+
+    private void fireEntryAdded(String word) {
+        for(int i = 0; i < entry_listeners.size(); i++)
+            entry_listeners.get(i).entryAdded(word);
+    }
+
+    private void fireEntryRemoved(String word) {
+        for(int i = 0; i < entry_listeners.size(); i++)
+            entry_listeners.get(i).entryRemoved(word);
+    }
+
+    private void fireEntriesReset() {
+        for(int i = 0; i < entry_listeners.size(); i++)
+            entry_listeners.get(i).entriesReset(this);
+    }
+
+    /** Builds structured log event for entry, meant to be called from Supplier only */
+    private StringMapMessage entryEvent(String event, String word) {
+        return new StringMapMessage()
+                .with("event", event)
+                .with("word", word)
+                .with("translations", String.join("|", words_translations.get(word)))
+                .with("occurrences", String.valueOf(words_occurrences.get(word)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,407 @@
+package me.raven.grevoc.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/** Difference between two versions of Vocabulary of the same language pair.
+ * Computing it takes one pass over each version with hash lookups, and the patch holds only
+ * changed entries, so shipping and applying it costs the size of the change rather than the
+ * size of the vocabulary. Patch is text, one change per line after a header:
+ * <pre>#grevoc-patch  2  sl  tl  base entries  target entries
+ * +word  translations  occurrences                    added entry
+ * -word                                               removed entry
+ * ~word  added  removed  base occurrences  delta      changed entry</pre>
+ * Fields are separated by tabs, translations by '|'. Added words are appended in order of
+ * target version, order of other words is kept as in base. Changed entries carry their base
+ * occurrences, so a patch is never applied to a base whose counts differ.
+ * @see me.raven.grevoc.core.VocabularyDiff#applyTo(Vocabulary) */
+public class VocabularyDiff {
+    /** Change of single entry present in both versions */
+    public static class Change {
+        private final String word;
+        private final Set<String> added_translations;
+        private final Set<String> removed_translations;
+        private final int base_occurrences;
+        private final int occurrence_delta;
+
+        Change(String word, Set<String> added_translations, Set<String> removed_translations,
+               int base_occurrences, int occurrence_delta) {
+            this.word = word;
+            this.added_translations = Collections.unmodifiableSet(added_translations);
+            this.removed_translations = Collections.unmodifiableSet(removed_translations);
+            this.base_occurrences = base_occurrences;
+            this.occurrence_delta = occurrence_delta;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public Set<String> getAddedTranslations() {
+            return added_translations;
+        }
+
+        public Set<String> getRemovedTranslations() {
+            return removed_translations;
+        }
+
+        /** Returns occurrences of word in base */
+        public int getBaseOccurrences() {
+            return base_occurrences;
+        }
+
+        /** Returns occurrences of target minus occurrences of base */
+        public int getOccurrenceDelta() {
+            return occurrence_delta;
+        }
+
+        @Override
+        public String toString() {
+            return word + "{+" + added_translations + ",-" + removed_translations
+                    + "," + occurrence_delta + "}";
+        }
+    }
+
+    /** Entry added by target version */
+    public static class Entry {
+        private final String word;
+        private final Set<String> translations;
+        private final int occurrences;
+
+        Entry(String word, Set<String> translations, int occurrences) {
+            this.word = word;
+            this.translations = Collections.unmodifiableSet(translations);
+            this.occurrences = occurrences;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public Set<String> getTranslations() {
+            return translations;
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    private static final String HEADER = "#grevoc-patch";
+    private static final int FORMAT_VERSION = 2;
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final String source_language;
+    private final String target_language;
+    private final int base_size;
+    private final int target_size;
+    private final List<Entry> added_entries;
+    private final List<String> removed_words;
+    private final List<Change> changes;
+
+    private VocabularyDiff(String sl, String tl, int base_size, int target_size,
+                           List<Entry> added_entries, List<String> removed_words,
+                           List<Change> changes) {
+        this.source_language = sl;
+        this.target_language = tl;
+        this.base_size = base_size;
+        this.target_size = target_size;
+        this.added_entries = Collections.unmodifiableList(added_entries);
+        this.removed_words = Collections.unmodifiableList(removed_words);
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /** Computes difference turning base into target
+     *
+     * @throws IllegalArgumentException if languages of vocabularies don't match
+     */
+    public static VocabularyDiff compute(Vocabulary base, Vocabulary target) {
+        Objects.requireNonNull(base, "Base vocabulary must be non null");
+        Objects.requireNonNull(target, "Target vocabulary must be non null");
+        if(!Vocabulary.isVocabulariesMatchLanguages(base, target))
+            throw new IllegalArgumentException("Vocabularies' languages don't match");
+
+        Map<String, Set<String>> base_translations = base.getWordsTranslationsView();
+        Map<String, Integer> base_occurrences = base.getWordsOccurrencesView();
+        Map<String, Set<String>> target_translations = target.getWordsTranslationsView();
+        Map<String, Integer> target_occurrences = target.getWordsOccurrencesView();
+        var added_entries = new ArrayList<Entry>();
+        var removed_words = new ArrayList<String>();
+        var changes = new ArrayList<Change>();
+
+        for(String word: target.getWordsView()) {
+            Set<String> translations = target_translations.get(word);
+            Set<String> old_translations = base_translations.get(word);
+
+            if(null == old_translations) {
+                added_entries.add(new Entry(word, new HashSet<>(translations),
+                        target_occurrences.get(word)));
+                continue;
+            }
+
+            int old_occurrences = base_occurrences.get(word);
+            int delta = target_occurrences.get(word) - old_occurrences;
+            Set<String> added = difference(translations, old_translations);
+            Set<String> removed = difference(old_translations, translations);
+            if(0 != delta || !added.isEmpty() || !removed.isEmpty())
+                changes.add(new Change(word, added, removed, old_occurrences, delta));
+        }
+
+        for(String word: base.getWordsView())
+            if(!target_translations.containsKey(word))
+                removed_words.add(word);
+
+        return new VocabularyDiff(base.getSourceLanguage(), base.getTargetLanguage(),
+                base.getWordsView().size(), target.getWordsView().size(), added_entries,
+                removed_words, changes);
+    }
+
+    public String getSourceLanguage() {
+        return source_language;
+    }
+
+    public String getTargetLanguage() {
+        return target_language;
+    }
+
+    public List<Entry> getAddedEntries() {
+        return added_entries;
+    }
+
+    public List<String> getRemovedWords() {
+        return removed_words;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /** Returns count of added, removed and changed entries */
+    public int size() {
+        return added_entries.size() + removed_words.size() + changes.size();
+    }
+
+    public boolean isEmpty() {
+        return 0 == size();
+    }
+
+    /** Applies difference to base, turning it into target. Patch is checked against base
+     * before anything is changed, so base is either fully patched or left untouched. Work
+     * is proportional to size of the patch, except a single pass over words if any entry is
+     * removed.
+     *
+     * @throws IllegalStateException if base is not the version the patch was computed from
+     */
+    public void applyTo(Vocabulary base) {
+        Objects.requireNonNull(base, "Base vocabulary must be non null");
+        check(base);
+
+        if(!removed_words.isEmpty())
+            base.removeEntries(new HashSet<>(removed_words));
+
+        for(Change change: changes) {
+            if(!change.removed_translations.isEmpty())
+                base.removeTranslations(change.word, change.removed_translations);
+            if(change.occurrence_delta < 0)
+                base.decreaseOccurrences(change.word, -change.occurrence_delta);
+
+            int increase = Math.max(0, change.occurrence_delta);
+            if(!change.added_translations.isEmpty() || increase > 0)
+                base.appendEntry(change.word, change.added_translations, increase);
+        }
+
+        for(Entry entry: added_entries)
+            base.addEntry(entry.word, entry.translations, entry.occurrences);
+
+        LOGGER.debug("Applied patch of {} changes", size());
+    }
+
+    /** Writes patch, stream is flushed but not closed */
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                Vocabulary.EXPORT_BUFFER_SIZE);
+        writeChanges(writer);
+        writer.flush();
+    }
+
+    /** Writes patch to file, file is replaced atomically
+     *
+     * @param compress gzip output if true
+     * @return true if patch has been written
+     */
+    public boolean write(Path file, boolean compress) {
+        Objects.requireNonNull(file, "Patch file must be non null");
+        return Vocabulary.writeAtomically(file, compress, this::writeChanges);
+    }
+
+    /** Reads patch written by write, plain or gzip compressed
+     *
+     * @throws IOException if stream can't be read or is not a valid patch
+     */
+    public static VocabularyDiff read(InputStream input) throws IOException {
+        BufferedReader reader = Vocabulary.newReader(input);
+        String header = reader.readLine();
+        String[] fields = null == header ? new String[0] : header.split("\t", -1);
+
+        if(6 != fields.length || !HEADER.equals(fields[0]))
+            throw new IOException("Not a vocabulary patch");
+        if(!String.valueOf(FORMAT_VERSION).equals(fields[1]))
+            throw new IOException("Unsupported patch version: " + fields[1]);
+
+        var added_entries = new ArrayList<Entry>();
+        var removed_words = new ArrayList<String>();
+        var changes = new ArrayList<Change>();
+        String line;
+        int line_number = 1;
+
+        try {
+            while(null != (line = reader.readLine())) {
+                line_number++;
+                if(line.isEmpty())
+                    throw new IOException("Empty line");
+
+                String[] parts = line.substring(1).split("\t", -1);
+                switch(line.charAt(0)) {
+                    case '+':
+                        expectFields(parts, 3);
+                        added_entries.add(new Entry(parts[0], parseTranslations(parts[1]),
+                                Integer.parseInt(parts[2])));
+                        break;
+                    case '-':
+                        expectFields(parts, 1);
+                        removed_words.add(parts[0]);
+                        break;
+                    case '~':
+                        expectFields(parts, 5);
+                        changes.add(new Change(parts[0], parseTranslations(parts[1]),
+                                parseTranslations(parts[2]), Integer.parseInt(parts[3]),
+                                Integer.parseInt(parts[4])));
+                        break;
+                    default:
+                        throw new IOException("Unknown change '" + line.charAt(0) + "'");
+                }
+            }
+
+            return new VocabularyDiff(fields[2], fields[3], Integer.parseInt(fields[4]),
+                    Integer.parseInt(fields[5]), added_entries, removed_words, changes);
+        }
+        catch(NumberFormatException nfe) {
+            throw new IOException("Malformed number at line " + line_number, nfe);
+        }
+        catch(IOException ioe) {
+            throw new IOException("Malformed patch at line " + line_number + ": "
+                    + ioe.getMessage(), ioe);
+        }
+    }
+
+    /** Reads patch file, plain or gzip compressed */
+    public static VocabularyDiff read(Path file) throws IOException {
+        try(InputStream is = Files.newInputStream(file)) {
+            return read(is);
+        }
+    }
+
+    private void writeChanges(Writer writer) throws IOException {
+        writer.write(HEADER + '\t' + FORMAT_VERSION + '\t' + source_language + '\t'
+                + target_language + '\t' + base_size + '\t' + target_size + '\n');
+
+        for(String word: removed_words) {
+            writer.write('-');
+            writer.write(word);
+            writer.write('\n');
+        }
+
+        for(Change change: changes) {
+            writer.write('~');
+            writer.write(change.word);
+            writer.write('\t');
+            writer.write(String.join("|", change.added_translations));
+            writer.write('\t');
+            writer.write(String.join("|", change.removed_translations));
+            writer.write('\t');
+            writer.write(Integer.toString(change.base_occurrences));
+            writer.write('\t');
+            writer.write(Integer.toString(change.occurrence_delta));
+            writer.write('\n');
+        }
+
+        for(Entry entry: added_entries) {
+            writer.write('+');
+            Vocabulary.writeEntry(writer, entry.word, entry.translations, entry.occurrences);
+        }
+    }
+
+    /** Checks that every change of patch fits base, touching only changed entries */
+    private void check(Vocabulary base) {
+        if(!source_language.equals(base.getSourceLanguage())
+                || !target_language.equals(base.getTargetLanguage()))
+            throw new IllegalStateException("Patch is for " + source_language + "-"
+                    + target_language + " vocabulary");
+        if(base.getWordsView().size() != base_size)
+            throw new IllegalStateException("Patch is for vocabulary of " + base_size
+                    + " entries, not " + base.getWordsView().size());
+
+        Map<String, Set<String>> translations = base.getWordsTranslationsView();
+        Map<String, Integer> occurrences = base.getWordsOccurrencesView();
+
+        for(String word: removed_words)
+            if(!translations.containsKey(word))
+                throw new IllegalStateException("Removed word is not in vocabulary: " + word);
+
+        for(Change change: changes) {
+            Set<String> word_translations = translations.get(change.word);
+            if(null == word_translations)
+                throw new IllegalStateException("Changed word is not in vocabulary: " + change.word);
+            if(!word_translations.containsAll(change.removed_translations)
+                    || !Collections.disjoint(word_translations, change.added_translations))
+                throw new IllegalStateException("Translations of '" + change.word
+                        + "' differ from patch base");
+            if(occurrences.get(change.word) != change.base_occurrences)
+                throw new IllegalStateException("Occurrences of '" + change.word
+                        + "' differ from patch base: " + occurrences.get(change.word) + " != "
+                        + change.base_occurrences);
+        }
+
+        for(Entry entry: added_entries)
+            if(translations.containsKey(entry.word))
+                throw new IllegalStateException("Added word is already in vocabulary: "
+                        + entry.word);
+    }
+
+    private static Set<String> difference(Set<String> minuend, Set<String> subtrahend) {
+        var difference = new HashSet<String>();
+        for(String element: minuend)
+            if(!subtrahend.contains(element))
+                difference.add(element);
+
+        return difference;
+    }
+
+    private static Set<String> parseTranslations(String field) {
+        return field.isEmpty() ? new HashSet<>() : new HashSet<>(Arrays.asList(field.split("\\|")));
+    }
+
+    private static void expectFields(String[] parts, int count) throws IOException {
+        if(count != parts.length || parts[0].isEmpty())
+            throw new IOException("Expected " + count + " fields");
+    }
+}
@@ -0,0 +1,222 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.metrics.Counter;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
+import me.raven.grevoc.core.translator.Translator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/** Fills Vocabulary with words of Wordlist, only words which are missing in Vocabulary are
+ * sent to Translator, occurrences of already known words are appended without translation */
+public class VocabularyEnricher {
+    /** Result of single enrichment run */
+    public static class Report {
+        private int appended_words = 0;
+        private int added_words = 0;
+        private int untranslated_words = 0;
+        private int batches = 0;
+
+        /** Returns count of known words which got their occurrences appended */
+        public int getAppendedWords() {
+            return appended_words;
+        }
+
+        /** Returns count of new words translated and added to Vocabulary */
+        public int getAddedWords() {
+            return added_words;
+        }
+
+        /** Returns count of new words Translator returned no translations for */
+        public int getUntranslatedWords() {
+            return untranslated_words;
+        }
+
+        /** Returns count of batches sent to Translator */
+        public int getBatches() {
+            return batches;
+        }
+
+        @Override
+        public String toString() {
+            return "appended=" + appended_words
+                    + ",added=" + added_words
+                    + ",untranslated=" + untranslated_words
+                    + ",batches=" + batches;
+        }
+    }
+
+    /** Receives every batch after its translations have been written to Vocabulary */
+    @FunctionalInterface
+    public interface BatchListener {
+        /**
+         * @param batch words sent to Translator
+         * @param translations received translations, untranslated words are absent
+         */
+        void batchTranslated(List<String> batch, Map<String, HashSet<String>> translations);
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    /** Known words counter, together with MISSING_WORDS_METRIC gives vocabulary hit rate */
+    public static final String KNOWN_WORDS_METRIC = "enricher.known_words";
+    public static final String MISSING_WORDS_METRIC = "enricher.missing_words";
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Counter KNOWN_WORDS = MetricsRegistry.getDefault()
+            .counter(KNOWN_WORDS_METRIC);
+    private static final Counter MISSING_WORDS = MetricsRegistry.getDefault()
+            .counter(MISSING_WORDS_METRIC);
+    private static final Counter BATCHES = MetricsRegistry.getDefault()
+            .counter("enricher.batches");
+
+    private final Vocabulary vocabulary;
+    private final Translator translator;
+    private int batch_size = DEFAULT_BATCH_SIZE;
+
+    /** Constructs VocabularyEnricher
+     *
+     * @param vocabulary Vocabulary to enrich
+     * @param translator Translator for missing words
+     * @throws IllegalArgumentException if languages of Vocabulary and Translator don't match
+     */
+    public VocabularyEnricher(Vocabulary vocabulary, Translator translator) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+        Objects.requireNonNull(translator, "Translator must be non null");
+
+        if(!vocabulary.getSourceLanguage().equals(translator.getSourceLanguage())
+                || !vocabulary.getTargetLanguage().equals(translator.getTargetLanguage()))
+            throw new IllegalArgumentException("Languages of Vocabulary and Translator don't match");
+
+        this.vocabulary = vocabulary;
+        this.translator = translator;
+    }
+
+    /** Sets count of words sent to Translator per request
+     *
+     * @param size positive batch size
+     * @return true if batch size has been set
+     */
+    public boolean setBatchSize(int size) {
+        if(size <= 0) {
+            LOGGER.warn("Batch size must be positive number: {}", size);
+            return false;
+        }
+
+        batch_size = size;
+        return true;
+    }
+
+    public int getBatchSize() {
+        return batch_size;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    public Translator getTranslator() {
+        return translator;
+    }
+
+    /** Returns words of Wordlist which are absent in Vocabulary, in Wordlist order */
+    public List<String> findMissingWords(Wordlist wordlist) {
+        Objects.requireNonNull(wordlist, "Wordlist must be non null");
+        Map<String, ?> known_words = vocabulary.getWordsTranslationsView();
+        var missing_words = new ArrayList<String>();
+
+        for(String word: wordlist.getWordsView())
+            if(!known_words.containsKey(word))
+                missing_words.add(word);
+
+        return missing_words;
+    }
+
+    /** Enriches Vocabulary with words from Wordlist
+     *
+     * @param wordlist Wordlist to take words and occurrences from
+     * @return Report of enrichment run
+     */
+    public Report enrich(Wordlist wordlist) {
+        return enrich(wordlist, (batch, translations) -> {});
+    }
+
+    /** Enriches Vocabulary with words from Wordlist, every translated batch is written to
+     * Vocabulary and then handed to batch_listener
+     *
+     * @param wordlist Wordlist to take words and occurrences from
+     * @param batch_listener receives every batch after it has been written
+     * @return Report of enrichment run
+     */
+    public Report enrich(Wordlist wordlist, BatchListener batch_listener) {
+        Objects.requireNonNull(wordlist, "Wordlist must be non null");
+        return enrich(wordlist.getWordsView(), wordlist.getWordsOccurrencesView(), batch_listener);
+    }
+
+    /** Enriches Vocabulary with given words
+     *
+     * @param words distinct words to enrich Vocabulary with
+     * @param occurrences occurrences of every word in words
+     * @param batch_listener receives every batch after it has been written
+     * @return Report of enrichment run
+     */
+    public Report enrich(Iterable<String> words, Map<String, Integer> occurrences,
+                         BatchListener batch_listener) {
+        Objects.requireNonNull(words, "Words must be non null");
+        Objects.requireNonNull(occurrences, "Occurrences must be non null");
+        Objects.requireNonNull(batch_listener, "Batch listener must be non null");
+
+        var report = new Report();
+        Map<String, ?> known_words = vocabulary.getWordsTranslationsView();
+        var batch = new ArrayList<String>(batch_size);
+
+        for(String word: words) {
+            if(known_words.containsKey(word)) {
+                KNOWN_WORDS.increment();
+                if(vocabulary.appendEntry(word, Set.of(), occurrences.get(word)))
+                    report.appended_words++;
+                continue;
+            }
+
+            MISSING_WORDS.increment();
+            batch.add(word);
+            if(batch.size() == batch_size) {
+                translateBatch(batch, occurrences, report, batch_listener);
+                batch.clear();
+            }
+        }
+
+        if(!batch.isEmpty())
+            translateBatch(batch, occurrences, report, batch_listener);
+
+        LOGGER.info("Vocabulary enrichment finished: {}", report);
+        return report;
+    }
+
+    private void translateBatch(List<String> batch, Map<String, Integer> occurrences,
+                                Report report, BatchListener batch_listener) {
+        HashMap<String, HashSet<String>> translations = translator.translate(batch);
+        report.batches++;
+        BATCHES.increment();
+
+        for(String word: batch) {
+            HashSet<String> word_translations = translations.get(word);
+
+            if(null == word_translations || word_translations.isEmpty()) {
+                LOGGER.warn("No translations received for word '{}'", word);
+                report.untranslated_words++;
+                continue;
+            }
+
+            if(vocabulary.addEntry(word, word_translations, occurrences.get(word)))
+                report.added_words++;
+        }
+
+        batch_listener.batchTranslated(List.copyOf(batch), translations);
+    }
+}
@@ -0,0 +1,134 @@
+package me.raven.grevoc.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/** Immutable version of VersionedVocabulary.
+ * Snapshot never changes after it has been published, so any number of threads may read it
+ * without locks while writers keep producing new versions.
+ * @see me.raven.grevoc.core.VersionedVocabulary */
+public final class VocabularySnapshot implements ReadableVocabulary {
+    /** Immutable entry, sequence keeps insertion order of words */
+    static final class Entry {
+        private final String word;
+        private final Set<String> translations;
+        private final int occurrences;
+        private final long sequence;
+
+        Entry(String word, Set<String> translations, int occurrences, long sequence) {
+            this.word = word;
+            this.translations = translations;
+            this.occurrences = occurrences;
+            this.sequence = sequence;
+        }
+
+        String getWord() {
+            return word;
+        }
+
+        Set<String> getTranslations() {
+            return translations;
+        }
+
+        int getOccurrences() {
+            return occurrences;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+    }
+
+    private final String source_language;
+    private final String target_language;
+    private final PersistentHashMap<String, Entry> entries;
+    private final long version;
+
+    VocabularySnapshot(String sl, String tl, PersistentHashMap<String, Entry> entries,
+                       long version) {
+        this.source_language = sl;
+        this.target_language = tl;
+        this.entries = entries;
+        this.version = version;
+    }
+
+    PersistentHashMap<String, Entry> getEntries() {
+        return entries;
+    }
+
+    /** Returns version number, every published change increments it */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getSourceLanguage() {
+        return source_language;
+    }
+
+    @Override
+    public String getTargetLanguage() {
+        return target_language;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        return entries.containsKey(word);
+    }
+
+    @Override
+    public Set<String> getTranslations(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Entry entry = entries.get(word);
+        return null == entry ? Set.of() : entry.getTranslations();
+    }
+
+    @Override
+    public int getOccurrences(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Entry entry = entries.get(word);
+        return null == entry ? 0 : entry.getOccurrences();
+    }
+
+    @Override
+    public List<String> getWords() {
+        List<Entry> ordered = orderedEntries();
+        var words = new ArrayList<String>(ordered.size());
+
+        for(Entry entry: ordered)
+            words.add(entry.getWord());
+
+        return Collections.unmodifiableList(words);
+    }
+
+    @Override
+    public void forEachEntry(Vocabulary.EntryConsumer consumer) {
+        for(Entry entry: orderedEntries())
+            consumer.accept(entry.getWord(), entry.getTranslations(), entry.getOccurrences());
+    }
+
+    /** Builds mutable Vocabulary of snapshot entries */
+    public Vocabulary toVocabulary() {
+        var vocabulary = new Vocabulary(source_language, target_language);
+        forEachEntry(vocabulary::addEntry);
+        return vocabulary;
+    }
+
+    // trie keeps no order, insertion order is restored from sequences
+    private List<Entry> orderedEntries() {
+        var ordered = new ArrayList<Entry>(entries.size());
+        entries.forEach((word, entry) -> ordered.add(entry));
+        ordered.sort(Comparator.comparingLong(Entry::getSequence));
+        return ordered;
+    }
+}
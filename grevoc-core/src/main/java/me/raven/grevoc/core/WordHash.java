@@ -0,0 +1,27 @@
+package me.raven.grevoc.core;
+
+/** Hash of words shared by probabilistic structures of words */
+final class WordHash {
+    private WordHash() {
+    }
+
+    /** 64-bit FNV-1a of UTF-16 chars with final mix, halves give two independent hashes.
+     * Values are persisted in filter files, so they must not change.
+     *
+     * @param seed mixed into initial state, 0 for the plain hash
+     */
+    static long hash(String word, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+
+        for(int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -1,13 +1,27 @@
 package me.raven.grevoc.core;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Pattern;
 
 
-/** Simple word list which counts repetitions */
+/** Simple word list which counts repetitions.
+ * Wordlist is stored as lines of word, optionally followed by tab and occurrences count */
 public class Wordlist {
+    /** Separates words of plain text, anything but letters, digits, apostrophes and hyphens */
+    static final Pattern TEXT_DELIMITER = Pattern.compile("[^\\p{L}\\p{Nd}'-]+");
+
     private ArrayList<String> words;
     private Map<String, Integer> words_occurrences;
 
@@ -47,23 +61,108 @@ public class Wordlist {
      * @param wo word occurrences
      */
     public void append(Path filename, ArrayList<String> w, Map<String, Integer> wo) {
-         try {
-             List<String> new_words = Files.readAllLines(filename);
-
-             new_words.forEach(nw -> {
-                 if(w.contains(nw))
-                     wo.put(nw, wo.get(nw) + 1);
-                 else{
-                     w.add(nw);
-                     wo.put(nw, 1);
-                 }
-             });
+        try(InputStream is = Files.newInputStream(filename)) {
+            readEntries(is, (word, occurrences) -> count(word, occurrences, w, wo));
         }
         catch(IOException ioe) {
             ioe.printStackTrace();
         }
     }
 
+    /** Appends WordList with words read from stream line by line
+     *
+     * @param input stream of words, one per line; it is not closed
+     * @throws IOException if stream can't be read
+     */
+    public void append(InputStream input) throws IOException {
+        readEntries(input, (word, occurrences) -> count(word, occurrences, words, words_occurrences));
+    }
+
+    /** Appends WordList with words of plain text, words are lower-cased
+     *
+     * @param input stream of UTF-8 text; it is not closed
+     * @throws IOException if stream can't be read
+     */
+    public void appendText(InputStream input) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+
+        while(null != (line = reader.readLine()))
+            for(String word: TEXT_DELIMITER.split(line.toLowerCase(Locale.ROOT)))
+                if(!word.isEmpty())
+                    count(word, 1, words, words_occurrences);
+    }
+
+    /** Reads wordlist records from stream without building Wordlist, so memory use doesn't
+     * depend on stream length. Word without count is counted once, empty lines are skipped.
+     *
+     * @param input stream of wordlist records; it is not closed
+     * @param consumer consumer of word and its occurrences
+     * @throws IOException if stream can't be read or count is not a positive number
+     */
+    public static void readEntries(InputStream input, ObjIntConsumer<String> consumer)
+            throws IOException {
+        Objects.requireNonNull(input, "Input stream must be non null");
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+
+        while(null != (line = reader.readLine())) {
+            if(line.isEmpty())
+                continue;
+
+            int tab = line.indexOf('\t');
+            if(tab < 0) {
+                consumer.accept(line, 1);
+                continue;
+            }
+
+            int occurrences;
+            try {
+                occurrences = Integer.parseInt(line, tab + 1, line.length(), 10);
+            }
+            catch(NumberFormatException nfe) {
+                throw new IOException("Malformed wordlist record: " + line, nfe);
+            }
+            if(occurrences <= 0)
+                throw new IOException("Occurrences must be positive number: " + line);
+
+            consumer.accept(line.substring(0, tab), occurrences);
+        }
+    }
+
+    /** Writes words with occurrences, stream is flushed but not closed
+     *
+     * @param output stream to write records to
+     * @throws IOException if stream fails
+     */
+    public void export(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                Vocabulary.EXPORT_BUFFER_SIZE);
+
+        for(String word: words) {
+            writer.write(word);
+            writer.write('\t');
+            writer.write(Integer.toString(words_occurrences.get(word)));
+            writer.write('\n');
+        }
+
+        writer.flush();
+    }
+
+    private static void count(String word, int occurrences, ArrayList<String> w,
+                              Map<String, Integer> wo) {
+        // occurrences map answers membership in O(1), unlike the list
+        Integer previous = wo.get(word);
+
+        if(null == previous) {
+            w.add(word);
+            wo.put(word, occurrences);
+        }
+        else {
+            wo.put(word, previous + occurrences);
+        }
+    }
+
     /** Sorts words in descending alphabetic order */
     public void sort() {
         Collections.sort(words);
@@ -75,21 +174,21 @@ public class Wordlist {
         words_occurrences.clear();
     }
 
-    public List getWords() {
-        return new ArrayList(words);
+    public List<String> getWords() {
+        return new ArrayList<>(words);
     }
-    public Map getWordsOccurrences() {
-        return new HashMap(words_occurrences);
+    public Map<String, Integer> getWordsOccurrences() {
+        return new HashMap<>(words_occurrences);
     }
 
     /** Gets view of words as immutable List */
-    public List getWordsView() {
+    public List<String> getWordsView() {
         return Collections.unmodifiableList(words);
     }
 
 
     /** Gets view of words occurrences as immutable Map */
-    public Map getWordsOccurrencesView() {
+    public Map<String, Integer> getWordsOccurrencesView() {
         return Collections.unmodifiableMap(words_occurrences);
     }
 
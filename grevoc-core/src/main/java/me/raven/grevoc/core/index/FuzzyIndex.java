@@ -0,0 +1,312 @@
+package me.raven.grevoc.core.index;
+
+import me.raven.grevoc.core.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/** Typo tolerant word lookup built on bigram inverted index.
+ * An edit operation destroys at most two bigrams of a word, so a word within edit distance k
+ * of query shares at least (distinct bigrams of query - 2 * k) bigrams with it. Only words
+ * passing that filter are compared with bounded Levenshtein distance. Queries too short for
+ * the filter (up to 2 * k - 1 chars) are compared only with words of length within k of theirs,
+ * which are kept in per-length buckets.
+ * @see me.raven.grevoc.core.index.FuzzyIndex#attach(Vocabulary) */
+public class FuzzyIndex implements Vocabulary.EntryListener {
+    /** Word found by lookup with its edit distance from query */
+    public static class Match {
+        private final String word;
+        private final int distance;
+
+        Match(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return word + "(" + distance + ")";
+        }
+    }
+
+    /** Growable list of word ids */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        private void add(int id) {
+            if(size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        private void remove(int id) {
+            for(int i = 0; i < size; i++) {
+                if(ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final int GRAM_SIZE = 2;
+    private static final char WORD_START = '\u0002';
+    private static final char WORD_END = '\u0003';
+
+    private final Map<String, Integer> word_ids = new HashMap<>();
+    private final ArrayList<String> words_by_id = new ArrayList<>();
+    private final ArrayList<Integer> free_ids = new ArrayList<>();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    // ids of words by word length, and position of every id in its length bucket
+    private final ArrayList<Postings> ids_by_length = new ArrayList<>();
+    private int[] length_positions = new int[16];
+    private long comparisons = 0;
+    // scratch counters of shared bigrams, indexed by word id
+    private int[] shared_grams = new int[0];
+
+    /** Constructs empty FuzzyIndex */
+    public FuzzyIndex() {
+    }
+
+    /** Constructs FuzzyIndex of specified words */
+    public FuzzyIndex(Collection<String> words) {
+        words.forEach(this::add);
+    }
+
+    /** Builds FuzzyIndex of Vocabulary words and keeps it in sync with Vocabulary entries
+     *
+     * @param vocabulary Vocabulary to index
+     * @return index registered as entry listener of vocabulary
+     */
+    public static FuzzyIndex attach(Vocabulary vocabulary) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+
+        var index = new FuzzyIndex(vocabulary.getWordsView());
+        vocabulary.addEntryListener(index);
+        return index;
+    }
+
+    /** Adds word to index
+     *
+     * @return true if word has been added, false if it is already indexed
+     */
+    public boolean add(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        if(word_ids.containsKey(word))
+            return false;
+
+        int id;
+        if(free_ids.isEmpty()) {
+            id = words_by_id.size();
+            words_by_id.add(word);
+        }
+        else {
+            id = free_ids.remove(free_ids.size() - 1);
+            words_by_id.set(id, word);
+        }
+
+        word_ids.put(word, id);
+        while(ids_by_length.size() <= word.length())
+            ids_by_length.add(new Postings());
+        Postings length_ids = ids_by_length.get(word.length());
+        if(id >= length_positions.length)
+            length_positions = Arrays.copyOf(length_positions, length_positions.length * 2);
+        length_positions[id] = length_ids.size;
+        length_ids.add(id);
+
+        for(int gram: distinctGrams(word))
+            postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+
+        return true;
+    }
+
+    /** Removes word from index
+     *
+     * @return true if word has been removed, false if it wasn't indexed
+     */
+    public boolean remove(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Integer id = word_ids.remove(word);
+        if(null == id)
+            return false;
+
+        for(int gram: distinctGrams(word)) {
+            Postings gram_postings = postings.get(gram);
+            gram_postings.remove(id);
+            if(0 == gram_postings.size)
+                postings.remove(gram);
+        }
+
+        // the last id of the bucket takes place of the removed one
+        Postings length_ids = ids_by_length.get(word.length());
+        int last = length_ids.ids[--length_ids.size];
+        length_ids.ids[length_positions[id]] = last;
+        length_positions[last] = length_positions[id];
+
+        words_by_id.set(id, null);
+        free_ids.add(id);
+        return true;
+    }
+
+    /** Returns count of indexed words */
+    public int size() {
+        return word_ids.size();
+    }
+
+    /** Removes all words from index */
+    public void clear() {
+        word_ids.clear();
+        words_by_id.clear();
+        free_ids.clear();
+        postings.clear();
+        ids_by_length.clear();
+    }
+
+    /** Returns count of words compared with queries by edit distance so far */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /** Finds indexed words within edit distance of query
+     *
+     * @param query possibly misspelled word
+     * @param max_distance maximum Levenshtein distance k
+     * @param limit maximum count of returned matches
+     * @return matches ordered by distance, then by word
+     */
+    public List<Match> find(String query, int max_distance, int limit) {
+        Objects.requireNonNull(query, "Query must be non null");
+        if(max_distance < 0)
+            throw new IllegalArgumentException("Distance must not be negative: " + max_distance);
+        if(limit < 0)
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+
+        var matches = new ArrayList<Match>();
+        int[] query_grams = distinctGrams(query);
+        int threshold = query_grams.length - GRAM_SIZE * max_distance;
+
+        if(threshold <= 0) {
+            // too short query for the filter to prune anything, only length can rule words out
+            int max_length = Math.min(query.length() + max_distance, ids_by_length.size() - 1);
+            for(int length = Math.max(0, query.length() - max_distance); length <= max_length;
+                length++) {
+                Postings length_ids = ids_by_length.get(length);
+                for(int i = 0; i < length_ids.size; i++)
+                    addIfClose(matches, query, words_by_id.get(length_ids.ids[i]), max_distance);
+            }
+        }
+        else {
+            if(shared_grams.length < words_by_id.size())
+                shared_grams = new int[Math.max(words_by_id.size(), shared_grams.length * 2)];
+
+            var candidates = new ArrayList<Integer>();
+            for(int gram: query_grams) {
+                Postings gram_postings = postings.get(gram);
+                if(null == gram_postings)
+                    continue;
+
+                for(int i = 0; i < gram_postings.size; i++) {
+                    int id = gram_postings.ids[i];
+                    if(++shared_grams[id] == threshold)
+                        candidates.add(id);
+                }
+            }
+
+            for(int gram: query_grams) {
+                Postings gram_postings = postings.get(gram);
+                if(null != gram_postings)
+                    for(int i = 0; i < gram_postings.size; i++)
+                        shared_grams[gram_postings.ids[i]] = 0;
+            }
+
+            for(int id: candidates)
+                addIfClose(matches, query, words_by_id.get(id), max_distance);
+        }
+
+        matches.sort(Comparator.comparingInt(Match::getDistance).thenComparing(Match::getWord));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    @Override
+    public void entryAdded(String word) {
+        add(word);
+    }
+
+    @Override
+    public void entryRemoved(String word) {
+        remove(word);
+    }
+
+    @Override
+    public void entriesReset(Vocabulary vocabulary) {
+        clear();
+        vocabulary.getWordsView().forEach(this::add);
+    }
+
+    private void addIfClose(List<Match> matches, String query, String word, int max_distance) {
+        comparisons++;
+        int distance = boundedDistance(query, word, max_distance);
+        if(distance <= max_distance)
+            matches.add(new Match(word, distance));
+    }
+
+    /** Returns Levenshtein distance of a and b, or max_distance + 1 if it is greater */
+    static int boundedDistance(String a, String b, int max_distance) {
+        if(Math.abs(a.length() - b.length()) > max_distance)
+            return max_distance + 1;
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for(int j = 0; j <= b.length(); j++)
+            previous[j] = j;
+
+        for(int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int row_minimum = i;
+
+            for(int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                row_minimum = Math.min(row_minimum, current[j]);
+            }
+
+            if(row_minimum > max_distance)
+                return max_distance + 1;
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return Math.min(previous[b.length()], max_distance + 1);
+    }
+
+    /** Returns distinct bigrams of word padded with start and end marks, packed into ints */
+    private static int[] distinctGrams(String word) {
+        int[] grams = new int[word.length() + 1];
+        char previous = WORD_START;
+
+        for(int i = 0; i <= word.length(); i++) {
+            char current = i < word.length() ? word.charAt(i) : WORD_END;
+            grams[i] = previous << 16 | current;
+            previous = current;
+        }
+
+        return Arrays.stream(grams).distinct().toArray();
+    }
+}
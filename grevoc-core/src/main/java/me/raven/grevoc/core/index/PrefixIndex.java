@@ -0,0 +1,294 @@
+package me.raven.grevoc.core.index;
+
+import me.raven.grevoc.core.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/** Radix trie over words for type-ahead lookups.
+ * Prefix lookup walks only the prefix and the words it returns, so its cost doesn't depend
+ * on count of indexed words. Words are returned in lexicographic order.
+ * @see me.raven.grevoc.core.index.PrefixIndex#attach(Vocabulary) */
+public class PrefixIndex implements Vocabulary.EntryListener {
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String edge;
+        private boolean terminal;
+        // sorted by first char of edge, edges of siblings never share first char
+        private Node[] children = NO_CHILDREN;
+
+        private Node(String edge, boolean terminal) {
+            this.edge = edge;
+            this.terminal = terminal;
+        }
+
+        /** Returns index of child starting with c, or (-(insertion point) - 1) */
+        private int findChild(char c) {
+            int low = 0;
+            int high = children.length - 1;
+
+            while(low <= high) {
+                int middle = (low + high) >>> 1;
+                char middle_char = children[middle].edge.charAt(0);
+
+                if(middle_char < c)
+                    low = middle + 1;
+                else if(middle_char > c)
+                    high = middle - 1;
+                else
+                    return middle;
+            }
+
+            return -(low + 1);
+        }
+
+        private void insertChild(int position, Node child) {
+            Node[] new_children = new Node[children.length + 1];
+            System.arraycopy(children, 0, new_children, 0, position);
+            new_children[position] = child;
+            System.arraycopy(children, position, new_children, position + 1,
+                    children.length - position);
+            children = new_children;
+        }
+
+        private void removeChild(int position) {
+            if(1 == children.length) {
+                children = NO_CHILDREN;
+                return;
+            }
+
+            Node[] new_children = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, position + 1, new_children, position,
+                    children.length - position - 1);
+            children = new_children;
+        }
+    }
+
+    private final Node root = new Node("", false);
+    private int size = 0;
+
+    /** Constructs empty PrefixIndex */
+    public PrefixIndex() {
+    }
+
+    /** Constructs PrefixIndex of specified words */
+    public PrefixIndex(Collection<String> words) {
+        words.forEach(this::add);
+    }
+
+    /** Builds PrefixIndex of Vocabulary words and keeps it in sync with Vocabulary entries
+     *
+     * @param vocabulary Vocabulary to index
+     * @return index registered as entry listener of vocabulary
+     */
+    public static PrefixIndex attach(Vocabulary vocabulary) {
+        Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+
+        var index = new PrefixIndex(vocabulary.getWordsView());
+        vocabulary.addEntryListener(index);
+        return index;
+    }
+
+    /** Adds word to index
+     *
+     * @return true if word has been added, false if it is already indexed
+     */
+    public boolean add(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Node node = root;
+        int i = 0;
+
+        while(true) {
+            if(i == word.length()) {
+                if(node.terminal)
+                    return false;
+
+                node.terminal = true;
+                size++;
+                return true;
+            }
+
+            int position = node.findChild(word.charAt(i));
+            if(position < 0) {
+                node.insertChild(-position - 1, new Node(word.substring(i), true));
+                size++;
+                return true;
+            }
+
+            Node child = node.children[position];
+            int common = commonPrefixLength(child.edge, word, i);
+
+            if(common < child.edge.length()) {
+                var split = new Node(child.edge.substring(0, common), false);
+                child.edge = child.edge.substring(common);
+                split.children = new Node[]{child};
+                node.children[position] = split;
+                child = split;
+            }
+
+            node = child;
+            i += common;
+        }
+    }
+
+    /** Removes word from index
+     *
+     * @return true if word has been removed, false if it wasn't indexed
+     */
+    public boolean remove(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+
+        if(!remove(root, word, 0))
+            return false;
+
+        size--;
+        return true;
+    }
+
+    private boolean remove(Node node, String word, int i) {
+        if(i == word.length()) {
+            if(!node.terminal)
+                return false;
+
+            node.terminal = false;
+            return true;
+        }
+
+        int position = node.findChild(word.charAt(i));
+        if(position < 0)
+            return false;
+
+        Node child = node.children[position];
+        if(!word.startsWith(child.edge, i) || !remove(child, word, i + child.edge.length()))
+            return false;
+
+        // keep trie compact: drop dead leaves, merge chains of single children
+        if(!child.terminal && 0 == child.children.length) {
+            node.removeChild(position);
+        }
+        else if(!child.terminal && 1 == child.children.length) {
+            Node grandchild = child.children[0];
+            grandchild.edge = child.edge + grandchild.edge;
+            node.children[position] = grandchild;
+        }
+
+        return true;
+    }
+
+    /** Checks if word is indexed */
+    public boolean contains(String word) {
+        Objects.requireNonNull(word, "Word must be non null");
+        Node node = root;
+        int i = 0;
+
+        while(i < word.length()) {
+            int position = node.findChild(word.charAt(i));
+            if(position < 0)
+                return false;
+
+            node = node.children[position];
+            if(!word.startsWith(node.edge, i))
+                return false;
+
+            i += node.edge.length();
+        }
+
+        return node.terminal;
+    }
+
+    /** Returns indexed words starting with prefix in lexicographic order
+     *
+     * @param prefix prefix of words, empty prefix enumerates all words
+     * @param limit maximum count of returned words
+     * @return List of at most limit words
+     */
+    public List<String> complete(String prefix, int limit) {
+        Objects.requireNonNull(prefix, "Prefix must be non null");
+        if(limit < 0)
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+
+        var result = new ArrayList<String>(Math.min(limit, 64));
+        var path = new StringBuilder(prefix.length() + 16);
+        Node node = root;
+        int i = 0;
+
+        while(i < prefix.length()) {
+            int position = node.findChild(prefix.charAt(i));
+            if(position < 0)
+                return result;
+
+            Node child = node.children[position];
+            int common = commonPrefixLength(child.edge, prefix, i);
+            // prefix may end in the middle of edge, every word below still matches
+            if(i + common < prefix.length() && common < child.edge.length())
+                return result;
+
+            path.append(child.edge);
+            node = child;
+            i += common;
+        }
+
+        collect(node, path, result, limit);
+        return result;
+    }
+
+    private void collect(Node node, StringBuilder path, List<String> result, int limit) {
+        if(result.size() >= limit)
+            return;
+
+        if(node.terminal)
+            result.add(path.toString());
+
+        for(Node child: node.children) {
+            if(result.size() >= limit)
+                return;
+
+            int length = path.length();
+            path.append(child.edge);
+            collect(child, path, result, limit);
+            path.setLength(length);
+        }
+    }
+
+    /** Returns count of indexed words */
+    public int size() {
+        return size;
+    }
+
+    /** Removes all words from index */
+    public void clear() {
+        root.children = Node.NO_CHILDREN;
+        root.terminal = false;
+        size = 0;
+    }
+
+    @Override
+    public void entryAdded(String word) {
+        add(word);
+    }
+
+    @Override
+    public void entryRemoved(String word) {
+        remove(word);
+    }
+
+    @Override
+    public void entriesReset(Vocabulary vocabulary) {
+        clear();
+        vocabulary.getWordsView().forEach(this::add);
+    }
+
+    private static int commonPrefixLength(String edge, String word, int offset) {
+        int limit = Math.min(edge.length(), word.length() - offset);
+        int i = 0;
+
+        while(i < limit && edge.charAt(i) == word.charAt(offset + i))
+            i++;
+
+        return i;
+    }
+}
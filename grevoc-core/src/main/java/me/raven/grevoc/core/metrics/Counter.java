@@ -0,0 +1,42 @@
+package me.raven.grevoc.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonic counter, cheap to increment from many threads */
+public class Counter {
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    /** Increments counter by one */
+    public void increment() {
+        value.increment();
+    }
+
+    /** Increments counter by specified amount */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /** Returns current value */
+    public long get() {
+        return value.sum();
+    }
+
+    /** Resets counter to zero */
+    public void reset() {
+        value.reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + get();
+    }
+}
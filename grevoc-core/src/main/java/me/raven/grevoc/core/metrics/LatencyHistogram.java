@@ -0,0 +1,129 @@
+package me.raven.grevoc.core.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency histogram with power of two nanosecond buckets.
+ * Recording is a couple of LongAdder increments, percentiles are upper bounds of buckets,
+ * so they are precise up to a factor of two which is enough to spot bottlenecks. */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total_nanos = new LongAdder();
+    private final LongAccumulator max_nanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(String name) {
+        this.name = name;
+
+        for(int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /** Records single duration
+     *
+     * @param nanos duration in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        if(nanos < 0)
+            nanos = 0;
+
+        buckets[BUCKETS - 1 - Long.numberOfLeadingZeros(nanos | 1)].increment();
+        count.increment();
+        total_nanos.add(nanos);
+        max_nanos.accumulate(nanos);
+    }
+
+    /** Records duration since start
+     *
+     * @param start_nanos start time taken from System.nanoTime()
+     */
+    public void recordSince(long start_nanos) {
+        record(System.nanoTime() - start_nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return total_nanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return max_nanos.get();
+    }
+
+    /** Returns mean duration in nanoseconds, 0 if nothing has been recorded */
+    public double getMeanNanos() {
+        long n = getCount();
+        return 0 == n ? 0 : (double) getTotalNanos() / n;
+    }
+
+    /** Returns upper bound of bucket where specified percentile falls
+     *
+     * @param percentile percentile in range (0, 100]
+     * @return duration in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        if(percentile <= 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be in range (0, 100]: " + percentile);
+
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+
+        for(int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+        if(0 == n)
+            return 0;
+
+        long rank = (long) Math.ceil(percentile / 100 * n);
+        long seen = 0;
+
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(i >= 62 ? Long.MAX_VALUE : (2L << i) - 1, getMaxNanos());
+        }
+
+        return getMaxNanos();
+    }
+
+    /** Returns summary of histogram in microseconds */
+    public Map<String, Object> summary() {
+        var summary = new LinkedHashMap<String, Object>();
+        summary.put("count", getCount());
+        summary.put("mean_us", TimeUnit.NANOSECONDS.toMicros((long) getMeanNanos()));
+        summary.put("p50_us", TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(50)));
+        summary.put("p90_us", TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(90)));
+        summary.put("p99_us", TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(99)));
+        summary.put("max_us", TimeUnit.NANOSECONDS.toMicros(getMaxNanos()));
+        return summary;
+    }
+
+    /** Resets all recorded values */
+    public void reset() {
+        for(LongAdder bucket: buckets)
+            bucket.reset();
+
+        count.reset();
+        total_nanos.reset();
+        max_nanos.reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + summary();
+    }
+}
@@ -0,0 +1,129 @@
+package me.raven.grevoc.core.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Registry of named counters and latency histograms.
+ * Metrics are created on first request and live as long as registry, hot paths should keep
+ * returned objects in fields instead of looking them up on every call.
+ * @see me.raven.grevoc.core.metrics.Counter
+ * @see me.raven.grevoc.core.metrics.LatencyHistogram */
+public class MetricsRegistry {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /** Returns registry used by grevoc classes */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /** Returns counter with specified name, creates it if absent */
+    public Counter counter(String name) {
+        Objects.requireNonNull(name, "Counter name must be non null");
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /** Returns histogram with specified name, creates it if absent */
+    public LatencyHistogram histogram(String name) {
+        Objects.requireNonNull(name, "Histogram name must be non null");
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /** Returns value of counter or 0 if there is no such counter */
+    public long getCount(String counter_name) {
+        Counter counter = counters.get(counter_name);
+        return null == counter ? 0 : counter.get();
+    }
+
+    /** Returns hits / (hits + misses) of two counters, 0 if both are empty */
+    public double getRatio(String hits_counter_name, String misses_counter_name) {
+        long hits = getCount(hits_counter_name);
+        long total = hits + getCount(misses_counter_name);
+        return 0 == total ? 0 : (double) hits / total;
+    }
+
+    /** Returns point-in-time copy of all metrics, sorted by name */
+    public Map<String, Object> snapshot() {
+        var counter_values = new TreeMap<String, Long>();
+        counters.forEach((name, counter) -> counter_values.put(name, counter.get()));
+
+        var histogram_summaries = new TreeMap<String, Map<String, Object>>();
+        histograms.forEach((name, histogram) -> histogram_summaries.put(name, histogram.summary()));
+
+        var snapshot = new LinkedHashMap<String, Object>();
+        snapshot.put("timestamp", Instant.now().toString());
+        snapshot.put("counters", counter_values);
+        snapshot.put("histograms", histogram_summaries);
+        return snapshot;
+    }
+
+    /** Writes snapshot as JSON, file is replaced atomically so readers never see partial data
+     *
+     * @param file snapshot file
+     * @throws IOException if snapshot can't be written
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writeValue(temporary.toFile(), snapshot());
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Starts writing snapshots periodically on a daemon thread
+     *
+     * @param file snapshot file, replaced on every period
+     * @param period period between snapshots
+     * @return scheduler, shut it down to stop writing snapshots
+     */
+    public ScheduledExecutorService startPeriodicSnapshots(Path file, Duration period) {
+        Objects.requireNonNull(file, "Snapshot file must be non null");
+        if(period.isNegative() || period.isZero())
+            throw new IllegalArgumentException("Snapshot period must be positive: " + period);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "grevoc-metrics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                writeSnapshot(file);
+            }
+            catch(IOException | RuntimeException e) {
+                // an exception escaping the task would cancel all further snapshots silently
+                LOGGER.warn("Failed to write metrics snapshot {}", file, e);
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+
+        return scheduler;
+    }
+
+    /** Resets all counters and histograms, registered metrics are kept */
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+}
@@ -0,0 +1,119 @@
+package me.raven.grevoc.core.pipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/** Pipeline stage grouping items into batches of batch_size, e.g. words per translator request.
+ * Incomplete batch is emitted when max_delay has passed since its first item, so slow upstream
+ * doesn't hold items back, and on completion. Emitting waits for space in the bounded output
+ * buffer, which holds further requests to upstream. */
+public class BatchStage<T> implements Flow.Processor<T, List<T>> {
+    private final int batch_size;
+    private final long max_delay_nanos;
+    private final ExecutorService delivery;
+    private final SubmissionPublisher<List<T>> output;
+    private final ScheduledExecutorService timer;
+    // guarded by this
+    private List<T> batch;
+    private ScheduledFuture<?> flush;
+    private Flow.Subscription subscription;
+
+    /** Constructs BatchStage
+     *
+     * @param batch_size maximum count of items per batch
+     * @param max_delay maximum time an item waits for its batch to fill, zero disables timer
+     * @param buffer_size maximum count of emitted but not consumed batches
+     */
+    public BatchStage(String name, int batch_size, Duration max_delay, int buffer_size) {
+        Objects.requireNonNull(name, "Stage name must be non null");
+        if(batch_size <= 0)
+            throw new IllegalArgumentException("Batch size must be positive: " + batch_size);
+        if(max_delay.isNegative())
+            throw new IllegalArgumentException("Max delay must be non negative: " + max_delay);
+        if(buffer_size <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive: " + buffer_size);
+
+        this.batch_size = batch_size;
+        this.max_delay_nanos = max_delay.toNanos();
+        this.batch = new ArrayList<>(batch_size);
+        this.delivery = FlowStage.newDeliveryExecutor(name);
+        this.output = new SubmissionPublisher<>(delivery, buffer_size);
+        this.timer = max_delay.isZero() ? null
+                : Executors.newSingleThreadScheduledExecutor(FlowStage.threadFactory(name + "-timer-"));
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<T>> subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription subscription) {
+        if(null != this.subscription) {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        subscription.request(batch_size);
+    }
+
+    @Override
+    public synchronized void onNext(T item) {
+        batch.add(item);
+
+        if(batch.size() == batch_size)
+            emit();
+        else if(1 == batch.size() && null != timer)
+            flush = timer.schedule(this::flushByTimer, max_delay_nanos, TimeUnit.NANOSECONDS);
+
+        subscription.request(1);
+    }
+
+    @Override
+    public synchronized void onError(Throwable throwable) {
+        batch = new ArrayList<>();
+        output.closeExceptionally(throwable);
+        shutdown();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        if(!batch.isEmpty())
+            emit();
+
+        output.close();
+        shutdown();
+    }
+
+    private synchronized void flushByTimer() {
+        if(!batch.isEmpty() && !output.isClosed())
+            emit();
+    }
+
+    /** Emits current batch, waits while output buffer is full */
+    private void emit() {
+        if(null != flush) {
+            flush.cancel(false);
+            flush = null;
+        }
+
+        List<T> full = batch;
+        batch = new ArrayList<>(batch_size);
+        output.submit(full);
+    }
+
+    private void shutdown() {
+        if(null != timer)
+            timer.shutdownNow();
+    }
+}
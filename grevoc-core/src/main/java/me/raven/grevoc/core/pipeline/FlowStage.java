@@ -0,0 +1,186 @@
+package me.raven.grevoc.core.pipeline;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/** Pipeline stage transforming every item on its own worker threads.
+ * Stage requests at most buffer_size items from upstream and requests the next one only when
+ * an item has been processed and its results have been accepted downstream. Output buffer is
+ * bounded as well, so when a later stage is slow workers block, requests stop and upstream
+ * stages slow down to its pace instead of queueing items in memory.
+ * With parallelism above 1 results may come out of order. A failed function cancels upstream
+ * and completes downstream exceptionally. */
+public class FlowStage<T, R> implements Flow.Processor<T, R> {
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final String name;
+    private final Function<? super T, ? extends Iterable<? extends R>> function;
+    private final int buffer_size;
+    private final ExecutorService workers;
+    // own delivery thread, so blocked downstream never starves common pool
+    private final ExecutorService delivery;
+    private final SubmissionPublisher<R> output;
+    // items in work plus one for upstream completion, output is closed when it drops to 0
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile Flow.Subscription subscription;
+
+    private FlowStage(String name, Function<? super T, ? extends Iterable<? extends R>> function,
+                      int parallelism, int buffer_size) {
+        this.name = Objects.requireNonNull(name, "Stage name must be non null");
+        this.function = Objects.requireNonNull(function, "Function must be non null");
+        if(parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        if(buffer_size <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive: " + buffer_size);
+
+        this.buffer_size = buffer_size;
+        this.workers = Executors.newFixedThreadPool(parallelism, threadFactory(name + "-worker-"));
+        this.delivery = newDeliveryExecutor(name);
+        this.output = new SubmissionPublisher<>(delivery, buffer_size);
+    }
+
+    /** Creates stage emitting single result per item, null results are dropped
+     *
+     * @param parallelism count of worker threads
+     * @param buffer_size maximum count of requested and of emitted but not consumed items
+     */
+    public static <T, R> FlowStage<T, R> map(String name, Function<? super T, ? extends R> function,
+                                             int parallelism, int buffer_size) {
+        Objects.requireNonNull(function, "Function must be non null");
+        return new FlowStage<>(name, item -> {
+            R result = function.apply(item);
+            return null == result ? List.of() : List.of(result);
+        }, parallelism, buffer_size);
+    }
+
+    /** Creates stage emitting any number of results per item, null means none */
+    public static <T, R> FlowStage<T, R> flatMap(String name,
+                                                 Function<? super T, ? extends Iterable<? extends R>> function,
+                                                 int parallelism, int buffer_size) {
+        return new FlowStage<>(name, function, parallelism, buffer_size);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if(null != this.subscription) {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        subscription.request(buffer_size);
+    }
+
+    @Override
+    public void onNext(T item) {
+        if(null != failure.get())
+            return;
+
+        pending.incrementAndGet();
+        try {
+            workers.execute(() -> process(item));
+        }
+        catch(RejectedExecutionException ree) {
+            // item delivered after failure has stopped the workers
+            pending.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        finishOne();
+    }
+
+    private void process(T item) {
+        try {
+            if(null != failure.get())
+                return;
+
+            Iterable<? extends R> results = function.apply(item);
+            if(null != results)
+                for(R result: results)
+                    output.submit(result);
+
+            subscription.request(1);
+        }
+        catch(RuntimeException re) {
+            if(null == failure.get())
+                LOGGER.error("Stage {} failed", name, re);
+            subscription.cancel();
+            fail(re);
+        }
+        finally {
+            finishOne();
+        }
+    }
+
+    private void finishOne() {
+        if(0 == pending.decrementAndGet() && null == failure.get()) {
+            output.close();
+            shutdown();
+        }
+    }
+
+    private void fail(Throwable throwable) {
+        if(!failure.compareAndSet(null, throwable))
+            return;
+
+        output.closeExceptionally(throwable);
+        shutdown();
+    }
+
+    private void shutdown() {
+        // already queued work still runs, threads exit afterwards
+        workers.shutdown();
+    }
+
+    /** Creates executor for SubmissionPublisher of a stage. Closed publisher still delivers
+     * buffered items whenever subscriber requests them, so executor is never shut down,
+     * its thread exits when idle instead. */
+    public static ExecutorService newDeliveryExecutor(String name) {
+        var executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory(name + "-delivery-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static ThreadFactory threadFactory(String prefix) {
+        var thread_number = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, "grevoc-" + prefix + thread_number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package me.raven.grevoc.core.task;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Reports bytes read from wrapped stream as task progress.
+ * Every read is a cancellation point, so any stream based import becomes cancellable. */
+public class ProgressInputStream extends FilterInputStream {
+    private final TaskContext context;
+    private long position = 0;
+    private long mark = 0;
+
+    public ProgressInputStream(InputStream in, TaskContext context) {
+        super(in);
+        this.context = context;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if(b >= 0)
+            moved(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = super.read(b, off, len);
+        if(count > 0)
+            moved(count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long count = super.skip(n);
+        moved(count);
+        return count;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        super.mark(readlimit);
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        position = mark;
+    }
+
+    private void moved(long count) {
+        position += count;
+        context.setDone(position);
+    }
+}
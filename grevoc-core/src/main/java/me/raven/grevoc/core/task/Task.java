@@ -0,0 +1,12 @@
+package me.raven.grevoc.core.task;
+
+/** Long operation run by TaskRunner.
+ * Task reports progress through context and calls TaskContext#checkCancelled() between steps,
+ * so cancellation stops it at the next step.
+ *
+ * @param <T> type of task result
+ * @see me.raven.grevoc.core.task.TaskRunner */
+@FunctionalInterface
+public interface Task<T> {
+    T run(TaskContext context) throws Exception;
+}
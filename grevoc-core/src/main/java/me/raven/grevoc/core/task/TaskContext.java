@@ -0,0 +1,77 @@
+package me.raven.grevoc.core.task;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+
+/** Task side of running task: progress reporting and cancellation checks.
+ * Progress events are throttled, listener gets at most one event per progress interval
+ * besides the one completing the work. Context is meant to be used by the task thread only. */
+public final class TaskContext {
+    private final TaskHandle<?> handle;
+    private final long progress_interval_nanos;
+    private volatile long done = 0;
+    private volatile long total = -1;
+    private volatile String message = "";
+    private long last_publish_nanos;
+
+    TaskContext(TaskHandle<?> handle, long progress_interval_nanos) {
+        this.handle = handle;
+        this.progress_interval_nanos = progress_interval_nanos;
+        this.last_publish_nanos = System.nanoTime() - progress_interval_nanos;
+    }
+
+    /** Sets total amount of work, -1 if it is unknown */
+    public void setTotal(long total) {
+        this.total = total;
+        publish(true);
+    }
+
+    public void setMessage(String message) {
+        this.message = Objects.requireNonNull(message, "Message must be non null");
+        publish(true);
+    }
+
+    /** Adds to amount of done work, then checks for cancellation
+     *
+     * @throws CancellationException if task has been cancelled
+     */
+    public void advance(long delta) {
+        setDone(done + delta);
+    }
+
+    /** Sets amount of done work, then checks for cancellation
+     *
+     * @throws CancellationException if task has been cancelled
+     */
+    public void setDone(long done) {
+        this.done = done;
+        publish(done == total);
+        checkCancelled();
+    }
+
+    public boolean isCancelled() {
+        return handle.isCancelled() || Thread.currentThread().isInterrupted();
+    }
+
+    /** Stops task if it has been cancelled
+     *
+     * @throws CancellationException if task has been cancelled
+     */
+    public void checkCancelled() {
+        if(isCancelled())
+            throw new CancellationException("Task " + handle.getName() + " has been cancelled");
+    }
+
+    TaskProgress getProgress() {
+        return new TaskProgress(handle.getName(), done, total, message);
+    }
+
+    private void publish(boolean force) {
+        long now = System.nanoTime();
+        if(!force && now - last_publish_nanos < progress_interval_nanos)
+            return;
+
+        last_publish_nanos = now;
+        handle.publishProgress(getProgress());
+    }
+}
@@ -0,0 +1,117 @@
+package me.raven.grevoc.core.task;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/** Caller side of submitted task: result, progress and cancellation
+ *
+ * @param <T> type of task result */
+public final class TaskHandle<T> {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final String name;
+    private final TaskListener<? super T> listener;
+    private final Executor listener_executor;
+    private final TaskContext context;
+    private final FutureTask<T> future;
+    private volatile boolean cancelled = false;
+
+    TaskHandle(String name, Task<T> task, TaskListener<? super T> listener,
+               Executor listener_executor, long progress_interval_nanos) {
+        this.name = name;
+        this.listener = listener;
+        this.listener_executor = listener_executor;
+        this.context = new TaskContext(this, progress_interval_nanos);
+        this.future = new FutureTask<>(() -> task.run(context)) {
+            @Override
+            protected void done() {
+                fireCompletion();
+            }
+        };
+    }
+
+    FutureTask<T> getFuture() {
+        return future;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Cancels task, its listener is told at once and result is discarded even if task body
+     * runs until its next cancellation check
+     *
+     * @return false if task has already completed
+     */
+    public boolean cancel() {
+        cancelled = true;
+        return future.cancel(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /** Returns the latest progress, not throttled */
+    public TaskProgress getProgress() {
+        return context.getProgress();
+    }
+
+    /** Waits for task result
+     *
+     * @throws CancellationException if task has been cancelled
+     * @throws ExecutionException if task has failed
+     */
+    public T get() throws InterruptedException, ExecutionException {
+        return future.get();
+    }
+
+    public T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(timeout, unit);
+    }
+
+    void publishProgress(TaskProgress progress) {
+        if(!future.isDone())
+            listener_executor.execute(() -> listener.progressChanged(progress));
+    }
+
+    private void fireCompletion() {
+        if(future.isCancelled()) {
+            LOGGER.debug("Task {} cancelled", name);
+            listener_executor.execute(listener::taskCancelled);
+            return;
+        }
+
+        try {
+            T result = future.get();
+            LOGGER.debug("Task {} finished", name);
+            listener_executor.execute(() -> listener.taskFinished(result));
+        }
+        catch(ExecutionException ee) {
+            if(ee.getCause() instanceof CancellationException) {
+                LOGGER.debug("Task {} stopped on cancellation", name);
+                listener_executor.execute(listener::taskCancelled);
+            }
+            else {
+                LOGGER.warn("Task {} failed", name, ee.getCause());
+                listener_executor.execute(() -> listener.taskFailed(ee.getCause()));
+            }
+        }
+        catch(InterruptedException ie) {
+            // future is done, get() doesn't wait
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package me.raven.grevoc.core.task;
+
+/** Receives task events, exactly one of taskFinished, taskFailed and taskCancelled is called.
+ * Events are delivered through listener executor of TaskRunner, e.g. on UI event thread.
+ *
+ * @param <T> type of task result */
+public interface TaskListener<T> {
+    default void progressChanged(TaskProgress progress) {
+    }
+
+    default void taskFinished(T result) {
+    }
+
+    default void taskFailed(Throwable cause) {
+    }
+
+    default void taskCancelled() {
+    }
+}
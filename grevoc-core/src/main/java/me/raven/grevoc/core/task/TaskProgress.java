@@ -0,0 +1,47 @@
+package me.raven.grevoc.core.task;
+
+/** Immutable progress of task at some moment */
+public final class TaskProgress {
+    private final String task_name;
+    private final long done;
+    private final long total;
+    private final String message;
+
+    TaskProgress(String task_name, long done, long total, String message) {
+        this.task_name = task_name;
+        this.done = done;
+        this.total = total;
+        this.message = message;
+    }
+
+    public String getTaskName() {
+        return task_name;
+    }
+
+    public long getDone() {
+        return done;
+    }
+
+    /** Returns total amount of work, or -1 if it is unknown */
+    public long getTotal() {
+        return total;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /** Returns done part of work in range [0, 1], or -1 if total is unknown */
+    public double getFraction() {
+        if(total <= 0)
+            return -1;
+
+        return Math.min(1.0, (double) done / total);
+    }
+
+    @Override
+    public String toString() {
+        return task_name + ": " + done + "/" + (total < 0 ? "?" : total)
+                + (message.isEmpty() ? "" : " " + message);
+    }
+}
@@ -0,0 +1,97 @@
+package me.raven.grevoc.core.task;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Runs long operations on a bounded pool of background threads.
+ * Both threads and queue of waiting tasks are bounded, a task over capacity is rejected
+ * instead of piling up. Listener events go through listener executor, GUI passes
+ * SwingUtilities::invokeLater to get them on event thread.
+ * @see me.raven.grevoc.core.task.Tasks */
+public class TaskRunner implements AutoCloseable {
+    public static final Duration DEFAULT_PROGRESS_INTERVAL = Duration.ofMillis(100);
+
+    private final ThreadPoolExecutor executor;
+    private final Executor listener_executor;
+    private final long progress_interval_nanos;
+
+    /** Constructs TaskRunner delivering events on task threads */
+    public TaskRunner(int threads, int queue_capacity) {
+        this(threads, queue_capacity, Runnable::run, DEFAULT_PROGRESS_INTERVAL);
+    }
+
+    /** Constructs TaskRunner
+     *
+     * @param threads count of concurrently running tasks
+     * @param queue_capacity count of tasks waiting for a thread
+     * @param listener_executor executor delivering listener events
+     * @param progress_interval minimal interval between progress events of a task
+     */
+    public TaskRunner(int threads, int queue_capacity, Executor listener_executor,
+                      Duration progress_interval) {
+        if(threads <= 0)
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        if(queue_capacity <= 0)
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queue_capacity);
+
+        this.listener_executor = Objects.requireNonNull(listener_executor,
+                "Listener executor must be non null");
+        this.progress_interval_nanos = progress_interval.toNanos();
+
+        var thread_number = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue_capacity), runnable -> {
+            var thread = new Thread(runnable, "grevoc-task-" + thread_number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Submits task without listener */
+    public <T> TaskHandle<T> submit(String name, Task<T> task) {
+        return submit(name, task, new TaskListener<>() {});
+    }
+
+    /** Submits task
+     *
+     * @param name task name shown in progress
+     * @param task task to run
+     * @param listener listener of task events
+     * @return handle of submitted task
+     * @throws RejectedExecutionException if runner is full or closed
+     */
+    public <T> TaskHandle<T> submit(String name, Task<T> task, TaskListener<? super T> listener) {
+        Objects.requireNonNull(name, "Task name must be non null");
+        Objects.requireNonNull(task, "Task must be non null");
+        Objects.requireNonNull(listener, "Task listener must be non null");
+
+        var handle = new TaskHandle<T>(name, task, listener, listener_executor,
+                progress_interval_nanos);
+        executor.execute(handle.getFuture());
+        return handle;
+    }
+
+    /** Returns count of running and waiting tasks */
+    public int getActiveCount() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+
+    /** Interrupts running tasks and discards waiting ones */
+    @Override
+    public void close() {
+        // waiting tasks are cancelled too, so their listeners hear about it
+        executor.shutdownNow().forEach(runnable -> ((Future<?>) runnable).cancel(false));
+    }
+
+    /** Waits until running tasks have stopped after close() */
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        return executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
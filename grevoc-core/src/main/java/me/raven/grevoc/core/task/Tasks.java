@@ -0,0 +1,68 @@
+package me.raven.grevoc.core.task;
+
+import me.raven.grevoc.core.Vocabulary;
+import me.raven.grevoc.core.VocabularyEnricher;
+import me.raven.grevoc.core.Wordlist;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/** Cancellable tasks of common long operations.
+ * Imports build a new object and hand it over only when done, so cancelled import never
+ * leaves half loaded data behind. */
+public final class Tasks {
+    private Tasks() {
+    }
+
+    /** Imports vocabulary file, progress is counted in bytes of file */
+    public static Task<Vocabulary> importVocabulary(Path file, String sl, String tl) {
+        Objects.requireNonNull(file, "File must be non null");
+
+        return context -> {
+            var vocabulary = new Vocabulary(sl, tl);
+            context.setMessage("Importing " + file.getFileName());
+            context.setTotal(Files.size(file));
+
+            try(InputStream is = new ProgressInputStream(Files.newInputStream(file), context)) {
+                vocabulary.append(is);
+            }
+
+            return vocabulary;
+        };
+    }
+
+    /** Reads wordlist file, progress is counted in bytes of file */
+    public static Task<Wordlist> readWordlist(Path file) {
+        Objects.requireNonNull(file, "File must be non null");
+
+        return context -> {
+            var wordlist = new Wordlist();
+            context.setMessage("Reading " + file.getFileName());
+            context.setTotal(Files.size(file));
+
+            try(InputStream is = new ProgressInputStream(Files.newInputStream(file), context)) {
+                wordlist.append(is);
+            }
+
+            return wordlist;
+        };
+    }
+
+    /** Translates missing words of wordlist into enricher vocabulary, progress is counted in
+     * words. Cancellation stops it between batches, batches translated so far stay in
+     * vocabulary. Vocabulary must not be used by other threads meanwhile. */
+    public static Task<VocabularyEnricher.Report> enrich(VocabularyEnricher enricher,
+                                                         Wordlist wordlist) {
+        Objects.requireNonNull(enricher, "Enricher must be non null");
+        Objects.requireNonNull(wordlist, "Wordlist must be non null");
+
+        return context -> {
+            context.setMessage("Translating");
+            context.setTotal(enricher.findMissingWords(wordlist).size());
+
+            return enricher.enrich(wordlist, (batch, translations) -> context.advance(batch.size()));
+        };
+    }
+}
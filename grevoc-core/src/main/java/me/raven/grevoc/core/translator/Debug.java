@@ -1,5 +1,10 @@
 package me.raven.grevoc.core.translator;
 
+import me.raven.grevoc.core.metrics.Counter;
+import me.raven.grevoc.core.metrics.LatencyHistogram;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
+
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Random;
@@ -10,7 +15,12 @@ import java.util.stream.Collectors;
 /** Debug translator made for test and debugging */
 public class Debug extends Translator {
     public static final String ENGINE_NAME = "_debug";
+    private static final Counter REQUESTS = MetricsRegistry.getDefault()
+            .counter("translator." + ENGINE_NAME + ".requests");
+    private static final LatencyHistogram LATENCY = MetricsRegistry.getDefault()
+            .histogram("translator." + ENGINE_NAME + ".latency");
     private HashSet<String> supported_languages;
+    private volatile Duration simulated_latency = Duration.ZERO;
 
     /** Constructs Debug with given language pair
      *
@@ -22,8 +32,33 @@ public class Debug extends Translator {
     }
 
 
+    /** Makes every translate(String) call wait as long as a network request would */
+    public void setSimulatedLatency(Duration latency) {
+        if(latency.isNegative())
+            throw new IllegalArgumentException("Latency must not be negative: " + latency);
+
+        simulated_latency = latency;
+    }
+
+    public Duration getSimulatedLatency() {
+        return simulated_latency;
+    }
+
     @Override
     public HashSet<String> translate (String word) {
+        long start = System.nanoTime();
+        REQUESTS.increment();
+
+        if(!simulated_latency.isZero()) {
+            try {
+                Thread.sleep(simulated_latency.toMillis(), simulated_latency.toNanosPart() % 1_000_000);
+            }
+            catch(InterruptedException ie) {
+                // request has been cancelled
+                Thread.currentThread().interrupt();
+                return new HashSet<>();
+            }
+        }
         var translations = new ArrayList<String>();
         var random = new Random(System.nanoTime());
         var characters = word.chars()
@@ -41,6 +76,7 @@ public class Debug extends Translator {
             }
         }
 
+        LATENCY.recordSince(start);
         return new HashSet<String>(translations);
     }
 
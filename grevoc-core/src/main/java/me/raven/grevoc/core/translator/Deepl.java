@@ -1,12 +1,18 @@
 package me.raven.grevoc.core.translator;
 
 import com.deepl.api.Language;
+import com.deepl.api.TextResult;
 import com.deepl.api.Translator;
+import com.deepl.api.TranslatorOptions;
 import com.deepl.api.DeepLException;
+import me.raven.grevoc.core.metrics.Counter;
+import me.raven.grevoc.core.metrics.LatencyHistogram;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import java.io.PrintWriter;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,6 +21,12 @@ import java.util.stream.Collectors;
 public class Deepl extends me.raven.grevoc.core.translator.Translator {
     public static final String ENGINE_NAME = "deepl";
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final Counter REQUESTS = MetricsRegistry.getDefault()
+            .counter("translator." + ENGINE_NAME + ".requests");
+    private static final Counter ERRORS = MetricsRegistry.getDefault()
+            .counter("translator." + ENGINE_NAME + ".errors");
+    private static final LatencyHistogram LATENCY = MetricsRegistry.getDefault()
+            .histogram("translator." + ENGINE_NAME + ".latency");
     private final HashSet<String> supported_languages = new HashSet<String>();
     private final com.deepl.api.Translator deepl_translator;
 
@@ -25,6 +37,17 @@ public class Deepl extends me.raven.grevoc.core.translator.Translator {
         loadLanguages();
     }
 
+    /** Constructs Deepl talking to API at other location, e.g. proxy or local stub server
+     *
+     * @param server_url base URL which API paths like /v2/translate are appended to
+     */
+    public Deepl(String sl, String tl, String api_key, String server_url) {
+        super(sl, tl);
+        deepl_translator = new com.deepl.api.Translator(api_key,
+                new TranslatorOptions().setServerUrl(server_url));
+        loadLanguages();
+    }
+
     protected void loadLanguages() {
         LOGGER.info("Loading DeepL languages");
 
@@ -52,8 +75,10 @@ public class Deepl extends me.raven.grevoc.core.translator.Translator {
 
     @Override
     public HashSet<String> translate(String word) {
-        LOGGER.trace("Translating word: " + "[" + word + "]");
+        LOGGER.trace("Translating word: [{}]", word);
         HashSet<String> list_of_translations = new HashSet<>();
+        long start = System.nanoTime();
+        REQUESTS.increment();
 
         try {
             list_of_translations = new HashSet<>(List.of(
@@ -62,15 +87,53 @@ public class Deepl extends me.raven.grevoc.core.translator.Translator {
             ));
         }
         catch(InterruptedException ie) {
+            ERRORS.increment();
             LOGGER.error(ie);
         }
         catch(DeepLException de) {
+            ERRORS.increment();
             LOGGER.error("Deepl internal problem", de);
         }
+        finally {
+            LATENCY.recordSince(start);
+        }
 
         return list_of_translations;
     }
 
+    @Override
+    public HashMap<String, HashSet<String>> translate(List<String> words) {
+        LOGGER.trace("Translating batch of {} words", words.size());
+        var translations = new HashMap<String, HashSet<String>>();
+
+        if(words.isEmpty())
+            return translations;
+
+        long start = System.nanoTime();
+        REQUESTS.increment();
+
+        try {
+            List<TextResult> results = deepl_translator.translateText(words, getSourceLanguage(),
+                    getTargetLanguage());
+
+            for(int i = 0; i < results.size(); i++)
+                translations.put(words.get(i), new HashSet<>(List.of(results.get(i).getText())));
+        }
+        catch(InterruptedException ie) {
+            ERRORS.increment();
+            LOGGER.error(ie);
+        }
+        catch(DeepLException de) {
+            ERRORS.increment();
+            LOGGER.error("Deepl internal problem", de);
+        }
+        finally {
+            LATENCY.recordSince(start);
+        }
+
+        return translations;
+    }
+
     public void printLanguages(PrintWriter pw) {
         supported_languages.forEach(pw::println);
         pw.flush();
@@ -1,11 +1,22 @@
 package me.raven.grevoc.core.translator;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-/** LanguagePair class holds source and target languages */
+/** LanguagePair class holds source and target languages.
+ * Every distinct pair gets a dense id in order of first use, so tables of pairs can be plain
+ * arrays indexed by id. Pairs of the same languages share id and are equal. */
 public class LanguagePair {
+    // registry of canonical pairs, guarded by BY_ID
+    private static final List<LanguagePair> BY_ID = new ArrayList<>();
+    private static final Map<String, Map<String, LanguagePair>> BY_LANGUAGES = new HashMap<>();
+
     private final String source_language;
     private final String target_language;
+    private final int id;
 
     /** Constructs LanguagePair
      *
@@ -22,6 +33,65 @@ public class LanguagePair {
 
         source_language = sl;
         target_language = tl;
+        id = of(sl, tl).id;
+    }
+
+    private LanguagePair(String sl, String tl, int id) {
+        source_language = sl;
+        target_language = tl;
+        this.id = id;
+    }
+
+    /** Returns canonical LanguagePair of languages, assigning next id to a new pair
+     *
+     * @param sl source language
+     * @param tl target language
+     */
+    public static LanguagePair of(String sl, String tl) {
+        Objects.requireNonNull(sl, "Source language has to be non null");
+        Objects.requireNonNull(tl, "Target language has to be non null");
+        if(sl.equals(tl))
+            throw new IllegalArgumentException("Languages have to be not the same: sl=" + sl
+                    + "tl=" + tl);
+
+        synchronized(BY_ID) {
+            LanguagePair pair = find(sl, tl);
+            if(null != pair)
+                return pair;
+
+            pair = new LanguagePair(sl, tl, BY_ID.size());
+            BY_ID.add(pair);
+            BY_LANGUAGES.computeIfAbsent(sl, k -> new HashMap<>()).put(tl, pair);
+            return pair;
+        }
+    }
+
+    /** Returns canonical LanguagePair of languages, or null if the pair has never been used */
+    public static LanguagePair find(String sl, String tl) {
+        synchronized(BY_ID) {
+            Map<String, LanguagePair> targets = BY_LANGUAGES.get(sl);
+            return null == targets ? null : targets.get(tl);
+        }
+    }
+
+    /** Returns canonical LanguagePair of id
+     *
+     * @throws IllegalArgumentException if no pair has such id
+     */
+    public static LanguagePair byId(int id) {
+        synchronized(BY_ID) {
+            if(id < 0 || id >= BY_ID.size())
+                throw new IllegalArgumentException("Unknown language pair id: " + id);
+
+            return BY_ID.get(id);
+        }
+    }
+
+    /** Returns count of pairs used so far, ids are below it */
+    public static int getPairCount() {
+        synchronized(BY_ID) {
+            return BY_ID.size();
+        }
     }
 
     /** Returns source language */
@@ -33,4 +103,24 @@ public class LanguagePair {
     public String getTarget() {
         return target_language;
     }
+
+    /** Returns dense id of the pair */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof LanguagePair && id == ((LanguagePair) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return source_language + "-" + target_language;
+    }
 }
@@ -1,8 +1,13 @@
 package me.raven.grevoc.core.translator;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import me.raven.grevoc.core.metrics.Counter;
+import me.raven.grevoc.core.metrics.LatencyHistogram;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
@@ -28,6 +33,8 @@ public class Lingvanex extends Translator {
                 "fr", "fr_FR",
                 "pt", "pt_PT"
         );
+        private static final Pattern CODE_ALPHA_1_PATTERN = Pattern.compile("[a-z]{2}?");
+        private static final Pattern FULL_CODE_PATTERN = Pattern.compile("[a-z]{2}?_[A-Z]{2}?");
 
         private final String code_alpha_1;
         private final String full_code;
@@ -44,7 +51,7 @@ public class Lingvanex extends Translator {
         }
 
         public static void printLanguages(Iterable<ServerLanguage> languages, PrintWriter pw) {
-            LOGGER.debug("Writing languages by given PrintWriter: " + pw);
+            LOGGER.debug("Writing languages by given PrintWriter: {}", pw);
 
             for(var language: languages) {
                 var sb = new StringBuilder();
@@ -65,7 +72,7 @@ public class Lingvanex extends Translator {
             if(isFullCodeFormat(code))
                 return getByFullCode(code, languages);
 
-            LOGGER.warn("Provided code is not in correct format (full, alpha1): [" + code + "]");
+            LOGGER.warn("Provided code is not in correct format (full, alpha1): [{}]", code);
             return null;
         }
 
@@ -103,8 +110,8 @@ public class Lingvanex extends Translator {
         }
 
         public static boolean isCodeAlpha1Format(String code) {
-            if(!Pattern.matches("[a-z]{2}?", code)) {
-                LOGGER.trace("Provided code is not in code_alpha_1 format: " + code);
+            if(!CODE_ALPHA_1_PATTERN.matcher(code).matches()) {
+                LOGGER.trace("Provided code is not in code_alpha_1 format: {}", code);
                 return false;
             }
 
@@ -112,8 +119,8 @@ public class Lingvanex extends Translator {
         }
 
         public static boolean isFullCodeFormat(String code) {
-            if(Pattern.matches("[a-z]{2}?_[A-Z]{2}?", code)) {
-                LOGGER.trace("Provided code is not in full_code format: " + code);
+            if(!FULL_CODE_PATTERN.matcher(code).matches()) {
+                LOGGER.trace("Provided code is not in full_code format: {}", code);
                 return false;
             }
 
@@ -125,11 +132,11 @@ public class Lingvanex extends Translator {
                 return false;
 
             if(!LANGUAGE_PRIORITY_MAP.containsKey(code)) {
-                LOGGER.trace("Provided code_alpha_1 is absent in priority map: [" + code + "]");
+                LOGGER.trace("Provided code_alpha_1 is absent in priority map: [{}]", code);
                 return false;
             }
 
-            LOGGER.trace("Collision code_alpha_1 found in priority map: [" + code + "]");
+            LOGGER.trace("Collision code_alpha_1 found in priority map: [{}]", code);
             return true;
         }
 
@@ -157,16 +164,19 @@ public class Lingvanex extends Translator {
 
         @Override
         public boolean equals(Object supported_language2) {
+            if(!(supported_language2 instanceof ServerLanguage))
+                return false;
+
             var sl2 = (ServerLanguage) supported_language2;
             if(this.getCodeAlpha1().equals((sl2.getCodeAlpha1()))
                 || this.getFullCode().equals(sl2.getFullCode())
                 || this.getName().equals(sl2.getName())
             ) {
-                LOGGER.trace(this + " equals " + sl2);
+                LOGGER.trace("{} equals {}", this, sl2);
                 return true;
             }
 
-            LOGGER.trace(this + " equals not " + sl2);
+            LOGGER.trace("{} equals not {}", this, sl2);
             return false;
         }
     }
@@ -175,9 +185,17 @@ public class Lingvanex extends Translator {
     protected static final String API_URI_PREFIX = "https://api-b2b.backenster.com/b1/api/v3/";
     protected static final HttpClient CLIENT = HttpClient.newHttpClient();
     protected static final ObjectMapper MAPPER = new ObjectMapper();
+    protected static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final Counter REQUESTS = MetricsRegistry.getDefault()
+            .counter("translator." + ENGINE_NAME + ".requests");
+    private static final Counter ERRORS = MetricsRegistry.getDefault()
+            .counter("translator." + ENGINE_NAME + ".errors");
+    private static final LatencyHistogram LATENCY = MetricsRegistry.getDefault()
+            .histogram("translator." + ENGINE_NAME + ".latency");
 
     private final HashSet<ServerLanguage> server_languages = new HashSet<>();
+    private String api_uri_prefix = API_URI_PREFIX;
     private String api_key = "";
     private ServerLanguage source;
     private ServerLanguage target;
@@ -187,12 +205,20 @@ public class Lingvanex extends Translator {
     }
 
     public Lingvanex(String sl, String tl, String ak) {
+        this(sl, tl, ak, API_URI_PREFIX);
+    }
+
+    /** Constructs Lingvanex talking to API at other location, e.g. proxy or local stub server
+     *
+     * @param api_uri_prefix URI which API method names are appended to, ending with '/'
+     */
+    public Lingvanex(String sl, String tl, String ak, String api_uri_prefix) {
         super();
+        this.api_uri_prefix = api_uri_prefix;
         setAPIKey(ak);
         loadLanguages();
 
-        // CHECK optimization
-        if(isSupportedLanguage(sl) && isSupportedLanguage(tl))
+        if(!isSupportedLanguage(sl) || !isSupportedLanguage(tl))
             throw new IllegalArgumentException("Source or target language is not supported");
 
         setSourceLanguage(sl);
@@ -203,50 +229,140 @@ public class Lingvanex extends Translator {
         String request_uri_postfix = "getLanguages?platform=api";
 
         try {
-            LOGGER.info("Load request with api key: " + api_key);
+            LOGGER.info("Loading languages from {}", api_uri_prefix);
             var request = HttpRequest.newBuilder()
-                    .uri(new URI(API_URI_PREFIX + request_uri_postfix))
+                    .uri(new URI(api_uri_prefix + request_uri_postfix))
                     .header("Authorization", api_key)
                     .header("accept", "application/json")
                     .build();
 
-            InputStream is = makeRequest(request);
-            placeJSONLoadedLanguages(is);
-            is.close();
+            try(InputStream is = makeRequest(request)) {
+                placeJSONLoadedLanguages(is);
+            }
         }
         catch (IOException ioe) {
-            LOGGER.error("JSON language parse IOException: " + ioe);
+            LOGGER.error("JSON language parse IOException", ioe);
         }
         catch(URISyntaxException urise) {
-            LOGGER.error("Request URI isn't correct" + urise);
+            LOGGER.error("Request URI isn't correct", urise);
         }
     }
 
+    /** Reads languages from getLanguages response as tokens, without building JSON tree;
+     * fields other than codes and English name are skipped */
     void placeJSONLoadedLanguages(InputStream is) throws IOException {
-        JsonNode json = MAPPER.readTree(is);
-        JsonNode loaded_languages = json.findValue("result");
-
-        loaded_languages.elements().forEachRemaining(sl ->
-                this.server_languages.add( new ServerLanguage(
-                        sl.get("code_alpha_1").asText(),
-                        sl.get("full_code").asText(),
-                        sl.get("englishName").asText())
-                )
-        );
+        try(JsonParser parser = JSON_FACTORY.createParser(is)) {
+            if(null == parser.nextToken())
+                return;
+            if(JsonToken.START_OBJECT != parser.currentToken())
+                throw new IOException("Languages response is not JSON object");
+
+            while(JsonToken.FIELD_NAME == parser.nextToken()) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                if("result".equals(field) && JsonToken.START_ARRAY == value) {
+                    while(JsonToken.START_OBJECT == parser.nextToken())
+                        server_languages.add(parseLanguage(parser));
+                }
+                else if("err".equals(field) && JsonToken.VALUE_NULL != value) {
+                    throw new IOException("Lingvanex error: " + parser.getValueAsString());
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /** Parses language object, parser is at its START_OBJECT and is left at its END_OBJECT */
+    private static ServerLanguage parseLanguage(JsonParser parser) throws IOException {
+        String code_alpha_1 = null;
+        String full_code = null;
+        String name = null;
+
+        while(JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch(field) {
+                case "code_alpha_1":
+                    code_alpha_1 = parser.getValueAsString();
+                    break;
+                case "full_code":
+                    full_code = parser.getValueAsString();
+                    break;
+                case "englishName":
+                    name = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if(null == code_alpha_1 || null == full_code || null == name)
+            throw new IOException("Incomplete language in response: " + full_code);
+
+        return new ServerLanguage(code_alpha_1, full_code, name);
+    }
+
+    /** Reads translation from translate response
+     *
+     * @return translated text, or null if response has no result
+     * @throws IOException if response is malformed or reports error
+     */
+    static String parseTranslation(InputStream is) throws IOException {
+        String result = null;
+
+        try(JsonParser parser = JSON_FACTORY.createParser(is)) {
+            JsonToken token = parser.nextToken();
+            // failed request has already been reported with empty body
+            if(null == token)
+                return null;
+            if(JsonToken.START_OBJECT != token)
+                throw new IOException("Translate response is not JSON object");
+
+            while(JsonToken.FIELD_NAME == parser.nextToken()) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                if("result".equals(field) && JsonToken.VALUE_STRING == value)
+                    result = parser.getText();
+                else if("err".equals(field) && JsonToken.VALUE_NULL != value)
+                    throw new IOException("Lingvanex error: " + parser.getValueAsString());
+                else
+                    parser.skipChildren();
+            }
+        }
+
+        return result;
     }
 
     private InputStream makeRequest(HttpRequest request) {
-        try {
+        long start = System.nanoTime();
+        REQUESTS.increment();
 
+        try {
             var response = CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
-            return response.body();
+            if(200 == response.statusCode())
+                return response.body();
+
+            response.body().close();
+            LOGGER.error("Lingvanex responded with status {} to {}", response.statusCode(),
+                    request.uri());
         }
         catch(IOException ioe) {
             LOGGER.error("IO error:\n", ioe);
         }
         catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
             LOGGER.error("Connection has been interrupted:\n", ie);
         }
+        finally {
+            LATENCY.recordSince(start);
+        }
+
+        ERRORS.increment();
 
         LOGGER.error("Couldn't make InputStream from request");
         return InputStream.nullInputStream();
@@ -258,11 +374,11 @@ public class Lingvanex extends Translator {
             || ServerLanguage.isFullCodeFormat(language_code)
                 && null != ServerLanguage.getByFullCode(language_code, server_languages)) {
 
-            LOGGER.trace("Lingvanex supports provided language: " + language_code);
+            LOGGER.trace("Lingvanex supports provided language: {}", language_code);
             return true;
         }
 
-        LOGGER.trace("Lingvanex doesn't support provided language: " + language_code);
+        LOGGER.trace("Lingvanex doesn't support provided language: {}", language_code);
         return false;
     }
 
@@ -271,11 +387,11 @@ public class Lingvanex extends Translator {
             throw new IllegalStateException("Languages are not loaded");
 
         if(server_languages.contains(sl)) {
-            LOGGER.trace("Provided language is supported: " + sl);
+            LOGGER.trace("Provided language is supported: {}", sl);
             return true;
         }
 
-        LOGGER.trace("Provided language is NOT supported: " + sl);
+        LOGGER.trace("Provided language is NOT supported: {}", sl);
         return false;
     }
 
@@ -286,9 +402,11 @@ public class Lingvanex extends Translator {
         return languagesSet;
     }
 
+    /** Translates word by single request, empty set is returned on failure */
     @Override
     public HashSet<String> translate(String word) {
-        String request_uri_postfix = "/translate";
+        String request_uri_postfix = "translate";
+        var translations = new HashSet<String>();
 
         ObjectNode post_request_json_body =
                 MAPPER.createObjectNode()
@@ -300,18 +418,31 @@ public class Lingvanex extends Translator {
 
         try {
             var request = HttpRequest.newBuilder()
-                    .uri(new URI(API_URI_PREFIX + request_uri_postfix))
+                    .uri(new URI(api_uri_prefix + request_uri_postfix))
                     .header("Authorization", api_key)
                     .header("accept", "application/json")
                     .header("content-type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(post_request_json_body.asText()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(
+                            MAPPER.writeValueAsBytes(post_request_json_body)))
                     .build();
+
+            String result;
+            try(InputStream is = makeRequest(request)) {
+                result = parseTranslation(is);
+            }
+
+            if(null != result && !result.isBlank())
+                translations.add(result.strip());
         }
-        catch (URISyntaxException urise) {
+        catch(URISyntaxException urise) {
             LOGGER.error("Translate request URI is broken: ", urise);
         }
+        catch(IOException ioe) {
+            ERRORS.increment();
+            LOGGER.error("Failed to translate [{}]", word, ioe);
+        }
 
-        return new HashSet<String>();
+        return translations;
     }
 
     public HashSet<ServerLanguage> getSupportedLanguages() {
@@ -354,11 +485,11 @@ public class Lingvanex extends Translator {
             var new_language = ServerLanguage.getByCode(language_code, server_languages);
             source = new_language;
             super.setSourceLanguage(new_language.getCodeAlpha1());
-            LOGGER.trace("New source language set: " + new_language);
+            LOGGER.trace("New source language set: {}", new_language);
             return true;
         }
 
-        LOGGER.trace("Provided language will not be set as source: " + language_code);
+        LOGGER.trace("Provided language will not be set as source: {}", language_code);
         return false;
     }
 
@@ -368,11 +499,11 @@ public class Lingvanex extends Translator {
             var new_language = ServerLanguage.getByCode(language_code, server_languages);
             target = new_language;
             super.setTargetLanguage(target.getCodeAlpha1());
-            LOGGER.trace("New target language set: " + new_language);
+            LOGGER.trace("New target language set: {}", new_language);
             return true;
         }
 
-        LOGGER.trace("Provided language will not be set as target: " + language_code);
+        LOGGER.trace("Provided language will not be set as target: {}", language_code);
         return false;
     }
 
@@ -391,15 +522,15 @@ public class Lingvanex extends Translator {
 
     public boolean isLanguageAlreadyPresent(ServerLanguage sl) {
         if(sl.equals(source)) {
-            LOGGER.trace("Language is already set as source language: " + source);
+            LOGGER.trace("Language is already set as source language: {}", source);
             return true;
         }
         else if(sl.equals(target)) {
-            LOGGER.trace("Language is already set as target language: " + target);
+            LOGGER.trace("Language is already set as target language: {}", target);
             return true;
         }
 
-        LOGGER.trace("Language is not source nor target: " + sl);
+        LOGGER.trace("Language is not source nor target: {}", sl);
         return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package me.raven.grevoc.core.translator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Runs many translator requests at once, e.g. one per word or per language pair.
+ * Requests mostly wait on network, so in VIRTUAL mode every request gets its own virtual
+ * thread and concurrency is limited only by parallelism. Virtual threads exist since Java 21
+ * while the project targets 17, so they are looked up reflectively and AUTO mode falls back
+ * to a fixed pool of platform threads on older JDKs.
+ * Fan-out is structured: a call returns only after all of its requests have finished, and
+ * the first failure or interruption of the caller cancels the remaining requests. */
+public class TranslationFanOut implements AutoCloseable {
+    public enum Mode {
+        /** Fixed pool of platform threads */
+        PLATFORM,
+        /** Virtual thread per request, requires Java 21+ */
+        VIRTUAL,
+        /** VIRTUAL if available, PLATFORM otherwise */
+        AUTO
+    }
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    // state of a request, so cancelled requests are never run and never waited for
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int FINISHED = 2;
+
+    private final Mode mode;
+    private final int parallelism;
+    private final Semaphore permits;
+    // shared pool of PLATFORM mode, VIRTUAL mode creates executor per call
+    private final ExecutorService platform_pool;
+
+    private TranslationFanOut(Mode mode, int parallelism) {
+        this.mode = mode;
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism);
+
+        if(Mode.PLATFORM == mode) {
+            var thread_number = new AtomicInteger();
+            platform_pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+                var thread = new Thread(runnable, "grevoc-fan-out-" + thread_number.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        else {
+            platform_pool = null;
+        }
+    }
+
+    /** Creates TranslationFanOut
+     *
+     * @param mode execution mode, AUTO is resolved to VIRTUAL or PLATFORM
+     * @param parallelism maximum count of concurrent requests, thread count in PLATFORM mode
+     * @throws IllegalStateException if VIRTUAL mode is requested on JDK without virtual threads
+     */
+    public static TranslationFanOut create(Mode mode, int parallelism) {
+        Objects.requireNonNull(mode, "Mode must be non null");
+        if(parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        if(Mode.VIRTUAL == mode && !isVirtualThreadsSupported())
+            throw new IllegalStateException("Virtual threads are not supported by Java "
+                    + Runtime.version().feature());
+
+        if(Mode.AUTO == mode)
+            mode = isVirtualThreadsSupported() ? Mode.VIRTUAL : Mode.PLATFORM;
+
+        LOGGER.debug("Translation fan-out in {} mode, parallelism {}", mode, parallelism);
+        return new TranslationFanOut(mode, parallelism);
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return null != NEW_VIRTUAL_EXECUTOR;
+    }
+
+    /** Returns resolved mode, never AUTO */
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** Translates every word by a separate request, translator must be thread safe
+     *
+     * @return Map of word to its translations, word is absent if it couldn't be translated
+     * @throws ExecutionException if any request has failed, other requests are cancelled
+     */
+    public HashMap<String, HashSet<String>> translate(Translator translator, List<String> words)
+            throws InterruptedException, ExecutionException {
+        Objects.requireNonNull(translator, "Translator must be non null");
+
+        var requests = new ArrayList<Callable<HashSet<String>>>(words.size());
+        for(String word: words)
+            requests.add(() -> translator.translate(word));
+
+        List<HashSet<String>> results = invokeAll(requests);
+        var translations = new HashMap<String, HashSet<String>>(words.size() * 2);
+
+        for(int i = 0; i < words.size(); i++)
+            if(!results.get(i).isEmpty())
+                translations.put(words.get(i), results.get(i));
+
+        return translations;
+    }
+
+    /** Runs requests concurrently and returns their results in order of requests
+     *
+     * @throws ExecutionException on the first failed request, remaining ones are cancelled
+     * @throws InterruptedException if caller is interrupted, all requests are cancelled
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> requests)
+            throws InterruptedException, ExecutionException {
+        int count = requests.size();
+        if(0 == count)
+            return List.of();
+
+        ExecutorService executor = Mode.VIRTUAL == mode ? newVirtualExecutor() : platform_pool;
+        var completion = new ExecutorCompletionService<T>(executor);
+        var finished = new CountDownLatch(count);
+        var states = new ArrayList<AtomicInteger>(count);
+        var futures = new ArrayList<Future<T>>(count);
+
+        try {
+            for(Callable<T> request: requests) {
+                var state = new AtomicInteger(NEW);
+                states.add(state);
+                futures.add(completion.submit(() -> run(request, state, finished)));
+            }
+
+            for(int i = 0; i < count; i++)
+                completion.take().get();
+
+            var results = new ArrayList<T>(count);
+            for(Future<T> future: futures)
+                results.add(future.get());
+
+            return results;
+        }
+        finally {
+            for(int i = 0; i < futures.size(); i++) {
+                futures.get(i).cancel(true);
+                // request which hasn't started won't start anymore
+                if(states.get(i).compareAndSet(NEW, FINISHED))
+                    finished.countDown();
+            }
+            // requests never submitted because of failed submission
+            for(int i = futures.size(); i < count; i++)
+                finished.countDown();
+
+            awaitUninterruptibly(finished);
+            if(executor != platform_pool)
+                executor.shutdown();
+        }
+    }
+
+    /** Stops platform threads, calls in progress get their requests cancelled */
+    @Override
+    public void close() {
+        if(null != platform_pool)
+            platform_pool.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> request, AtomicInteger state, CountDownLatch finished)
+            throws Exception {
+        if(!state.compareAndSet(NEW, RUNNING))
+            return null;
+
+        try {
+            permits.acquire();
+            try {
+                return request.call();
+            }
+            finally {
+                permits.release();
+            }
+        }
+        finally {
+            state.set(FINISHED);
+            finished.countDown();
+        }
+    }
+
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+        }
+        catch(IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // on Java 19 and 20 the method exists but fails unless preview is enabled
+            ((ExecutorService) factory.invoke(null)).shutdown();
+            return factory;
+        }
+        catch(NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+
+        while(true) {
+            try {
+                latch.await();
+                break;
+            }
+            catch(InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,6 +26,23 @@ public abstract class Translator {
      */
     abstract public HashSet<String> translate(String word);
 
+    /** Translates batch of words, engines which can translate many words per request
+     * should override it
+     * @param words to translate from source language
+     * @return Map of word to its translations, word is absent if it couldn't be translated
+     */
+    public HashMap<String, HashSet<String>> translate(List<String> words) {
+        var translations = new HashMap<String, HashSet<String>>();
+
+        for(String word: words) {
+            HashSet<String> word_translations = translate(word);
+            if(!word_translations.isEmpty())
+                translations.put(word, word_translations);
+        }
+
+        return translations;
+    }
+
     /** Puts language pairs to Map language_pairs */
     abstract public HashSet<String> getLanguages();
 
@@ -56,7 +74,7 @@ public abstract class Translator {
      */
     protected boolean setSourceLanguage(String language) {
         if(language.equals(target_language)) {
-            LOGGER.warn("Provided language is the same as target language: " + language);
+            LOGGER.warn("Provided language is the same as target language: {}", language);
             return false;
         }
 
@@ -71,7 +89,7 @@ public abstract class Translator {
      */
     protected boolean setTargetLanguage(String language) {
         if (language.equals(source_language)) {
-            LOGGER.warn("Provided language is the same as source language: " + language);
+            LOGGER.warn("Provided language is the same as source language: {}", language);
             return false;
         }
 
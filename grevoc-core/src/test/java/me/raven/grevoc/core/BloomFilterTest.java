@@ -0,0 +1,136 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+    @TempDir
+    Path temporary_directory;
+
+    @Test
+    public void keepsFalsePositiveRate() {
+        var words = new ArrayList<String>();
+        for(int i = 0; i < 100_000; i++)
+            words.add("known" + i);
+        BloomFilter filter = BloomFilter.of(words, 0.01);
+
+        for(String word: words)
+            assertTrue(filter.mightContain(word), "False negative: " + word);
+
+        int false_positives = 0;
+        for(int i = 0; i < 100_000; i++)
+            if(filter.mightContain("unknown" + i))
+                false_positives++;
+
+        assertTrue(false_positives < 1_500, "False positives: " + false_positives);
+        assertEquals(7, filter.getHashCount());
+        assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.002);
+        // about 9.6 bits per word
+        assertTrue(filter.getMemoryBytes() < 125_000);
+    }
+
+    @Test
+    public void exportWritesFilterNextToVocabulary() throws Exception {
+        Path vocabulary_file = temporary_directory.resolve("vocabulary.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("apple", Set.of("yabloko"), 3);
+        vocabulary.put("pear", Set.of("grusha"), 1);
+        assertTrue(vocabulary.setFilterFalsePositiveRate(0.001));
+        assertFalse(vocabulary.setFilterFalsePositiveRate(1));
+
+        assertTrue(vocabulary.export(vocabulary_file));
+        assertTrue(Files.exists(BloomFilter.getFilterPath(vocabulary_file)));
+
+        BloomFilter filter = BloomFilter.read(vocabulary_file);
+        assertNotNull(filter);
+        assertTrue(filter.mightContain("apple"));
+        assertTrue(filter.mightContain("pear"));
+        assertFalse(filter.mightContain("plum"));
+        assertEquals(2, filter.getEntryCount());
+        assertEquals(10, filter.getHashCount());
+    }
+
+    @Test
+    public void filterOfChangedVocabularyIsNotUsed() throws Exception {
+        Path vocabulary_file = temporary_directory.resolve("vocabulary.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("apple", Set.of("yabloko"), 3);
+        assertTrue(vocabulary.export(vocabulary_file));
+
+        assertNotNull(BloomFilter.read(vocabulary_file));
+
+        // same size and modification time, only content tells the change
+        FileTime modified = Files.getLastModifiedTime(vocabulary_file);
+        Files.writeString(vocabulary_file, "grape\tyabloko\t3\n");
+        Files.setLastModifiedTime(vocabulary_file, modified);
+
+        assertNull(BloomFilter.read(vocabulary_file));
+        assertNull(BloomFilter.read(temporary_directory.resolve("missing.txt")));
+    }
+
+    @Test
+    public void filterOfCopiedVocabularyIsCheckedByContent() throws Exception {
+        for(boolean compress: new boolean[] {false, true}) {
+            Path vocabulary_file = temporary_directory.resolve("vocabulary-" + compress + ".txt");
+            var vocabulary = new Vocabulary("en", "ru");
+            vocabulary.put("apple", Set.of("yabloko"), 3);
+            assertTrue(vocabulary.export(vocabulary_file, compress));
+
+            // a copy has other file key, so checksum written by export is compared with content
+            Path copy = temporary_directory.resolve("copy-" + compress + ".txt");
+            Files.copy(vocabulary_file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.copy(BloomFilter.getFilterPath(vocabulary_file), BloomFilter.getFilterPath(copy));
+            assertNotEquals(BloomFilter.metadataStamp(vocabulary_file),
+                    BloomFilter.metadataStamp(copy));
+            assertNotNull(BloomFilter.read(copy));
+        }
+    }
+
+    @Test
+    public void metadataStampFollowsInPlaceChanges() throws Exception {
+        Path file = Files.writeString(temporary_directory.resolve("file.txt"), "apple");
+        long stamp = BloomFilter.metadataStamp(file);
+        assertEquals(stamp, BloomFilter.metadataStamp(file));
+
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "grape");
+        Files.setLastModifiedTime(file, modified);
+        assertNotEquals(stamp, BloomFilter.metadataStamp(file));
+    }
+
+    @Test
+    public void rejectsCorruptFilter() throws Exception {
+        Path vocabulary_file = temporary_directory.resolve("vocabulary.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("apple", Set.of("yabloko"), 3);
+        assertTrue(vocabulary.export(vocabulary_file));
+
+        Path filter_file = BloomFilter.getFilterPath(vocabulary_file);
+        byte[] content = Files.readAllBytes(filter_file);
+        Files.write(filter_file, java.util.Arrays.copyOf(content, content.length - 8));
+
+        assertThrows(IOException.class, () -> BloomFilter.read(vocabulary_file));
+
+        // filter of older format is stale rather than corrupt
+        content[7] = 1;
+        Files.write(filter_file, content);
+        assertNull(BloomFilter.read(vocabulary_file));
+    }
+
+    @Test
+    public void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(-1, 0.1));
+    }
+}
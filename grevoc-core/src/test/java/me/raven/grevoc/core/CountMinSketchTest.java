@@ -0,0 +1,62 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+    @Test
+    public void estimatesStayWithinErrorBound() {
+        var sketch = CountMinSketch.withErrorBounds(0.001, 0.001, 7);
+        var counts = new HashMap<String, Long>();
+        var random = new Random(1);
+
+        for(int i = 0; i < 200_000; i++) {
+            String word = "w" + (int) (50_000 * Math.pow(random.nextDouble(), 2));
+            sketch.add(word, 1);
+            counts.merge(word, 1L, Long::sum);
+        }
+
+        long bound = sketch.getErrorBound();
+        int exceeding = 0;
+        for(var entry: counts.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "Sketch must never underestimate");
+            if(estimate - entry.getValue() > bound)
+                exceeding++;
+        }
+
+        assertTrue(exceeding <= counts.size() * 0.001 + 1, "Exceeding bound: " + exceeding);
+        assertEquals(200_000, sketch.getTotal());
+    }
+
+    @Test
+    public void mergedSketchEqualsSketchOfWholeStream() {
+        var whole = new CountMinSketch(1000, 5, 3);
+        var first = new CountMinSketch(1000, 5, 3);
+        var second = new CountMinSketch(1000, 5, 3);
+
+        for(int i = 0; i < 10_000; i++) {
+            String word = "w" + i % 1234;
+            whole.add(word, 2);
+            (i % 2 == 0 ? first : second).add(word, 2);
+        }
+        first.merge(second);
+
+        for(int i = 0; i < 1234; i++)
+            assertEquals(whole.estimate("w" + i), first.estimate("w" + i));
+        assertEquals(whole.getTotal(), first.getTotal());
+    }
+
+    @Test
+    public void rejectsIncompatibleSketches() {
+        var sketch = new CountMinSketch(100, 3, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new CountMinSketch(100, 3, 2)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new CountMinSketch(101, 3, 1)));
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.withErrorBounds(0, 0.1, 1));
+    }
+}
@@ -0,0 +1,125 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalWordCounterTest {
+    @TempDir
+    Path temp_dir;
+
+    @Test
+    public void spilledCountsMatchInMemoryCounts() throws Exception {
+        byte[] text = randomText(20_000, 3_000);
+        var wordlist = new Wordlist();
+        wordlist.appendText(new ByteArrayInputStream(text));
+
+        var counts = new HashMap<String, Integer>();
+        var words = new ArrayList<String>();
+        try(var counter = new ExternalWordCounter(temp_dir, 16 << 10)) {
+            counter.appendText(new ByteArrayInputStream(text));
+            counter.forEach((word, occurrences) -> {
+                words.add(word);
+                counts.put(word, occurrences);
+            });
+
+            assertTrue(counter.getSpilledRuns() > ExternalWordCounter.MAX_MERGE_WIDTH,
+                    "Test must spill more runs than merged at once");
+        }
+
+        assertEquals(wordlist.getWordsOccurrencesView(), counts);
+        var sorted = new ArrayList<>(words);
+        sorted.sort(null);
+        assertEquals(sorted, words);
+
+        try(Stream<Path> files = Files.list(temp_dir)) {
+            assertEquals(0, files.count(), "Run files must be deleted on close");
+        }
+    }
+
+    @Test
+    public void mergesRewriteRecordsOncePerLevel() throws Exception {
+        int width = ExternalWordCounter.MAX_MERGE_WIDTH;
+        // 20 runs of level 1 and width - 1 runs of level 0 are left
+        int word_count = width * 20 + width - 1;
+        var counts = new HashMap<String, Integer>();
+
+        // every word is spilled to a run of its own
+        try(var counter = new ExternalWordCounter(temp_dir, 1)) {
+            for(int i = 0; i < word_count; i++)
+                counter.add("word" + i, 1 + i % 7);
+            assertEquals(width * 20, counter.getMergedRecords());
+
+            // the final merge first merges 20 smallest runs to fit the width
+            counter.forEach(counts::put);
+            assertEquals(width * 20 + 20, counter.getMergedRecords());
+        }
+
+        assertEquals(word_count, counts.size());
+        assertEquals(4, counts.get("word3"));
+        try(Stream<Path> files = Files.list(temp_dir)) {
+            assertEquals(0, files.count(), "Run files must be deleted on close");
+        }
+    }
+
+    @Test
+    public void exportedRecordsAreReadBack() throws Exception {
+        var output = new ByteArrayOutputStream();
+
+        try(var counter = new ExternalWordCounter(temp_dir, 1)) {
+            counter.append(new ByteArrayInputStream("dog\t2\ncat\ndog\n".getBytes(StandardCharsets.UTF_8)));
+            counter.export(output);
+        }
+
+        var records = new ArrayList<String>();
+        Wordlist.readEntries(new ByteArrayInputStream(output.toByteArray()),
+                (word, occurrences) -> records.add(word + "=" + occurrences));
+        assertEquals(List.of("cat=1", "dog=3"), records);
+    }
+
+    @Test
+    public void keepsCountsInMemoryWithinBudget() throws Exception {
+        try(var counter = new ExternalWordCounter(temp_dir, 1 << 20)) {
+            counter.appendText(new ByteArrayInputStream("b a b".getBytes(StandardCharsets.UTF_8)));
+            Map<String, Integer> counts = new HashMap<>();
+            counter.forEach(counts::put);
+
+            assertEquals(Map.of("a", 1, "b", 2), counts);
+            assertEquals(0, counter.getSpilledRuns());
+        }
+    }
+
+    @Test
+    public void rejectsWordsBreakingRecords() {
+        try(var counter = new ExternalWordCounter(temp_dir, 1 << 20)) {
+            assertThrows(IllegalArgumentException.class, () -> counter.add("a\tb", 1));
+            assertThrows(IllegalArgumentException.class, () -> counter.add("a", 0));
+        }
+    }
+
+    private static byte[] randomText(int word_count, int vocabulary_size) {
+        var random = new Random(42);
+        var text = new StringBuilder();
+
+        for(int i = 0; i < word_count; i++) {
+            // skewed distribution, like natural text
+            int id = (int) (vocabulary_size * Math.pow(random.nextDouble(), 3));
+            text.append(i % 7 == 0 ? "Word" : "word").append(id).append(i % 12 == 0 ? ".\n" : " ");
+        }
+
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,100 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+    private static final int TOP = 20;
+
+    @Test
+    public void findsMostFrequentWords() {
+        var counts = new HashMap<String, Long>();
+        var heavy_hitters = new HeavyHitters(TOP * 5, 1e-4, 1e-3, 11);
+
+        for(String word: zipfStream(300_000, 100_000, 5)) {
+            heavy_hitters.add(word, 1);
+            counts.merge(word, 1L, Long::sum);
+        }
+
+        assertEquals(topWords(counts), topWords(heavy_hitters));
+        for(HeavyHitters.Entry entry: heavy_hitters.getTop().subList(0, TOP)) {
+            long error = entry.getEstimate() - counts.get(entry.getWord());
+            assertTrue(error >= 0 && error <= heavy_hitters.getErrorBound(), entry + " error " + error);
+        }
+    }
+
+    @Test
+    public void mergesShards() {
+        var whole = new HeavyHitters(TOP * 5, 1e-4, 1e-3, 11);
+        var shards = new ArrayList<HeavyHitters>();
+        for(int i = 0; i < 4; i++)
+            shards.add(new HeavyHitters(TOP * 5, 1e-4, 1e-3, 11));
+
+        List<String> stream = zipfStream(200_000, 50_000, 6);
+        for(int i = 0; i < stream.size(); i++) {
+            whole.add(stream.get(i), 1);
+            shards.get(i % shards.size()).add(stream.get(i), 1);
+        }
+
+        HeavyHitters merged = shards.get(0);
+        for(HeavyHitters shard: shards.subList(1, shards.size()))
+            merged.merge(shard);
+
+        assertEquals(whole.getTotal(), merged.getTotal());
+        assertEquals(topWords(whole), topWords(merged));
+        for(String word: topWords(whole))
+            assertEquals(whole.estimate(word), merged.estimate(word));
+    }
+
+    @Test
+    public void keepsFixedNumberOfCandidates() throws Exception {
+        var heavy_hitters = new HeavyHitters(2);
+        heavy_hitters.appendText(new ByteArrayInputStream("a b b c c c d".getBytes(StandardCharsets.UTF_8)));
+
+        var output = new ByteArrayOutputStream();
+        heavy_hitters.export(output);
+        assertEquals("c\t3\nb\t2\n", output.toString(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> heavy_hitters.merge(new HeavyHitters(3)));
+    }
+
+    private static List<String> topWords(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(TOP)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> topWords(HeavyHitters heavy_hitters) {
+        return heavy_hitters.getTop().stream()
+                .limit(TOP)
+                .map(HeavyHitters.Entry::getWord)
+                .collect(Collectors.toList());
+    }
+
+    /** Words of Zipf-like distribution, frequent words are well apart so top order is exact */
+    private static List<String> zipfStream(int length, int vocabulary_size, long seed) {
+        var random = new Random(seed);
+        var stream = new ArrayList<String>(length);
+
+        for(int i = 0; i < length; i++) {
+            int rank = (int) Math.min(vocabulary_size - 1, Math.floor(1 / (random.nextDouble() * 0.999 + 0.001)) - 1);
+            stream.add("word" + rank);
+        }
+
+        return stream;
+    }
+}
@@ -0,0 +1,91 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnownWordFilterTest {
+    @TempDir
+    Path temporary_directory;
+
+    private Path exportVocabulary(String name, String... words) {
+        Path file = temporary_directory.resolve(name);
+        var vocabulary = new Vocabulary("en", "ru");
+        for(String word: words)
+            vocabulary.put(word, Set.of(word.toUpperCase()), 1);
+
+        assertTrue(vocabulary.export(file));
+        return file;
+    }
+
+    @Test
+    public void findsVocabularyOfWord() throws Exception {
+        Path fruits = exportVocabulary("fruits.txt", "apple", "pear");
+        Path colors = exportVocabulary("colors.txt", "red", "green");
+        var filter = new KnownWordFilter(List.of(fruits, colors));
+
+        assertEquals(fruits, filter.find("pear"));
+        assertEquals(colors, filter.find("green"));
+        assertTrue(filter.contains("red"));
+        assertEquals(3, filter.getFileReads());
+    }
+
+    @Test
+    public void missingWordsAreRejectedWithoutReadingFiles() throws Exception {
+        String[] words = new String[1000];
+        for(int i = 0; i < words.length; i++)
+            words[i] = "word" + i;
+        Path file = exportVocabulary("words.txt", words);
+        var filter = new KnownWordFilter(List.of(file));
+
+        int found = 0;
+        for(int i = 0; i < 1000; i++)
+            if(filter.contains("missing" + i))
+                found++;
+
+        assertEquals(0, found);
+        assertEquals(filter.getFileReads(), filter.getFalsePositives());
+        assertTrue(filter.getRejections() > 950, "Rejections: " + filter.getRejections());
+        assertFalse(filter.mightContain("missing"));
+    }
+
+    @Test
+    public void findsNonAsciiWords() throws Exception {
+        Path file = temporary_directory.resolve("words_de-ru.txt");
+        var vocabulary = new Vocabulary("de", "ru");
+        vocabulary.put("über", Set.of("над"), 1);
+        vocabulary.put("Mutter-Kind", Set.of("мать-и-дитя"), 1);
+        assertTrue(vocabulary.export(file, true));
+        Files.delete(BloomFilter.getFilterPath(file));
+
+        var filter = new KnownWordFilter(List.of(file));
+
+        assertEquals(file, filter.find("über"));
+        assertEquals(file, filter.find("Mutter-Kind"));
+        assertNull(filter.find("Mutter"));
+
+        // checksum taken while the compressed file was read matches its content
+        Path copy = Files.copy(file, temporary_directory.resolve("copy_de-ru.txt"));
+        Files.copy(BloomFilter.getFilterPath(file), BloomFilter.getFilterPath(copy));
+        assertNotNull(BloomFilter.read(copy));
+    }
+
+    @Test
+    public void buildsFilterOfFileWithoutOne() throws Exception {
+        Path file = exportVocabulary("words.txt", "apple", "pear");
+        Files.delete(BloomFilter.getFilterPath(file));
+
+        var filter = new KnownWordFilter(List.of(file), 0.001);
+
+        assertTrue(Files.exists(BloomFilter.getFilterPath(file)));
+        assertEquals(file, filter.find("apple"));
+        assertNull(filter.find("plum"));
+        assertEquals(10, BloomFilter.read(file).getHashCount());
+    }
+}
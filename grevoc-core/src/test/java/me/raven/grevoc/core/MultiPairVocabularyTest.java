@@ -0,0 +1,106 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.LanguagePair;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiPairVocabularyTest {
+    @Test
+    public void pairsOfSourceShareWordsAndOccurrences() {
+        var vocabulary = new MultiPairVocabulary();
+        LanguagePair en_ru = vocabulary.addLanguagePair("en", "ru");
+        LanguagePair en_de = vocabulary.addLanguagePair("en", "de");
+
+        assertTrue(vocabulary.addEntry(en_ru, "house", Set.of("dom"), 3));
+        assertTrue(vocabulary.addEntry(en_de, "house", Set.of("haus"), 3));
+        assertTrue(vocabulary.addEntry(en_de, "tree", Set.of("baum"), 1));
+        assertFalse(vocabulary.addEntry(en_ru, "house", Set.of("zdanie"), 3));
+
+        assertEquals(List.of("house", "tree"), vocabulary.getWordsView("en"));
+        assertEquals(3, vocabulary.getOccurrences("en", "house"));
+        assertEquals(Set.of("dom"), vocabulary.getTranslations(en_ru, "house"));
+        assertEquals(Set.of("haus"), vocabulary.getTranslations(en_de, "house"));
+        assertEquals(Set.of(), vocabulary.getTranslations(en_ru, "tree"));
+        assertEquals(1, vocabulary.getEntryCount(en_ru));
+        assertEquals(2, vocabulary.getEntryCount(en_de));
+
+        // one append serves both pairs
+        assertEquals(2, vocabulary.appendOccurrences("en", Map.of("house", 2, "tree", 1, "sky", 5)));
+        assertEquals(5, vocabulary.getOccurrences("en", "house"));
+        assertEquals(5, vocabulary.toVocabulary(en_ru).getWordsOccurrencesView().get("house"));
+        assertEquals(5, vocabulary.toVocabulary(en_de).getWordsOccurrencesView().get("house"));
+        assertEquals(0, vocabulary.getOccurrences("en", "sky"));
+    }
+
+    @Test
+    public void attachesSinglePairVocabularies() {
+        var en_ru = new Vocabulary("en", "ru");
+        en_ru.put("cat", Set.of("koshka"), 4);
+        en_ru.put("dog", Set.of("sobaka"), 2);
+        var de_ru = new Vocabulary("de", "ru");
+        de_ru.put("katze", Set.of("koshka"), 7);
+        var en_de = new Vocabulary("en", "de");
+        en_de.put("cat", Set.of("katze"), 4);
+
+        var vocabulary = new MultiPairVocabulary();
+        assertEquals(2, vocabulary.attach(en_ru));
+        assertEquals(1, vocabulary.attach(de_ru));
+        assertEquals(1, vocabulary.attach(en_de));
+
+        // occurrences of the same text aren't counted twice
+        assertEquals(4, vocabulary.getOccurrences("en", "cat"));
+        assertEquals(7, vocabulary.getOccurrences("de", "katze"));
+        assertEquals(3, vocabulary.getLanguagePairs().size());
+        assertTrue(vocabulary.hasLanguagePair("de", "ru"));
+        assertFalse(vocabulary.hasLanguagePair("ru", "en"));
+
+        Vocabulary exported = vocabulary.toVocabulary(LanguagePair.of("en", "ru"));
+        assertEquals(en_ru.getWordsView(), exported.getWordsView());
+        assertEquals(en_ru.getWordsTranslationsView(), exported.getWordsTranslationsView());
+
+        // attaching again only merges translations
+        var more = new Vocabulary("en", "ru");
+        more.put("cat", Set.of("kot"), 1);
+        assertEquals(0, vocabulary.attach(more));
+        assertEquals(Set.of("koshka", "kot"),
+                vocabulary.getTranslations(LanguagePair.of("en", "ru"), "cat"));
+        assertEquals(4, vocabulary.getOccurrences("en", "cat"));
+    }
+
+    @Test
+    public void languagePairsHaveDenseIds() {
+        LanguagePair pair = LanguagePair.of("en", "ru");
+
+        assertSame(pair, LanguagePair.of("en", "ru"));
+        assertEquals(pair, new LanguagePair("en", "ru"));
+        assertEquals(pair.getId(), new LanguagePair("en", "ru").getId());
+        assertSame(pair, LanguagePair.byId(pair.getId()));
+        assertTrue(pair.getId() < LanguagePair.getPairCount());
+        assertNotEquals(pair, LanguagePair.of("ru", "en"));
+        assertTrue(Vocabulary.hasLanguagePair(pair));
+        assertFalse(Vocabulary.hasLanguagePair("ru", "en"));
+    }
+
+    @Test
+    public void rejectsUnknownPairs() {
+        var vocabulary = new MultiPairVocabulary();
+        LanguagePair en_ru = vocabulary.addLanguagePair("en", "ru");
+
+        int pair_count = LanguagePair.getPairCount();
+        assertThrows(IllegalArgumentException.class, () -> vocabulary.addLanguagePair("fr", "ru"));
+        assertThrows(IllegalArgumentException.class, () -> vocabulary.addLanguagePair("ru", "ru"));
+        assertNull(LanguagePair.find("fr", "ru"));
+        assertEquals(pair_count, LanguagePair.getPairCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> vocabulary.addEntry(LanguagePair.of("de", "ru"), "hund", Set.of("pes"), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> vocabulary.addEntry(en_ru, "empty", Set.of(), 1));
+        assertFalse(vocabulary.appendOccurrences("de", "hund", 1));
+        assertSame(en_ru, vocabulary.addLanguagePair("en", "ru"));
+    }
+}
@@ -0,0 +1,132 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapVocabularyTest {
+    @TempDir
+    Path temporary_directory;
+
+    @Test
+    public void behavesLikeVocabularyUnderRandomUpdates() {
+        var random = new Random(3);
+        var expected = new Vocabulary("en", "ru");
+
+        try(var vocabulary = new OffHeapVocabulary("en", "ru", 4096)) {
+            for(int i = 0; i < 30_000; i++) {
+                String word = "w" + random.nextInt(2000);
+                String translation = "t" + random.nextInt(20);
+                int occurrences = 1 + random.nextInt(5);
+
+                switch(random.nextInt(4)) {
+                    case 0 -> assertEquals(expected.addEntry(word, Set.of(translation), occurrences),
+                            vocabulary.addEntry(word, Set.of(translation), occurrences));
+                    case 1 -> assertEquals(expected.appendEntry(word, Set.of(translation), occurrences),
+                            vocabulary.appendEntry(word, Set.of(translation), occurrences));
+                    case 2 -> assertEquals(expected.addTranslation(word, translation),
+                            vocabulary.addTranslation(word, translation));
+                    default -> {
+                        if(random.nextInt(4) == 0)
+                            assertEquals(expected.removeEntry(word), vocabulary.removeEntry(word));
+                    }
+                }
+            }
+
+            assertEquals(expected.getWordsView().size(), vocabulary.size());
+            var entries = new LinkedHashMap<String, Set<String>>();
+            var occurrences = new HashMap<String, Integer>();
+            vocabulary.forEachEntry((word, translations, count) -> {
+                entries.put(word, translations);
+                occurrences.put(word, count);
+            });
+
+            assertEquals(expected.getWordsView(), new ArrayList<>(entries.keySet()));
+            assertEquals(expected.getWordsTranslationsView(), entries);
+            assertEquals(expected.getWordsOccurrencesView(), occurrences);
+
+            vocabulary.compact();
+            for(String word: expected.getWordsView()) {
+                assertEquals(expected.getWordsTranslationsView().get(word),
+                        vocabulary.getTranslations(word));
+                assertEquals(expected.getWordsOccurrencesView().get(word),
+                        vocabulary.getOccurrences(word));
+            }
+        }
+    }
+
+    @Test
+    public void exportsAndImportsVocabularyFormat() {
+        var source = new Vocabulary("en", "ru");
+        source.put("word1", Set.of("tr1", "tr2"), 4);
+        source.put("word2", Set.of("tr3"), 1);
+        Path export_file = temporary_directory.resolve("vocabulary.txt.gz");
+
+        try(var vocabulary = new OffHeapVocabulary("en", "ru")) {
+            vocabulary.append(source);
+            vocabulary.decreaseOccurrences("word1", 1);
+            assertTrue(vocabulary.export(export_file, true));
+        }
+
+        try(var imported = new OffHeapVocabulary("en", "ru")) {
+            imported.importFromFile(export_file);
+            Vocabulary on_heap = imported.toVocabulary();
+
+            assertEquals(List.of("word1", "word2"), on_heap.getWordsView());
+            assertEquals(Map.of("word1", 3, "word2", 1), on_heap.getWordsOccurrencesView());
+            assertEquals(Set.of("tr1", "tr2"), imported.getTranslations("word1"));
+        }
+        catch(Exception e) {
+            fail(e);
+        }
+    }
+
+    @Test
+    public void readsLikeVocabularyAndSnapshot() {
+        var on_heap = new Vocabulary("en", "ru");
+        on_heap.put("word1", Set.of("tr1", "tr2"), 4);
+        on_heap.put("word2", Set.of("tr3"), 1);
+        on_heap.put("word3", Set.of("tr4"), 2);
+        on_heap.removeEntry("word2");
+        VocabularySnapshot snapshot = new VersionedVocabulary(on_heap).snapshot();
+
+        try(var off_heap = new OffHeapVocabulary("en", "ru")) {
+            off_heap.append(on_heap);
+
+            for(ReadableVocabulary vocabulary: List.of(on_heap, snapshot, off_heap)) {
+                assertEquals(2, vocabulary.size());
+                assertEquals(List.of("word1", "word3"), vocabulary.getWords());
+                assertTrue(vocabulary.contains("word3"));
+                assertFalse(vocabulary.contains("word2"));
+                assertEquals(Set.of("tr1", "tr2"), vocabulary.getTranslations("word1"));
+                assertEquals(Set.of(), vocabulary.getTranslations("word2"));
+                assertEquals(2, vocabulary.getOccurrences("word3"));
+                assertEquals(0, vocabulary.getOccurrences("word2"));
+                assertThrows(UnsupportedOperationException.class,
+                        () -> vocabulary.getTranslations("word1").add("tr5"));
+            }
+        }
+    }
+
+    @Test
+    public void closedVocabularyCantBeUsed() {
+        var vocabulary = new OffHeapVocabulary("en", "ru");
+        vocabulary.put("word", Set.of("tr"), 1);
+        vocabulary.close();
+        vocabulary.close();
+
+        assertTrue(vocabulary.isClosed());
+        assertThrows(IllegalStateException.class, () -> vocabulary.contains("word"));
+        assertThrows(IllegalStateException.class, () -> vocabulary.put("w", Set.of("t"), 1));
+    }
+}
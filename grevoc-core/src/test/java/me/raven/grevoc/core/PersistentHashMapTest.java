@@ -0,0 +1,60 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHashMapTest {
+    /** Key with few distinct hashes, forces collision nodes */
+    private record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return id % 7;
+        }
+    }
+
+    @Test
+    public void behavesLikeHashMapUnderRandomUpdates() {
+        var random = new Random(5);
+        var expected = new HashMap<Object, Integer>();
+        PersistentHashMap<Object, Integer> map = PersistentHashMap.empty();
+
+        for(int i = 0; i < 50_000; i++) {
+            Object key = random.nextBoolean()
+                    ? "k" + random.nextInt(3000)
+                    : new CollidingKey(random.nextInt(100));
+
+            if(random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            }
+            else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        var actual = new HashMap<Object, Integer>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void oldVersionsStayUnchanged() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> first = empty.put("a", 1);
+        PersistentHashMap<String, Integer> second = first.put("a", 2).put("b", 3);
+        PersistentHashMap<String, Integer> third = second.remove("a");
+
+        assertEquals(0, empty.size());
+        assertEquals(1, first.get("a"));
+        assertEquals(2, second.get("a"));
+        assertNull(third.get("a"));
+        assertEquals(3, third.get("b"));
+        assertSame(third, third.remove("missing"));
+    }
+}
@@ -0,0 +1,336 @@
+package me.raven.grevoc.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import me.raven.grevoc.core.metrics.LatencyHistogram;
+import me.raven.grevoc.core.metrics.MetricsRegistry;
+import me.raven.grevoc.core.translator.Debug;
+import me.raven.grevoc.core.translator.Lingvanex;
+import me.raven.grevoc.core.translator.StubTranslationServer;
+import me.raven.grevoc.core.translator.Translator;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** End-to-end load test of corpus to vocabulary pipeline: read corpus into Wordlist, find
+ * words missing in Vocabulary, translate them, export Vocabulary.
+ * Corpus is SyntheticCorpus, so runs with the same options process the same text. Every stage
+ * reports throughput, peak heap and GC, translation reports latency of batches. Report is
+ * JSON, so runs of different commits can be compared by tools. Not a test, run main() with
+ * test classpath:
+ * PipelineBenchmark [--words n] [--vocabulary-size n] [--languages en,de,fr,ru] [--known 0.5]
+ *     [--engine debug|stub] [--latency-ms n] [--batch n] [--seed n] [--work-dir dir]
+ *     [--output report.json] */
+public class PipelineBenchmark {
+    public static final int REPORT_VERSION = 1;
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    /** Options of a run, defaults give about 10 MB of text */
+    public static class Options {
+        long words = 1_000_000;
+        int vocabulary_size = 50_000;
+        List<String> languages = List.of("en", "de", "fr", "ru");
+        double known = 0.5;
+        String engine = "debug";
+        long latency_ms = 0;
+        int batch = VocabularyEnricher.DEFAULT_BATCH_SIZE;
+        long seed = 42;
+        Path work_dir = Path.of("target", "pipeline-benchmark");
+
+        static Options parse(String[] args) {
+            var options = new Options();
+
+            for(int i = 0; i < args.length; i += 2) {
+                if(i + 1 == args.length)
+                    throw new IllegalArgumentException("Option " + args[i] + " requires value");
+                String value = args[i + 1];
+
+                switch(args[i]) {
+                    case "--words": options.words = Long.parseLong(value); break;
+                    case "--vocabulary-size": options.vocabulary_size = Integer.parseInt(value); break;
+                    case "--languages": options.languages = List.of(value.split(",")); break;
+                    case "--known": options.known = Double.parseDouble(value); break;
+                    case "--engine": options.engine = value; break;
+                    case "--latency-ms": options.latency_ms = Long.parseLong(value); break;
+                    case "--batch": options.batch = Integer.parseInt(value); break;
+                    case "--seed": options.seed = Long.parseLong(value); break;
+                    case "--work-dir": options.work_dir = Path.of(value); break;
+                    case "--output": break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+
+            return options;
+        }
+
+        Map<String, Object> toMap() {
+            var map = new LinkedHashMap<String, Object>();
+            map.put("words", words);
+            map.put("vocabulary_size", vocabulary_size);
+            map.put("languages", languages);
+            map.put("known", known);
+            map.put("engine", engine);
+            map.put("latency_ms", latency_ms);
+            map.put("batch", batch);
+            map.put("seed", seed);
+            return map;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // test logging configuration traces every request
+        Configurator.setLevel("me.raven.grevoc", Level.WARN);
+
+        Options options = Options.parse(args);
+        Path output = options.work_dir.resolve("report.json");
+        for(int i = 0; i + 1 < args.length; i += 2)
+            if("--output".equals(args[i]))
+                output = Path.of(args[i + 1]);
+
+        Map<String, Object> report = run(options);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        MAPPER.writeValue(output.toFile(), report);
+        System.out.println(MAPPER.writeValueAsString(report));
+        System.out.println("Report written to " + output);
+    }
+
+    /** Runs pipeline and returns report */
+    public static Map<String, Object> run(Options options) throws Exception {
+        Files.createDirectories(options.work_dir);
+        Path corpus_file = options.work_dir.resolve("corpus.txt");
+        Path vocabulary_file = options.work_dir.resolve("vocabulary.txt");
+        var stages = new ArrayList<Map<String, Object>>();
+        var corpus = new SyntheticCorpus(options.languages, options.vocabulary_size, 1.0, options.seed);
+
+        var stage = new Stage("generate");
+        long corpus_bytes = corpus.write(corpus_file, options.words);
+        stages.add(stage.finish(options.words, corpus_bytes));
+
+        StubTranslationServer server = "stub".equals(options.engine) ? new StubTranslationServer() : null;
+        try {
+            Translator engine = createEngine(options, server);
+            var timed = new TimedTranslator(engine);
+            Vocabulary vocabulary = knownVocabulary(corpus, options);
+            int known_entries = vocabulary.getWordsView().size();
+
+            stage = new Stage("read");
+            var wordlist = new Wordlist();
+            try(InputStream is = Files.newInputStream(corpus_file)) {
+                wordlist.appendText(is);
+            }
+            stages.add(stage.finish(options.words, corpus_bytes));
+
+            var enricher = new VocabularyEnricher(vocabulary, timed);
+            enricher.setBatchSize(options.batch);
+
+            stage = new Stage("diff");
+            List<String> missing = enricher.findMissingWords(wordlist);
+            stages.add(stage.finish(wordlist.getWordsView().size(), 0));
+
+            stage = new Stage("translate");
+            VocabularyEnricher.Report enrichment = enricher.enrich(wordlist);
+            stages.add(stage.finish(missing.size(), 0));
+
+            stage = new Stage("export");
+            if(!vocabulary.export(vocabulary_file))
+                throw new IOException("Failed to export vocabulary to " + vocabulary_file);
+            stages.add(stage.finish(vocabulary.getWordsView().size(), Files.size(vocabulary_file)));
+
+            var report = new LinkedHashMap<String, Object>();
+            report.put("report_version", REPORT_VERSION);
+            report.put("timestamp", Instant.now().toString());
+            report.put("commit", gitCommit());
+            report.put("java", Runtime.version().toString());
+            report.put("processors", Runtime.getRuntime().availableProcessors());
+            report.put("max_heap_bytes", Runtime.getRuntime().maxMemory());
+            report.put("options", options.toMap());
+
+            var results = new LinkedHashMap<String, Object>();
+            results.put("corpus_bytes", corpus_bytes);
+            results.put("distinct_words", wordlist.getWordsView().size());
+            results.put("known_entries", known_entries);
+            results.put("missing_words", missing.size());
+            results.put("added_words", enrichment.getAddedWords());
+            results.put("appended_words", enrichment.getAppendedWords());
+            results.put("batches", enrichment.getBatches());
+            results.put("vocabulary_bytes", Files.size(vocabulary_file));
+            report.put("results", results);
+
+            report.put("stages", stages);
+            report.put("translation_batch_latency", timed.latency.summary());
+            long total_ms = 0;
+            for(Map<String, Object> stage_report: stages.subList(1, stages.size()))
+                total_ms += (long) stage_report.get("elapsed_ms");
+            report.put("pipeline_elapsed_ms", total_ms);
+            return report;
+        }
+        finally {
+            if(null != server)
+                server.close();
+        }
+    }
+
+    private static Translator createEngine(Options options, StubTranslationServer server) {
+        switch(options.engine) {
+            case "debug":
+                var debug = new Debug("en", "ru");
+                debug.setSimulatedLatency(Duration.ofMillis(options.latency_ms));
+                return debug;
+            case "stub":
+                server.setLatency(0 == options.latency_ms
+                        ? StubTranslationServer.Latency.none()
+                        : StubTranslationServer.Latency.logNormal(Duration.ofMillis(options.latency_ms), 0.5));
+                return new Lingvanex("en", "ru", "benchmark", server.getLingvanexUri());
+            default:
+                throw new IllegalArgumentException("Unknown engine " + options.engine);
+        }
+    }
+
+    /** Vocabulary holding the given fraction of every language's words, spread over ranks */
+    private static Vocabulary knownVocabulary(SyntheticCorpus corpus, Options options) {
+        var vocabulary = new Vocabulary("en", "ru");
+        int known_per_hundred = (int) Math.round(options.known * 100);
+
+        for(String language: options.languages) {
+            List<String> words = corpus.getWords(language);
+            for(int rank = 0; rank < words.size(); rank++)
+                if(rank % 100 < known_per_hundred)
+                    vocabulary.addEntry(words.get(rank), words.get(rank).toUpperCase(Locale.ROOT), 1);
+        }
+
+        return vocabulary;
+    }
+
+    private static String gitCommit() {
+        String commit = System.getenv("GIT_COMMIT");
+        if(null != commit)
+            return commit;
+
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .redirectErrorStream(true).start();
+            String output = new String(git.getInputStream().readAllBytes()).strip();
+            return git.waitFor(5, TimeUnit.SECONDS) && 0 == git.exitValue() ? output : "unknown";
+        }
+        catch(IOException | InterruptedException e) {
+            return "unknown";
+        }
+    }
+
+    /** Measures a stage: wall time, heap peak and GC activity since construction */
+    private static class Stage {
+        private final String name;
+        private final long start;
+        private final long gc_count;
+        private final long gc_time_ms;
+
+        private Stage(String name) {
+            this.name = name;
+            // peak is measured per stage, garbage of previous stages doesn't count
+            System.gc();
+            for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+                pool.resetPeakUsage();
+
+            long count = 0;
+            long time = 0;
+            for(GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                time += Math.max(0, gc.getCollectionTime());
+            }
+
+            this.gc_count = count;
+            this.gc_time_ms = time;
+            this.start = System.nanoTime();
+        }
+
+        private Map<String, Object> finish(long items, long bytes) {
+            long elapsed = System.nanoTime() - start;
+            long peak_heap = 0;
+            long count = 0;
+            long time = 0;
+
+            for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+                if(MemoryType.HEAP == pool.getType())
+                    peak_heap += pool.getPeakUsage().getUsed();
+            for(GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                time += Math.max(0, gc.getCollectionTime());
+            }
+
+            double seconds = Math.max(elapsed, 1) / 1e9;
+            var report = new LinkedHashMap<String, Object>();
+            report.put("stage", name);
+            report.put("elapsed_ms", elapsed / 1_000_000);
+            report.put("items", items);
+            report.put("items_per_s", Math.round(items / seconds));
+            if(bytes > 0) {
+                report.put("bytes", bytes);
+                report.put("mb_per_s", Math.round(bytes / seconds / (1 << 20) * 100) / 100.0);
+            }
+            report.put("peak_heap_bytes", peak_heap);
+            report.put("gc_count", count - gc_count);
+            report.put("gc_time_ms", time - gc_time_ms);
+            return report;
+        }
+    }
+
+    /** Records latency of every batch sent to engine */
+    private static class TimedTranslator extends Translator {
+        public static final String ENGINE_NAME = "timed";
+
+        private final Translator engine;
+        private final LatencyHistogram latency = new MetricsRegistry().histogram("translate.batch");
+
+        private TimedTranslator(Translator engine) {
+            super(engine.getSourceLanguage(), engine.getTargetLanguage());
+            this.engine = engine;
+        }
+
+        @Override
+        public HashSet<String> translate(String word) {
+            long start = System.nanoTime();
+            try {
+                return engine.translate(word);
+            }
+            finally {
+                latency.recordSince(start);
+            }
+        }
+
+        @Override
+        public HashMap<String, HashSet<String>> translate(List<String> words) {
+            long start = System.nanoTime();
+            try {
+                return engine.translate(words);
+            }
+            finally {
+                latency.recordSince(start);
+            }
+        }
+
+        @Override
+        public HashSet<String> getLanguages() {
+            return engine.getLanguages();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineBenchmarkTest {
+    @TempDir
+    Path work_dir;
+
+    @Test
+    public void reportsEveryStageOfDebugRun() throws Exception {
+        Map<String, Object> report = PipelineBenchmark.run(options("debug"));
+        Map<?, ?> results = (Map<?, ?>) report.get("results");
+
+        List<?> stages = (List<?>) report.get("stages");
+        assertEquals(List.of("generate", "read", "diff", "translate", "export"),
+                stages.stream().map(stage -> ((Map<?, ?>) stage).get("stage")).toList());
+        assertEquals(results.get("missing_words"), results.get("added_words"));
+        assertEquals((int) results.get("distinct_words"),
+                (int) results.get("missing_words") + (int) results.get("appended_words"));
+        assertTrue((int) results.get("appended_words") > 0);
+        assertTrue((long) ((Map<?, ?>) report.get("translation_batch_latency")).get("count") > 0);
+    }
+
+    @Test
+    public void runsAgainstStubServer() throws Exception {
+        Map<String, Object> report = PipelineBenchmark.run(options("stub"));
+        Map<?, ?> results = (Map<?, ?>) report.get("results");
+
+        assertEquals(results.get("missing_words"), results.get("added_words"));
+    }
+
+    @Test
+    public void generatesSameCorpusForSameSeed() throws Exception {
+        var corpus = new SyntheticCorpus(List.of("en", "ru"), 100, 1.0, 3);
+
+        assertEquals(corpus.write(work_dir.resolve("a.txt"), 1000),
+                new SyntheticCorpus(List.of("en", "ru"), 100, 1.0, 3).write(work_dir.resolve("b.txt"), 1000));
+        assertEquals(-1L, Files.mismatch(work_dir.resolve("a.txt"), work_dir.resolve("b.txt")));
+    }
+
+    private PipelineBenchmark.Options options(String engine) {
+        return PipelineBenchmark.Options.parse(new String[] {"--words", "20000", "--vocabulary-size", "500",
+                "--engine", engine, "--batch", "25", "--work-dir", work_dir.toString()});
+    }
+}
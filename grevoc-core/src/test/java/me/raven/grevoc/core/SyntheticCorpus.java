@@ -0,0 +1,129 @@
+package me.raven.grevoc.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Generator of reproducible multilingual plain text for load tests.
+ * Every language has its own alphabet and vocabulary of synthetic words, words are drawn from
+ * Zipf distribution like in natural text and grouped into capitalized sentences with
+ * punctuation. The same seed and parameters always give the same text. */
+public class SyntheticCorpus {
+    public static final Map<String, String> ALPHABETS = Map.of(
+            "en", "abcdefghijklmnopqrstuvwxyz",
+            "de", "abcdefghijklmnopqrstuvwxyzäöüß",
+            "fr", "abcdefghijklmnopqrstuvwxyzàâçéèêëîïôûù",
+            "ru", "абвгдежзийклмнопрстуфхцчшщъыьэюя"
+    );
+    private static final String[] PUNCTUATION = {". ", ", ", "! ", "? ", "; ", ": "};
+
+    private final Map<String, String[]> vocabularies = new LinkedHashMap<>();
+    private final double[] cumulative;
+    private final long seed;
+
+    /** Constructs generator
+     *
+     * @param languages codes of ALPHABETS, sentences are distributed evenly among them
+     * @param vocabulary_size count of distinct words per language
+     * @param zipf_exponent skew of word frequencies, about 1 for natural languages
+     * @param seed seed of words and text
+     */
+    public SyntheticCorpus(List<String> languages, int vocabulary_size, double zipf_exponent, long seed) {
+        if(languages.isEmpty())
+            throw new IllegalArgumentException("At least one language is required");
+        if(vocabulary_size <= 0)
+            throw new IllegalArgumentException("Vocabulary size must be positive: " + vocabulary_size);
+
+        this.seed = seed;
+        var random = new Random(seed);
+        for(String language: languages) {
+            String alphabet = ALPHABETS.get(language);
+            if(null == alphabet)
+                throw new IllegalArgumentException("Unknown language: " + language);
+            vocabularies.put(language, generateWords(alphabet, vocabulary_size, random));
+        }
+
+        cumulative = new double[vocabulary_size];
+        double sum = 0;
+        for(int rank = 0; rank < vocabulary_size; rank++) {
+            sum += 1 / Math.pow(rank + 1, zipf_exponent);
+            cumulative[rank] = sum;
+        }
+        for(int rank = 0; rank < vocabulary_size; rank++)
+            cumulative[rank] /= sum;
+    }
+
+    /** Writes text of word_count words to file
+     *
+     * @return count of written bytes
+     */
+    public long write(Path file, long word_count) throws IOException {
+        var random = new Random(seed ^ word_count);
+        var languages = vocabularies.values().toArray(new String[0][]);
+
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            String[] words = languages[0];
+            int sentence_left = 0;
+
+            for(long i = 0; i < word_count; i++) {
+                boolean sentence_start = 0 == sentence_left;
+                if(sentence_start) {
+                    words = languages[random.nextInt(languages.length)];
+                    sentence_left = 4 + random.nextInt(16);
+                }
+
+                String word = words[sample(random)];
+                if(sentence_start)
+                    word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                writer.write(word);
+
+                if(0 == --sentence_left)
+                    writer.write(0 == random.nextInt(4) ? ".\n" : ". ");
+                else
+                    writer.write(0 == random.nextInt(8) ? PUNCTUATION[random.nextInt(PUNCTUATION.length)] : " ");
+            }
+        }
+
+        return Files.size(file);
+    }
+
+    /** Returns words of language ordered by frequency rank */
+    public List<String> getWords(String language) {
+        return List.of(vocabularies.get(language));
+    }
+
+    private int sample(Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return rank >= 0 ? rank : Math.min(-rank - 1, cumulative.length - 1);
+    }
+
+    private static String[] generateWords(String alphabet, int count, Random random) {
+        var words = new String[count];
+        Set<String> seen = new HashSet<>(count * 2);
+
+        for(int i = 0; i < count; ) {
+            // frequent words tend to be short
+            int length = 2 + random.nextInt(3 + Math.min(9, 31 - Integer.numberOfLeadingZeros(i + 1)));
+            var word = new StringBuilder(length);
+            for(int c = 0; c < length; c++)
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+            if(seen.add(word.toString()))
+                words[i++] = word.toString();
+        }
+
+        return words;
+    }
+}
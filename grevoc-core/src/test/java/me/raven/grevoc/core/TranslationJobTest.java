@@ -0,0 +1,132 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.Debug;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslationJobTest {
+    static class CrashingTranslator extends Debug {
+        final List<String> requested_words = new ArrayList<>();
+        private final int crash_on_request;
+        private int requests = 0;
+
+        CrashingTranslator(int crash_on_request) {
+            super("en", "ru");
+            this.crash_on_request = crash_on_request;
+        }
+
+        @Override
+        public HashMap<String, HashSet<String>> translate(List<String> words) {
+            if(++requests == crash_on_request)
+                throw new IllegalStateException("Simulated network failure");
+
+            requested_words.addAll(words);
+            return super.translate(words);
+        }
+    }
+
+    /** Reports failure of a request as no translations, like online engines do */
+    static class FailingBatchTranslator extends Debug {
+        private final int failing_request;
+        private int requests = 0;
+
+        FailingBatchTranslator(int failing_request) {
+            super("en", "ru");
+            this.failing_request = failing_request;
+        }
+
+        @Override
+        public HashMap<String, HashSet<String>> translate(List<String> words) {
+            return ++requests == failing_request ? new HashMap<>() : super.translate(words);
+        }
+    }
+
+    @TempDir
+    Path temporary_directory;
+
+    private Wordlist makeTestWordlist() throws Exception {
+        return new Wordlist(Path.of(getClass().getResource("/wordlist.txt").toURI()));
+    }
+
+    @Test
+    public void resumesAfterCrashWithoutTranslatingWordsTwice() throws Exception {
+        Path checkpoints = temporary_directory.resolve("checkpoints");
+        Wordlist wordlist = makeTestWordlist();
+
+        var crashing = new CrashingTranslator(2);
+        var first_job = new TranslationJob(new Vocabulary("en", "ru"), crashing, checkpoints);
+        first_job.getEnricher().setBatchSize(2);
+        assertThrows(IllegalStateException.class, () -> first_job.run(wordlist));
+        assertEquals(2, crashing.requested_words.size());
+
+        var resumed = new CrashingTranslator(-1);
+        var vocabulary = new Vocabulary("en", "ru");
+        var second_job = new TranslationJob(vocabulary, resumed, checkpoints);
+        second_job.getEnricher().setBatchSize(2);
+        second_job.run(wordlist);
+
+        var all_requested = new ArrayList<>(crashing.requested_words);
+        all_requested.addAll(resumed.requested_words);
+        assertEquals(wordlist.getWordsView().size(), all_requested.size());
+        assertEquals(wordlist.getWordsView().size(), new HashSet<>(all_requested).size());
+        assertTrue(vocabulary.getWordsView().containsAll(wordlist.getWordsView()));
+        wordlist.getWordsOccurrencesView().forEach((word, count) ->
+                assertEquals(count, vocabulary.getWordsOccurrencesView().get(word)));
+    }
+
+    @Test
+    public void failedBatchIsTranslatedOnResume() throws Exception {
+        Path checkpoints = temporary_directory.resolve("checkpoints");
+        Wordlist wordlist = makeTestWordlist();
+
+        var first_job = new TranslationJob(new Vocabulary("en", "ru"),
+                new FailingBatchTranslator(2), checkpoints);
+        first_job.getEnricher().setBatchSize(2);
+        VocabularyEnricher.Report report = first_job.run(wordlist);
+        assertEquals(2, report.getUntranslatedWords());
+        assertEquals(wordlist.getWordsView().size() - 2, first_job.loadCheckpoints().size());
+
+        var resumed = new CrashingTranslator(-1);
+        var vocabulary = new Vocabulary("en", "ru");
+        var second_job = new TranslationJob(vocabulary, resumed, checkpoints);
+        second_job.getEnricher().setBatchSize(2);
+        second_job.run(wordlist);
+
+        assertEquals(wordlist.getWordsView().subList(2, 4), resumed.requested_words);
+        assertTrue(vocabulary.getWordsView().containsAll(wordlist.getWordsView()));
+    }
+
+    @Test
+    public void completionExportsAndRemovesCheckpoints() throws Exception {
+        Path checkpoints = temporary_directory.resolve("checkpoints");
+        Path export_file = temporary_directory.resolve("vocabulary.txt");
+        var job = new TranslationJob(new Vocabulary("en", "ru"), new Debug("en", "ru"),
+                checkpoints);
+
+        job.run(makeTestWordlist());
+        assertFalse(job.loadCheckpoints().isEmpty());
+
+        assertTrue(job.complete(export_file));
+        assertTrue(Files.exists(export_file));
+        try(var remaining = Files.list(checkpoints)) {
+            assertEquals(0, remaining.count());
+        }
+    }
+
+    @Test
+    public void batchIdDependsOnlyOnBatchWords() {
+        assertEquals(TranslationJob.batchId(List.of("a", "b")),
+                TranslationJob.batchId(List.of("a", "b")));
+        assertNotEquals(TranslationJob.batchId(List.of("a", "b")),
+                TranslationJob.batchId(List.of("ab")));
+    }
+}
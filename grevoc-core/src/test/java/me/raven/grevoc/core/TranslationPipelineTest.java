@@ -0,0 +1,164 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.Debug;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslationPipelineTest {
+    static class BlockingTranslator extends Debug {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingTranslator(String sl, String tl) {
+            super(sl, tl);
+        }
+
+        @Override
+        public HashMap<String, HashSet<String>> translate(List<String> words) {
+            try {
+                release.await();
+            }
+            catch(InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return super.translate(words);
+        }
+    }
+
+    /** Endless-looking text of unique words, counting lines read by pipeline */
+    static class GeneratedText extends InputStream {
+        final AtomicLong lines_read = new AtomicLong();
+        private final long lines;
+        private byte[] line = new byte[0];
+        private int position = 0;
+
+        GeneratedText(long lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read() {
+            if(position == line.length) {
+                long number = lines_read.get();
+                if(number == lines)
+                    return -1;
+                line = ("word" + letters(number) + " the end\n").getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                lines_read.incrementAndGet();
+            }
+            return line[position++];
+        }
+
+        private static String letters(long number) {
+            var letters = new StringBuilder();
+            do {
+                letters.append((char) ('a' + number % 26));
+                number /= 26;
+            } while(number > 0);
+            return letters.toString();
+        }
+    }
+
+    @Test
+    public void givesSameVocabularyAsEnricher() throws Exception {
+        String text = "The cat sat on the mat.\nThe dog ate the cat's food!\nMusor, musor, musor.\n";
+        var staged = new Vocabulary("en", "ru");
+        staged.put("musor", Set.of("MUSOR"), 1);
+        var enriched = new Vocabulary("en", "ru");
+        enriched.put("musor", Set.of("MUSOR"), 1);
+
+        var pipeline = new TranslationPipeline(staged, new Debug("en", "ru"));
+        pipeline.setBatchSize(3);
+        pipeline.setTranslatorParallelism(2);
+        TranslationPipeline.Report report = pipeline.run(stream(text));
+
+        var wordlist = new Wordlist();
+        wordlist.appendText(stream(text));
+        new VocabularyEnricher(enriched, new Debug("en", "ru")).enrich(wordlist);
+
+        assertEquals(enriched.getWordsOccurrencesView(), staged.getWordsOccurrencesView());
+        assertEquals(enriched.getWordsTranslationsView().keySet(), staged.getWordsTranslationsView().keySet());
+        assertEquals(3, report.getLines());
+        assertEquals(15, report.getWords());
+        assertEquals(1, report.getAppendedWords());
+        assertEquals(enriched.getWordsView().size() - 1, report.getAddedWords());
+    }
+
+    @Test
+    public void slowTranslatorHoldsBackReading() throws Exception {
+        var translator = new BlockingTranslator("en", "ru");
+        var vocabulary = new Vocabulary("en", "ru");
+        var pipeline = new TranslationPipeline(vocabulary, translator);
+        pipeline.setBufferSize(16);
+        pipeline.setBatchSize(10);
+        var text = new GeneratedText(50_000);
+
+        var runner = new Thread(() -> {
+            try {
+                pipeline.run(text);
+            }
+            catch(IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        runner.start();
+
+        Thread.sleep(500);
+        long read_while_blocked = text.lines_read.get();
+        Thread.sleep(300);
+        assertEquals(read_while_blocked, text.lines_read.get(), "Reading must stop");
+        // a few buffers of lines, words and batches, not the whole text
+        assertTrue(read_while_blocked < 5_000, "Lines read while translator is blocked: " + read_while_blocked);
+
+        translator.release.countDown();
+        runner.join(30_000);
+        assertFalse(runner.isAlive());
+        assertEquals(50_002, vocabulary.getWordsView().size());
+        assertEquals(50_000, vocabulary.getWordsOccurrencesView().get("the"));
+    }
+
+    @Test
+    public void failedStageStopsReading() {
+        var translator = new Debug("en", "ru") {
+            @Override
+            public HashMap<String, HashSet<String>> translate(List<String> words) {
+                throw new IllegalStateException("Simulated engine failure");
+            }
+        };
+        var pipeline = new TranslationPipeline(new Vocabulary("en", "ru"), translator);
+        pipeline.setBufferSize(16);
+        pipeline.setBatchSize(10);
+        var text = new GeneratedText(1_000_000);
+
+        var exception = assertThrows(IllegalStateException.class, () -> pipeline.run(text));
+        assertEquals("Simulated engine failure", exception.getCause().getMessage());
+        assertTrue(text.lines_read.get() < 100_000, "Lines read after failure: " + text.lines_read.get());
+    }
+
+    @Test
+    public void lemmatizerMergesWordForms() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        var pipeline = new TranslationPipeline(vocabulary, new Debug("en", "ru"));
+        pipeline.setLemmatizer(word -> word.endsWith("s") ? word.substring(0, word.length() - 1) : word);
+
+        pipeline.run(stream("cats cat dogs"));
+
+        assertEquals(2, vocabulary.getWordsOccurrencesView().get("cat"));
+        assertEquals(Set.of("cat", "dog"), vocabulary.getWordsTranslationsView().keySet());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
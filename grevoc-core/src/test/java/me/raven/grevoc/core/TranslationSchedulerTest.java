@@ -0,0 +1,170 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.Debug;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslationSchedulerTest {
+    static class RecordingTranslator extends Debug {
+        final List<String> requested_words = new ArrayList<>();
+
+        RecordingTranslator(String sl, String tl) {
+            super(sl, tl);
+        }
+
+        @Override
+        public HashMap<String, HashSet<String>> translate(List<String> words) {
+            requested_words.addAll(words);
+            return super.translate(words);
+        }
+    }
+
+    private static Wordlist makeWordlist(String records) throws Exception {
+        var wordlist = new Wordlist();
+        wordlist.append(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)));
+        return wordlist;
+    }
+
+    @Test
+    public void translatesMostFrequentWordsFirst() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        var translator = new RecordingTranslator("en", "ru");
+        var scheduler = new TranslationScheduler(vocabulary);
+        scheduler.addEngine(translator, 12);
+        Wordlist wordlist = makeWordlist("rare\t1\ncommon\t50\nusual\t10\nodd\t3\n");
+
+        TranslationScheduler.Report report = scheduler.schedule(wordlist);
+
+        // common(6) + usual(5) fill 11 of 12 characters, odd(3) doesn't fit anymore
+        assertEquals(List.of("common", "usual"), translator.requested_words);
+        assertEquals(Set.of("common", "usual"), vocabulary.getWordsTranslationsView().keySet());
+        assertEquals(2, report.getAddedWords());
+        assertEquals(2, report.getSkippedWords());
+        assertEquals(11, report.getCharacters());
+        assertEquals(60.0 / 64, report.getOccurrenceCoverage(), 1e-9);
+        assertEquals(11, scheduler.getSpentCharacters(Debug.ENGINE_NAME));
+        assertEquals(1, scheduler.getRemainingBudget(Debug.ENGINE_NAME));
+        assertEquals(1, report.getEngineReport(Debug.ENGINE_NAME).getRemainingBudget());
+    }
+
+    @Test
+    public void failedBatchIsBilledAndNotSentAgain() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        var translator = new RecordingTranslator("en", "ru") {
+            boolean failing = true;
+
+            @Override
+            public HashMap<String, HashSet<String>> translate(List<String> words) {
+                if(failing) {
+                    requested_words.addAll(words);
+                    throw new IllegalStateException("Engine is down");
+                }
+                return super.translate(words);
+            }
+        };
+        var scheduler = new TranslationScheduler(vocabulary);
+        scheduler.addEngine(translator, 100);
+        scheduler.setBatchSize(2);
+        Wordlist wordlist = makeWordlist("cat\t3\ndog\t2\nowl\t1\n");
+
+        assertThrows(IllegalStateException.class, () -> scheduler.schedule(wordlist));
+        assertEquals(List.of("cat", "dog"), translator.requested_words);
+        assertEquals(6, scheduler.getSpentCharacters(Debug.ENGINE_NAME));
+
+        // owl was only queued, nothing of the failed run is sent or reserved again
+        translator.failing = false;
+        translator.requested_words.clear();
+        TranslationScheduler.Report report = scheduler.schedule(wordlist);
+        assertEquals(List.of("cat", "dog", "owl"), translator.requested_words);
+        assertEquals(3, report.getAddedWords());
+        assertEquals(15, scheduler.getSpentCharacters(Debug.ENGINE_NAME));
+        assertEquals(85, scheduler.getRemainingBudget(Debug.ENGINE_NAME));
+    }
+
+    @Test
+    public void switchesEngineWhenBudgetRunsOut() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        var paid = new RecordingTranslator("en", "ru");
+        var free = new RecordingTranslator("en", "ru");
+        var scheduler = new TranslationScheduler(vocabulary);
+        scheduler.addEngine("paid", paid, 10);
+        scheduler.addEngine("free", free, TranslationScheduler.UNLIMITED_BUDGET);
+        Wordlist wordlist = makeWordlist("alpha\t9\nbeta\t8\ngamma\t7\ndelta\t6\n");
+
+        TranslationScheduler.Report report = scheduler.schedule(wordlist);
+
+        assertEquals(List.of("alpha", "beta"), paid.requested_words);
+        assertEquals(List.of("gamma", "delta"), free.requested_words);
+        assertEquals(4, report.getAddedWords());
+        assertEquals(0, report.getSkippedWords());
+        assertEquals(1.0, report.getOccurrenceCoverage());
+        assertEquals(9, report.getEngineReport("paid").getCharacters());
+        assertEquals(10, report.getEngineReport("free").getCharacters());
+        assertEquals(List.of("paid", "free"), scheduler.getEngines());
+    }
+
+    @Test
+    public void budgetIsSharedByRuns() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        var translator = new RecordingTranslator("en", "ru");
+        var scheduler = new TranslationScheduler(vocabulary);
+        scheduler.addEngine(translator, 8);
+
+        scheduler.schedule(makeWordlist("first\t2\n"));
+        TranslationScheduler.Report report = scheduler.schedule(makeWordlist("second\t2\nhi\t1\n"));
+
+        assertEquals(List.of("first", "hi"), translator.requested_words);
+        assertEquals(1, report.getSkippedWords());
+        assertEquals(1, scheduler.getRemainingBudget(Debug.ENGINE_NAME));
+
+        assertTrue(scheduler.setBudget(Debug.ENGINE_NAME, 20));
+        scheduler.schedule(makeWordlist("second\t1\n"));
+        assertTrue(vocabulary.getWordsTranslationsView().containsKey("second"));
+        assertEquals(7, scheduler.getRemainingBudget(Debug.ENGINE_NAME));
+    }
+
+    @Test
+    public void knownWordsAreNotBilled() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("known", Set.of("ZNAYU"), 1);
+        var translator = new RecordingTranslator("en", "ru");
+        var scheduler = new TranslationScheduler(vocabulary);
+        scheduler.addEngine(translator, 100);
+        scheduler.setBatchSize(1);
+
+        TranslationScheduler.Report report = scheduler.schedule(makeWordlist("known\t4\nnew\t2\nword\t1\n"));
+
+        assertEquals(List.of("new", "word"), translator.requested_words);
+        assertEquals(1, report.getAppendedWords());
+        assertEquals(5, vocabulary.getWordsOccurrencesView().get("known"));
+        assertEquals(7, report.getCharacters());
+        assertEquals(2, report.getEngineReport(Debug.ENGINE_NAME).getBatches());
+        assertTrue(report.getEngineReport(Debug.ENGINE_NAME).getWordsPerSecond() > 0);
+    }
+
+    @Test
+    public void rejectsInvalidEngines() {
+        var scheduler = new TranslationScheduler(new Vocabulary("en", "ru"));
+
+        assertThrows(IllegalStateException.class, () -> scheduler.schedule(new Wordlist()));
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.addEngine(new Debug("en", "de"), 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.addEngine(new Debug("en", "ru"), -1));
+
+        scheduler.addEngine(new Debug("en", "ru"), 10);
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.addEngine(new Debug("en", "ru"), 10));
+        assertFalse(scheduler.setBudget("unknown", 10));
+        assertFalse(scheduler.setBatchSize(0));
+    }
+}
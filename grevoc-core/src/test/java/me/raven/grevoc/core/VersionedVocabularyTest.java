@@ -0,0 +1,86 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedVocabularyTest {
+    @Test
+    public void snapshotIsNotAffectedByLaterWrites() {
+        var vocabulary = new VersionedVocabulary("en", "ru");
+        vocabulary.addEntry("cat", Set.of("кот"), 2);
+        VocabularySnapshot snapshot = vocabulary.snapshot();
+
+        vocabulary.appendEntry("cat", Set.of("кошка"), 1);
+        vocabulary.addEntry("dog", Set.of("собака"), 1);
+        vocabulary.removeEntry("cat");
+
+        assertEquals(1, snapshot.size());
+        assertEquals(Set.of("кот"), snapshot.getTranslations("cat"));
+        assertEquals(2, snapshot.getOccurrences("cat"));
+        assertFalse(snapshot.contains("dog"));
+
+        VocabularySnapshot latest = vocabulary.snapshot();
+        assertEquals(List.of("dog"), latest.getWords());
+        assertEquals(snapshot.getVersion() + 3, latest.getVersion());
+    }
+
+    @Test
+    public void rejectedChangesDontPublishVersions() {
+        var vocabulary = new VersionedVocabulary("en", "ru");
+        vocabulary.addEntry("cat", Set.of("кот"), 2);
+        VocabularySnapshot snapshot = vocabulary.snapshot();
+
+        assertFalse(vocabulary.addEntry("cat", Set.of("кошка"), 1));
+        assertFalse(vocabulary.appendEntry("cat", Set.of("кот"), 0));
+        assertFalse(vocabulary.removeEntry("dog"));
+        assertSame(snapshot, vocabulary.snapshot());
+    }
+
+    @Test
+    public void roundTripsVocabularyInInsertionOrder() {
+        var source = new Vocabulary("en", "ru");
+        source.addEntry("one", Set.of("один"), 3);
+        source.addEntry("two", Set.of("два", "двойка"), 1);
+        source.addEntry("three", Set.of("три"), 2);
+
+        Vocabulary copy = new VersionedVocabulary(source).snapshot().toVocabulary();
+
+        assertEquals(source.getWordsView(), copy.getWordsView());
+        assertEquals(source.getWordsTranslationsView(), copy.getWordsTranslationsView());
+        assertEquals(source.getWordsOccurrencesView(), copy.getWordsOccurrencesView());
+    }
+
+    @Test
+    public void readersSeeWholeBatchesOnly() throws InterruptedException {
+        var vocabulary = new VersionedVocabulary("en", "ru");
+        var running = new AtomicBoolean(true);
+        var failure = new AtomicReference<String>();
+
+        var reader = new Thread(() -> {
+            while(running.get()) {
+                VocabularySnapshot snapshot = vocabulary.snapshot();
+                if(0 != snapshot.size() % 10)
+                    failure.set("Torn batch of size " + snapshot.size());
+            }
+        });
+        reader.start();
+
+        for(int batch = 0; batch < 200; batch++) {
+            var words = new Vocabulary("en", "ru");
+            for(int i = 0; i < 10; i++)
+                words.addEntry("w" + batch + "x" + i, Set.of("t"), 1);
+            vocabulary.append(words);
+        }
+
+        running.set(false);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(2000, vocabulary.snapshot().size());
+    }
+}
@@ -0,0 +1,146 @@
+package me.raven.grevoc.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VocabularyDiffTest {
+    @TempDir
+    Path temporary_directory;
+
+    private static Vocabulary makeBase() {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("cat", Set.of("koshka"), 4);
+        vocabulary.put("dog", Set.of("sobaka", "pes"), 2);
+        vocabulary.put("old", Set.of("staryi"), 1);
+        vocabulary.put("same", Set.of("tot"), 3);
+        return vocabulary;
+    }
+
+    private static Vocabulary makeTarget() {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("cat", Set.of("koshka", "kot"), 6);
+        vocabulary.put("dog", Set.of("sobaka"), 1);
+        vocabulary.put("same", Set.of("tot"), 3);
+        vocabulary.put("new", Set.of("novyi"), 5);
+        return vocabulary;
+    }
+
+    private static void assertSameEntries(Vocabulary expected, Vocabulary actual) {
+        assertEquals(Set.copyOf(expected.getWordsView()), Set.copyOf(actual.getWordsView()));
+        assertEquals(expected.getWordsTranslationsView(), actual.getWordsTranslationsView());
+        assertEquals(expected.getWordsOccurrencesView(), actual.getWordsOccurrencesView());
+        assertEquals(expected.getTranslationsWordsView(), actual.getTranslationsWordsView());
+    }
+
+    @Test
+    public void findsAddedRemovedAndChangedEntries() {
+        VocabularyDiff diff = VocabularyDiff.compute(makeBase(), makeTarget());
+
+        assertEquals(List.of("old"), diff.getRemovedWords());
+        assertEquals(1, diff.getAddedEntries().size());
+        assertEquals("new", diff.getAddedEntries().get(0).getWord());
+        assertEquals(5, diff.getAddedEntries().get(0).getOccurrences());
+        assertEquals(2, diff.getChanges().size());
+
+        VocabularyDiff.Change cat = diff.getChanges().get(0);
+        assertEquals("cat", cat.getWord());
+        assertEquals(Set.of("kot"), cat.getAddedTranslations());
+        assertEquals(Set.of(), cat.getRemovedTranslations());
+        assertEquals(2, cat.getOccurrenceDelta());
+
+        VocabularyDiff.Change dog = diff.getChanges().get(1);
+        assertEquals(Set.of("pes"), dog.getRemovedTranslations());
+        assertEquals(-1, dog.getOccurrenceDelta());
+        assertEquals(4, diff.size());
+        assertTrue(VocabularyDiff.compute(makeBase(), makeBase()).isEmpty());
+    }
+
+    @Test
+    public void patchTurnsBaseIntoTarget() throws Exception {
+        VocabularyDiff diff = VocabularyDiff.compute(makeBase(), makeTarget());
+        var output = new ByteArrayOutputStream();
+        diff.write(output);
+
+        VocabularyDiff read = VocabularyDiff.read(new ByteArrayInputStream(output.toByteArray()));
+        Vocabulary base = makeBase();
+        read.applyTo(base);
+
+        assertSameEntries(makeTarget(), base);
+        assertEquals("new", base.getWordsView().get(base.getWordsView().size() - 1));
+        // header and one line per change
+        assertEquals(5, output.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    public void patchSizeDependsOnChangeOnly() throws Exception {
+        var base = new Vocabulary("en", "ru");
+        for(int i = 0; i < 10_000; i++)
+            base.put("word" + i, Set.of("slovo" + i), 1 + i % 7);
+        var target = new Vocabulary("en", "ru");
+        target.append(base);
+        target.appendEntry("word42", Set.of(), 3);
+        target.put("extra", Set.of("lishnee"), 1);
+
+        Path full = temporary_directory.resolve("vocabulary.txt");
+        Path patch = temporary_directory.resolve("vocabulary.patch");
+        assertTrue(target.export(full));
+        assertTrue(VocabularyDiff.compute(base, target).write(patch, true));
+
+        assertTrue(Files.size(patch) * 100 < Files.size(full),
+                Files.size(patch) + " vs " + Files.size(full));
+        VocabularyDiff.read(patch).applyTo(base);
+        assertSameEntries(target, base);
+    }
+
+    @Test
+    public void rejectsPatchOfOtherBase() {
+        VocabularyDiff diff = VocabularyDiff.compute(makeBase(), makeTarget());
+        Vocabulary other = makeBase();
+        other.appendEntry("cat", Set.of("kot"), 0);
+
+        assertThrows(IllegalStateException.class, () -> diff.applyTo(other));
+        // nothing has been applied
+        assertTrue(other.getWordsTranslationsView().containsKey("old"));
+        assertEquals(4, other.getWordsOccurrencesView().get("cat"));
+
+        // translations fit, only occurrences differ from base
+        Vocabulary counted_more = makeBase();
+        counted_more.appendEntry("dog", Set.of(), 5);
+        var exception = assertThrows(IllegalStateException.class, () -> diff.applyTo(counted_more));
+        assertTrue(exception.getMessage().contains("dog"));
+        assertEquals(7, counted_more.getWordsOccurrencesView().get("dog"));
+
+        Vocabulary patched = makeBase();
+        diff.applyTo(patched);
+        assertThrows(IllegalStateException.class, () -> diff.applyTo(patched));
+        assertThrows(IllegalStateException.class, () -> diff.applyTo(new Vocabulary("de", "ru")));
+    }
+
+    @Test
+    public void rejectsMalformedPatch() {
+        assertThrows(IOException.class, () -> VocabularyDiff.read(input("not a patch\n")));
+        assertThrows(IOException.class, () -> VocabularyDiff.read(
+                input("#grevoc-patch\t1\ten\tru\t0\t0\n")));
+        assertThrows(IOException.class, () -> VocabularyDiff.read(
+                input("#grevoc-patch\t2\ten\tru\t0\t1\n+word\tslovo\n")));
+        assertThrows(IOException.class, () -> VocabularyDiff.read(
+                input("#grevoc-patch\t2\ten\tru\t1\t1\n~word\t\t\t1\tmany\n")));
+        assertThrows(IOException.class, () -> VocabularyDiff.read(
+                input("#grevoc-patch\t2\ten\tru\t1\t1\n~word\t\t\t1\n")));
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package me.raven.grevoc.core;
+
+import me.raven.grevoc.core.translator.Debug;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VocabularyEnricherTest {
+    static class CountingTranslator extends Debug {
+        int requested_words = 0;
+        int requests = 0;
+
+        CountingTranslator(String sl, String tl) {
+            super(sl, tl);
+        }
+
+        @Override
+        public HashMap<String, HashSet<String>> translate(List<String> words) {
+            requests++;
+            requested_words += words.size();
+            return super.translate(words);
+        }
+    }
+
+    private Wordlist makeTestWordlist() throws Exception {
+        return new Wordlist(Path.of(getClass().getResource("/wordlist.txt").toURI()));
+    }
+
+    @Test
+    public void translatesOnlyMissingWords() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("musor", Set.of("MUSOR"), 1);
+        var translator = new CountingTranslator("en", "ru");
+        var enricher = new VocabularyEnricher(vocabulary, translator);
+        Wordlist wordlist = makeTestWordlist();
+
+        VocabularyEnricher.Report report = enricher.enrich(wordlist);
+
+        assertEquals(wordlist.getWordsView().size() - 1, translator.requested_words);
+        assertEquals(1, report.getAppendedWords());
+        assertEquals(wordlist.getWordsView().size() - 1, report.getAddedWords());
+        assertEquals(1 + wordlist.getWordsOccurrencesView().get("musor"),
+                vocabulary.getWordsOccurrencesView().get("musor"));
+        assertTrue(vocabulary.getWordsView().containsAll(wordlist.getWordsView()));
+    }
+
+    @Test
+    public void secondRunDoesNotTranslateAnything() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru");
+        var translator = new CountingTranslator("en", "ru");
+        var enricher = new VocabularyEnricher(vocabulary, translator);
+        Wordlist wordlist = makeTestWordlist();
+
+        enricher.enrich(wordlist);
+        int requested_words = translator.requested_words;
+        VocabularyEnricher.Report report = enricher.enrich(wordlist);
+
+        assertEquals(requested_words, translator.requested_words);
+        assertEquals(0, report.getBatches());
+        assertEquals(wordlist.getWordsView().size(), report.getAppendedWords());
+        wordlist.getWordsOccurrencesView().forEach((word, count) ->
+                assertEquals(2 * count, vocabulary.getWordsOccurrencesView().get(word)));
+    }
+
+    @Test
+    public void missingWordsAreSentInBatches() throws Exception {
+        var translator = new CountingTranslator("en", "ru");
+        var enricher = new VocabularyEnricher(new Vocabulary("en", "ru"), translator);
+        Wordlist wordlist = makeTestWordlist();
+        assertTrue(enricher.setBatchSize(2));
+        assertFalse(enricher.setBatchSize(0));
+
+        enricher.enrich(wordlist);
+
+        assertEquals((wordlist.getWordsView().size() + 1) / 2, translator.requests);
+    }
+
+    @Test
+    public void languagesMustMatch() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new VocabularyEnricher(new Vocabulary("de", "ru"), new Debug("en", "ru")));
+    }
+}
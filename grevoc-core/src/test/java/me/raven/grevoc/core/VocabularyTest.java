@@ -3,6 +3,7 @@ package me.raven.grevoc.core;
 import me.raven.grevoc.core.translator.Debug;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
@@ -10,6 +11,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.instrument.UnmodifiableClassException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -228,4 +231,127 @@ class VocabularyTest {
         assertTrue(translations.containsAll(List.of("nt1", "nt2", "nt3")),
                 "Vocabulary has not not append specified translations");
    }
-}
\ No newline at end of file
+
+   @Test
+    public void printedEntryHoldsWordTranslationsAndOccurrences() {
+        var vocabulary = new Vocabulary("en", "ru");
+        var baout = new ByteArrayOutputStream();
+        vocabulary.put("word1", Set.of("tr1"), 3);
+        vocabulary.appendEntry("word1", Set.of("tr2"), 2);
+
+        vocabulary.printVocabulary(new PrintWriter(baout));
+        String[] fields = baout.toString().trim().split("\t");
+
+        assertEquals("word1", fields[0]);
+        assertEquals(Set.of("tr1", "tr2"), Set.of(fields[1].split("\\|")));
+        assertEquals("5", fields[2]);
+   }
+
+   @Test
+    public void exportedVocabularyIsImportedBack(@TempDir Path temporary_directory) throws IOException {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("word1", Set.of("tr1", "tr2"), 12);
+        vocabulary.put("word2", Set.of("tr3"), 1);
+
+        for(boolean compress: new boolean[]{false, true}) {
+            Path export_file = temporary_directory.resolve("vocabulary-" + compress + ".txt");
+            Files.writeString(export_file, "stale content");
+
+            assertTrue(vocabulary.export(export_file, compress));
+            var imported = new Vocabulary("en", "ru", export_file);
+
+            assertEquals(vocabulary.getWordsView(), imported.getWordsView());
+            assertEquals(vocabulary.getWordsTranslationsView(),
+                    imported.getWordsTranslationsView());
+            assertEquals(vocabulary.getWordsOccurrencesView(), imported.getWordsOccurrencesView());
+            assertFalse(Files.exists(temporary_directory.resolve(export_file.getFileName() + ".tmp")));
+        }
+   }
+
+   @Test
+    public void streamedEntriesAreMergedIncrementally() throws IOException {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("word1", Set.of("tr1"), 2);
+
+        var another = new Vocabulary("en", "ru");
+        another.put("word1", Set.of("tr2"), 3);
+        another.put("word2", Set.of("tr3"), 1);
+        var output = new ByteArrayOutputStream();
+        another.export(output);
+
+        vocabulary.append(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(List.of("word1", "word2"), vocabulary.getWordsView());
+        assertEquals(Set.of("tr1", "tr2"), vocabulary.getWordsTranslationsView().get("word1"));
+        assertEquals(5, vocabulary.getWordsOccurrencesView().get("word1"));
+        assertEquals(2, Vocabulary.readEntries(new ByteArrayInputStream(output.toByteArray()),
+                (word, translations, occurrences) -> assertTrue(another.getWordsView().contains(word))));
+    }
+
+   @Test
+    public void nonAsciiEntriesAreExportedReadAndMerged(@TempDir Path temporary_directory)
+            throws IOException {
+        var vocabulary = new Vocabulary("de", "ru");
+        vocabulary.put("über", Set.of("над", "через"), 3);
+        vocabulary.put("Straße", Set.of("улица"), 2);
+        vocabulary.put("Mutter-Kind", Set.of("мать-и-дитя"), 1);
+        vocabulary.put("geht's", Set.of("идёт"), 4);
+        Path export_file = temporary_directory.resolve("vocabulary_de-ru.txt");
+        assertTrue(vocabulary.export(export_file, true));
+
+        var read = new ArrayList<String>();
+        try(var input = Files.newInputStream(export_file)) {
+            assertEquals(4, Vocabulary.readEntries(input,
+                    (word, translations, occurrences) -> read.add(word)));
+        }
+        assertEquals(vocabulary.getWordsView(), read);
+
+        var merged = new Vocabulary("de", "ru");
+        merged.put("über", Set.of("по"), 1);
+        try(var input = Files.newInputStream(export_file)) {
+            merged.append(input);
+        }
+        assertEquals(Set.of("над", "через", "по"), merged.getWordsTranslationsView().get("über"));
+        assertEquals(4, merged.getWordsOccurrencesView().get("über"));
+        assertEquals(Set.of("мать-и-дитя"), merged.getWordsTranslationsView().get("Mutter-Kind"));
+        assertEquals(4, merged.getWordsView().size());
+    }
+
+   @Test
+    public void malformedLinesAreSkipped() throws IOException {
+        String lines = String.join("\n", "word\ttr\t1", "word", "\ttr\t1", "word\t\t1",
+                "word\ttr|\t1", "word\ttr\t", "word\ttr\t-1", "word\ttr\t99999999999",
+                "word\ttr\t1\t2", "слово\tword|verb\t7");
+        var read = new ArrayList<String>();
+
+        assertEquals(2, Vocabulary.readEntries(new ByteArrayInputStream(
+                lines.getBytes(StandardCharsets.UTF_8)),
+                (word, translations, occurrences) -> read.add(word + translations.size() + occurrences)));
+        assertEquals(List.of("word11", "слово27"), read);
+    }
+
+   @Test
+    public void reverseIndexFollowsTranslationChanges() throws Exception {
+        var vocabulary = new Vocabulary("en", "ru", Path.of(
+                getClass().getResource("/vocabulary_en-ru.txt").toURI()));
+        assertEquals(Set.of("maco"), vocabulary.getWordsByTranslation("omac"));
+
+        vocabulary.addTranslation("maco", "shared");
+        vocabulary.addTranslations("musor", Set.of("shared", "other"));
+        vocabulary.appendEntry("taco", Set.of("shared"), 1);
+        vocabulary.addEntry("taco", "TACO", 1);
+        vocabulary.appendEntry("taco", Set.of("shared"), 1);
+        assertEquals(Set.of("maco", "musor", "taco"), vocabulary.getWordsByTranslation("shared"));
+
+        var another = new Vocabulary("en", "ru");
+        another.put("bulk", Set.of("shared", "BULK"), 2);
+        vocabulary.append(another);
+        assertEquals(Set.of("maco", "musor", "taco", "bulk"),
+                vocabulary.getWordsByTranslation("shared"));
+
+        vocabulary.removeEntry("maco");
+        assertEquals(Set.of("musor", "taco", "bulk"), vocabulary.getWordsByTranslation("shared"));
+        assertEquals(Set.of(), vocabulary.getWordsByTranslation("omac"));
+        assertFalse(vocabulary.getTranslationsWordsView().containsKey("MACO"));
+   }
+}
@@ -1,7 +1,12 @@
 package me.raven.grevoc.core;
 
 import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,4 +42,30 @@ class WordlistTest {
 
         System.out.println(wl.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countsWordsOfPlainText() throws Exception {
+        var wl = new Wordlist();
+        wl.appendText(new ByteArrayInputStream("The cat, the DOG!\nДом и дом.\n"
+                .getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("the", "cat", "dog", "дом", "и"), wl.getWordsView());
+        assertEquals(2, wl.getWordsOccurrencesView().get("the"));
+        assertEquals(2, wl.getWordsOccurrencesView().get("дом"));
+    }
+
+    @Test
+    public void exportedCountsAreAppendedBack() throws Exception {
+        var wl = new Wordlist();
+        wl.append(new ByteArrayInputStream("cat\ndog\ncat\n".getBytes(StandardCharsets.UTF_8)));
+
+        var output = new ByteArrayOutputStream();
+        wl.export(output);
+        assertEquals("cat\t2\ndog\t1\n", output.toString(StandardCharsets.UTF_8));
+
+        var copy = new Wordlist();
+        copy.append(new ByteArrayInputStream(output.toByteArray()));
+        copy.append(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(Map.of("cat", 4, "dog", 2), copy.getWordsOccurrencesView());
+    }
+}
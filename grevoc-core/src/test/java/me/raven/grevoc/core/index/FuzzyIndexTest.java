@@ -0,0 +1,107 @@
+package me.raven.grevoc.core.index;
+
+import me.raven.grevoc.core.Vocabulary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyIndexTest {
+    @Test
+    public void findsMisspelledWords() {
+        var index = new FuzzyIndex(List.of("tabaco", "taco", "maco", "musor", "foreword"));
+
+        List<FuzzyIndex.Match> matches = index.find("tobacco", 2, 10);
+        assertEquals("tabaco", matches.get(0).getWord());
+        assertEquals(2, matches.get(0).getDistance());
+
+        assertEquals(List.of("maco", "taco"), index.find("aco", 1, 10).stream()
+                .map(FuzzyIndex.Match::getWord).collect(Collectors.toList()));
+        assertEquals(1, index.find("aco", 1, 1).size());
+        assertTrue(index.find("xyz", 1, 10).isEmpty());
+    }
+
+    @Test
+    public void matchesBruteForceScan() {
+        var random = new Random(11);
+        var words = new HashSet<String>();
+        for(int i = 0; i < 3000; i++)
+            words.add(randomWord(random, 3 + random.nextInt(6), 5));
+
+        var index = new FuzzyIndex(words);
+        var removed = new ArrayList<String>(words).subList(0, 500);
+        removed.forEach(index::remove);
+        removed.forEach(words::remove);
+
+        for(int q = 0; q < 200; q++) {
+            String query = randomWord(random, 2 + random.nextInt(7), 5);
+            int k = random.nextInt(3);
+
+            Set<String> expected = words.stream()
+                    .filter(w -> FuzzyIndex.boundedDistance(query, w, k) <= k)
+                    .collect(Collectors.toSet());
+            Set<String> found = index.find(query, k, Integer.MAX_VALUE).stream()
+                    .map(FuzzyIndex.Match::getWord).collect(Collectors.toSet());
+
+            assertEquals(expected, found, query + " k=" + k);
+        }
+    }
+
+    @Test
+    public void shortQueriesCompareOnlyWordsOfCloseLength() {
+        var random = new Random(5);
+        var words = new HashSet<String>();
+        while(words.size() < 200_000)
+            words.add(randomWord(random, 1 + random.nextInt(12), 26));
+
+        var index = new FuzzyIndex(words);
+        long close_words = words.stream().filter(w -> w.length() <= 4).count();
+        assertTrue(close_words < words.size() / 5);
+
+        for(String query: List.of("ab", "cat", "x")) {
+            long comparisons = index.getComparisons();
+            Set<String> expected = words.stream()
+                    .filter(w -> FuzzyIndex.boundedDistance(query, w, 2) <= 2)
+                    .collect(Collectors.toSet());
+            Set<String> found = index.find(query, 2, Integer.MAX_VALUE).stream()
+                    .map(FuzzyIndex.Match::getWord).collect(Collectors.toSet());
+
+            assertEquals(expected, found, query);
+            assertTrue(index.getComparisons() - comparisons <= words.stream()
+                    .filter(w -> Math.abs(w.length() - query.length()) <= 2).count(), query);
+        }
+    }
+
+    @Test
+    public void boundedDistanceIsLevenshteinDistance() {
+        assertEquals(3, FuzzyIndex.boundedDistance("kitten", "sitting", 5));
+        assertEquals(2, FuzzyIndex.boundedDistance("kitten", "sitting", 1));
+        assertEquals(0, FuzzyIndex.boundedDistance("", "", 0));
+        assertEquals(2, FuzzyIndex.boundedDistance("ab", "", 3));
+    }
+
+    @Test
+    public void followsVocabularyUpdates() {
+        var vocabulary = new Vocabulary("en", "ru");
+        FuzzyIndex index = FuzzyIndex.attach(vocabulary);
+
+        vocabulary.put("musor", Set.of("MUSOR"), 1);
+        assertEquals("musor", index.find("musr", 1, 5).get(0).getWord());
+
+        vocabulary.removeEntry("musor");
+        assertTrue(index.find("musr", 1, 5).isEmpty());
+    }
+
+    private static String randomWord(Random random, int length, int letters) {
+        var word = new StringBuilder();
+        for(int i = 0; i < length; i++)
+            word.append((char) ('a' + random.nextInt(letters)));
+        return word.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package me.raven.grevoc.core.index;
+
+import me.raven.grevoc.core.Vocabulary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+    @Test
+    public void completesPrefixesInSortedOrder() {
+        var index = new PrefixIndex(List.of("tabaco", "taco", "tab", "maco", "t", "table"));
+
+        assertEquals(List.of("t", "tab", "tabaco", "table", "taco"), index.complete("t", 10));
+        assertEquals(List.of("tab", "tabaco"), index.complete("ta", 2));
+        assertEquals(List.of("tab", "tabaco", "table"), index.complete("tab", 10));
+        assertEquals(List.of("table"), index.complete("tabl", 10));
+        assertEquals(List.of(), index.complete("tx", 10));
+        assertEquals(6, index.complete("", 100).size());
+    }
+
+    @Test
+    public void matchesSortedSetUnderRandomUpdates() {
+        var random = new Random(7);
+        var index = new PrefixIndex();
+        var expected = new TreeSet<String>();
+
+        for(int i = 0; i < 20_000; i++) {
+            var word = randomWord(random);
+
+            if(random.nextInt(3) == 0)
+                assertEquals(expected.remove(word), index.remove(word), word);
+            else
+                assertEquals(expected.add(word), index.add(word), word);
+        }
+
+        assertEquals(expected.size(), index.size());
+        for(String prefix: List.of("", "a", "ab", "abc", "ba", "cab")) {
+            var matching = new ArrayList<String>();
+            for(String word: expected.tailSet(prefix))
+                if(word.startsWith(prefix) && matching.size() < 50)
+                    matching.add(word);
+
+            assertEquals(matching, index.complete(prefix, 50), prefix);
+        }
+        expected.forEach(word -> assertTrue(index.contains(word), word));
+    }
+
+    @Test
+    public void staysInSyncWithVocabulary() {
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("musor", Set.of("MUSOR"), 1);
+        PrefixIndex index = PrefixIndex.attach(vocabulary);
+
+        vocabulary.put("mus", Set.of("MUS"), 1);
+        vocabulary.addEntry("maco", "MACO", 1);
+        assertEquals(List.of("mus", "musor"), index.complete("mu", 10));
+
+        vocabulary.removeEntry("musor");
+        assertEquals(List.of("maco", "mus"), index.complete("m", 10));
+    }
+
+    private static String randomWord(Random random) {
+        var word = new StringBuilder();
+        int length = 1 + random.nextInt(6);
+
+        for(int i = 0; i < length; i++)
+            word.append((char) ('a' + random.nextInt(3)));
+
+        return word.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package me.raven.grevoc.core.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.raven.grevoc.core.Vocabulary;
+import me.raven.grevoc.core.VocabularyEnricher;
+import me.raven.grevoc.core.Wordlist;
+import me.raven.grevoc.core.translator.Debug;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+    @TempDir
+    Path temporary_directory;
+
+    @Test
+    public void countersAreSharedByName() {
+        var registry = new MetricsRegistry();
+        registry.counter("a").increment();
+        registry.counter("a").add(4);
+
+        assertEquals(5, registry.getCount("a"));
+        assertEquals(0, registry.getCount("absent"));
+        assertSame(registry.counter("a"), registry.counter("a"));
+    }
+
+    @Test
+    public void histogramPercentilesAreWithinFactorOfTwo() {
+        var histogram = new MetricsRegistry().histogram("latency");
+
+        for(int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        long p50 = histogram.getPercentileNanos(50);
+        assertTrue(p50 >= 500_000 && p50 < 1_000_000, "p50=" + p50);
+        assertEquals(1_000_000, histogram.getPercentileNanos(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(0));
+    }
+
+    @Test
+    public void enricherReportsVocabularyHitRate() throws Exception {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        registry.reset();
+        var vocabulary = new Vocabulary("en", "ru");
+        vocabulary.put("musor", Set.of("MUSOR"), 1);
+        var wordlist = new Wordlist(Path.of(getClass().getResource("/wordlist.txt").toURI()));
+
+        new VocabularyEnricher(vocabulary, new Debug("en", "ru")).enrich(wordlist);
+
+        assertEquals(1, registry.getCount(VocabularyEnricher.KNOWN_WORDS_METRIC));
+        assertEquals(1.0 / wordlist.getWordsView().size(), registry.getRatio(
+                VocabularyEnricher.KNOWN_WORDS_METRIC, VocabularyEnricher.MISSING_WORDS_METRIC));
+        assertTrue(registry.histogram("translator." + Debug.ENGINE_NAME + ".latency")
+                .getCount() > 0);
+    }
+
+    @Test
+    public void snapshotIsWrittenAsJson() throws Exception {
+        var registry = new MetricsRegistry();
+        registry.counter("requests").add(3);
+        registry.histogram("latency").record(2000);
+        Path snapshot_file = temporary_directory.resolve("metrics.json");
+
+        ScheduledExecutorService scheduler = registry.startPeriodicSnapshots(snapshot_file,
+                Duration.ofMillis(10));
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(1, TimeUnit.SECONDS));
+        registry.writeSnapshot(snapshot_file);
+
+        JsonNode snapshot = new ObjectMapper().readTree(snapshot_file.toFile());
+        assertEquals(3, snapshot.get("counters").get("requests").asLong());
+        assertEquals(1, snapshot.get("histograms").get("latency").get("count").asLong());
+    }
+
+    @Test
+    public void snapshotsGoOnAfterFailure() throws Exception {
+        var written = new CountDownLatch(1);
+        var attempts = new AtomicInteger();
+        var registry = new MetricsRegistry() {
+            @Override
+            public void writeSnapshot(Path file) throws IOException {
+                if(1 == attempts.incrementAndGet())
+                    throw new IllegalStateException("Simulated failure");
+
+                super.writeSnapshot(file);
+                written.countDown();
+            }
+        };
+
+        ScheduledExecutorService scheduler = registry.startPeriodicSnapshots(
+                temporary_directory.resolve("metrics.json"), Duration.ofMillis(10));
+        try {
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package me.raven.grevoc.core.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowStageTest {
+    /** Subscriber collecting items, consumes them only when released */
+    static class Sink<T> implements Flow.Subscriber<T> {
+        final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final CountDownLatch release;
+
+        Sink(boolean released) {
+            release = new CountDownLatch(released ? 0 : 1);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+            try {
+                release.await();
+            }
+            catch(InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    @Test
+    public void transformsEveryItemInParallel() throws Exception {
+        var source = new SubmissionPublisher<Integer>();
+        var running = new AtomicInteger();
+        var max_running = new AtomicInteger();
+        FlowStage<Integer, Integer> stage = FlowStage.map("square", number -> {
+            max_running.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(2);
+            running.decrementAndGet();
+            return number % 10 == 0 ? null : number * number;
+        }, 4, 16);
+        var sink = new Sink<Integer>(true);
+
+        source.subscribe(stage);
+        stage.subscribe(sink);
+        for(int i = 0; i < 200; i++)
+            source.submit(i);
+        source.close();
+        sink.done.get(10, TimeUnit.SECONDS);
+
+        assertEquals(180, sink.items.size());
+        assertTrue(sink.items.contains(199 * 199));
+        assertTrue(max_running.get() > 1 && max_running.get() <= 4, "Max running " + max_running.get());
+    }
+
+    @Test
+    public void slowConsumerHoldsBackProducer() throws Exception {
+        var source = new SubmissionPublisher<Integer>(Runnable::run, 8);
+        FlowStage<Integer, Integer> stage = FlowStage.map("identity", number -> number, 2, 8);
+        var sink = new Sink<Integer>(false);
+        var submitted = new AtomicInteger();
+
+        source.subscribe(stage);
+        stage.subscribe(sink);
+        var producer = new Thread(() -> {
+            for(int i = 0; i < 10_000; i++) {
+                source.submit(i);
+                submitted.incrementAndGet();
+            }
+            source.close();
+        });
+        producer.start();
+
+        Thread.sleep(300);
+        // stage input, its output and the sink's buffer, nothing queues beyond them
+        assertTrue(submitted.get() < 100, "Submitted while consumer is stuck: " + submitted.get());
+
+        sink.release.countDown();
+        sink.done.get(10, TimeUnit.SECONDS);
+        producer.join();
+        assertEquals(10_000, sink.items.size());
+    }
+
+    @Test
+    public void failureCompletesDownstreamExceptionally() throws Exception {
+        var source = new SubmissionPublisher<Integer>();
+        FlowStage<Integer, Integer> stage = FlowStage.map("failing", number -> {
+            if(5 == number)
+                throw new IllegalStateException("broken item");
+            return number;
+        }, 1, 4);
+        var sink = new Sink<Integer>(true);
+
+        source.subscribe(stage);
+        stage.subscribe(sink);
+        for(int i = 0; i < 10; i++)
+            source.submit(i);
+        source.close();
+
+        var exception = assertThrows(Exception.class, () -> sink.done.get(10, TimeUnit.SECONDS));
+        assertEquals("broken item", exception.getCause().getMessage());
+    }
+
+    @Test
+    public void batchesBySizeAndDelay() throws Exception {
+        var source = new SubmissionPublisher<Integer>();
+        var batch = new BatchStage<Integer>("batch", 4, Duration.ofMillis(50), 4);
+        var sink = new Sink<List<Integer>>(true);
+
+        source.subscribe(batch);
+        batch.subscribe(sink);
+        for(int i = 0; i < 6; i++)
+            source.submit(i);
+
+        // the incomplete batch is emitted by timer, not by completion
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(sink.items.size() < 2 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5)), sink.items);
+
+        source.submit(6);
+        source.close();
+        sink.done.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(6), sink.items.get(2));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package me.raven.grevoc.core.task;
+
+import me.raven.grevoc.core.Vocabulary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRunnerTest {
+    /** Collects events of task */
+    private static class RecordingListener<T> implements TaskListener<T> {
+        private final List<TaskProgress> progress = new CopyOnWriteArrayList<>();
+        private final List<String> outcomes = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void progressChanged(TaskProgress progress) {
+            this.progress.add(progress);
+        }
+
+        @Override
+        public void taskFinished(T result) {
+            outcomes.add("finished " + result);
+            completed.countDown();
+        }
+
+        @Override
+        public void taskFailed(Throwable cause) {
+            outcomes.add("failed " + cause.getMessage());
+            completed.countDown();
+        }
+
+        @Override
+        public void taskCancelled() {
+            outcomes.add("cancelled");
+            completed.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @TempDir
+    Path temporary_directory;
+
+    @Test
+    public void throttlesProgressEvents() throws Exception {
+        try(var runner = new TaskRunner(1, 1, Runnable::run, Duration.ofHours(1))) {
+            var listener = new RecordingListener<Long>();
+            TaskHandle<Long> handle = runner.submit("count", context -> {
+                context.setTotal(1_000_000);
+                for(int i = 0; i < 1_000_000; i++)
+                    context.advance(1);
+                return 1_000_000L;
+            }, listener);
+
+            assertEquals(1_000_000L, handle.get());
+            listener.await();
+            // total, the first step and completion pass the throttle, everything else doesn't
+            assertTrue(listener.progress.size() <= 3, "Events: " + listener.progress.size());
+            assertEquals(1.0, listener.progress.get(listener.progress.size() - 1).getFraction());
+            assertEquals(List.of("finished 1000000"), listener.outcomes);
+        }
+    }
+
+    @Test
+    public void cancellationStopsTaskAtNextCheck() throws Exception {
+        var runner = new TaskRunner(1, 1);
+        var steps = new AtomicLong();
+
+        try {
+            var listener = new RecordingListener<Void>();
+            var started = new CountDownLatch(1);
+
+            TaskHandle<Void> handle = runner.submit("endless", context -> {
+                started.countDown();
+                while(true) {
+                    steps.incrementAndGet();
+                    context.checkCancelled();
+                }
+            }, listener);
+
+            started.await();
+            assertTrue(handle.cancel());
+            listener.await();
+            assertEquals(List.of("cancelled"), listener.outcomes);
+            assertThrows(CancellationException.class, handle::get);
+        }
+        finally {
+            runner.close();
+        }
+
+        assertTrue(runner.awaitTermination(Duration.ofSeconds(10)));
+        long stopped_at = steps.get();
+        Thread.sleep(20);
+        assertEquals(stopped_at, steps.get());
+    }
+
+    @Test
+    public void reportsFailure() throws Exception {
+        try(var runner = new TaskRunner(1, 1)) {
+            var listener = new RecordingListener<Void>();
+            TaskHandle<Void> handle = runner.submit("failing", context -> {
+                throw new IllegalStateException("broken");
+            }, listener);
+
+            listener.await();
+            assertEquals(List.of("failed broken"), listener.outcomes);
+            assertThrows(ExecutionException.class, handle::get);
+        }
+    }
+
+    @Test
+    public void rejectsTasksOverCapacity() throws Exception {
+        var release = new CountDownLatch(1);
+        Task<Void> blocking = context -> {
+            release.await();
+            return null;
+        };
+
+        try(var runner = new TaskRunner(1, 1)) {
+            runner.submit("running", blocking);
+            runner.submit("waiting", blocking);
+            assertThrows(RejectedExecutionException.class, () -> runner.submit("rejected", blocking));
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void importsVocabularyWithByteProgress() throws Exception {
+        Path file = temporary_directory.resolve("vocabulary.txt");
+        var vocabulary = new Vocabulary("en", "ru");
+        for(int i = 0; i < 1000; i++)
+            vocabulary.addEntry("word" + i, Set.of("tr" + i), i + 1);
+        assertTrue(vocabulary.export(file));
+
+        try(var runner = new TaskRunner(1, 1)) {
+            var listener = new RecordingListener<Vocabulary>();
+            TaskHandle<Vocabulary> handle = runner.submit("import",
+                    Tasks.importVocabulary(file, "en", "ru"), listener);
+
+            Vocabulary imported = handle.get();
+            assertEquals(vocabulary.getWordsView(), imported.getWordsView());
+            assertEquals(handle.getProgress().getTotal(), handle.getProgress().getDone());
+        }
+    }
+}
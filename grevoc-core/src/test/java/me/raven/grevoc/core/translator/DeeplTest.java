@@ -9,7 +9,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,10 +33,23 @@ class DeeplTest {
     }
 
     @Test
-    void loadLanguages() {
+    void loadLanguages() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            var deepl = new Deepl("en", "de", "key", server.getDeeplUri());
+            assertTrue(deepl.getLanguages().contains("de"));
+        }
     }
 
     @Test
-    void translate() {
+    void translate() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            var deepl = new Deepl("en", "de", "key", server.getDeeplUri());
+
+            assertEquals(Set.of("CAT"), deepl.translate("cat"));
+            var translations = deepl.translate(List.of("cat", "dog", "house"));
+            assertEquals(Set.of("HOUSE"), translations.get("house"));
+            assertEquals(3, translations.size());
+            assertEquals(14, server.getTranslatedCharacters());
+        }
     }
 }
\ No newline at end of file
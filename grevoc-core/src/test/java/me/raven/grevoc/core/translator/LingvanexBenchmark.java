@@ -0,0 +1,34 @@
+package me.raven.grevoc.core.translator;
+
+import java.lang.management.ManagementFactory;
+
+/** Measures per-request latency and allocation of the whole Lingvanex client stack against
+ * StubTranslationServer. Not a test, run main() with test classpath:
+ * LingvanexBenchmark [requests [warmup-requests]] */
+public class LingvanexBenchmark {
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int warmup_requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        try(var server = new StubTranslationServer()) {
+            var lingvanex = new Lingvanex("en", "ru", "key", server.getLingvanexUri());
+            for(int i = 0; i < warmup_requests; i++)
+                lingvanex.translate("warmup" + i);
+
+            var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread_id = Thread.currentThread().getId();
+            long allocated = threads.getThreadAllocatedBytes(thread_id);
+            long start = System.nanoTime();
+            int failed = 0;
+
+            for(int i = 0; i < requests; i++)
+                if(lingvanex.translate("word" + i).isEmpty())
+                    failed++;
+
+            long elapsed = System.nanoTime() - start;
+            allocated = threads.getThreadAllocatedBytes(thread_id) - allocated;
+            System.out.printf("requests=%d failed=%d latency=%dus/request allocated=%d bytes/request%n",
+                    requests, failed, elapsed / requests / 1000, allocated / requests);
+        }
+    }
+}
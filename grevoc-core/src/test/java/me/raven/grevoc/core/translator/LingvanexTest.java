@@ -18,6 +18,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 class LingvanexTest {
@@ -126,6 +127,59 @@ class LingvanexTest {
 
         assertTrue(Lingvanex.ServerLanguage.isFullCodeFormat("en_US"));
         assertTrue(Lingvanex.ServerLanguage.isFullCodeFormat("en_US"));
+        assertFalse(Lingvanex.ServerLanguage.isFullCodeFormat("en"));
+        assertFalse(Lingvanex.ServerLanguage.isFullCodeFormat("EN_us"));
+    }
+
+    @Test
+    public void parsesLanguagesResponse() {
+        var lingvanex = makeDebugLingvanexObject();
+
+        assertTrue(lingvanex.getSupportedLanguages().size() > 100);
+        assertEquals("en_US", ServerLanguage.getByCode("en", lingvanex.getSupportedLanguages())
+                .getFullCode());
+    }
+
+    @Test
+    public void translatesThroughStubServer() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            var lingvanex = new Lingvanex("en", "ru", "key", server.getLingvanexUri());
+            assertEquals(Set.of("CAT"), lingvanex.translate("cat"));
+
+            var body = server.getLastLingvanexRequest();
+            assertEquals("en_US", body.get("from").asText());
+            assertEquals("ru_RU", body.get("to").asText());
+            assertEquals("cat", body.get("data").asText());
+
+            // the client is reused across requests
+            for(int i = 0; i < 20; i++)
+                assertEquals(Set.of("WORD" + i), lingvanex.translate("word" + i));
+        }
+    }
+
+    @Test
+    public void failedTranslationIsEmpty() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            var lingvanex = new Lingvanex("en", "ru", "key", server.getLingvanexUri());
+            server.setErrors(1, 500);
+
+            assertTrue(lingvanex.translate("cat").isEmpty());
+            assertEquals(1, server.getInjectedErrors());
+        }
+    }
+
+    @Test
+    public void errFieldFailsTranslation() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            var lingvanex = new Lingvanex("en", "ru", "key", server.getLingvanexUri());
+            server.setLingvanexError("Invalid data");
+
+            assertTrue(lingvanex.translate("cat").isEmpty());
+            assertEquals(0, server.getInjectedErrors());
+
+            server.setLingvanexError(null);
+            assertEquals(Set.of("CAT"), lingvanex.translate("cat"));
+        }
     }
 
     //@Test
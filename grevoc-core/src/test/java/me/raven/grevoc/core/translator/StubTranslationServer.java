@@ -0,0 +1,397 @@
+package me.raven.grevoc.core.translator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Local stand-in for online translation APIs, so engines are tested and load-tested with
+ * their whole network stack but without network, costs and irreproducible latency.
+ * Serves Lingvanex getLanguages and translate, and DeepL /v2/languages and /v2/translate as
+ * used by com.deepl.api.Translator. A word is translated to upper case, like Debug does.
+ * Every request gets sampled latency, may be rejected by rate limit (429) or fail with
+ * injected error. Point engines to getLingvanexUri() or getDeeplUri(). The last Lingvanex
+ * translate request is kept, so tests can check what the client sent. */
+public class StubTranslationServer implements AutoCloseable {
+    public static final int DEFAULT_THREADS = 64;
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String LINGVANEX_LANGUAGES_RESOURCE = "/languages-response.json";
+
+    static {
+        // small responses otherwise wait for delayed ACK, adding tens of ms to every request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /** Distribution of server processing time */
+    public interface Latency {
+        long sampleNanos(Random random);
+
+        static Latency none() {
+            return random -> 0;
+        }
+
+        static Latency fixed(Duration latency) {
+            long nanos = latency.toNanos();
+            return random -> nanos;
+        }
+
+        static Latency uniform(Duration min, Duration max) {
+            long min_nanos = min.toNanos();
+            long range = max.toNanos() - min_nanos;
+            if(range < 0)
+                throw new IllegalArgumentException("Max latency is less than min: " + max + " < " + min);
+            return random -> min_nanos + (0 == range ? 0 : Math.floorMod(random.nextLong(), range + 1));
+        }
+
+        /** Long-tailed latency typical of network services
+         *
+         * @param median half of requests are faster
+         * @param sigma spread of logarithm, 0.5 gives p99 about 3.2 times median
+         */
+        static Latency logNormal(Duration median, double sigma) {
+            double mu = Math.log(median.toNanos());
+            return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final byte[] lingvanex_languages;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injected_errors = new AtomicLong();
+    private final AtomicLong rate_limited = new AtomicLong();
+    private final AtomicLong translated_characters = new AtomicLong();
+
+    private volatile Latency latency = Latency.none();
+    private volatile double error_rate = 0;
+    private volatile int error_status = 500;
+    private volatile String lingvanex_error = null;
+    private volatile JsonNode last_lingvanex_request = null;
+    // token bucket of rate limit, guarded by this
+    private double rate_limit = 0;
+    private double tokens = 0;
+    private long refilled_at = 0;
+
+    /** Starts server on loopback with DEFAULT_THREADS request handlers */
+    public StubTranslationServer() throws IOException {
+        this(DEFAULT_THREADS);
+    }
+
+    /** Starts server on loopback
+     *
+     * @param threads count of concurrently handled requests, latency is spent on them
+     */
+    public StubTranslationServer(int threads) throws IOException {
+        try(InputStream is = Objects.requireNonNull(
+                getClass().getResourceAsStream(LINGVANEX_LANGUAGES_RESOURCE),
+                "Missing resource " + LINGVANEX_LANGUAGES_RESOURCE)) {
+            lingvanex_languages = is.readAllBytes();
+        }
+
+        var thread_number = new AtomicInteger();
+        handlers = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "stub-translation-server-" + thread_number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), threads);
+        server.setExecutor(handlers);
+        server.createContext("/getLanguages", exchange -> handle(exchange, this::lingvanexLanguages));
+        server.createContext("/translate", exchange -> handle(exchange, this::lingvanexTranslate));
+        server.createContext("/v2/languages", exchange -> handle(exchange, this::deeplLanguages));
+        server.createContext("/v2/translate", exchange -> handle(exchange, this::deeplTranslate));
+        server.start();
+        LOGGER.debug("Stub translation server listens on port {}", getPort());
+    }
+
+    public StubTranslationServer setLatency(Latency latency) {
+        this.latency = Objects.requireNonNull(latency, "Latency must be non null");
+        return this;
+    }
+
+    /** Makes part of requests fail
+     *
+     * @param error_rate probability of failure, from 0 to 1
+     * @param error_status HTTP status of failed requests
+     */
+    public StubTranslationServer setErrors(double error_rate, int error_status) {
+        if(error_rate < 0 || error_rate > 1)
+            throw new IllegalArgumentException("Error rate must be in [0, 1]: " + error_rate);
+
+        this.error_rate = error_rate;
+        this.error_status = error_status;
+        return this;
+    }
+
+    /** Makes Lingvanex translate answer with status 200 and err field, as Lingvanex reports
+     * requests it can't serve; null turns it off */
+    public StubTranslationServer setLingvanexError(String message) {
+        this.lingvanex_error = message;
+        return this;
+    }
+
+    /** Limits requests per second, burst of the same size is allowed; 0 disables the limit */
+    public synchronized StubTranslationServer setRateLimit(double requests_per_second) {
+        if(requests_per_second < 0)
+            throw new IllegalArgumentException("Rate limit must be non negative: " + requests_per_second);
+
+        rate_limit = requests_per_second;
+        tokens = requests_per_second;
+        refilled_at = System.nanoTime();
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Returns API prefix for Lingvanex(sl, tl, api_key, api_uri_prefix) */
+    public String getLingvanexUri() {
+        return "http://127.0.0.1:" + getPort() + "/";
+    }
+
+    /** Returns server URL for Deepl(sl, tl, api_key, server_url) */
+    public String getDeeplUri() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    /** Returns count of all received requests, including failed and rate limited */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getInjectedErrors() {
+        return injected_errors.get();
+    }
+
+    public long getRateLimited() {
+        return rate_limited.get();
+    }
+
+    /** Returns body of the last Lingvanex translate request, null if there was none */
+    public JsonNode getLastLingvanexRequest() {
+        return last_lingvanex_request;
+    }
+
+    /** Returns characters of successfully translated texts, as APIs bill them */
+    public long getTranslatedCharacters() {
+        return translated_characters.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private interface Endpoint {
+        byte[] respond(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        requests.incrementAndGet();
+
+        try {
+            if(!acquire()) {
+                rate_limited.incrementAndGet();
+                send(exchange, 429, error("Too many requests"));
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(latency.sampleNanos(random));
+
+            if(error_rate > 0 && random.nextDouble() < error_rate) {
+                injected_errors.incrementAndGet();
+                send(exchange, error_status, error("Injected error"));
+                return;
+            }
+
+            send(exchange, 200, endpoint.respond(exchange));
+        }
+        catch(IOException | RuntimeException e) {
+            LOGGER.warn("Stub request {} failed: {}", exchange.getRequestURI(), e.toString());
+            throw e;
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] lingvanexLanguages(HttpExchange exchange) {
+        return lingvanex_languages;
+    }
+
+    private byte[] lingvanexTranslate(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try(InputStream is = exchange.getRequestBody()) {
+            request = MAPPER.readTree(is);
+        }
+        last_lingvanex_request = request;
+
+        String error = lingvanex_error;
+        if(null != error)
+            return json(generator -> {
+                generator.writeStartObject();
+                generator.writeStringField("err", error);
+                generator.writeNullField("result");
+                generator.writeEndObject();
+            });
+
+        String data = request.path("data").asText();
+        translated_characters.addAndGet(data.length());
+
+        return json(generator -> {
+            generator.writeStartObject();
+            generator.writeNullField("err");
+            generator.writeStringField("result", translate(data));
+            generator.writeNumberField("cacheUse", 0);
+            generator.writeStringField("from", request.path("from").asText());
+            generator.writeEndObject();
+        });
+    }
+
+    private byte[] deeplLanguages(HttpExchange exchange) throws IOException {
+        boolean target = formValues(exchange, "type").contains("target");
+
+        return json(generator -> {
+            generator.writeStartArray();
+            for(String[] language: new String[][] {{"DE", "German"}, {"EN", "English"},
+                    {"FR", "French"}, {"RU", "Russian"}}) {
+                generator.writeStartObject();
+                generator.writeStringField("language", language[0]);
+                generator.writeStringField("name", language[1]);
+                if(target)
+                    generator.writeBooleanField("supports_formality", true);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    private byte[] deeplTranslate(HttpExchange exchange) throws IOException {
+        List<String> texts = formValues(exchange, "text");
+        if(texts.isEmpty())
+            throw new IOException("DeepL request has no text");
+
+        return json(generator -> {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("translations");
+            for(String text: texts) {
+                translated_characters.addAndGet(text.length());
+                generator.writeStartObject();
+                generator.writeStringField("detected_source_language", "EN");
+                generator.writeStringField("text", translate(text));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    private static String translate(String text) {
+        return text.toUpperCase(Locale.ROOT);
+    }
+
+    private synchronized boolean acquire() {
+        if(0 == rate_limit)
+            return true;
+
+        long now = System.nanoTime();
+        tokens = Math.min(rate_limit, tokens + (now - refilled_at) * rate_limit / 1e9);
+        refilled_at = now;
+        if(tokens < 1)
+            return false;
+
+        tokens -= 1;
+        return true;
+    }
+
+    /** Error body understood by both clients: Lingvanex reads err, DeepL message */
+    private static byte[] error(String message) throws IOException {
+        return json(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("err", message);
+            generator.writeStringField("message", message);
+            generator.writeEndObject();
+        });
+    }
+
+    /** Reads values of form field from URL-encoded body or query */
+    private static List<String> formValues(HttpExchange exchange, String name) throws IOException {
+        String form;
+        try(InputStream is = exchange.getRequestBody()) {
+            form = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if(form.isEmpty() && null != exchange.getRequestURI().getRawQuery())
+            form = exchange.getRequestURI().getRawQuery();
+
+        var values = new ArrayList<String>();
+        for(String pair: form.split("&")) {
+            int equals = pair.indexOf('=');
+            if(equals > 0 && name.equals(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8)))
+                values.add(URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+
+        return values;
+    }
+
+    private interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static byte[] json(JsonWriter writer) throws IOException {
+        var output = new ByteArrayOutputStream(256);
+        try(JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            writer.write(generator);
+        }
+        return output.toByteArray();
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // clients mustn't pool connections of a stub, a later stub may get the same port
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.sendResponseHeaders(status, body.length);
+        try(OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void sleep(long nanos) {
+        if(nanos <= 0)
+            return;
+
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+        catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package me.raven.grevoc.core.translator;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StubTranslationServerTest {
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @Test
+    public void loadTestsLingvanexConcurrently() throws Exception {
+        try(var server = new StubTranslationServer();
+            var fan_out = TranslationFanOut.create(TranslationFanOut.Mode.AUTO, 32)) {
+            var lingvanex = new Lingvanex("en", "ru", "key", server.getLingvanexUri());
+            server.setLatency(StubTranslationServer.Latency.fixed(Duration.ofMillis(20)));
+
+            var words = new ArrayList<String>();
+            for(int i = 0; i < 320; i++)
+                words.add("word" + i);
+
+            long start = System.nanoTime();
+            var translations = fan_out.translate(lingvanex, words);
+            long elapsed_ms = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(320, translations.size());
+            // 6400 ms sequentially, 10 rounds of 32 concurrent requests otherwise
+            assertTrue(elapsed_ms < 3000, "Elapsed " + elapsed_ms + " ms");
+        }
+    }
+
+    @Test
+    public void injectsErrors() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            server.setErrors(0.5, 503);
+            int failed = 0;
+
+            for(int i = 0; i < 200; i++)
+                if(503 == get(server, "/getLanguages").statusCode())
+                    failed++;
+
+            assertEquals(failed, server.getInjectedErrors());
+            assertTrue(failed > 50 && failed < 150, "Failed " + failed);
+        }
+    }
+
+    @Test
+    public void limitsRate() throws Exception {
+        try(var server = new StubTranslationServer()) {
+            server.setRateLimit(10);
+            int limited = 0;
+
+            for(int i = 0; i < 30; i++)
+                if(429 == get(server, "/getLanguages").statusCode())
+                    limited++;
+
+            assertTrue(limited >= 15, "Rate limited " + limited);
+            assertEquals(limited, server.getRateLimited());
+            assertEquals(30, server.getRequests());
+        }
+    }
+
+    @Test
+    public void samplesLatencyDistributions() {
+        var random = new Random(5);
+        var uniform = StubTranslationServer.Latency.uniform(Duration.ofMillis(10), Duration.ofMillis(20));
+        var log_normal = StubTranslationServer.Latency.logNormal(Duration.ofMillis(10), 0.5);
+        int below_median = 0;
+
+        for(int i = 0; i < 10_000; i++) {
+            long nanos = uniform.sampleNanos(random);
+            assertTrue(nanos >= 10_000_000 && nanos <= 20_000_000);
+            if(log_normal.sampleNanos(random) < 10_000_000)
+                below_median++;
+        }
+
+        assertTrue(Math.abs(below_median - 5000) < 300, "Below median " + below_median);
+    }
+
+    private static HttpResponse<String> get(StubTranslationServer server, String path) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(server.getLingvanexUri() + path.substring(1))).build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
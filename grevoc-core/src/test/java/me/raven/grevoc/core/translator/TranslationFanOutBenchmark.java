@@ -0,0 +1,57 @@
+package me.raven.grevoc.core.translator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Compares fan-out modes on Debug engine with simulated request latency.
+ * Not a test, run main() with test classpath:
+ * TranslationFanOutBenchmark [words [latency-ms [platform-threads]]]
+ * VIRTUAL mode is measured only on JDK with virtual threads. */
+public class TranslationFanOutBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int word_count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int latency_ms = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int platform_threads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        var translator = new Debug("en", "ru");
+        translator.setSimulatedLatency(Duration.ofMillis(latency_ms));
+        var words = new ArrayList<String>(word_count);
+        for(int i = 0; i < word_count; i++)
+            words.add("word" + i);
+
+        System.out.printf("words=%d latency=%dms java=%d%n", word_count, latency_ms,
+                Runtime.version().feature());
+        run(TranslationFanOut.Mode.PLATFORM, platform_threads, translator, words);
+
+        if(TranslationFanOut.isVirtualThreadsSupported())
+            run(TranslationFanOut.Mode.VIRTUAL, word_count, translator, words);
+        else
+            System.out.println("VIRTUAL: not supported by this JDK");
+    }
+
+    private static void run(TranslationFanOut.Mode mode, int parallelism, Translator translator,
+                            List<String> words) throws Exception {
+        try(var fan_out = TranslationFanOut.create(mode, parallelism)) {
+            for(int i = 0; i < WARMUP_ROUNDS; i++)
+                fan_out.translate(translator, words);
+
+            long best = Long.MAX_VALUE;
+            long total = 0;
+            for(int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                fan_out.translate(translator, words);
+                long elapsed = System.nanoTime() - start;
+                best = Math.min(best, elapsed);
+                total += elapsed;
+            }
+
+            System.out.printf("%s parallelism=%d best=%dms mean=%dms throughput=%.0f words/s%n",
+                    mode, parallelism, best / 1_000_000, total / ROUNDS / 1_000_000,
+                    words.size() * 1e9 / best);
+        }
+    }
+}
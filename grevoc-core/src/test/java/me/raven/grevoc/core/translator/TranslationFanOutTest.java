@@ -0,0 +1,115 @@
+package me.raven.grevoc.core.translator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslationFanOutTest {
+    @Test
+    public void translatesEveryWord() throws Exception {
+        try(var fan_out = TranslationFanOut.create(TranslationFanOut.Mode.AUTO, 8)) {
+            var words = List.of("cat", "dog", "house", "tree");
+            var translations = fan_out.translate(new Debug("en", "ru"), words);
+
+            assertEquals(words.size(), translations.size());
+            for(String word: words)
+                assertTrue(translations.get(word).contains(word.toUpperCase()));
+        }
+    }
+
+    @Test
+    public void overlapsRequestLatency() throws Exception {
+        var translator = new Debug("en", "ru");
+        translator.setSimulatedLatency(Duration.ofMillis(50));
+        var words = new ArrayList<String>();
+        for(int i = 0; i < 40; i++)
+            words.add("word" + i);
+
+        try(var fan_out = TranslationFanOut.create(TranslationFanOut.Mode.AUTO, 20)) {
+            long start = System.nanoTime();
+            assertEquals(40, fan_out.translate(translator, words).size());
+            long elapsed_ms = (System.nanoTime() - start) / 1_000_000;
+
+            // sequential run takes 2000 ms, 20 concurrent requests about 100 ms
+            assertTrue(elapsed_ms < 1000, "Elapsed " + elapsed_ms + " ms");
+        }
+    }
+
+    @Test
+    public void boundsConcurrentRequests() throws Exception {
+        var running = new AtomicInteger();
+        var max_running = new AtomicInteger();
+        var requests = new ArrayList<Callable<Integer>>();
+
+        for(int i = 0; i < 50; i++) {
+            int number = i;
+            requests.add(() -> {
+                max_running.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return number;
+            });
+        }
+
+        try(var fan_out = TranslationFanOut.create(TranslationFanOut.Mode.AUTO, 4)) {
+            List<Integer> results = fan_out.invokeAll(requests);
+
+            for(int i = 0; i < 50; i++)
+                assertEquals(i, results.get(i));
+            assertTrue(max_running.get() <= 4, "Max running " + max_running.get());
+        }
+    }
+
+    @Test
+    public void failureCancelsSiblingsBeforeReturning() throws Exception {
+        var running = new AtomicInteger();
+        var requests = new ArrayList<Callable<Void>>();
+
+        for(int i = 0; i < 8; i++) {
+            requests.add(() -> {
+                running.incrementAndGet();
+                try {
+                    Thread.sleep(10_000);
+                }
+                finally {
+                    running.decrementAndGet();
+                }
+                return null;
+            });
+        }
+        requests.add(() -> {
+            Thread.sleep(20);
+            throw new IllegalStateException("engine is down");
+        });
+
+        try(var fan_out = TranslationFanOut.create(TranslationFanOut.Mode.AUTO, 16)) {
+            long start = System.nanoTime();
+            var exception = assertThrows(ExecutionException.class, () -> fan_out.invokeAll(requests));
+
+            assertEquals("engine is down", exception.getCause().getMessage());
+            assertEquals(0, running.get(), "Requests must be finished when call returns");
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+
+    @Test
+    public void autoModeFollowsRuntime() {
+        try(var fan_out = TranslationFanOut.create(TranslationFanOut.Mode.AUTO, 1)) {
+            if(TranslationFanOut.isVirtualThreadsSupported()) {
+                assertEquals(TranslationFanOut.Mode.VIRTUAL, fan_out.getMode());
+            }
+            else {
+                assertEquals(TranslationFanOut.Mode.PLATFORM, fan_out.getMode());
+                assertThrows(IllegalStateException.class,
+                        () -> TranslationFanOut.create(TranslationFanOut.Mode.VIRTUAL, 1));
+            }
+        }
+    }
+}
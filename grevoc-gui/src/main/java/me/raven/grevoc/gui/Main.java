@@ -0,0 +1,70 @@
+package me.raven.grevoc.gui;
+
+import me.raven.grevoc.core.Vocabulary;
+import me.raven.grevoc.core.task.TaskHandle;
+import me.raven.grevoc.core.task.TaskListener;
+import me.raven.grevoc.core.task.TaskProgress;
+import me.raven.grevoc.core.task.TaskRunner;
+import me.raven.grevoc.core.task.Tasks;
+
+import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+import java.nio.file.Path;
+
+/** grevoc-gui entry point: grevoc-gui vocabulary-file [source-language target-language] */
+public class Main {
+    /** Runs long operations of the GUI, events come on event thread */
+    public static final TaskRunner TASK_RUNNER = new TaskRunner(2, 8, SwingUtilities::invokeLater,
+            TaskRunner.DEFAULT_PROGRESS_INTERVAL);
+
+    public static void main(String[] args) {
+        if(args.length != 1 && args.length != 3) {
+            System.err.println("Usage: grevoc-gui vocabulary-file [sl tl]");
+            System.exit(2);
+        }
+
+        Path file = Path.of(args[0]);
+        String sl = args.length == 3 ? args[1] : "en";
+        String tl = args.length == 3 ? args[2] : "ru";
+
+        SwingUtilities.invokeLater(() -> {
+            var frame = new JFrame("grevoc - " + file.getFileName());
+            frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+            frame.setSize(800, 600);
+
+            var progress_panel = new TaskProgressPanel();
+            frame.setContentPane(progress_panel);
+            frame.setVisible(true);
+
+            // import may take a while on large vocabularies, keep event thread free
+            TaskHandle<Vocabulary> handle = TASK_RUNNER.submit("import",
+                    Tasks.importVocabulary(file, sl, tl), new TaskListener<>() {
+                @Override
+                public void progressChanged(TaskProgress progress) {
+                    progress_panel.progressChanged(progress);
+                }
+
+                @Override
+                public void taskFinished(Vocabulary vocabulary) {
+                    frame.setContentPane(new VocabularyBrowser(vocabulary));
+                    frame.revalidate();
+                }
+
+                @Override
+                public void taskFailed(Throwable cause) {
+                    progress_panel.taskFailed(cause);
+                    JOptionPane.showMessageDialog(frame, "Failed to load " + file + ": "
+                            + cause.getMessage(), "grevoc", JOptionPane.ERROR_MESSAGE);
+                }
+
+                @Override
+                public void taskCancelled() {
+                    frame.dispose();
+                }
+            });
+            progress_panel.setTask(handle);
+        });
+    }
+}
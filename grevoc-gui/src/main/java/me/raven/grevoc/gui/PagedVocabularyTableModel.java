@@ -0,0 +1,346 @@
+package me.raven.grevoc.gui;
+
+import me.raven.grevoc.core.Vocabulary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Virtual table model over Vocabulary.
+ * Rows are fetched in pages when JTable asks for them, only a bounded number of pages is kept,
+ * so memory and work per repaint don't depend on vocabulary size. Until its page arrives a row
+ * shows LOADING placeholder. Sorting and filtering build the row order on a background thread,
+ * the event thread only swaps the finished order in.
+ * Vocabulary must not be modified while browsed, call reload() after changing it. */
+public class PagedVocabularyTableModel extends AbstractTableModel {
+    public static final int WORD_COLUMN = 0;
+    public static final int TRANSLATIONS_COLUMN = 1;
+    public static final int OCCURRENCES_COLUMN = 2;
+    public static final int PAGE_SIZE = 256;
+    public static final int MAX_CACHED_PAGES = 64;
+    public static final String LOADING = "…";
+    private static final String[] COLUMN_NAMES = {"Word", "Translations", "Occurrences"};
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    // loader threads exit when idle, so models need no disposal
+    private static final Executor SHARED_EXECUTOR = newSharedExecutor();
+
+    private static final class Page {
+        private final String[] words;
+        private final String[] translations;
+        private final int[] occurrences;
+
+        private Page(int size) {
+            words = new String[size];
+            translations = new String[size];
+            occurrences = new int[size];
+        }
+    }
+
+    private final Vocabulary vocabulary;
+    private final Executor executor;
+    // latest sort or filter request, older results are dropped
+    private final AtomicLong view_request = new AtomicLong();
+
+    // confined to event thread
+    private final Map<Integer, Page> pages = new LinkedHashMap<>(MAX_CACHED_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> pending_pages = new HashSet<>();
+    // vocabulary entry index of every row, null means insertion order
+    private int[] rows;
+    private int row_count;
+    // changes whenever rows are replaced, so pages of previous order are dropped
+    private int view_version = 0;
+    private String filter = "";
+    private int sort_column = -1;
+    private boolean ascending = true;
+
+    /** Constructs model loading pages on background threads shared by all such models */
+    public PagedVocabularyTableModel(Vocabulary vocabulary) {
+        this(vocabulary, SHARED_EXECUTOR);
+    }
+
+    /** Constructs model loading pages, sorting and filtering on executor */
+    public PagedVocabularyTableModel(Vocabulary vocabulary, Executor executor) {
+        this.vocabulary = Objects.requireNonNull(vocabulary, "Vocabulary must be non null");
+        this.executor = Objects.requireNonNull(executor, "Executor must be non null");
+        this.row_count = vocabulary.getWordsView().size();
+    }
+
+    @Override
+    public int getRowCount() {
+        return row_count;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return OCCURRENCES_COLUMN == column ? Integer.class : String.class;
+    }
+
+    /** Returns cell value, or LOADING (null for occurrences) if its page is not loaded yet */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page_index = row / PAGE_SIZE;
+        Page page = pages.get(page_index);
+
+        if(null == page) {
+            requestPage(page_index);
+            return OCCURRENCES_COLUMN == column ? null : LOADING;
+        }
+
+        int offset = row - page_index * PAGE_SIZE;
+        switch(column) {
+            case WORD_COLUMN:
+                return page.words[offset];
+            case TRANSLATIONS_COLUMN:
+                return page.translations[offset];
+            default:
+                return page.occurrences[offset];
+        }
+    }
+
+    /** Shows only words containing text, case-insensitive; empty text shows all words */
+    public void setFilter(String text) {
+        filter = Objects.requireNonNull(text, "Filter must be non null").toLowerCase(Locale.ROOT);
+        updateView();
+    }
+
+    /** Sorts rows by word or occurrences column
+     *
+     * @param column WORD_COLUMN, OCCURRENCES_COLUMN, or -1 for insertion order
+     * @param ascending sort order
+     */
+    public void sortBy(int column, boolean ascending) {
+        if(-1 != column && !isSortable(column))
+            throw new IllegalArgumentException("Column can't be sorted: " + column);
+
+        this.sort_column = column;
+        this.ascending = ascending;
+        updateView();
+    }
+
+    public boolean isSortable(int column) {
+        return WORD_COLUMN == column || OCCURRENCES_COLUMN == column;
+    }
+
+    public int getSortColumn() {
+        return sort_column;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /** Rebuilds rows after vocabulary has been changed */
+    public void reload() {
+        updateView();
+    }
+
+    private static Executor newSharedExecutor() {
+        var thread_number = new AtomicInteger();
+        var executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            var thread = new Thread(runnable, "grevoc-table-loader-" + thread_number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void requestPage(int page_index) {
+        if(!pending_pages.add(page_index))
+            return;
+
+        int version = view_version;
+        int[] page_rows = rows;
+        int from = page_index * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, row_count);
+
+        executor.execute(() -> {
+            Page page = null;
+            try {
+                page = loadPage(page_rows, from, to);
+            }
+            catch(RuntimeException re) {
+                LOGGER.error("Failed to load rows {}-{}", from, to, re);
+            }
+
+            Page loaded = page;
+            SwingUtilities.invokeLater(() -> {
+                if(version != view_version)
+                    return;
+
+                pending_pages.remove(page_index);
+                if(null != loaded) {
+                    pages.put(page_index, loaded);
+                    fireTableRowsUpdated(from, to - 1);
+                }
+            });
+        });
+    }
+
+    private Page loadPage(int[] page_rows, int from, int to) {
+        List<String> words = vocabulary.getWordsView();
+        Map<String, Set<String>> translations = vocabulary.getWordsTranslationsView();
+        Map<String, Integer> occurrences = vocabulary.getWordsOccurrencesView();
+        var page = new Page(to - from);
+
+        for(int row = from; row < to; row++) {
+            String word = words.get(null == page_rows ? row : page_rows[row]);
+            page.words[row - from] = word;
+            page.translations[row - from] = String.join(", ", translations.get(word));
+            page.occurrences[row - from] = occurrences.get(word);
+        }
+
+        return page;
+    }
+
+    private void updateView() {
+        long request = view_request.incrementAndGet();
+        String view_filter = filter;
+        int view_sort_column = sort_column;
+        boolean view_ascending = ascending;
+
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            int[] new_rows = buildRows(view_filter, view_sort_column, view_ascending, request);
+            if(request != view_request.get())
+                return;
+
+            LOGGER.debug("Rows built in {} ms", (System.nanoTime() - start) / 1_000_000);
+            SwingUtilities.invokeLater(() -> {
+                if(request != view_request.get())
+                    return;
+
+                rows = new_rows;
+                row_count = null == new_rows ? vocabulary.getWordsView().size() : new_rows.length;
+                view_version++;
+                pages.clear();
+                pending_pages.clear();
+                fireTableDataChanged();
+            });
+        });
+    }
+
+    /** Builds row order, returns null for unfiltered insertion order */
+    private int[] buildRows(String view_filter, int view_sort_column, boolean view_ascending,
+                            long request) {
+        List<String> words = vocabulary.getWordsView();
+        if(view_filter.isEmpty() && -1 == view_sort_column)
+            return null;
+
+        int[] matching = new int[words.size()];
+        int count = 0;
+
+        for(int i = 0; i < words.size(); i++) {
+            // give up early if user has typed on
+            if(0 == (i & 0xFFFF) && request != view_request.get())
+                return null;
+            if(view_filter.isEmpty() || words.get(i).toLowerCase(Locale.ROOT).contains(view_filter))
+                matching[count++] = i;
+        }
+        matching = Arrays.copyOf(matching, count);
+
+        if(OCCURRENCES_COLUMN == view_sort_column)
+            sortByOccurrences(matching, view_ascending);
+        else if(WORD_COLUMN == view_sort_column)
+            sortByWord(matching, words, view_ascending);
+
+        return matching;
+    }
+
+    /** Sorts primitive keys of occurrences and index, avoiding boxing of millions of rows */
+    private void sortByOccurrences(int[] indexes, boolean view_ascending) {
+        Map<String, Integer> occurrences = vocabulary.getWordsOccurrencesView();
+        List<String> words = vocabulary.getWordsView();
+        long[] keys = new long[indexes.length];
+
+        for(int i = 0; i < indexes.length; i++) {
+            long occurrence = occurrences.get(words.get(indexes[i]));
+            keys[i] = (view_ascending ? occurrence : -occurrence) << 32 | indexes[i];
+        }
+
+        Arrays.sort(keys);
+        for(int i = 0; i < keys.length; i++)
+            indexes[i] = (int) keys[i];
+    }
+
+    /** Sorts index by word, words are copied to array sorted along with index, so rows aren't
+     * boxed and comparisons don't go through List */
+    private static void sortByWord(int[] indexes, List<String> words, boolean view_ascending) {
+        String[] keys = new String[indexes.length];
+        for(int i = 0; i < indexes.length; i++)
+            keys[i] = words.get(indexes[i]);
+
+        mergeSort(keys.clone(), indexes.clone(), keys, indexes, 0, indexes.length,
+                view_ascending ? 1 : -1);
+    }
+
+    /** Sorts range of keys with parallel indexes; auxiliary arrays must hold the same range on
+     * entry, their content is lost */
+    private static void mergeSort(String[] aux_keys, int[] aux_indexes, String[] keys,
+                                  int[] indexes, int from, int to, int order) {
+        if(to - from < INSERTION_SORT_THRESHOLD) {
+            for(int i = from + 1; i < to; i++) {
+                String key = keys[i];
+                int index = indexes[i];
+                int j = i - 1;
+
+                for(; j >= from && order * keys[j].compareTo(key) > 0; j--) {
+                    keys[j + 1] = keys[j];
+                    indexes[j + 1] = indexes[j];
+                }
+                keys[j + 1] = key;
+                indexes[j + 1] = index;
+            }
+            return;
+        }
+
+        // halves are sorted into auxiliary arrays, then merged back
+        int middle = (from + to) >>> 1;
+        mergeSort(keys, indexes, aux_keys, aux_indexes, from, middle, order);
+        mergeSort(keys, indexes, aux_keys, aux_indexes, middle, to, order);
+
+        for(int i = from, left = from, right = middle; i < to; i++) {
+            if(right >= to || left < middle
+                    && order * aux_keys[left].compareTo(aux_keys[right]) <= 0) {
+                keys[i] = aux_keys[left];
+                indexes[i] = aux_indexes[left++];
+            }
+            else {
+                keys[i] = aux_keys[right];
+                indexes[i] = aux_indexes[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package me.raven.grevoc.gui;
+
+import me.raven.grevoc.core.task.TaskHandle;
+import me.raven.grevoc.core.task.TaskListener;
+import me.raven.grevoc.core.task.TaskProgress;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import java.awt.BorderLayout;
+
+/** Progress bar with cancel button of a background task.
+ * Panel is the task listener, TaskRunner must deliver events on the event thread. */
+public class TaskProgressPanel extends JPanel implements TaskListener<Object> {
+    private final JProgressBar progress_bar = new JProgressBar(0, 1000);
+    private final JLabel message = new JLabel(" ");
+    private final JButton cancel_button = new JButton("Cancel");
+    private TaskHandle<?> handle;
+
+    public TaskProgressPanel() {
+        super(new BorderLayout(4, 4));
+        setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        progress_bar.setStringPainted(true);
+        cancel_button.addActionListener(e -> {
+            if(null != handle)
+                handle.cancel();
+        });
+
+        add(message, BorderLayout.NORTH);
+        add(progress_bar, BorderLayout.CENTER);
+        add(cancel_button, BorderLayout.EAST);
+    }
+
+    /** Binds panel to task so cancel button cancels it */
+    public void setTask(TaskHandle<?> handle) {
+        this.handle = handle;
+        cancel_button.setEnabled(true);
+    }
+
+    @Override
+    public void progressChanged(TaskProgress progress) {
+        message.setText(progress.getMessage());
+        double fraction = progress.getFraction();
+        progress_bar.setIndeterminate(fraction < 0);
+        if(fraction >= 0)
+            progress_bar.setValue((int) (fraction * progress_bar.getMaximum()));
+    }
+
+    @Override
+    public void taskFinished(Object result) {
+        finish("Done");
+    }
+
+    @Override
+    public void taskFailed(Throwable cause) {
+        finish("Failed: " + cause.getMessage());
+    }
+
+    @Override
+    public void taskCancelled() {
+        finish("Cancelled");
+    }
+
+    private void finish(String text) {
+        message.setText(text);
+        progress_bar.setIndeterminate(false);
+        cancel_button.setEnabled(false);
+    }
+}
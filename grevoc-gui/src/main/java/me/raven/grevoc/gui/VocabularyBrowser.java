@@ -0,0 +1,90 @@
+package me.raven.grevoc.gui;
+
+import me.raven.grevoc.core.Vocabulary;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.BorderLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/** Panel browsing Vocabulary in a table with filter field.
+ * Clicking word or occurrences header sorts by that column, the next click reverses order.
+ * @see me.raven.grevoc.gui.PagedVocabularyTableModel */
+public class VocabularyBrowser extends JPanel {
+    /** Delay after the last keystroke before filter is applied */
+    public static final int FILTER_DELAY_MS = 200;
+
+    private final PagedVocabularyTableModel model;
+    private final JTable table;
+
+    public VocabularyBrowser(Vocabulary vocabulary) {
+        super(new BorderLayout());
+        model = new PagedVocabularyTableModel(vocabulary);
+        table = new JTable(model);
+        // sorting is done by model on whole vocabulary, not by JTable on loaded rows
+        table.setAutoCreateRowSorter(false);
+        table.setFillsViewportHeight(true);
+
+        var filter_field = new JTextField();
+        var status = new JLabel();
+        var filter_timer = new Timer(FILTER_DELAY_MS, e -> model.setFilter(filter_field.getText()));
+        filter_timer.setRepeats(false);
+
+        filter_field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filter_timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filter_timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filter_timer.restart();
+            }
+        });
+
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if(!model.isSortable(column))
+                    return;
+
+                boolean ascending = column != model.getSortColumn() || !model.isAscending();
+                model.sortBy(column, ascending);
+            }
+        });
+
+        model.addTableModelListener(e -> status.setText(model.getRowCount() + " entries"));
+        status.setText(model.getRowCount() + " entries");
+
+        var top = new JPanel(new BorderLayout(4, 0));
+        top.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        top.add(new JLabel("Filter:"), BorderLayout.WEST);
+        top.add(filter_field, BorderLayout.CENTER);
+        top.add(status, BorderLayout.EAST);
+
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    public PagedVocabularyTableModel getModel() {
+        return model;
+    }
+
+    public JTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,125 @@
+package me.raven.grevoc.gui;
+
+import me.raven.grevoc.core.Vocabulary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedVocabularyTableModelTest {
+    private static final int SIZE = 10_000;
+    private Vocabulary vocabulary;
+    private final List<Runnable> tasks = new ArrayList<>();
+    private PagedVocabularyTableModel model;
+
+    @BeforeEach
+    public void createModel() {
+        vocabulary = new Vocabulary("en", "ru");
+        for(int i = 0; i < SIZE; i++)
+            vocabulary.addEntry("word" + i, Set.of("tr" + i), 1 + i % 100);
+
+        // background work is run on demand, so tests see every intermediate state
+        model = new PagedVocabularyTableModel(vocabulary, tasks::add);
+    }
+
+    @Test
+    public void loadsOnlyRequestedPages() throws Exception {
+        var updates = new AtomicInteger();
+        model.addTableModelListener(e -> updates.incrementAndGet());
+
+        assertEquals(SIZE, model.getRowCount());
+        onEventThread(() -> assertEquals(PagedVocabularyTableModel.LOADING, model.getValueAt(300, 0)));
+        onEventThread(() -> model.getValueAt(301, 0));
+        assertEquals(1, tasks.size(), "Rows of the same page share a single load");
+
+        runTasks();
+        onEventThread(() -> {
+            assertEquals("word300", model.getValueAt(300, PagedVocabularyTableModel.WORD_COLUMN));
+            assertEquals("tr300", model.getValueAt(300, PagedVocabularyTableModel.TRANSLATIONS_COLUMN));
+            assertEquals(1, model.getValueAt(300, PagedVocabularyTableModel.OCCURRENCES_COLUMN));
+        });
+        assertEquals(1, updates.get());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void sortsAndFiltersInBackground() throws Exception {
+        onEventThread(() -> model.sortBy(PagedVocabularyTableModel.OCCURRENCES_COLUMN, false));
+        assertEquals(SIZE, model.getRowCount());
+        runTasks();
+
+        onEventThread(() -> model.getValueAt(0, 0));
+        runTasks();
+        onEventThread(() -> {
+            assertEquals(100, model.getValueAt(0, PagedVocabularyTableModel.OCCURRENCES_COLUMN));
+            assertEquals("word99", model.getValueAt(0, PagedVocabularyTableModel.WORD_COLUMN));
+        });
+
+        onEventThread(() -> {
+            model.setFilter("WORD12");
+            model.sortBy(PagedVocabularyTableModel.WORD_COLUMN, true);
+        });
+        runTasks();
+
+        // 12, 120-129, 1200-1299
+        assertEquals(111, model.getRowCount());
+        onEventThread(() -> model.getValueAt(1, 0));
+        runTasks();
+        onEventThread(() -> assertEquals("word120", model.getValueAt(1, 0)));
+    }
+
+    @Test
+    public void sortsAllRowsByWord() throws Exception {
+        var expected = new ArrayList<>(vocabulary.getWordsView());
+        expected.sort(null);
+
+        for(boolean ascending: new boolean[]{true, false}) {
+            onEventThread(() -> model.sortBy(PagedVocabularyTableModel.WORD_COLUMN, ascending));
+            runTasks();
+            onEventThread(() -> {
+                for(int row = 0; row < SIZE; row += PagedVocabularyTableModel.PAGE_SIZE)
+                    model.getValueAt(row, 0);
+            });
+            runTasks();
+
+            var words = new ArrayList<String>();
+            onEventThread(() -> {
+                for(int row = 0; row < SIZE; row++)
+                    words.add((String) model.getValueAt(row, PagedVocabularyTableModel.WORD_COLUMN));
+            });
+            assertEquals(expected, words);
+            Collections.reverse(expected);
+        }
+    }
+
+    @Test
+    public void dropsPagesOfReplacedOrder() throws Exception {
+        onEventThread(() -> model.getValueAt(0, 0));
+        onEventThread(() -> model.sortBy(PagedVocabularyTableModel.WORD_COLUMN, false));
+        runTasks();
+
+        onEventThread(() -> assertEquals(PagedVocabularyTableModel.LOADING, model.getValueAt(0, 0)));
+        runTasks();
+        onEventThread(() -> assertEquals("word9999", model.getValueAt(0, 0)));
+    }
+
+    private void runTasks() throws Exception {
+        while(!tasks.isEmpty()) {
+            var pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+            onEventThread(() -> {});
+        }
+    }
+
+    private static void onEventThread(Runnable action) throws Exception {
+        SwingUtilities.invokeAndWait(action);
+    }
+}